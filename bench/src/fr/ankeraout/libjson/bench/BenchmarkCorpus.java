@@ -0,0 +1,154 @@
+package fr.ankeraout.libjson.bench;
+
+import java.util.Random;
+
+/**
+ * This class generates the JSON documents used by the benchmarks. The documents are generated
+ * with a fixed random seed, so that every run measures the same inputs.
+ * @author Ankeraout
+ *
+ */
+public final class BenchmarkCorpus {
+	/**
+	 * The words used for generating the text values.
+	 */
+	private static final String[] WORDS = {
+		"request", "completed", "user", "session", "timeout", "cache", "miss", "hit", "retry",
+		"connection", "closed", "payload", "accepted", "rejected", "invalid", "token", "quota"
+	};
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private BenchmarkCorpus() {
+		
+	}
+	
+	/**
+	 * Returns a small document, similar to a typical REST API response.
+	 * @return The JSON document
+	 */
+	public static String smallApiPayload() {
+		return "{\"id\":12345,\"name\":\"example\",\"tags\":[\"a\",\"b\",\"c\"],"
+			+ "\"active\":true,\"score\":98.5,\"owner\":{\"id\":42,\"name\":\"owner\",\"email\":null},"
+			+ "\"history\":[{\"t\":1,\"v\":0.5},{\"t\":2,\"v\":0.75},{\"t\":3,\"v\":1.0}]}";
+	}
+	
+	/**
+	 * Returns an array containing the given number of numbers. Half of them are integers, the other
+	 * half are decimal numbers.
+	 * @param count The number of elements in the array
+	 * @return The JSON document
+	 */
+	public static String numberArray(int count) {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder(count * 12);
+		
+		sb.append('[');
+		
+		for(int i = 0; i < count; i++) {
+			if(i != 0) {
+				sb.append(',');
+			}
+			
+			if((i & 1) == 0) {
+				sb.append(random.nextInt(1000000) - 500000);
+			} else {
+				sb.append(random.nextDouble() * 1000.0);
+			}
+		}
+		
+		sb.append(']');
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Returns a document made of nested objects and arrays.
+	 * @param depth The nesting depth of the document
+	 * @return The JSON document
+	 */
+	public static String nestedDocument(int depth) {
+		StringBuilder sb = new StringBuilder(depth * 24);
+		
+		for(int i = 0; i < depth; i++) {
+			if((i & 1) == 0) {
+				sb.append("{\"level\":").append(i).append(",\"child\":");
+			} else {
+				sb.append("[").append(i).append(",");
+			}
+		}
+		
+		sb.append("null");
+		
+		for(int i = depth - 1; i >= 0; i--) {
+			sb.append((i & 1) == 0 ? '}' : ']');
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Returns a document made of empty arrays nested in each other, which only contains
+	 * structural tokens.
+	 * @param depth The nesting depth of the document
+	 * @return The JSON document
+	 */
+	public static String nestedArrays(int depth) {
+		StringBuilder sb = new StringBuilder(depth * 2);
+		
+		for(int i = 0; i < depth; i++) {
+			sb.append('[');
+		}
+		
+		for(int i = 0; i < depth; i++) {
+			sb.append(']');
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Returns an array of log records, most of the document being made of string values, some of
+	 * them containing escape sequences.
+	 * @param count The number of log records
+	 * @return The JSON document
+	 */
+	public static String logRecords(int count) {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder(count * 160);
+		
+		sb.append('[');
+		
+		for(int i = 0; i < count; i++) {
+			if(i != 0) {
+				sb.append(',');
+			}
+			
+			sb.append("{\"timestamp\":\"2024-01-01T00:00:").append(i % 60).append("Z\",");
+			sb.append("\"level\":\"").append(random.nextInt(10) == 0 ? "ERROR" : "INFO").append("\",");
+			sb.append("\"logger\":\"fr.ankeraout.service.Handler\",");
+			sb.append("\"message\":\"");
+			
+			int wordCount = 8 + random.nextInt(16);
+			
+			for(int j = 0; j < wordCount; j++) {
+				if(j != 0) {
+					sb.append(' ');
+				}
+				
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			
+			if(random.nextInt(4) == 0) {
+				sb.append(" \\\"C:\\\\temp\\\\file.txt\\\"\\n\\tat line ").append(i);
+			}
+			
+			sb.append("\"}");
+		}
+		
+		sb.append(']');
+		
+		return sb.toString();
+	}
+}
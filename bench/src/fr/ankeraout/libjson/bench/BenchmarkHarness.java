@@ -0,0 +1,173 @@
+package fr.ankeraout.libjson.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.regex.Pattern;
+
+/**
+ * This class contains a small benchmark harness. Each benchmark is run during a number of warmup
+ * iterations, then during a number of measurement iterations. The harness reports the throughput
+ * (operations per second), the average time per operation and the number of bytes allocated per
+ * operation (as measured by the per-thread allocation counter of the JVM).
+ *
+ * The harness can be configured using the following system properties:
+ * <ul>
+ * <li>bench.warmup: the number of warmup iterations (default: 3)</li>
+ * <li>bench.iterations: the number of measurement iterations (default: 5)</li>
+ * <li>bench.time: the duration of each iteration in milliseconds (default: 1000)</li>
+ * <li>bench.filter: a regular expression, only the benchmarks whose name contains a match are run
+ * (default: run all the benchmarks)</li>
+ * </ul>
+ * @author Ankeraout
+ *
+ */
+public final class BenchmarkHarness {
+	/**
+	 * The number of warmup iterations.
+	 */
+	private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmup", 3);
+	
+	/**
+	 * The number of measurement iterations.
+	 */
+	private static final int MEASUREMENT_ITERATIONS = Integer.getInteger("bench.iterations", 5);
+	
+	/**
+	 * The duration of each iteration, in nanoseconds.
+	 */
+	private static final long ITERATION_TIME_NS = Long.getLong("bench.time", 1000L) * 1000000L;
+	
+	/**
+	 * The filter applied to the benchmark names, or null if all the benchmarks are run.
+	 */
+	private static final Pattern FILTER = System.getProperty("bench.filter") == null ? null : Pattern.compile(System.getProperty("bench.filter"));
+	
+	/**
+	 * The thread management bean used for reading the per-thread allocation counter, or null if
+	 * it is not supported by the JVM.
+	 */
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = BenchmarkHarness.getAllocationBean();
+	
+	/**
+	 * This field receives the results of the operations so that they can not be optimized away.
+	 */
+	private static volatile int sink;
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private BenchmarkHarness() {
+		
+	}
+	
+	/**
+	 * Prints the header of the result table.
+	 */
+	public static void printHeader() {
+		System.out.printf("%-48s %14s %14s %14s%n", "Benchmark", "ops/s", "ns/op", "B/op");
+	}
+	
+	/**
+	 * Runs the given benchmark and prints its results, unless its name does not match the filter.
+	 * @param name The name of the benchmark
+	 * @param operation The operation to measure
+	 * @return The average time of the operation in nanoseconds, or NaN if the benchmark was
+	 * filtered out.
+	 * @throws Exception If the operation fails.
+	 */
+	public static double run(String name, BenchmarkOperation operation) throws Exception {
+		if(FILTER != null && !FILTER.matcher(name).find()) {
+			return Double.NaN;
+		}
+		
+		for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+			BenchmarkHarness.iterate(operation);
+		}
+		
+		long totalOperations = 0;
+		long totalTime = 0;
+		long totalAllocated = 0;
+		
+		for(int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+			long allocatedBefore = BenchmarkHarness.allocatedBytes();
+			long start = System.nanoTime();
+			long operations = BenchmarkHarness.iterate(operation);
+			
+			totalTime += System.nanoTime() - start;
+			totalAllocated += BenchmarkHarness.allocatedBytes() - allocatedBefore;
+			totalOperations += operations;
+		}
+		
+		double nsPerOperation = (double)totalTime / totalOperations;
+		
+		System.out.printf(
+			"%-48s %14.1f %14.1f %14s%n",
+			name,
+			1e9 / nsPerOperation,
+			nsPerOperation,
+			ALLOCATION_BEAN == null ? "n/a" : String.format("%.0f", (double)totalAllocated / totalOperations)
+		);
+		
+		return nsPerOperation;
+	}
+	
+	/**
+	 * Runs the given operation repeatedly during one iteration.
+	 * @param operation The operation to run
+	 * @return The number of times the operation was run.
+	 * @throws Exception If the operation fails.
+	 */
+	private static long iterate(BenchmarkOperation operation) throws Exception {
+		long operations = 0;
+		long end = System.nanoTime() + ITERATION_TIME_NS;
+		int hash = 0;
+		
+		do {
+			Object result = operation.run();
+			
+			if(result != null) {
+				hash += System.identityHashCode(result);
+			}
+			
+			operations++;
+		} while(System.nanoTime() < end);
+		
+		sink += hash;
+		
+		return operations;
+	}
+	
+	/**
+	 * Returns the number of bytes allocated by the current thread so far.
+	 * @return The number of allocated bytes, or 0 if the JVM does not support this measurement.
+	 */
+	private static long allocatedBytes() {
+		if(ALLOCATION_BEAN == null) {
+			return 0;
+		}
+		
+		return ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Returns the thread management bean if it supports measuring the per-thread allocations.
+	 * @return The thread management bean, or null if allocations can not be measured.
+	 */
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		
+		if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)bean;
+		
+		if(!allocationBean.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+		
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		
+		return allocationBean;
+	}
+}
@@ -0,0 +1,16 @@
+package fr.ankeraout.libjson.bench;
+
+/**
+ * This interface represents the operation measured by a benchmark.
+ * @author Ankeraout
+ *
+ */
+public interface BenchmarkOperation {
+	/**
+	 * Runs the operation once. The returned value is consumed by the benchmark harness so that
+	 * the JIT compiler can not eliminate the operation as dead code.
+	 * @return The result of the operation
+	 * @throws Exception If the operation fails.
+	 */
+	Object run() throws Exception;
+}
@@ -0,0 +1,63 @@
+package fr.ankeraout.libjson.bench;
+
+import fr.ankeraout.libjson.JsonParser;
+
+/**
+ * This benchmark measures the heap retained by a large numeric JsonArray built by the JsonParser.
+ * The document is the BenchmarkCorpus.numberArray() document, which mixes integers and decimal
+ * numbers like the vectors of telemetry payloads. The first argument is the number of elements
+ * (default: 1000000). Run it with a heap large enough for the document and its tree:
+ * <pre>
+ * java -Xmx2g -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonArrayFootprintBenchmark 1000000
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public final class JsonArrayFootprintBenchmark {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonArrayFootprintBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args The command line arguments
+	 * @throws Exception If the document can not be parsed.
+	 */
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		String input = BenchmarkCorpus.numberArray(count);
+		
+		long baseline = JsonArrayFootprintBenchmark.collectAndGetUsedHeap();
+		Object document = JsonParser.parse(input);
+		long retained = JsonArrayFootprintBenchmark.collectAndGetUsedHeap() - baseline;
+		
+		System.out.printf(
+			"elements: %d   retained by the array: %d MB   per element: %.1f bytes%n",
+			count,
+			retained / (1024 * 1024),
+			(double)retained / count
+		);
+		
+		// Keep the document reachable until the measurement is done
+		if(document == null) {
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Runs the garbage collector and returns the amount of heap memory in use.
+	 * @return The used heap memory in bytes
+	 */
+	private static long collectAndGetUsedHeap() {
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		
+		Runtime runtime = Runtime.getRuntime();
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,267 @@
+package fr.ankeraout.libjson.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonBinder;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonObjectReader;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonWriter;
+
+/**
+ * This benchmark compares binding the documents of the BenchmarkCorpus class directly to Java
+ * objects with the JsonBinder, and building the tree with the JsonParser before copying its
+ * values to the same objects with the JsonObjectReader. It also compares writing these objects
+ * with JsonWriter.writeObject(), and copying them to a tree before writing the tree. It can be
+ * run with:
+ * <pre>
+ * java -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonBinderBenchmark
+ * </pre>
+ * See the BenchmarkHarness class for the available options.
+ * @author Ankeraout
+ *
+ */
+public final class JsonBinderBenchmark {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonBinderBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmarks.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If one of the benchmarks fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		final String small = BenchmarkCorpus.smallApiPayload();
+		final String logs = BenchmarkCorpus.logRecords(2000);
+		final JsonBinder binder = new JsonBinder();
+		final JsonParser parser = new JsonParser();
+		
+		BenchmarkHarness.printHeader();
+		
+		BenchmarkHarness.run("binder.bind:small", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return binder.parseDocument(small, ApiPayload.class);
+			}
+		});
+		
+		BenchmarkHarness.run("binder.treeThenRead:small", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return ApiPayload.read((JsonObject)parser.parseDocument(small));
+			}
+		});
+		
+		BenchmarkHarness.run("binder.bind:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return binder.parseDocument(logs, LogRecord[].class);
+			}
+		});
+		
+		BenchmarkHarness.run("binder.treeThenRead:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonArray array = (JsonArray)parser.parseDocument(logs);
+				LogRecord[] records = new LogRecord[array.size()];
+				
+				for(int i = 0; i < records.length; i++) {
+					records[i] = LogRecord.read((JsonObject)array.get(i));
+				}
+				
+				return records;
+			}
+		});
+		
+		final ApiPayload payload = binder.parseDocument(small, ApiPayload.class);
+		final LogRecord[] records = binder.parseDocument(logs, LogRecord[].class);
+		
+		BenchmarkHarness.run("writer.object:small", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return JsonWriter.toJson(payload);
+			}
+		});
+		
+		BenchmarkHarness.run("writer.treeCopy:small", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return payload.toJsonObject().toString();
+			}
+		});
+		
+		BenchmarkHarness.run("writer.object:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return JsonWriter.toJson(records);
+			}
+		});
+		
+		BenchmarkHarness.run("writer.treeCopy:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonArray array = new JsonArray();
+				
+				for(LogRecord record : records) {
+					array.add(record.toJsonObject());
+				}
+				
+				return array.toString();
+			}
+		});
+	}
+	
+	/**
+	 * The objects of the BenchmarkCorpus.smallApiPayload() document.
+	 */
+	public static final class ApiPayload {
+		public long id;
+		public String name;
+		public List<String> tags;
+		public boolean active;
+		public double score;
+		public Owner owner;
+		public List<Sample> history;
+		
+		/**
+		 * Copies the values of the given tree.
+		 * @param object The tree
+		 * @return The payload
+		 * @throws Exception If the tree does not match the payload.
+		 */
+		static ApiPayload read(JsonObject object) throws Exception {
+			JsonObjectReader reader = new JsonObjectReader(object);
+			ApiPayload payload = new ApiPayload();
+			payload.id = reader.getLong("id");
+			payload.name = reader.getString("name");
+			payload.tags = new ArrayList<>();
+			
+			for(Object tag : reader.getJsonArray("tags")) {
+				payload.tags.add((String)tag);
+			}
+			
+			payload.active = reader.getBoolean("active");
+			payload.score = reader.getDouble("score");
+			
+			JsonObjectReader ownerReader = new JsonObjectReader(reader.getJsonObject("owner"));
+			payload.owner = new Owner();
+			payload.owner.id = ownerReader.getLong("id");
+			payload.owner.name = ownerReader.getString("name");
+			payload.owner.email = (String)ownerReader.get("email", null);
+			payload.history = new ArrayList<>();
+			
+			for(Object entry : reader.getJsonArray("history")) {
+				JsonObjectReader sampleReader = new JsonObjectReader((JsonObject)entry);
+				Sample sample = new Sample();
+				sample.t = sampleReader.getLong("t");
+				sample.v = sampleReader.getDouble("v");
+				payload.history.add(sample);
+			}
+			
+			return payload;
+		}
+		
+		/**
+		 * Copies the values of the payload to a tree.
+		 * @return The tree
+		 */
+		JsonObject toJsonObject() {
+			JsonObject object = new JsonObject();
+			object.put("id", this.id);
+			object.put("name", this.name);
+			
+			JsonArray tagArray = new JsonArray();
+			
+			for(String tag : this.tags) {
+				tagArray.add(tag);
+			}
+			
+			object.put("tags", tagArray);
+			object.put("active", this.active);
+			object.put("score", this.score);
+			
+			JsonObject ownerObject = new JsonObject();
+			ownerObject.put("id", this.owner.id);
+			ownerObject.put("name", this.owner.name);
+			ownerObject.put("email", this.owner.email);
+			object.put("owner", ownerObject);
+			
+			JsonArray historyArray = new JsonArray();
+			
+			for(Sample sample : this.history) {
+				JsonObject sampleObject = new JsonObject();
+				sampleObject.put("t", sample.t);
+				sampleObject.put("v", sample.v);
+				historyArray.add(sampleObject);
+			}
+			
+			object.put("history", historyArray);
+			
+			return object;
+		}
+	}
+	
+	/**
+	 * The owner of an ApiPayload.
+	 */
+	public static final class Owner {
+		public long id;
+		public String name;
+		public String email;
+	}
+	
+	/**
+	 * An entry of the history of an ApiPayload.
+	 */
+	public static final class Sample {
+		public long t;
+		public double v;
+	}
+	
+	/**
+	 * The objects of the BenchmarkCorpus.logRecords() document.
+	 */
+	public static final class LogRecord {
+		public String timestamp;
+		public String level;
+		public String logger;
+		public String message;
+		
+		/**
+		 * Copies the values of the given tree.
+		 * @param object The tree
+		 * @return The record
+		 * @throws Exception If the tree does not match the record.
+		 */
+		static LogRecord read(JsonObject object) throws Exception {
+			JsonObjectReader reader = new JsonObjectReader(object);
+			LogRecord record = new LogRecord();
+			record.timestamp = reader.getString("timestamp");
+			record.level = reader.getString("level");
+			record.logger = reader.getString("logger");
+			record.message = reader.getString("message");
+			
+			return record;
+		}
+		
+		/**
+		 * Copies the values of the record to a tree.
+		 * @return The tree
+		 */
+		JsonObject toJsonObject() {
+			JsonObject object = new JsonObject();
+			object.put("timestamp", this.timestamp);
+			object.put("level", this.level);
+			object.put("logger", this.logger);
+			object.put("message", this.message);
+			
+			return object;
+		}
+	}
+}
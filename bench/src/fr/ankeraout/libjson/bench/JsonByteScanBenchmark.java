@@ -0,0 +1,109 @@
+package fr.ankeraout.libjson.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import fr.ankeraout.libjson.JsonLexer;
+
+/**
+ * This benchmark compares the two ways the lexer scans the strings of UTF-8 encoded input: eight
+ * bytes at a time when the input is a byte array, and byte by byte when it is a direct
+ * ByteBuffer, such as a memory-mapped file. Both lexers read the same documents: the log records
+ * of the BenchmarkCorpus class, and arrays of long strings. It can be run with:
+ * <pre>
+ * java -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonByteScanBenchmark
+ * </pre>
+ * See the BenchmarkHarness class for the available options.
+ * @author Ankeraout
+ *
+ */
+public final class JsonByteScanBenchmark {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonByteScanBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmarks.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If one of the benchmarks fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		String[] names = { "logs", "strings16", "strings256" };
+		String[] inputs = {
+			BenchmarkCorpus.logRecords(2000),
+			JsonByteScanBenchmark.stringArray(20000, 16),
+			JsonByteScanBenchmark.stringArray(2000, 256)
+		};
+		
+		BenchmarkHarness.printHeader();
+		
+		for(int i = 0; i < inputs.length; i++) {
+			final byte[] array = inputs[i].getBytes(StandardCharsets.UTF_8);
+			final ByteBuffer direct = ByteBuffer.allocateDirect(array.length);
+			direct.put(array).flip();
+			
+			BenchmarkHarness.run("scan.byteArray:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonByteScanBenchmark.countTokens(new JsonLexer(array));
+				}
+			});
+			
+			BenchmarkHarness.run("scan.directBuffer:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonByteScanBenchmark.countTokens(new JsonLexer(direct.duplicate()));
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Reads all the tokens of the given lexer.
+	 * @param lexer The lexer
+	 * @return The number of tokens
+	 * @throws Exception If the lexer fails to read a token.
+	 */
+	private static int countTokens(JsonLexer lexer) throws Exception {
+		int count = 0;
+		
+		while(lexer.next() != null) {
+			count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Creates an array of ASCII strings with no escape sequence.
+	 * @param count The number of strings
+	 * @param length The number of characters of each string
+	 * @return The JSON representation of the array
+	 */
+	private static String stringArray(int count, int length) {
+		StringBuilder sb = new StringBuilder(count * (length + 3));
+		
+		sb.append('[');
+		
+		for(int i = 0; i < count; i++) {
+			if(i != 0) {
+				sb.append(',');
+			}
+			
+			sb.append('"');
+			
+			for(int j = 0; j < length; j++) {
+				sb.append((char)('a' + (i + j) % 26));
+			}
+			
+			sb.append('"');
+		}
+		
+		sb.append(']');
+		
+		return sb.toString();
+	}
+}
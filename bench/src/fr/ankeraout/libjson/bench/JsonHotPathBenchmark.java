@@ -0,0 +1,339 @@
+package fr.ankeraout.libjson.bench;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonHandler;
+import fr.ankeraout.libjson.JsonLexer;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonReader;
+import fr.ankeraout.libjson.JsonWriter;
+
+/**
+ * This benchmark measures the hot paths of the library (lexer, parser, reader, serializers and writer) on
+ * the documents of the BenchmarkCorpus class. It can be run with:
+ * <pre>
+ * java -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonHotPathBenchmark
+ * </pre>
+ * See the BenchmarkHarness class for the available options.
+ * @author Ankeraout
+ *
+ */
+public final class JsonHotPathBenchmark {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonHotPathBenchmark() {
+		
+	}
+	
+	/**
+	 * Runs the benchmarks.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If one of the benchmarks fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		String[] names = { "small", "numbers", "nested", "logs" };
+		String[] inputs = {
+			BenchmarkCorpus.smallApiPayload(),
+			BenchmarkCorpus.numberArray(20000),
+			BenchmarkCorpus.nestedDocument(500),
+			BenchmarkCorpus.logRecords(2000)
+		};
+		
+		BenchmarkHarness.printHeader();
+		
+		for(int i = 0; i < inputs.length; i++) {
+			final String input = inputs[i];
+			final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+			final Path file = Files.createTempFile("libjson-bench", ".json");
+			final Object document = JsonParser.parse(input);
+			
+			BenchmarkHarness.run("lexer.readToken:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					JsonLexer lexer = new JsonLexer(input);
+					int count = 0;
+					
+					while(lexer.readToken() != null) {
+						count++;
+					}
+					
+					return count;
+				}
+			});
+			
+			BenchmarkHarness.run("lexer.next:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					JsonLexer lexer = new JsonLexer(input);
+					int count = 0;
+					
+					while(lexer.next() != null) {
+						count++;
+					}
+					
+					return count;
+				}
+			});
+			
+			BenchmarkHarness.run("parser.parse:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonParser.parse(input);
+				}
+			});
+			
+			BenchmarkHarness.run("parser.decodeThenParse:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonParser.parse(new String(bytes, StandardCharsets.UTF_8));
+				}
+			});
+			
+			BenchmarkHarness.run("parser.bytes:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonParser.parse(bytes);
+				}
+			});
+			
+			Files.write(file, bytes);
+			file.toFile().deleteOnExit();
+			
+			BenchmarkHarness.run("parser.readFileThenParse:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonParser.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+				}
+			});
+			
+			BenchmarkHarness.run("parser.path:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonParser.parse(file);
+				}
+			});
+			
+			BenchmarkHarness.run("parser.rawNumbers:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return new JsonParser(true).parseDocument(input);
+				}
+			});
+			
+			BenchmarkHarness.run("parser.handler:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					CountingHandler handler = new CountingHandler();
+					JsonParser.parse(input, handler);
+					return handler.count;
+				}
+			});
+			
+			BenchmarkHarness.run("reader.nextEvent:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					JsonReader reader = new JsonReader(input);
+					int count = 0;
+					
+					while(reader.nextEvent() != null) {
+						count++;
+					}
+					
+					return count;
+				}
+			});
+			
+			BenchmarkHarness.run("serializer.compact:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonHotPathBenchmark.serialize(document, false);
+				}
+			});
+			
+			BenchmarkHarness.run("serializer.pretty:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return JsonHotPathBenchmark.serialize(document, true);
+				}
+			});
+			
+			BenchmarkHarness.run("writer.compact:" + names[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					StringBuilder out = new StringBuilder();
+					new JsonWriter(out).writeValue(document);
+					return out;
+				}
+			});
+		}
+		
+		// Deeply nested documents, at the default maximum depth of the parser
+		final String[] deepInputs = {
+			BenchmarkCorpus.nestedArrays(JsonParser.DEFAULT_MAX_DEPTH),
+			BenchmarkCorpus.nestedDocument(JsonParser.DEFAULT_MAX_DEPTH)
+		};
+		String[] deepNames = { "arrays", "nested" };
+		
+		for(int i = 0; i < deepInputs.length; i++) {
+			final String input = deepInputs[i];
+			final JsonParser deepParser = new JsonParser();
+			
+			BenchmarkHarness.run("parser.deep:" + deepNames[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					return deepParser.parseDocument(input);
+				}
+			});
+			
+			BenchmarkHarness.run("parser.deepHandler:" + deepNames[i], new BenchmarkOperation() {
+				@Override
+				public Object run() throws Exception {
+					CountingHandler handler = new CountingHandler();
+					deepParser.parseDocument(new JsonLexer(input), handler);
+					return handler.count;
+				}
+			});
+		}
+		
+		// Cache entries holding a bare value, and the same value wrapped in an array
+		final JsonParser parser = new JsonParser();
+		
+		BenchmarkHarness.run("parser.scalar:number", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return parser.parseDocument("1234567");
+			}
+		});
+		
+		BenchmarkHarness.run("parser.scalar:wrappedNumber", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return ((JsonArray)parser.parseDocument("[1234567]")).get(0);
+			}
+		});
+		
+		BenchmarkHarness.run("parser.scalar:string", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return parser.parseDocument("\"user:1234567\"");
+			}
+		});
+		
+		BenchmarkHarness.run("parser.scalar:wrappedString", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return ((JsonArray)parser.parseDocument("[\"user:1234567\"]")).get(0);
+			}
+		});
+		
+		// Arrays built programmatically from values of all the allowed types
+		final Object[] values = new Object[10000];
+		
+		for(int i = 0; i < values.length; i++) {
+			Object[] samples = { "value" + i, i, (short)i, i % 2 == 0, new BigDecimal(i).movePointLeft(2), new JsonObject() };
+			values[i] = samples[i % samples.length];
+		}
+		
+		final List<Object> valueList = Arrays.asList(values);
+		
+		BenchmarkHarness.run("array.add:mixed", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonArray array = new JsonArray();
+				
+				for(Object value : values) {
+					array.add(value);
+				}
+				
+				return array;
+			}
+		});
+		
+		BenchmarkHarness.run("array.addAll:mixed", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonArray array = new JsonArray();
+				array.addAll(valueList);
+				
+				return array;
+			}
+		});
+	}
+	
+	/**
+	 * Serializes the given JsonObject or JsonArray.
+	 * @param document The JsonObject or JsonArray to serialize
+	 * @param pretty Whether or not the output is indented
+	 * @return The string representation of the document
+	 */
+	private static String serialize(Object document, boolean pretty) {
+		if(document instanceof JsonObject) {
+			return ((JsonObject)document).toString(0, "\t", pretty);
+		} else {
+			return ((JsonArray)document).toString(0, "\t", pretty);
+		}
+	}
+	
+	/**
+	 * This handler counts the values of the document without keeping them.
+	 */
+	private static final class CountingHandler implements JsonHandler {
+		/**
+		 * The number of calls received by the handler
+		 */
+		private int count;
+		
+		@Override
+		public void onStartObject() {
+			this.count++;
+		}
+		
+		@Override
+		public void onEndObject() {
+			this.count++;
+		}
+		
+		@Override
+		public void onStartArray() {
+			this.count++;
+		}
+		
+		@Override
+		public void onEndArray() {
+			this.count++;
+		}
+		
+		@Override
+		public void onKey(String key) {
+			this.count++;
+		}
+		
+		@Override
+		public void onString(String value) {
+			this.count++;
+		}
+		
+		@Override
+		public void onNumber(Number value) {
+			this.count++;
+		}
+		
+		@Override
+		public void onBoolean(boolean value) {
+			this.count++;
+		}
+		
+		@Override
+		public void onNull() {
+			this.count++;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package fr.ankeraout.libjson.bench;
+
+import fr.ankeraout.libjson.JsonLexer;
+
+/**
+ * This benchmark measures the time needed by the lexer to read a single string token of
+ * increasing length, with and without escape sequences. The time per character should stay
+ * roughly constant when the length grows.
+ * @author Ankeraout
+ *
+ */
+public final class JsonLexerStringBenchmark {
+	/**
+	 * The lengths of the strings, in characters.
+	 */
+	private static final int[] LENGTHS = { 1 << 10, 1 << 14, 1 << 18, 1 << 20, 1 << 22 };
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonLexerStringBenchmark() {
+		
+	}
+	
+	/**
+	 * Runs the benchmark. See the BenchmarkHarness class for the available options.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If the lexer fails to read one of the generated strings.
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness.printHeader();
+		
+		for(boolean escaped : new boolean[] { false, true }) {
+			for(int length : LENGTHS) {
+				final String input = createInput(length, escaped);
+				
+				double nsPerOp = BenchmarkHarness.run("lexer.string:escaped=" + escaped + ",length=" + length, new BenchmarkOperation() {
+					@Override
+					public Object run() throws Exception {
+						return new JsonLexer(input).readToken();
+					}
+				});
+				
+				if(!Double.isNaN(nsPerOp)) {
+					System.out.printf("  -> %.3f ns/char%n", nsPerOp / length);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates a JSON string token of the given length.
+	 * @param length The number of characters in the string
+	 * @param escaped Whether or not the string contains escape sequences
+	 * @return The JSON representation of the string
+	 */
+	private static String createInput(int length, boolean escaped) {
+		StringBuilder sb = new StringBuilder(length + 2);
+		
+		sb.append('"');
+		
+		while(sb.length() <= length) {
+			sb.append(escaped ? "log line\\t\\u00e9\\n" : "log line with no escape");
+		}
+		
+		sb.setLength(length + 1);
+		
+		// Do not cut an escape sequence in half
+		while(sb.lastIndexOf("\\") > sb.length() - 7) {
+			sb.setCharAt(sb.lastIndexOf("\\"), 'x');
+		}
+		
+		sb.append('"');
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,185 @@
+package fr.ankeraout.libjson.bench;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonLinesReader;
+import fr.ankeraout.libjson.JsonLinesWriter;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonSequenceReader;
+
+/**
+ * This benchmark compares reading newline-delimited JSON with the JsonLinesReader, sequentially
+ * and on a ForkJoinPool, with parsing each line separately with JsonParser.parse(). It also
+ * compares writing the records with the JsonLinesWriter with writing each record with
+ * toString(). Finally, it compares reading the same records concatenated without any separator
+ * with the JsonSequenceReader, and splitting them with a separate scan before parsing each of
+ * them. The records are the log records of the BenchmarkCorpus class. It can be run with:
+ * <pre>
+ * java -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonLinesBenchmark
+ * </pre>
+ * See the BenchmarkHarness class for the available options.
+ * @author Ankeraout
+ *
+ */
+public final class JsonLinesBenchmark {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonLinesBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmarks.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If one of the benchmarks fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		final JsonArray records = (JsonArray)JsonParser.parse(BenchmarkCorpus.logRecords(20000));
+		final StringBuilder sb = new StringBuilder();
+		
+		try(JsonLinesWriter writer = new JsonLinesWriter(sb)) {
+			for(Object record : records) {
+				writer.write(record);
+			}
+		}
+		
+		final String input = sb.toString();
+		final String concatenated = input.replace("\n", "");
+		final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		
+		BenchmarkHarness.printHeader();
+		
+		BenchmarkHarness.run("lines.perLineParse:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				BufferedReader reader = new BufferedReader(new StringReader(input));
+				String line;
+				int count = 0;
+				
+				while((line = reader.readLine()) != null) {
+					if(JsonParser.parse(line) != null) {
+						count++;
+					}
+				}
+				
+				return count;
+			}
+		});
+		
+		BenchmarkHarness.run("lines.reader:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonLinesReader reader = new JsonLinesReader(new StringReader(input));
+				int count = 0;
+				
+				while(reader.hasNextRecord()) {
+					if(reader.nextRecord() != null) {
+						count++;
+					}
+				}
+				
+				return count;
+			}
+		});
+		
+		BenchmarkHarness.run("lines.parallelReader:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonLinesReader reader = new JsonLinesReader(new StringReader(input), pool);
+				int count = 0;
+				
+				while(reader.hasNextRecord()) {
+					if(reader.nextRecord() != null) {
+						count++;
+					}
+				}
+				
+				return count;
+			}
+		});
+		
+		BenchmarkHarness.run("lines.perRecordToString:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				StringBuilder out = new StringBuilder();
+				
+				for(Object record : records) {
+					out.append(record.toString()).append('\n');
+				}
+				
+				return out.length();
+			}
+		});
+		
+		BenchmarkHarness.run("lines.writer:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				StringBuilder out = new StringBuilder();
+				
+				try(JsonLinesWriter writer = new JsonLinesWriter(out)) {
+					for(Object record : records) {
+						writer.write(record);
+					}
+				}
+				
+				return out.length();
+			}
+		});
+		
+		BenchmarkHarness.run("sequence.splitThenParse:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				int count = 0;
+				int start = 0;
+				int depth = 0;
+				boolean inString = false;
+				
+				for(int i = 0; i < concatenated.length(); i++) {
+					char c = concatenated.charAt(i);
+					
+					if(inString) {
+						if(c == '\\') {
+							i++;
+						} else if(c == '"') {
+							inString = false;
+						}
+					} else if(c == '"') {
+						inString = true;
+					} else if(c == '{' || c == '[') {
+						depth++;
+					} else if((c == '}' || c == ']') && --depth == 0) {
+						if(JsonParser.parse(concatenated.substring(start, i + 1)) != null) {
+							count++;
+						}
+						
+						start = i + 1;
+					}
+				}
+				
+				return count;
+			}
+		});
+		
+		BenchmarkHarness.run("sequence.reader:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				JsonSequenceReader reader = new JsonSequenceReader(concatenated);
+				int count = 0;
+				
+				while(reader.hasNextValue()) {
+					if(reader.nextValue() != null) {
+						count++;
+					}
+				}
+				
+				return count;
+			}
+		});
+		
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,121 @@
+package fr.ankeraout.libjson.bench;
+
+import java.util.Random;
+
+import fr.ankeraout.libjson.JsonParser;
+
+/**
+ * This benchmark measures the heap retained by the trees of small JsonObjects built by the
+ * JsonParser. The document is an array of objects holding 3 to 8 entries each, which is the
+ * typical shape of API payloads and log records. The first argument is the number of objects
+ * (default: 1000000). Run it with a heap large enough for the document and its tree:
+ * <pre>
+ * java -Xmx2g -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonObjectFootprintBenchmark 1000000
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public final class JsonObjectFootprintBenchmark {
+	/**
+	 * The keys of the generated objects.
+	 */
+	private static final String[] KEYS = {
+		"id", "name", "active", "score", "tags", "parent", "created", "level"
+	};
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonObjectFootprintBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args The command line arguments
+	 * @throws Exception If the document can not be parsed.
+	 */
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		String input = JsonObjectFootprintBenchmark.generate(count);
+		
+		long baseline = JsonObjectFootprintBenchmark.collectAndGetUsedHeap();
+		Object document = JsonParser.parse(input);
+		long retained = JsonObjectFootprintBenchmark.collectAndGetUsedHeap() - baseline;
+		
+		System.out.printf(
+			"objects: %d   retained by the tree: %d MB   per object: %.1f bytes%n",
+			count,
+			retained / (1024 * 1024),
+			(double)retained / count
+		);
+		
+		// Keep the document reachable until the measurement is done
+		if(document == null) {
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Generates an array of small objects. The values are small integers, booleans and null, so
+	 * that the retained heap is dominated by the objects themselves rather than by their values.
+	 * @param count The number of objects
+	 * @return The JSON document
+	 */
+	private static String generate(int count) {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder(count * 48);
+		
+		sb.append('[');
+		
+		for(int i = 0; i < count; i++) {
+			int size = 3 + random.nextInt(6);
+			
+			if(i > 0) {
+				sb.append(',');
+			}
+			
+			sb.append('{');
+			
+			for(int j = 0; j < size; j++) {
+				if(j > 0) {
+					sb.append(',');
+				}
+				
+				sb.append('"').append(KEYS[j]).append("\":");
+				
+				switch(j % 3) {
+				case 0:
+					sb.append(random.nextInt(100));
+					break;
+				case 1:
+					sb.append(random.nextBoolean());
+					break;
+				default:
+					sb.append("null");
+					break;
+				}
+			}
+			
+			sb.append('}');
+		}
+		
+		sb.append(']');
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Runs the garbage collector and returns the amount of heap memory in use.
+	 * @return The used heap memory in bytes
+	 */
+	private static long collectAndGetUsedHeap() {
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		
+		Runtime runtime = Runtime.getRuntime();
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
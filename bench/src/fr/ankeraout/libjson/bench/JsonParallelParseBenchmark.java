@@ -0,0 +1,98 @@
+package fr.ankeraout.libjson.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import fr.ankeraout.libjson.JsonParser;
+
+/**
+ * This benchmark measures how JsonParser.parseParallel() scales with the number of threads of the
+ * ForkJoinPool, when parsing a single large array of log records. The speedup is relative to the
+ * sequential JsonParser.parse() method. The first argument is the number of records (default:
+ * 200000), the optional second argument is the maximum number of threads, which defaults to the
+ * number of available processors:
+ * <pre>
+ * java -Xmx4g -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonParallelParseBenchmark 200000 16
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public final class JsonParallelParseBenchmark {
+	/**
+	 * The duration of each measurement, in milliseconds.
+	 */
+	private static final long DURATION_MS = 5000;
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonParallelParseBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args The command line arguments
+	 * @throws Exception If the document can not be parsed.
+	 */
+	public static void main(String[] args) throws Exception {
+		int records = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		byte[] input = BenchmarkCorpus.logRecords(records).getBytes(StandardCharsets.UTF_8);
+		List<Integer> threadCounts = new ArrayList<Integer>();
+		
+		for(int threads = 2; threads < maxThreads; threads *= 2) {
+			threadCounts.add(threads);
+		}
+		
+		if(maxThreads > 1) {
+			threadCounts.add(maxThreads);
+		}
+		
+		System.out.printf("document: %d MB, %d records%n", input.length / (1024 * 1024), records);
+		
+		// Warm up the JIT before measuring anything.
+		ForkJoinPool warmupPool = new ForkJoinPool(Math.max(2, maxThreads));
+		JsonParallelParseBenchmark.measure(input, null, DURATION_MS);
+		JsonParallelParseBenchmark.measure(input, warmupPool, DURATION_MS);
+		warmupPool.shutdown();
+		
+		double baseline = JsonParallelParseBenchmark.measure(input, null, DURATION_MS);
+		System.out.printf("sequential  %8.2f ms/op%n", baseline);
+		
+		for(int threads : threadCounts) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			double time = JsonParallelParseBenchmark.measure(input, pool, DURATION_MS);
+			pool.shutdown();
+			
+			System.out.printf("threads=%-3d %8.2f ms/op  speedup=%.2fx%n", threads, time, baseline / time);
+		}
+	}
+	
+	/**
+	 * Parses the input repeatedly during the given amount of time.
+	 * @param input The UTF-8 encoded document
+	 * @param pool The pool used by parseParallel(), or null for parsing the document sequentially
+	 * @param durationMs The duration of the measurement in milliseconds
+	 * @return The average time needed for parsing the document, in milliseconds.
+	 */
+	private static double measure(byte[] input, ForkJoinPool pool, long durationMs) throws Exception {
+		long start = System.nanoTime();
+		long end = start + durationMs * 1000000L;
+		long count = 0;
+		
+		do {
+			Object document = pool == null ? JsonParser.parse(input) : JsonParser.parseParallel(input, pool);
+			
+			if(document == null) {
+				throw new IllegalStateException();
+			}
+			
+			count++;
+		} while(System.nanoTime() < end);
+		
+		return (System.nanoTime() - start) / 1000000.0 / count;
+	}
+}
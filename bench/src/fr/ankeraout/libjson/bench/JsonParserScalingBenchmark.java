@@ -0,0 +1,115 @@
+package fr.ankeraout.libjson.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.ankeraout.libjson.JsonParser;
+
+/**
+ * This benchmark measures how the throughput of JsonParser scales with the number of threads that
+ * are parsing at the same time. Each thread uses its own JsonParser instance. Near-linear scaling
+ * is expected up to the number of available cores.
+ * @author Ankeraout
+ *
+ */
+public final class JsonParserScalingBenchmark {
+	/**
+	 * The document parsed by every thread.
+	 */
+	private static final String INPUT = BenchmarkCorpus.smallApiPayload();
+	
+	/**
+	 * The duration of each measurement, in milliseconds.
+	 */
+	private static final long DURATION_MS = 2000;
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonParserScalingBenchmark() {
+		
+	}
+	
+	/**
+	 * Runs the benchmark. The optional first argument is the maximum number of threads, which
+	 * defaults to the number of available processors.
+	 * @param args The command line arguments
+	 * @throws Exception If the parsing fails in any of the threads.
+	 */
+	public static void main(String[] args) throws Exception {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		List<Integer> threadCounts = new ArrayList<Integer>();
+		
+		for(int threads = 1; threads < maxThreads; threads *= 2) {
+			threadCounts.add(threads);
+		}
+		
+		threadCounts.add(maxThreads);
+		
+		// Warm up the JIT before measuring anything.
+		measure(maxThreads, DURATION_MS);
+		
+		double baseline = 0;
+		
+		for(int threads : threadCounts) {
+			double opsPerSecond = measure(threads, DURATION_MS);
+			
+			if(threads == 1) {
+				baseline = opsPerSecond;
+			}
+			
+			System.out.printf("threads=%-3d %12.0f ops/s  speedup=%.2fx%n", threads, opsPerSecond, opsPerSecond / baseline);
+		}
+	}
+	
+	/**
+	 * Runs the given number of threads parsing the input document during the given amount of
+	 * time.
+	 * @param threads The number of threads
+	 * @param durationMs The duration of the measurement in milliseconds
+	 * @return The total number of documents parsed per second by all the threads.
+	 */
+	private static double measure(int threads, final long durationMs) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		List<Future<Long>> futures = new ArrayList<Future<Long>>(threads);
+		
+		for(int i = 0; i < threads; i++) {
+			futures.add(executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					JsonParser parser = new JsonParser();
+					long count = 0;
+					
+					startLatch.await();
+					
+					long end = System.nanoTime() + durationMs * 1000000L;
+					
+					while(System.nanoTime() < end) {
+						parser.parseDocument(INPUT);
+						count++;
+					}
+					
+					return count;
+				}
+			}));
+		}
+		
+		startLatch.countDown();
+		
+		long total = 0;
+		
+		for(Future<Long> future : futures) {
+			total += future.get();
+		}
+		
+		executor.shutdown();
+		
+		return total * 1000.0 / durationMs;
+	}
+}
@@ -0,0 +1,80 @@
+package fr.ankeraout.libjson.bench;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonObject;
+
+/**
+ * This regression benchmark measures the time needed by JsonArray.toString() to serialize arrays
+ * of increasing size. The serialization must be linear: the time per element should stay roughly
+ * constant when the size of the array grows.
+ * @author Ankeraout
+ *
+ */
+public final class JsonSerializationScalingBenchmark {
+	/**
+	 * The sizes of the arrays, in elements.
+	 */
+	private static final int[] SIZES = { 10, 10000, 1000000 };
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonSerializationScalingBenchmark() {
+		
+	}
+	
+	/**
+	 * Runs the benchmark. See the BenchmarkHarness class for the available options.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If the serialization fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness.printHeader();
+		
+		for(boolean pretty : new boolean[] { false, true }) {
+			for(int size : SIZES) {
+				final JsonArray array = createArray(size);
+				final boolean newLines = pretty;
+				
+				double nsPerOp = BenchmarkHarness.run("array.toString:pretty=" + pretty + ",size=" + size, new BenchmarkOperation() {
+					@Override
+					public Object run() throws Exception {
+						return array.toString(0, "\t", newLines);
+					}
+				});
+				
+				if(!Double.isNaN(nsPerOp)) {
+					System.out.printf("  -> %.3f ns/element%n", nsPerOp / size);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates an array of the given size, containing numbers, strings and small objects.
+	 * @param size The number of elements in the array
+	 * @return The created array
+	 */
+	private static JsonArray createArray(int size) {
+		JsonArray array = new JsonArray();
+		
+		for(int i = 0; i < size; i++) {
+			switch(i % 3) {
+			case 0:
+				array.add(i);
+				break;
+			case 1:
+				array.add("element " + i);
+				break;
+			default:
+				JsonObject object = new JsonObject();
+				object.put("id", i);
+				object.put("enabled", i % 2 == 0);
+				array.add(object);
+				break;
+			}
+		}
+		
+		return array;
+	}
+}
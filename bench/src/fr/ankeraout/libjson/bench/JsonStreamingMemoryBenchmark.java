@@ -0,0 +1,171 @@
+package fr.ankeraout.libjson.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import fr.ankeraout.libjson.JsonParser;
+
+/**
+ * This benchmark compares the peak heap usage of parsing a large file after loading it into a
+ * String, and of parsing it directly from an InputStream. The first argument is the size of the
+ * generated file in megabytes (default: 64), the second argument is the mode to run ("string",
+ * "stream" or "both", default: "both"). For accurate results, run each mode in its own JVM:
+ * <pre>
+ * java -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonStreamingMemoryBenchmark 256 string
+ * java -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonStreamingMemoryBenchmark 256 stream
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public final class JsonStreamingMemoryBenchmark {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonStreamingMemoryBenchmark() {
+		
+	}
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args The command line arguments
+	 * @throws Exception If the file can not be generated or parsed.
+	 */
+	public static void main(String[] args) throws Exception {
+		int sizeMegabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		String mode = args.length > 1 ? args[1] : "both";
+		File file = File.createTempFile("libjson-bench", ".json");
+		
+		file.deleteOnExit();
+		
+		try {
+			JsonStreamingMemoryBenchmark.generate(file, sizeMegabytes * 1024L * 1024L);
+			
+			System.out.printf("File size: %d bytes%n", file.length());
+			
+			if(mode.equals("string") || mode.equals("both")) {
+				JsonStreamingMemoryBenchmark.measure("string", file);
+			}
+			
+			if(mode.equals("stream") || mode.equals("both")) {
+				JsonStreamingMemoryBenchmark.measure("stream", file);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+	
+	/**
+	 * Generates a JSON file made of an array of log records.
+	 * @param file The file to write
+	 * @param size The approximate size of the file, in bytes
+	 * @throws Exception If the file can not be written.
+	 */
+	private static void generate(File file, long size) throws Exception {
+		String chunk = BenchmarkCorpus.logRecords(1000);
+		String records = chunk.substring(1, chunk.length() - 1);
+		
+		try(Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			long written = 1;
+			
+			writer.write('[');
+			writer.write(records);
+			written += records.length();
+			
+			while(written < size) {
+				writer.write(',');
+				writer.write(records);
+				written += records.length() + 1;
+			}
+			
+			writer.write(']');
+		}
+	}
+	
+	/**
+	 * Parses the given file and prints the peak heap usage during the parsing, and the heap usage
+	 * of the resulting tree.
+	 * @param mode "string" for loading the file into a String first, "stream" for parsing the file
+	 * directly from an InputStream
+	 * @param file The file to parse
+	 * @throws Exception If the file can not be read or parsed.
+	 */
+	private static void measure(String mode, File file) throws Exception {
+		long baseline = JsonStreamingMemoryBenchmark.collectAndGetUsedHeap();
+		Object document;
+		
+		JsonStreamingMemoryBenchmark.resetPeakUsage();
+		
+		if(mode.equals("string")) {
+			String input = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			document = JsonParser.parse(input);
+		} else {
+			try(InputStream inputStream = new FileInputStream(file)) {
+				document = JsonParser.parse(inputStream);
+			}
+		}
+		
+		long peak = JsonStreamingMemoryBenchmark.getPeakUsage();
+		long retained = JsonStreamingMemoryBenchmark.collectAndGetUsedHeap();
+		
+		System.out.printf(
+			"%-8s peak heap: %6d MB   retained by the tree: %6d MB%n",
+			mode,
+			(peak - baseline) / (1024 * 1024),
+			(retained - baseline) / (1024 * 1024)
+		);
+		
+		// Keep the document reachable until the measurement is done
+		if(document == null) {
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Runs the garbage collector and returns the amount of heap memory in use.
+	 * @return The used heap memory in bytes
+	 */
+	private static long collectAndGetUsedHeap() {
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		
+		Runtime runtime = Runtime.getRuntime();
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	/**
+	 * Resets the peak usage of all the heap memory pools.
+	 */
+	private static void resetPeakUsage() {
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the sum of the peak usages of all the heap memory pools since the last call to
+	 * resetPeakUsage().
+	 * @return The peak heap usage in bytes
+	 */
+	private static long getPeakUsage() {
+		long peak = 0;
+		
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		
+		return peak;
+	}
+}
@@ -0,0 +1,165 @@
+package fr.ankeraout.libjson.bench;
+
+import java.nio.charset.StandardCharsets;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonTape;
+
+/**
+ * This benchmark compares the JsonTape with the tree of JsonObject and JsonArray instances built
+ * by the JsonParser. It first measures the heap retained by many documents kept in memory in both
+ * forms, the UTF-8 encoded input of the tapes included, and then the time needed for parsing a
+ * document and for reading one of its values. The documents are the log records of the
+ * BenchmarkCorpus class. It can be run with:
+ * <pre>
+ * java -Xmx2g -cp bin:bench/bin fr.ankeraout.libjson.bench.JsonTapeBenchmark
+ * </pre>
+ * See the BenchmarkHarness class for the available options.
+ * @author Ankeraout
+ *
+ */
+public final class JsonTapeBenchmark {
+	/**
+	 * The number of documents kept in memory for measuring the retained heap.
+	 */
+	private static final int DOCUMENT_COUNT = 100;
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonTapeBenchmark() {
+	
+	}
+	
+	/**
+	 * Runs the benchmarks.
+	 * @param args The command line arguments (unused)
+	 * @throws Exception If one of the benchmarks fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		final String input = BenchmarkCorpus.logRecords(2000);
+		
+		JsonTapeBenchmark.measureFootprint(input);
+		
+		final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+		final JsonTape tape = JsonParser.parseTape(bytes);
+		final JsonArray tree = (JsonArray)JsonParser.parse(bytes);
+		
+		BenchmarkHarness.printHeader();
+		
+		BenchmarkHarness.run("tree.parse:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return JsonParser.parse(bytes);
+			}
+		});
+		
+		BenchmarkHarness.run("tape.parse:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return JsonParser.parseTape(bytes);
+			}
+		});
+		
+		BenchmarkHarness.run("tree.lookup:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return ((JsonObject)tree.get(1500)).get("message");
+			}
+		});
+		
+		BenchmarkHarness.run("tape.lookup:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				return tape.getString(tape.get(tape.get(tape.getRoot(), 1500), "message"));
+			}
+		});
+		
+		BenchmarkHarness.run("tree.scanLevels:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				int errors = 0;
+				
+				for(Object record : tree) {
+					if("ERROR".equals(((JsonObject)record).get("level"))) {
+						errors++;
+					}
+				}
+				
+				return errors;
+			}
+		});
+		
+		BenchmarkHarness.run("tape.scanLevels:logs", new BenchmarkOperation() {
+			@Override
+			public Object run() throws Exception {
+				int root = tape.getRoot();
+				int errors = 0;
+				
+				for(int record = root + 1; record < tape.getEnd(root); record = tape.getEnd(record)) {
+					if(tape.stringEquals(tape.get(record, "level"), "ERROR")) {
+						errors++;
+					}
+				}
+				
+				return errors;
+			}
+		});
+	}
+	
+	/**
+	 * Prints the heap retained by DOCUMENT_COUNT copies of the given document, in both forms.
+	 * @param input The document
+	 * @throws Exception If the document can not be parsed.
+	 */
+	private static void measureFootprint(String input) throws Exception {
+		Object[] documents = new Object[DOCUMENT_COUNT];
+		long baseline = JsonTapeBenchmark.collectAndGetUsedHeap();
+		
+		for(int i = 0; i < DOCUMENT_COUNT; i++) {
+			documents[i] = JsonParser.parse(input);
+		}
+		
+		long trees = JsonTapeBenchmark.collectAndGetUsedHeap() - baseline;
+		
+		for(int i = 0; i < DOCUMENT_COUNT; i++) {
+			documents[i] = null;
+		}
+		
+		baseline = JsonTapeBenchmark.collectAndGetUsedHeap();
+		
+		for(int i = 0; i < DOCUMENT_COUNT; i++) {
+			documents[i] = JsonParser.parseTape(input.getBytes(StandardCharsets.UTF_8));
+		}
+		
+		long tapes = JsonTapeBenchmark.collectAndGetUsedHeap() - baseline;
+		
+		System.out.printf(
+			"documents: %d x %d KB   retained by the trees: %d KB/doc   by the tapes and their input: %d KB/doc%n",
+			DOCUMENT_COUNT,
+			input.length() / 1024,
+			trees / DOCUMENT_COUNT / 1024,
+			tapes / DOCUMENT_COUNT / 1024
+		);
+		
+		// Keep the documents reachable until the measurement is done
+		if(documents[DOCUMENT_COUNT - 1] == null) {
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Runs the garbage collector and returns the amount of heap memory in use.
+	 * @return The used heap memory in bytes
+	 */
+	private static long collectAndGetUsedHeap() {
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -1,21 +1,68 @@
 package fr.ankeraout.libjson;
 
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.RandomAccess;
 
 /**
  * This class represents a JSON array of data. All the elements in the array are ordered.
+ *
+ * Arrays whose elements are all Long or Double objects, which is how the JsonParser represents
+ * the numbers of a document, are stored without boxing their elements: the values are kept in a
+ * long array (the doubles being stored as their bits), along with one bit per element telling
+ * whether it is a Double. The elements are only boxed again when they are read with get(), and
+ * can be read without boxing with getLong(), getDouble(), toLongArray() and toDoubleArray(). As
+ * soon as an element of another type is added, the array switches to an ordinary array of
+ * objects.
  * @author Ankeraout
  *
  */
-public class JsonArray extends ArrayList<Object> {
-	private static final long serialVersionUID = 4846506197285896705L;
+public class JsonArray extends AbstractList<Object> implements RandomAccess, Cloneable, Serializable {
+	private static final long serialVersionUID = -2466187313012582190L;
+	
+	/**
+	 * The initial capacity of the arrays, in elements.
+	 */
+	private static final int INITIAL_CAPACITY = 10;
+	
+	/**
+	 * The storage of the empty arrays that did not choose their storage yet.
+	 */
+	private static final Object[] EMPTY_ELEMENTS = {};
+	
+	/**
+	 * The elements of the array, or null if the array stores numbers.
+	 */
+	private Object[] elements;
+	
+	/**
+	 * The values of the numbers of the array (the bits of the doubles, and the value of the longs),
+	 * or null if the array stores objects.
+	 */
+	private long[] numbers;
+	
+	/**
+	 * One bit per number of the array, set if the number is a Double, or null if the array stores
+	 * objects.
+	 */
+	private long[] doubleFlags;
+	
+	/**
+	 * The number of elements in the array.
+	 */
+	private int size;
 	
 	/**
 	 * Creates a new empty JSON array
 	 */
 	public JsonArray() {
 		super();
+		this.elements = EMPTY_ELEMENTS;
+		this.numbers = null;
+		this.doubleFlags = null;
+		this.size = 0;
 	}
 	
 	/**
@@ -23,7 +70,10 @@ public class JsonArray extends ArrayList<Object> {
 	 * @param c
 	 */
 	public JsonArray(Collection<Object> c) {
-		super(c);
+		this();
+		
+		Object[] elements = c.toArray();
+		this.addElements(elements, elements.length);
 	}
 	
 	/**
@@ -45,101 +95,555 @@ public class JsonArray extends ArrayList<Object> {
 	 * @return A JSON/String representation of the contents of the array.
 	 */
 	public String toString(int indentationLevel, String indentString, boolean newLines) {
-		if(newLines && indentString == null) {
-			indentString = new String();
+		return JsonWriter.toString(this, indentationLevel, indentString, newLines);
+	}
+	
+	/**
+	 * Checks that the given element can be stored in a JSON array.
+	 * @param element The element
+	 * @throws IllegalArgumentException If the type of the element is not allowed.
+	 */
+	private static void checkElementType(Object element) {
+		if(!JsonValueTypes.isAllowed(element)) {
+			throw new IllegalArgumentException("Parameter type not allowed: " + element.getClass().getName());
 		}
+	}
+	
+	/**
+	 * Returns the elements of the given collection, after checking that all of them can be stored
+	 * in a JSON array.
+	 * @param c The collection
+	 * @return The elements of the collection
+	 * @throws IllegalArgumentException If the type of one of the elements is not allowed.
+	 */
+	private static Object[] toCheckedArray(Collection<? extends Object> c) {
+		Object[] elements = c.toArray();
 		
-		String tmpstr = new String();
+		// The elements of a numeric JsonArray are all Long or Double objects
+		if(!(c instanceof JsonArray && ((JsonArray)c).numbers != null)) {
+			for(Object element : elements) {
+				JsonArray.checkElementType(element);
+			}
+		}
 		
-		tmpstr += '[';
+		return elements;
+	}
+	
+	@Override
+	public int size() {
+		return this.size;
+	}
+	
+	@Override
+	public Object get(int index) {
+		this.checkIndex(index);
 		
-		if(newLines) {
-			tmpstr += '\n';
+		if(this.numbers != null) {
+			return this.numberAt(index);
 		}
 		
-		for(int i = 0; i < this.size(); i++) {
-			Object o = this.get(i);
+		return this.elements[index];
+	}
+	
+	@Override
+	public Object set(int index, Object element) {
+		this.checkIndex(index);
+		
+		if(this.numbers != null) {
+			Object previous = this.numberAt(index);
 			
-			if(newLines) {
-				for(int j = 0; j < indentationLevel + 1; j++) {
-					tmpstr += indentString;
-				}
+			if(JsonArray.isNumber(element)) {
+				this.storeNumber(index, element);
+				return previous;
 			}
 			
-			tmpstr += JsonStringUtils.toString(o, indentationLevel + 1, indentString, newLines);
+			this.inflate();
+		}
+		
+		Object previous = this.elements[index];
+		this.elements[index] = element;
+		
+		return previous;
+	}
+	
+	@Override
+	public boolean add(Object e) {
+		JsonArray.checkElementType(e);
+		this.addElement(e);
+		
+		return true;
+	}
+	
+	/**
+	 * Adds the given element at the end of the array, without checking its type. This is used for
+	 * adding the values produced by the JsonParser, whose types are always allowed.
+	 * @param e The element to add
+	 */
+	final void addElement(Object e) {
+		int size = this.size;
+		
+		// Appending to an array that has room left is kept small enough to be inlined
+		if(this.numbers == null) {
+			if(size != 0 && size < this.elements.length) {
+				this.elements[size] = e;
+				this.size = size + 1;
+				this.modCount++;
+				
+				return;
+			}
+		} else if(size < this.numbers.length && JsonArray.isNumber(e)) {
+			this.storeNumber(size, e);
+			this.size = size + 1;
+			this.modCount++;
 			
-			if(i < this.size() - 1) {
-				tmpstr += ',';
+			return;
+		}
+		
+		this.appendElement(e);
+	}
+	
+	/**
+	 * Adds the given element at the end of the array, without checking its type, choosing or
+	 * growing the storage of the array if needed.
+	 * @param e The element to add
+	 */
+	private void appendElement(Object e) {
+		int size = this.size;
+		
+		if(this.numbers == null && size == 0 && JsonArray.isNumber(e)) {
+			this.numbers = new long[INITIAL_CAPACITY];
+			this.doubleFlags = new long[1];
+			this.elements = null;
+		}
+		
+		if(this.numbers != null) {
+			if(JsonArray.isNumber(e)) {
+				if(size == this.numbers.length) {
+					this.growNumbers(size + 1);
+				}
+				
+				this.storeNumber(size, e);
+				this.size = size + 1;
+				this.modCount++;
+				
+				return;
 			}
 			
-			if(newLines) {
-				tmpstr += '\n';
+			this.inflate();
+		}
+		
+		if(size == this.elements.length) {
+			this.growElements(size + 1);
+		}
+		
+		this.elements[size] = e;
+		this.size = size + 1;
+		this.modCount++;
+	}
+	
+	@Override
+	public void add(int index, Object element) {
+		JsonArray.checkElementType(element);
+		
+		if(index < 0 || index > this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+		
+		if(index == this.size) {
+			this.addElement(element);
+			return;
+		}
+		
+		int size = this.size;
+		
+		if(this.numbers != null) {
+			if(JsonArray.isNumber(element)) {
+				if(size == this.numbers.length) {
+					this.growNumbers(size + 1);
+				}
+				
+				System.arraycopy(this.numbers, index, this.numbers, index + 1, size - index);
+				
+				for(int i = size; i > index; i--) {
+					this.setDoubleFlag(i, this.isDoubleAt(i - 1));
+				}
+				
+				this.storeNumber(index, element);
+				this.size = size + 1;
+				this.modCount++;
+				
+				return;
 			}
+			
+			this.inflate();
+		}
+		
+		if(size == this.elements.length) {
+			this.growElements(size + 1);
 		}
 		
-		if(newLines) {
-			for(int i = 0; i < indentationLevel; i++) {
-				tmpstr += indentString;
+		System.arraycopy(this.elements, index, this.elements, index + 1, size - index);
+		this.elements[index] = element;
+		this.size = size + 1;
+		this.modCount++;
+	}
+	
+	@Override
+	public boolean addAll(Collection<? extends Object> c) {
+		if(c instanceof JsonArray) {
+			JsonArray array = (JsonArray)c;
+			
+			// The elements of a numeric JsonArray are all Long or Double objects
+			if(array.numbers == null) {
+				for(int i = 0; i < array.size; i++) {
+					JsonArray.checkElementType(array.elements[i]);
+				}
 			}
+			
+			this.addArray(array);
+			
+			return array.size != 0;
 		}
 		
-		tmpstr += ']';
+		Object[] added = JsonArray.toCheckedArray(c);
+		this.addElements(added, added.length);
 		
-		return tmpstr;
+		return added.length != 0;
 	}
 	
-	private static void checkElementType(Object element) {
-		// Check type of value
-		if(
-			element != null
-			&& !(element instanceof Character)
-			&& !(element instanceof JsonObject)
-			&& !(element instanceof JsonArray)
-			&& !(element instanceof String)
-			&& !(element instanceof Integer)
-			&& !(element instanceof Double)
-			&& !(element instanceof Float)
-			&& !(element instanceof Boolean)
-			&& !(element instanceof Byte)
-			&& !(element instanceof Short)
-			&& !(element instanceof Long)
-		) {
-			throw new IllegalArgumentException("Parameter type not allowed: " + element.getClass().getName());
+	@Override
+	public boolean addAll(int index, Collection<? extends Object> c) {
+		if(index < 0 || index > this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+		
+		Object[] added = JsonArray.toCheckedArray(c);
+		
+		if(index == this.size) {
+			this.addElements(added, added.length);
+		} else if(added.length != 0) {
+			if(this.numbers != null) {
+				this.inflate();
+			}
+			
+			int size = this.size;
+			
+			if(size + added.length > this.elements.length) {
+				this.growElements(size + added.length);
+			}
+			
+			System.arraycopy(this.elements, index, this.elements, index + added.length, size - index);
+			System.arraycopy(added, 0, this.elements, index, added.length);
+			this.size = size + added.length;
+			this.modCount++;
 		}
+		
+		return added.length != 0;
 	}
 	
-	private static void checkElementsType(Collection<? extends Object> elements) {
-		for(Object element : elements) {
-			JsonArray.checkElementType(element);
+	/**
+	 * Adds the elements of the given array at the end of this array, without checking their type.
+	 * The numbers of a numeric array are copied without boxing them.
+	 * @param array The array whose elements are added
+	 */
+	void addArray(JsonArray array) {
+		int size = this.size;
+		int count = array.size;
+		
+		if(array.numbers == null || (this.numbers == null && size != 0)) {
+			this.addElements(array.numbers == null ? array.elements : array.toArray(), count);
+			return;
 		}
+		
+		if(this.numbers == null) {
+			this.numbers = new long[Math.max(count, INITIAL_CAPACITY)];
+			this.doubleFlags = new long[(this.numbers.length + 63) >>> 6];
+			this.elements = null;
+		} else if(size + count > this.numbers.length) {
+			this.growNumbers(size + count);
+		}
+		
+		System.arraycopy(array.numbers, 0, this.numbers, size, count);
+		
+		for(int i = 0; i < count; i++) {
+			this.setDoubleFlag(size + i, array.isDoubleAt(i));
+		}
+		
+		this.size = size + count;
+		this.modCount++;
 	}
 	
-	@Override
-	public void add(int index, Object element) {
-		JsonArray.checkElementType(element);
-		super.add(index, element);
+	/**
+	 * Adds the given elements at the end of the array, without checking their type.
+	 * @param added The array containing the elements to add
+	 * @param count The number of elements to add, from the start of the array
+	 */
+	private void addElements(Object[] added, int count) {
+		int size = this.size;
+		
+		if(this.numbers == null && (size != 0 || count == 0 || !JsonArray.isNumber(added[0]))) {
+			// Arrays of objects never switch to numbers, so the elements are copied at once
+			if(size + count > this.elements.length) {
+				this.growElements(size + count);
+			}
+			
+			System.arraycopy(added, 0, this.elements, size, count);
+			this.size = size + count;
+			this.modCount++;
+			
+			return;
+		}
+		
+		if(this.numbers != null && size + count > this.numbers.length) {
+			this.growNumbers(size + count);
+		}
+		
+		for(int i = 0; i < count; i++) {
+			this.addElement(added[i]);
+		}
 	}
 	
 	@Override
-	public boolean add(Object e) {
-		JsonArray.checkElementType(e);
-		return super.add(e);
+	public Object remove(int index) {
+		Object previous = this.get(index);
+		int moved = this.size - index - 1;
+		
+		if(this.numbers != null) {
+			System.arraycopy(this.numbers, index + 1, this.numbers, index, moved);
+			
+			for(int i = index; i < this.size - 1; i++) {
+				this.setDoubleFlag(i, this.isDoubleAt(i + 1));
+			}
+		} else {
+			System.arraycopy(this.elements, index + 1, this.elements, index, moved);
+			this.elements[this.size - 1] = null;
+		}
+		
+		this.size--;
+		this.modCount++;
+		
+		return previous;
 	}
 	
 	@Override
-	public boolean addAll(Collection<? extends Object> c) {
-		JsonArray.checkElementsType(c);
-		return super.addAll(c);
+	public void clear() {
+		this.elements = EMPTY_ELEMENTS;
+		this.numbers = null;
+		this.doubleFlags = null;
+		this.size = 0;
+		this.modCount++;
+	}
+	
+	/**
+	 * Returns the element at the given position as a long, without boxing it.
+	 * @param index The position of the element
+	 * @return The value of the element, converted to a long as by Number.longValue()
+	 * @throws IndexOutOfBoundsException If the position is out of the array.
+	 * @throws ClassCastException If the element is not a number.
+	 * @throws NullPointerException If the element is null.
+	 */
+	public long getLong(int index) {
+		this.checkIndex(index);
+		
+		if(this.numbers != null) {
+			return this.isDoubleAt(index) ? (long)Double.longBitsToDouble(this.numbers[index]) : this.numbers[index];
+		}
+		
+		return ((Number)this.elements[index]).longValue();
+	}
+	
+	/**
+	 * Returns the element at the given position as a double, without boxing it.
+	 * @param index The position of the element
+	 * @return The value of the element, converted to a double as by Number.doubleValue()
+	 * @throws IndexOutOfBoundsException If the position is out of the array.
+	 * @throws ClassCastException If the element is not a number.
+	 * @throws NullPointerException If the element is null.
+	 */
+	public double getDouble(int index) {
+		this.checkIndex(index);
+		
+		if(this.numbers != null) {
+			return this.isDoubleAt(index) ? Double.longBitsToDouble(this.numbers[index]) : (double)this.numbers[index];
+		}
+		
+		return ((Number)this.elements[index]).doubleValue();
+	}
+	
+	/**
+	 * Returns the elements of the array as longs.
+	 * @return A new array holding the value of each element, converted as by getLong()
+	 * @throws ClassCastException If one of the elements is not a number.
+	 * @throws NullPointerException If one of the elements is null.
+	 */
+	public long[] toLongArray() {
+		long[] values = new long[this.size];
+		
+		for(int i = 0; i < values.length; i++) {
+			values[i] = this.getLong(i);
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Returns the elements of the array as doubles.
+	 * @return A new array holding the value of each element, converted as by getDouble()
+	 * @throws ClassCastException If one of the elements is not a number.
+	 * @throws NullPointerException If one of the elements is null.
+	 */
+	public double[] toDoubleArray() {
+		double[] values = new double[this.size];
+		
+		for(int i = 0; i < values.length; i++) {
+			values[i] = this.getDouble(i);
+		}
+		
+		return values;
 	}
 	
+	/**
+	 * Returns whether the elements of the array are stored without boxing them.
+	 * @return true if all the elements are stored as numbers, false otherwise.
+	 */
+	boolean isNumeric() {
+		return this.numbers != null;
+	}
+	
+	/**
+	 * Returns whether the element at the given position of a numeric array is a Double.
+	 * @param index The position of the element
+	 * @return true if the element is a Double, false if it is a Long.
+	 */
+	boolean isDoubleAt(int index) {
+		return (this.doubleFlags[index >>> 6] & (1L << index)) != 0;
+	}
+	
+	/**
+	 * Returns a shallow copy of this array.
+	 * @return The copy
+	 */
 	@Override
-	public boolean addAll(int index, Collection<? extends Object> c) {
-		JsonArray.checkElementsType(c);
-		return super.addAll(index, c);
+	public JsonArray clone() {
+		try {
+			JsonArray copy = (JsonArray)super.clone();
+			copy.modCount = 0;
+			
+			if(this.numbers != null) {
+				copy.numbers = this.numbers.clone();
+				copy.doubleFlags = this.doubleFlags.clone();
+			} else if(this.elements != EMPTY_ELEMENTS) {
+				copy.elements = this.elements.clone();
+			}
+			
+			return copy;
+		} catch(CloneNotSupportedException e) {
+			// JsonArray implements Cloneable
+			throw new InternalError(e);
+		}
 	}
 	
 	@Override
 	public String toString() {
 		return this.toString(0, null, false);
 	}
+	
+	/**
+	 * Returns whether the given element can be stored in a numeric array.
+	 * @param element The element
+	 * @return true if the element is a Long or a Double, false otherwise.
+	 */
+	private static boolean isNumber(Object element) {
+		return element instanceof Long || element instanceof Double;
+	}
+	
+	/**
+	 * Checks that the given position is inside the array.
+	 * @param index The position
+	 * @throws IndexOutOfBoundsException If the position is out of the array.
+	 */
+	private void checkIndex(int index) {
+		if(index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+	
+	/**
+	 * Returns the boxed element at the given position of a numeric array.
+	 * @param index The position of the element
+	 * @return A Long or a Double
+	 */
+	private Object numberAt(int index) {
+		long value = this.numbers[index];
+		
+		if(this.isDoubleAt(index)) {
+			return Double.valueOf(Double.longBitsToDouble(value));
+		}
+		
+		return Long.valueOf(value);
+	}
+	
+	/**
+	 * Stores the given Long or Double at the given position of a numeric array.
+	 * @param index The position of the element
+	 * @param element The Long or Double to store
+	 */
+	private void storeNumber(int index, Object element) {
+		if(element instanceof Double) {
+			this.numbers[index] = Double.doubleToRawLongBits((Double)element);
+			this.setDoubleFlag(index, true);
+		} else {
+			this.numbers[index] = (Long)element;
+			this.setDoubleFlag(index, false);
+		}
+	}
+	
+	/**
+	 * Sets whether the element at the given position of a numeric array is a Double.
+	 * @param index The position of the element
+	 * @param isDouble true if the element is a Double, false if it is a Long
+	 */
+	private void setDoubleFlag(int index, boolean isDouble) {
+		if(isDouble) {
+			this.doubleFlags[index >>> 6] |= 1L << index;
+		} else {
+			this.doubleFlags[index >>> 6] &= ~(1L << index);
+		}
+	}
+	
+	/**
+	 * Grows the storage of a numeric array so that it can hold at least the given number of
+	 * elements.
+	 * @param minCapacity The minimum number of elements
+	 */
+	private void growNumbers(int minCapacity) {
+		int capacity = Math.max(minCapacity, this.numbers.length + (this.numbers.length >> 1));
+		this.numbers = Arrays.copyOf(this.numbers, capacity);
+		this.doubleFlags = Arrays.copyOf(this.doubleFlags, (capacity + 63) >>> 6);
+	}
+	
+	/**
+	 * Grows the storage of an array of objects so that it can hold at least the given number of
+	 * elements.
+	 * @param minCapacity The minimum number of elements
+	 */
+	private void growElements(int minCapacity) {
+		int capacity = Math.max(minCapacity, Math.max(INITIAL_CAPACITY, this.elements.length + (this.elements.length >> 1)));
+		this.elements = Arrays.copyOf(this.elements, capacity);
+	}
+	
+	/**
+	 * Switches a numeric array to an array of objects, boxing all its elements.
+	 */
+	private void inflate() {
+		Object[] elements = new Object[Math.max(this.numbers.length, INITIAL_CAPACITY)];
+		
+		for(int i = 0; i < this.size; i++) {
+			elements[i] = this.numberAt(i);
+		}
+		
+		this.elements = elements;
+		this.numbers = null;
+		this.doubleFlags = null;
+	}
 }
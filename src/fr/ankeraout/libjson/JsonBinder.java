@@ -0,0 +1,343 @@
+package fr.ankeraout.libjson;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * This class maps JSON documents directly onto Java objects, without building any JsonObject or
+ * JsonArray. The documents are read token by token from a JsonLexer, and each value is stored
+ * directly in the object it belongs to. The following types can be bound:
+ * - String, Character, Boolean, all the primitive number types and their wrappers, BigDecimal,
+ * BigInteger and Number,
+ * - enums, from the name of their constants,
+ * - arrays, List, Set and Collection (as ArrayList and LinkedHashSet), and Map with String keys
+ * (as LinkedHashMap), using the type arguments of their declaration for their elements,
+ * - records, through their canonical constructor,
+ * - classes with a constructor without parameters, whose non-static, non-transient and non-final
+ * fields are set from the entries with the same name,
+ * - JsonObject, JsonArray and Object, which receive the values as the JsonParser would build them.
+ * The entries of the documents that do not match any field are skipped, and the fields that are
+ * not present in the document keep their default value. The way each class is bound is computed
+ * once, the first time the class is used, and is then shared by all the JsonBinder instances.
+ * A JsonBinder instance keeps its internal buffers between calls so that it can be reused for
+ * binding many documents, but it must not be shared between threads.
+ * @author Ankeraout
+ *
+ */
+public final class JsonBinder {
+	/**
+	 * The cache used for canonicalizing the keys of the objects, or null if no key has been read
+	 * yet.
+	 */
+	private JsonKeyCache keyCache;
+	
+	/**
+	 * The maximum nesting depth of the objects and arrays of the documents.
+	 */
+	private final int maxDepth;
+	
+	/**
+	 * The number of objects and arrays that are currently being bound.
+	 */
+	private int depth;
+	
+	/**
+	 * Creates a new JsonBinder instance, accepting the documents nested up to
+	 * JsonParser.DEFAULT_MAX_DEPTH.
+	 */
+	public JsonBinder() {
+		this(JsonParser.DEFAULT_MAX_DEPTH);
+	}
+	
+	/**
+	 * Creates a new JsonBinder instance.
+	 * @param maxDepth The maximum nesting depth of the objects and arrays of the documents. The
+	 * documents nested deeper than this are rejected with a JsonParserException.
+	 * @throws IllegalArgumentException If maxDepth is lower than 1.
+	 */
+	public JsonBinder(int maxDepth) {
+		if(maxDepth < 1) {
+			throw new IllegalArgumentException("The maximum depth must be at least 1: " + maxDepth);
+		}
+		
+		this.keyCache = null;
+		this.maxDepth = maxDepth;
+		this.depth = 0;
+	}
+	
+	/**
+	 * This method binds the given string to an instance of the given type. This method does not
+	 * share any state between calls, so it can safely be called by several threads at the same
+	 * time.
+	 * @param <T> The type of the result
+	 * @param input The input string
+	 * @param type The class of the result
+	 * @return The value represented by the input string.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the input string is not a valid JSON document, or if it
+	 * does not match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	public static <T> T parse(String input, Class<T> type) throws JsonLexerException, JsonParserException {
+		return new JsonBinder().parseDocument(new JsonLexer(input), type);
+	}
+	
+	/**
+	 * This method binds the given UTF-8 encoded bytes to an instance of the given type. The bytes
+	 * are read directly, without decoding the whole input to characters first. This method does
+	 * not share any state between calls, so it can safely be called by several threads at the
+	 * same time.
+	 * @param <T> The type of the result
+	 * @param input The UTF-8 encoded input
+	 * @param type The class of the result
+	 * @return The value represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the input is not a valid JSON document, or if it does not
+	 * match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	public static <T> T parse(byte[] input, Class<T> type) throws JsonLexerException, JsonParserException {
+		return new JsonBinder().parseDocument(new JsonLexer(input), type);
+	}
+	
+	/**
+	 * This method binds the UTF-8 encoded bytes between the position and the limit of the given
+	 * buffer to an instance of the given type. The position of the buffer is not modified.
+	 * @param <T> The type of the result
+	 * @param input The buffer containing the UTF-8 encoded input
+	 * @param type The class of the result
+	 * @return The value represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the input is not a valid JSON document, or if it does not
+	 * match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	public static <T> T parse(ByteBuffer input, Class<T> type) throws JsonLexerException, JsonParserException {
+		return new JsonBinder().parseDocument(new JsonLexer(input), type);
+	}
+	
+	/**
+	 * This method binds the characters read from the given reader to an instance of the given
+	 * type. The reader is not closed by this method.
+	 * @param <T> The type of the result
+	 * @param reader The reader to read the input from
+	 * @param type The class of the result
+	 * @return The value represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input, or if the input could not be read.
+	 * @throws JsonParserException If the input is not a valid JSON document, or if it does not
+	 * match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	public static <T> T parse(Reader reader, Class<T> type) throws JsonLexerException, JsonParserException {
+		return new JsonBinder().parseDocument(new JsonLexer(reader), type);
+	}
+	
+	/**
+	 * This method binds the UTF-8 encoded bytes read from the given stream to an instance of the
+	 * given type. The stream is not closed by this method.
+	 * @param <T> The type of the result
+	 * @param inputStream The stream to read the input from
+	 * @param type The class of the result
+	 * @return The value represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input, or if the input could not be read.
+	 * @throws JsonParserException If the input is not a valid JSON document, or if it does not
+	 * match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	public static <T> T parse(InputStream inputStream, Class<T> type) throws JsonLexerException, JsonParserException {
+		return new JsonBinder().parseDocument(new JsonLexer(inputStream), type);
+	}
+	
+	/**
+	 * This method binds the given string to an instance of the given type.
+	 * @param <T> The type of the result
+	 * @param input The input string
+	 * @param type The class of the result
+	 * @return The value represented by the input string.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the input string is not a valid JSON document, or if it
+	 * does not match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	public <T> T parseDocument(String input, Class<T> type) throws JsonLexerException, JsonParserException {
+		return this.parseDocument(new JsonLexer(input), type);
+	}
+	
+	/**
+	 * This method reads all the tokens from the given lexer and binds the document they represent
+	 * to an instance of the given type.
+	 * @param <T> The type of the result
+	 * @param lexer The lexer to read the tokens from
+	 * @param type The class of the result
+	 * @return The value represented by the tokens read from the lexer.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the tokens do not form a valid JSON document, or if the
+	 * document does not match the given type.
+	 * @throws IllegalArgumentException If the given type, or the type of one of its fields, can
+	 * not be bound.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T parseDocument(JsonLexer lexer, Class<T> type) throws JsonLexerException, JsonParserException {
+		JsonTypeBinder binder = JsonTypeBinder.of(type);
+		
+		this.depth = 0;
+		
+		Object result = binder.read(this, lexer, this.nextToken(lexer));
+		JsonTokenType token = lexer.next();
+		
+		if(token != null) {
+			throw new JsonParserException("Unexpected token after end of JSON value : " + token.name());
+		}
+		
+		return (T)result;
+	}
+	
+	/**
+	 * Reads the next token from the lexer, which must not have reached the end of its input.
+	 * @param lexer The lexer to read the token from
+	 * @return The type of the token
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the end of the input has been reached.
+	 */
+	JsonTokenType nextToken(JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = lexer.next();
+		
+		if(token == null) {
+			throw new JsonParserException("Unexpected end of JSON String");
+		}
+		
+		return token;
+	}
+	
+	/**
+	 * Returns the current token of the lexer, which must be a STRING token, as the key of an
+	 * object.
+	 * @param lexer The lexer the token was read from
+	 * @return The canonical instance of the key
+	 */
+	String getKey(JsonLexer lexer) {
+		JsonKeyCache keyCache = this.keyCache;
+		
+		if(keyCache == null) {
+			// The cache is only created for the documents that contain objects
+			keyCache = new JsonKeyCache(JsonKeyCache.DEFAULT_CAPACITY);
+			this.keyCache = keyCache;
+		}
+		
+		return lexer.getKey(keyCache);
+	}
+	
+	/**
+	 * Records that an object or an array is being entered.
+	 * @throws JsonParserException If the maximum nesting depth is exceeded.
+	 */
+	void enter() throws JsonParserException {
+		if(++this.depth > this.maxDepth) {
+			throw new JsonParserException("Maximum nesting depth of " + this.maxDepth + " exceeded");
+		}
+	}
+	
+	/**
+	 * Records that the current object or array has been entirely read.
+	 */
+	void exit() {
+		this.depth--;
+	}
+	
+	/**
+	 * Skips the value starting with the given token. The skipped value is checked, but no object
+	 * is created for it.
+	 * @param lexer The lexer the token was read from
+	 * @param token The first token of the value
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the tokens do not form a valid JSON value.
+	 */
+	void skipValue(JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+		switch(token) {
+		case STRING:
+		case NUMBER:
+		case TRUE:
+		case FALSE:
+		case NULL:
+			return;
+		case LEFT_BRACE:
+			this.enter();
+			token = this.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACE) {
+				while(true) {
+					if(token != JsonTokenType.STRING) {
+						throw new JsonParserException("Unexpected token type " + token.name());
+					}
+					
+					this.expect(lexer, JsonTokenType.COLON);
+					this.skipValue(lexer, this.nextToken(lexer));
+					token = this.nextToken(lexer);
+					
+					if(token == JsonTokenType.RIGHT_BRACE) {
+						break;
+					} else if(token != JsonTokenType.COMMA) {
+						throw new JsonParserException("Unexpected token type " + token.name());
+					}
+					
+					token = this.nextToken(lexer);
+				}
+			}
+			
+			this.exit();
+			return;
+		case LEFT_BRACKET:
+			this.enter();
+			token = this.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACKET) {
+				while(true) {
+					this.skipValue(lexer, token);
+					token = this.nextToken(lexer);
+					
+					if(token == JsonTokenType.RIGHT_BRACKET) {
+						break;
+					} else if(token != JsonTokenType.COMMA) {
+						throw new JsonParserException("Unexpected token type " + token.name());
+					}
+					
+					token = this.nextToken(lexer);
+				}
+			}
+			
+			this.exit();
+			return;
+		default:
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+	}
+	
+	/**
+	 * Reads the next token from the lexer and checks its type.
+	 * @param lexer The lexer to read the token from
+	 * @param expected The expected type of the token
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the token is not of the expected type.
+	 */
+	void expect(JsonLexer lexer, JsonTokenType expected) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = this.nextToken(lexer);
+		
+		if(token != expected) {
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+	}
+}
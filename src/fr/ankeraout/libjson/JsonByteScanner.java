@@ -0,0 +1,130 @@
+package fr.ankeraout.libjson;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * This class searches UTF-8 encoded input for the bytes that end a run of string characters,
+ * eight bytes at a time. Each group of eight bytes is read as a single long, and the bytes that
+ * are searched for are found with a few arithmetic operations on the whole long (SWAR, or SIMD
+ * within a register), instead of comparing each byte with each searched character. The bytes
+ * that do not fill a whole long at the end of the range are compared one by one.
+ *
+ * The masks computed by these operations have the high bit of a byte set if the byte matches.
+ * The carries and borrows of the operations can also set the high bit of the bytes that follow a
+ * matching byte, which is why only the lowest set bit of a mask, the first matching byte of the
+ * little-endian long, is used.
+ * @author Ankeraout
+ *
+ */
+final class JsonByteScanner {
+	/**
+	 * Reads a little-endian long from any position of a byte array.
+	 */
+	private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	
+	/**
+	 * A long whose bytes are all 0x01.
+	 */
+	private static final long ONES = 0x0101010101010101L;
+	
+	/**
+	 * A long whose bytes only have their high bit set.
+	 */
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	
+	/**
+	 * A long whose bytes are all quotes.
+	 */
+	private static final long QUOTES = ONES * '"';
+	
+	/**
+	 * A long whose bytes are all backslashes.
+	 */
+	private static final long BACKSLASHES = ONES * '\\';
+	
+	/**
+	 * A long whose bytes are all spaces, the first character that is not a control character.
+	 */
+	private static final long SPACES = ONES * ' ';
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonByteScanner() {
+	
+	}
+	
+	/**
+	 * Returns the position of the first byte between the given positions that is not a printable
+	 * ASCII character, or that is a quote or a backslash. The bytes of the multi-byte sequences
+	 * are not printable ASCII characters.
+	 * @param array The UTF-8 encoded input
+	 * @param i The position of the first byte to check
+	 * @param limit The position following the last byte to check
+	 * @return The position of the first special byte, or limit if there is none.
+	 */
+	static int findStringSpecial(byte[] array, int i, int limit) {
+		for(; i <= limit - 8; i += 8) {
+			long word = (long)LONG.get(array, i);
+			
+			// A byte is lower than 0x20 if subtracting 0x20 sets its high bit, and equal to 0x7f if
+			// adding 1 does; the bytes of the multi-byte sequences already have their high bit set
+			long mask = ((word - SPACES) | word | (word + ONES)) & HIGH_BITS;
+			mask |= JsonByteScanner.zeroBytes(word ^ QUOTES) | JsonByteScanner.zeroBytes(word ^ BACKSLASHES);
+			
+			if(mask != 0) {
+				return i + (Long.numberOfTrailingZeros(mask) >>> 3);
+			}
+		}
+		
+		for(; i < limit; i++) {
+			byte b = array[i];
+			
+			if(b < 0x20 || b == '"' || b == '\\' || b == 0x7f) {
+				break;
+			}
+		}
+		
+		return i;
+	}
+	
+	/**
+	 * Returns the position of the first quote or backslash between the given positions.
+	 * @param array The UTF-8 encoded input
+	 * @param i The position of the first byte to check
+	 * @param limit The position following the last byte to check
+	 * @return The position of the first quote or backslash, or limit if there is none.
+	 */
+	static int findQuoteOrBackslash(byte[] array, int i, int limit) {
+		for(; i <= limit - 8; i += 8) {
+			long word = (long)LONG.get(array, i);
+			long mask = JsonByteScanner.zeroBytes(word ^ QUOTES) | JsonByteScanner.zeroBytes(word ^ BACKSLASHES);
+			
+			if(mask != 0) {
+				return i + (Long.numberOfTrailingZeros(mask) >>> 3);
+			}
+		}
+		
+		for(; i < limit; i++) {
+			byte b = array[i];
+			
+			if(b == '"' || b == '\\') {
+				break;
+			}
+		}
+		
+		return i;
+	}
+	
+	/**
+	 * Returns a mask in which the high bit of the first zero byte of the given long is set. Bytes
+	 * following the first zero byte may also have their high bit set.
+	 * @param word The bytes to check
+	 * @return The mask of the zero bytes, or 0 if there is none.
+	 */
+	private static long zeroBytes(long word) {
+		return (word - ONES) & ~word & HIGH_BITS;
+	}
+}
@@ -0,0 +1,553 @@
+package fr.ankeraout.libjson;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+
+/**
+ * This class binds the JSON objects to the instances of a Java class. Ordinary classes are
+ * created with their constructor without parameters, and their fields are then set from the
+ * entries of the object. Records are created with their canonical constructor, once all the
+ * entries of the object have been read. The constructors and the fields are resolved once, when
+ * the binder is created, and are then accessed through method handles. The binders of the types
+ * of the fields are only resolved when a field is first bound, so that classes can refer to
+ * themselves.
+ * @author Ankeraout
+ *
+ */
+abstract class JsonClassBinder extends JsonTypeBinder {
+	/**
+	 * The bound class.
+	 */
+	final Class<?> type;
+	
+	/**
+	 * Creates a new JsonClassBinder.
+	 * @param type The bound class
+	 */
+	JsonClassBinder(Class<?> type) {
+		this.type = type;
+	}
+	
+	/**
+	 * Creates the binder of an ordinary class, which must have a constructor without parameters.
+	 * @param type The class
+	 * @return The binder of the class
+	 * @throws IllegalArgumentException If the class does not have a constructor without
+	 * parameters, or if its constructor or one of its fields can not be accessed.
+	 */
+	static JsonClassBinder forClass(Class<?> type) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle constructor;
+		
+		try {
+			Constructor<?> declaredConstructor = type.getDeclaredConstructor();
+			declaredConstructor.setAccessible(true);
+			constructor = lookup.unreflectConstructor(declaredConstructor).asType(MethodType.methodType(Object.class));
+		} catch(NoSuchMethodException e) {
+			throw new IllegalArgumentException("Can not bind type " + type.getName() + ": no constructor without parameters");
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalArgumentException("Can not bind type " + type.getName() + ": " + e.getMessage(), e);
+		}
+		
+		HashMap<String, Property> properties = new HashMap<>();
+		
+		for(Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+			for(Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				
+				if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic() || properties.containsKey(field.getName())) {
+					continue;
+				}
+				
+				MethodHandle setter;
+				
+				try {
+					field.setAccessible(true);
+					setter = lookup.unreflectSetter(field);
+				} catch(ReflectiveOperationException | RuntimeException e) {
+					throw new IllegalArgumentException("Can not bind field " + field.getName() + " of " + type.getName() + ": " + e.getMessage(), e);
+				}
+				
+				properties.put(field.getName(), Property.create(field.getGenericType(), setter));
+			}
+		}
+		
+		return new ObjectBinder(type, constructor, properties);
+	}
+	
+	/**
+	 * Creates the binder of a record class. The components of the record are discovered through
+	 * reflection, so that this class does not require a Java version that supports records.
+	 * @param type The record class
+	 * @return The binder of the record class
+	 * @throws IllegalArgumentException If the components or the canonical constructor of the
+	 * record can not be accessed.
+	 */
+	static JsonClassBinder forRecord(Class<?> type) {
+		try {
+			Object[] components = (Object[])Class.class.getMethod("getRecordComponents").invoke(type);
+			Method getName = null;
+			Method getType = null;
+			Method getGenericType = null;
+			
+			int count = components.length;
+			Class<?>[] parameterTypes = new Class<?>[count];
+			HashMap<String, Component> componentsByName = new HashMap<>();
+			Object[] defaults = new Object[count];
+			
+			for(int i = 0; i < count; i++) {
+				Object component = components[i];
+				
+				if(getName == null) {
+					Class<?> componentClass = component.getClass();
+					getName = componentClass.getMethod("getName");
+					getType = componentClass.getMethod("getType");
+					getGenericType = componentClass.getMethod("getGenericType");
+				}
+				
+				parameterTypes[i] = (Class<?>)getType.invoke(component);
+				componentsByName.put((String)getName.invoke(component), new Component(i, (Type)getGenericType.invoke(component)));
+				
+				if(parameterTypes[i].isPrimitive()) {
+					// The default value of a primitive type is the first element of a new array
+					defaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+				}
+			}
+			
+			Constructor<?> canonicalConstructor = type.getDeclaredConstructor(parameterTypes);
+			canonicalConstructor.setAccessible(true);
+			MethodHandle constructor = MethodHandles.lookup().unreflectConstructor(canonicalConstructor).asSpreader(Object[].class, count).asType(MethodType.methodType(Object.class, Object[].class));
+			
+			return new RecordBinder(type, constructor, componentsByName, defaults);
+		} catch(InvocationTargetException e) {
+			throw new IllegalArgumentException("Can not bind type " + type.getName() + ": " + e.getCause(), e.getCause());
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalArgumentException("Can not bind type " + type.getName() + ": " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Rethrows an exception thrown by a method handle.
+	 * @param throwable The exception
+	 * @param type The class whose instance was being created
+	 * @return Never returns
+	 */
+	static RuntimeException rethrow(Throwable throwable, Class<?> type) {
+		if(throwable instanceof RuntimeException) {
+			throw (RuntimeException)throwable;
+		} else if(throwable instanceof Error) {
+			throw (Error)throwable;
+		}
+		
+		throw new IllegalStateException("Can not create instance of " + type.getName(), throwable);
+	}
+	
+	/**
+	 * The binder of an ordinary class.
+	 */
+	private static final class ObjectBinder extends JsonClassBinder {
+		/**
+		 * The constructor without parameters of the class.
+		 */
+		private final MethodHandle constructor;
+		
+		/**
+		 * The bound fields of the class, by name.
+		 */
+		private final HashMap<String, Property> properties;
+		
+		/**
+		 * Creates a new ObjectBinder.
+		 * @param type The bound class
+		 * @param constructor The constructor without parameters of the class
+		 * @param properties The bound fields of the class, by name
+		 */
+		ObjectBinder(Class<?> type, MethodHandle constructor, HashMap<String, Property> properties) {
+			super(type);
+			this.constructor = constructor;
+			this.properties = properties;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACE) {
+				throw JsonTypeBinder.mismatch(token, this.type);
+			}
+			
+			Object instance;
+			
+			try {
+				instance = (Object)this.constructor.invokeExact();
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, this.type);
+			}
+			
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACE) {
+				while(true) {
+					Property property = this.properties.get(JsonTypeBinder.readKey(binder, lexer, token));
+					token = binder.nextToken(lexer);
+					
+					if(property == null) {
+						binder.skipValue(lexer, token);
+					} else {
+						property.read(binder, lexer, token, instance);
+					}
+					
+					if(!JsonTypeBinder.nextEntry(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			return instance;
+		}
+	}
+	
+	/**
+	 * The binder of a record class.
+	 */
+	private static final class RecordBinder extends JsonClassBinder {
+		/**
+		 * The canonical constructor of the record, taking its arguments as an array.
+		 */
+		private final MethodHandle constructor;
+		
+		/**
+		 * The components of the record, by name.
+		 */
+		private final HashMap<String, Component> components;
+		
+		/**
+		 * The values of the components that are not present in the objects.
+		 */
+		private final Object[] defaults;
+		
+		/**
+		 * Creates a new RecordBinder.
+		 * @param type The bound record class
+		 * @param constructor The canonical constructor of the record, taking its arguments as an
+		 * array
+		 * @param components The components of the record, by name
+		 * @param defaults The values of the components that are not present in the objects
+		 */
+		RecordBinder(Class<?> type, MethodHandle constructor, HashMap<String, Component> components, Object[] defaults) {
+			super(type);
+			this.constructor = constructor;
+			this.components = components;
+			this.defaults = defaults;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACE) {
+				throw JsonTypeBinder.mismatch(token, this.type);
+			}
+			
+			Object[] arguments = this.defaults.clone();
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACE) {
+				while(true) {
+					Component component = this.components.get(JsonTypeBinder.readKey(binder, lexer, token));
+					token = binder.nextToken(lexer);
+					
+					if(component == null) {
+						binder.skipValue(lexer, token);
+					} else {
+						arguments[component.index] = component.binder().read(binder, lexer, token);
+					}
+					
+					if(!JsonTypeBinder.nextEntry(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			
+			try {
+				return (Object)this.constructor.invokeExact(arguments);
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, this.type);
+			}
+		}
+	}
+	
+	/**
+	 * A component of a record class.
+	 */
+	private static final class Component {
+		/**
+		 * The position of the component in the canonical constructor.
+		 */
+		final int index;
+		
+		/**
+		 * The type of the component.
+		 */
+		private final Type type;
+		
+		/**
+		 * The binder of the type of the component, or null if it has not been resolved yet.
+		 */
+		private JsonTypeBinder binder;
+		
+		/**
+		 * Creates a new Component.
+		 * @param index The position of the component in the canonical constructor
+		 * @param type The type of the component
+		 */
+		Component(int index, Type type) {
+			this.index = index;
+			this.type = type;
+		}
+		
+		/**
+		 * Returns the binder of the type of the component.
+		 * @return The binder
+		 */
+		JsonTypeBinder binder() {
+			JsonTypeBinder binder = this.binder;
+			
+			if(binder == null) {
+				binder = JsonTypeBinder.of(this.type);
+				this.binder = binder;
+			}
+			
+			return binder;
+		}
+	}
+	
+	/**
+	 * A bound field of an ordinary class. The fields of type int, long, double and boolean are
+	 * set without boxing their values.
+	 */
+	private abstract static class Property {
+		/**
+		 * The setter of the field.
+		 */
+		final MethodHandle setter;
+		
+		/**
+		 * Creates a new Property.
+		 * @param setter The setter of the field
+		 * @param type The type of the field
+		 */
+		Property(MethodHandle setter, Class<?> type) {
+			this.setter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+		}
+		
+		/**
+		 * Creates the property of a field.
+		 * @param type The type of the field
+		 * @param setter The setter of the field
+		 * @return The property
+		 */
+		static Property create(Type type, MethodHandle setter) {
+			if(type == int.class) {
+				return new IntProperty(setter);
+			} else if(type == long.class) {
+				return new LongProperty(setter);
+			} else if(type == double.class) {
+				return new DoubleProperty(setter);
+			} else if(type == boolean.class) {
+				return new BooleanProperty(setter);
+			}
+			
+			return new ObjectProperty(setter, type);
+		}
+		
+		/**
+		 * Reads the value starting with the given token and stores it in the field.
+		 * @param binder The JsonBinder that is reading the document
+		 * @param lexer The lexer the token was read from
+		 * @param token The first token of the value
+		 * @param instance The object whose field is set
+		 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+		 * @throws JsonParserException If the tokens do not form a valid JSON value, or if the value
+		 * does not match the type of the field.
+		 */
+		abstract void read(JsonBinder binder, JsonLexer lexer, JsonTokenType token, Object instance) throws JsonLexerException, JsonParserException;
+	}
+	
+	/**
+	 * A bound field whose type is not int, long, double or boolean.
+	 */
+	private static final class ObjectProperty extends Property {
+		/**
+		 * The type of the field.
+		 */
+		private final Type type;
+		
+		/**
+		 * The binder of the type of the field, or null if it has not been resolved yet.
+		 */
+		private JsonTypeBinder binder;
+		
+		/**
+		 * Creates a new ObjectProperty.
+		 * @param setter The setter of the field
+		 * @param type The type of the field
+		 */
+		ObjectProperty(MethodHandle setter, Type type) {
+			super(setter, Object.class);
+			this.type = type;
+		}
+		
+		@Override
+		void read(JsonBinder binder, JsonLexer lexer, JsonTokenType token, Object instance) throws JsonLexerException, JsonParserException {
+			JsonTypeBinder typeBinder = this.binder;
+			
+			if(typeBinder == null) {
+				typeBinder = JsonTypeBinder.of(this.type);
+				this.binder = typeBinder;
+			}
+			
+			Object value = typeBinder.read(binder, lexer, token);
+			
+			try {
+				this.setter.invokeExact(instance, value);
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, instance.getClass());
+			}
+		}
+	}
+	
+	/**
+	 * A bound field of type int.
+	 */
+	private static final class IntProperty extends Property {
+		/**
+		 * Creates a new IntProperty.
+		 * @param setter The setter of the field
+		 */
+		IntProperty(MethodHandle setter) {
+			super(setter, int.class);
+		}
+		
+		@Override
+		void read(JsonBinder binder, JsonLexer lexer, JsonTokenType token, Object instance) throws JsonParserException {
+			if(token != JsonTokenType.NUMBER) {
+				throw JsonTypeBinder.mismatch(token, int.class);
+			}
+			
+			int value = (int)JsonTypeBinder.readInteger(lexer, Integer.MIN_VALUE, Integer.MAX_VALUE, int.class);
+			
+			try {
+				this.setter.invokeExact(instance, value);
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, instance.getClass());
+			}
+		}
+	}
+	
+	/**
+	 * A bound field of type long.
+	 */
+	private static final class LongProperty extends Property {
+		/**
+		 * Creates a new LongProperty.
+		 * @param setter The setter of the field
+		 */
+		LongProperty(MethodHandle setter) {
+			super(setter, long.class);
+		}
+		
+		@Override
+		void read(JsonBinder binder, JsonLexer lexer, JsonTokenType token, Object instance) throws JsonParserException {
+			if(token != JsonTokenType.NUMBER) {
+				throw JsonTypeBinder.mismatch(token, long.class);
+			}
+			
+			long value = JsonTypeBinder.readInteger(lexer, Long.MIN_VALUE, Long.MAX_VALUE, long.class);
+			
+			try {
+				this.setter.invokeExact(instance, value);
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, instance.getClass());
+			}
+		}
+	}
+	
+	/**
+	 * A bound field of type double.
+	 */
+	private static final class DoubleProperty extends Property {
+		/**
+		 * Creates a new DoubleProperty.
+		 * @param setter The setter of the field
+		 */
+		DoubleProperty(MethodHandle setter) {
+			super(setter, double.class);
+		}
+		
+		@Override
+		void read(JsonBinder binder, JsonLexer lexer, JsonTokenType token, Object instance) throws JsonParserException {
+			if(token != JsonTokenType.NUMBER) {
+				throw JsonTypeBinder.mismatch(token, double.class);
+			}
+			
+			double value = lexer.getDouble();
+			
+			try {
+				this.setter.invokeExact(instance, value);
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, instance.getClass());
+			}
+		}
+	}
+	
+	/**
+	 * A bound field of type boolean.
+	 */
+	private static final class BooleanProperty extends Property {
+		/**
+		 * Creates a new BooleanProperty.
+		 * @param setter The setter of the field
+		 */
+		BooleanProperty(MethodHandle setter) {
+			super(setter, boolean.class);
+		}
+		
+		@Override
+		void read(JsonBinder binder, JsonLexer lexer, JsonTokenType token, Object instance) throws JsonParserException {
+			boolean value;
+			
+			if(token == JsonTokenType.TRUE) {
+				value = true;
+			} else if(token == JsonTokenType.FALSE) {
+				value = false;
+			} else {
+				throw JsonTypeBinder.mismatch(token, boolean.class);
+			}
+			
+			try {
+				this.setter.invokeExact(instance, value);
+			} catch(Throwable t) {
+				throw JsonClassBinder.rethrow(t, instance.getClass());
+			}
+		}
+	}
+}
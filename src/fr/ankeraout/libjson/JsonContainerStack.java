@@ -0,0 +1,101 @@
+package fr.ankeraout.libjson;
+
+/**
+ * This class is the stack of the containers that are currently open while parsing a document. It
+ * only records whether each container is an object or an array, in a boolean array that grows as
+ * needed up to the maximum nesting depth. Unlike java.util.Stack, it is not synchronized and does
+ * not box its elements.
+ * @author Ankeraout
+ *
+ */
+final class JsonContainerStack {
+	/**
+	 * The initial capacity of the stack.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+	
+	/**
+	 * The kind of each open container: true for an object, false for an array.
+	 */
+	private boolean[] objects;
+	
+	/**
+	 * The number of open containers.
+	 */
+	private int depth;
+	
+	/**
+	 * The maximum number of containers that can be open at the same time.
+	 */
+	private final int maxDepth;
+	
+	/**
+	 * Creates a new empty JsonContainerStack.
+	 * @param maxDepth The maximum number of containers that can be open at the same time
+	 */
+	JsonContainerStack(int maxDepth) {
+		this.objects = new boolean[Math.min(INITIAL_CAPACITY, maxDepth)];
+		this.depth = 0;
+		this.maxDepth = maxDepth;
+	}
+	
+	/**
+	 * Removes all the containers from the stack.
+	 */
+	void clear() {
+		this.depth = 0;
+	}
+	
+	/**
+	 * Pushes a new container on the stack.
+	 * @param object true if the container is an object, false if it is an array
+	 * @throws JsonParserException If the maximum nesting depth would be exceeded.
+	 */
+	void push(boolean object) throws JsonParserException {
+		int depth = this.depth;
+		
+		if(depth == this.objects.length) {
+			if(depth == this.maxDepth) {
+				throw new JsonParserException("Maximum nesting depth of " + this.maxDepth + " exceeded");
+			}
+			
+			boolean[] objects = new boolean[(int)Math.min(depth * 2L, this.maxDepth)];
+			System.arraycopy(this.objects, 0, objects, 0, depth);
+			this.objects = objects;
+		}
+		
+		this.objects[depth] = object;
+		this.depth = depth + 1;
+	}
+	
+	/**
+	 * Removes the current container from the stack.
+	 */
+	void pop() {
+		this.depth--;
+	}
+	
+	/**
+	 * Returns whether the current container is an object.
+	 * @return true if the current container is an object, false if it is an array.
+	 */
+	boolean isObject() {
+		return this.objects[this.depth - 1];
+	}
+	
+	/**
+	 * Returns the number of open containers.
+	 * @return The current nesting depth.
+	 */
+	int getDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * Returns whether there is no open container.
+	 * @return true if the stack is empty, false otherwise.
+	 */
+	boolean isEmpty() {
+		return this.depth == 0;
+	}
+}
@@ -0,0 +1,20 @@
+package fr.ankeraout.libjson;
+
+/**
+ * This enum defines the events returned by the JsonReader class.
+ * @author Ankeraout
+ *
+ */
+public enum JsonEvent {
+	START_OBJECT,
+	END_OBJECT,
+	START_ARRAY,
+	END_ARRAY,
+	KEY,
+	
+	VALUE_STRING,
+	VALUE_NUMBER,
+	VALUE_TRUE,
+	VALUE_FALSE,
+	VALUE_NULL
+}
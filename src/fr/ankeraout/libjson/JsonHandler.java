@@ -0,0 +1,76 @@
+package fr.ankeraout.libjson;
+
+/**
+ * This interface receives the structure of a JSON document from the JsonParser, value by value,
+ * while it is being parsed. It allows routing the parsed values to any data structure without
+ * building a tree of JsonObject and JsonArray instances first.
+ * 
+ * The methods are called in the order of the document. For example, the document
+ * {"a":[1,null]} produces the following calls: onStartObject(), onKey("a"), onStartArray(),
+ * onNumber(1), onNull(), onEndArray(), onEndObject().
+ * 
+ * Any of these methods may throw a JsonParserException in order to abort the parsing.
+ * @author Ankeraout
+ *
+ */
+public interface JsonHandler {
+	/**
+	 * Called when the parser encounters the beginning of an object.
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onStartObject() throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters the end of an object.
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onEndObject() throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters the beginning of an array.
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onStartArray() throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters the end of an array.
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onEndArray() throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters the name of a property of an object. The next call will
+	 * be for the value of this property.
+	 * @param key The name of the property
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onKey(String key) throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters a string value.
+	 * @param value The value of the string
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onString(String value) throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters a number value.
+	 * @param value The value of the number: a Long, a Double or a BigDecimal (see the JsonNumber
+	 * class), or a JsonNumber if raw numbers are enabled in the lexer.
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onNumber(Number value) throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters a true or false value.
+	 * @param value The boolean value
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onBoolean(boolean value) throws JsonParserException;
+	
+	/**
+	 * Called when the parser encounters a null value.
+	 * @throws JsonParserException If the handler wants to abort the parsing.
+	 */
+	void onNull() throws JsonParserException;
+}
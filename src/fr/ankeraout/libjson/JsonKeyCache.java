@@ -0,0 +1,195 @@
+package fr.ankeraout.libjson;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is the cache used by the JsonParser for canonicalizing the keys of the objects. The
+ * objects of a document usually repeat the same few keys, so the cache returns the same String
+ * instance for all the occurrences of a key: the keys of the resulting tree share their memory,
+ * and their hash code is only computed once. The keys are looked up directly in the input of the
+ * lexer, so a key that is found in the cache does not create any String. The cache is a
+ * direct-mapped table: each key can only be stored in one slot, and replaces the key that was
+ * previously stored there. Its size is therefore bounded, and documents whose keys are all
+ * different (for example objects used as maps of identifiers) only cost one table write per key.
+ * Long keys are never cached. This class is not thread-safe.
+ * @author Ankeraout
+ *
+ */
+final class JsonKeyCache {
+	/**
+	 * The default number of slots of the cache.
+	 */
+	static final int DEFAULT_CAPACITY = 256;
+	
+	/**
+	 * The maximum length of the keys stored in the cache.
+	 */
+	private static final int MAX_KEY_LENGTH = 64;
+	
+	/**
+	 * The slots of the cache.
+	 */
+	private final String[] keys;
+	
+	/**
+	 * The mask applied to the hash codes of the keys for finding their slot.
+	 */
+	private final int mask;
+	
+	/**
+	 * Creates a new empty JsonKeyCache.
+	 * @param capacity The number of slots of the cache, which must be a power of two
+	 */
+	JsonKeyCache(int capacity) {
+		this.keys = new String[capacity];
+		this.mask = capacity - 1;
+	}
+	
+	/**
+	 * Returns the canonical instance of the key made of the given characters of a string.
+	 * @param source The string containing the key
+	 * @param start The position of the first character of the key
+	 * @param end The position following the last character of the key
+	 * @return The key
+	 */
+	String get(String source, int start, int end) {
+		int length = end - start;
+		
+		if(length > MAX_KEY_LENGTH) {
+			return source.substring(start, end);
+		}
+		
+		int hash = 0;
+		
+		for(int i = start; i < end; i++) {
+			hash = 31 * hash + source.charAt(i);
+		}
+		
+		int slot = this.slot(hash);
+		String key = this.keys[slot];
+		
+		if(key != null && key.hashCode() == hash && key.length() == length && source.regionMatches(start, key, 0, length)) {
+			return key;
+		}
+		
+		key = source.substring(start, end);
+		this.keys[slot] = key;
+		
+		return key;
+	}
+	
+	/**
+	 * Returns the canonical instance of the key made of the given characters of an array.
+	 * @param source The array containing the key
+	 * @param start The position of the first character of the key
+	 * @param end The position following the last character of the key
+	 * @return The key
+	 */
+	String get(char[] source, int start, int end) {
+		int length = end - start;
+		
+		if(length > MAX_KEY_LENGTH) {
+			return new String(source, start, length);
+		}
+		
+		int hash = 0;
+		
+		for(int i = start; i < end; i++) {
+			hash = 31 * hash + source[i];
+		}
+		
+		int slot = this.slot(hash);
+		String key = this.keys[slot];
+		
+		if(key != null && key.hashCode() == hash && key.length() == length) {
+			int i = 0;
+			
+			while(i < length && key.charAt(i) == source[start + i]) {
+				i++;
+			}
+			
+			if(i == length) {
+				return key;
+			}
+		}
+		
+		key = new String(source, start, length);
+		this.keys[slot] = key;
+		
+		return key;
+	}
+	
+	/**
+	 * Returns the canonical instance of the key made of the given ASCII bytes.
+	 * @param source The array containing the key
+	 * @param start The position of the first byte of the key
+	 * @param end The position following the last byte of the key
+	 * @return The key
+	 */
+	String get(byte[] source, int start, int end) {
+		int length = end - start;
+		
+		if(length > MAX_KEY_LENGTH) {
+			return new String(source, start, length, StandardCharsets.ISO_8859_1);
+		}
+		
+		int hash = 0;
+		
+		for(int i = start; i < end; i++) {
+			hash = 31 * hash + source[i];
+		}
+		
+		int slot = this.slot(hash);
+		String key = this.keys[slot];
+		
+		if(key != null && key.hashCode() == hash && key.length() == length) {
+			int i = 0;
+			
+			while(i < length && key.charAt(i) == source[start + i]) {
+				i++;
+			}
+			
+			if(i == length) {
+				return key;
+			}
+		}
+		
+		// ASCII is a subset of ISO-8859-1, which is decoded by a plain copy
+		key = new String(source, start, length, StandardCharsets.ISO_8859_1);
+		this.keys[slot] = key;
+		
+		return key;
+	}
+	
+	/**
+	 * Returns the canonical instance of the given key. If the cache does not contain the key yet,
+	 * the given instance becomes the canonical one.
+	 * @param key The key
+	 * @return The canonical instance of the key
+	 */
+	String get(String key) {
+		if(key.length() > MAX_KEY_LENGTH) {
+			return key;
+		}
+		
+		int slot = this.slot(key.hashCode());
+		String cached = this.keys[slot];
+		
+		if(key.equals(cached)) {
+			return cached;
+		}
+		
+		this.keys[slot] = key;
+		
+		return key;
+	}
+	
+	/**
+	 * Returns the slot of the key with the given hash code.
+	 * @param hash The hash code of the key
+	 * @return The position of the slot in the table
+	 */
+	private int slot(int hash) {
+		return (hash ^ (hash >>> 16)) & this.mask;
+	}
+}
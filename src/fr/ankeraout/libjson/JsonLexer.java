@@ -1,77 +1,425 @@
 package fr.ankeraout.libjson;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
  * This class represents a JSON lexer. It is a tool that is used by the JSON parser for cutting the
  * input string into smaller parts that are called "tokens". See JsonToken class documentation for
  * more information.
+ * 
+ * The input is read through a fixed-size buffer that is refilled when all its characters have
+ * been consumed, so that the memory used by the lexer does not depend on the size of the input.
+ * UTF-8 encoded input held in a byte array or a ByteBuffer is read directly, without decoding it
+ * to characters first: the bytes are only validated inside string tokens, and only decoded when
+ * the value of a string is requested.
+ *
+ * The lexer can be used as a cursor: next() moves to the next token and returns its type, and the
+ * value of the current token is read with getString() or getNumber(). The cursor API does not
+ * create any object for structural tokens and literals, and string and number values are only
+ * created when they are requested. readToken() wraps the cursor API and returns JsonToken
+ * objects.
  * @author Ankeraout
  *
  */
 public class JsonLexer {
 	/**
-	 * The input string
+	 * The default size of the input buffer, in characters.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	
+	/**
+	 * The value of stringLocation when the current string token can be sliced from the input
+	 * string
+	 */
+	private static final int STRING_IN_INPUT = 0;
+	
+	/**
+	 * The value of stringLocation when the current string token can be sliced from the input
+	 * buffer
+	 */
+	private static final int STRING_IN_INPUT_BUFFER = 1;
+	
+	/**
+	 * The value of stringLocation when the decoded value of the current string token is in the
+	 * buffer
+	 */
+	private static final int STRING_IN_BUFFER = 2;
+	
+	/**
+	 * The value of stringLocation when the current string token can be decoded from the UTF-8
+	 * encoded input
+	 */
+	private static final int STRING_IN_BYTES = 3;
+	
+	/**
+	 * The value of stringLocation when the current string token can be decoded from the UTF-8
+	 * encoded input, and only contains ASCII characters
+	 */
+	private static final int STRING_IN_ASCII_BYTES = 4;
+	
+	/**
+	 * The tokens returned by readToken() for the token types that do not carry a value. They are
+	 * shared, since JsonToken objects can not be modified.
+	 */
+	private static final JsonToken[] CONSTANT_TOKENS = JsonLexer.createConstantTokens();
+	
+	/**
+	 * The input string, or null if the input is read from a Reader.
 	 */
 	private String input;
 	
 	/**
-	 * The current position in the input string
+	 * The UTF-8 encoded input, or null if the input is a string or a Reader.
+	 */
+	private ByteBuffer bytes;
+	
+	/**
+	 * The array backing the UTF-8 encoded input, or null if the input is not backed by an
+	 * accessible array (for example a direct ByteBuffer)
+	 */
+	private byte[] byteArray;
+	
+	/**
+	 * The position in byteArray of the first byte of the UTF-8 encoded input
+	 */
+	private int byteArrayOffset;
+	
+	/**
+	 * A duplicate of the UTF-8 encoded input used for bulk copies of strings when the input is not
+	 * backed by an accessible array, or null otherwise
+	 */
+	private ByteBuffer byteCopySource;
+	
+	/**
+	 * The array receiving the bulk copies of strings from byteCopySource. It grows as needed and
+	 * is reused for all the strings of the input.
+	 */
+	private byte[] byteCopyBuffer;
+	
+	/**
+	 * The current position in the UTF-8 encoded input
+	 */
+	private int bytePosition;
+	
+	/**
+	 * The position following the last byte of the UTF-8 encoded input
+	 */
+	private int byteLimit;
+	
+	/**
+	 * The position in the input string of the first character that has not been copied to the
+	 * input buffer yet.
+	 */
+	private int inputOffset;
+	
+	/**
+	 * The position in the input string following the last character of the input.
+	 */
+	private int inputEnd;
+	
+	/**
+	 * The reader the input is read from, or null if the input is a string.
+	 */
+	private Reader reader;
+	
+	/**
+	 * The buffer containing the input characters that are currently being read.
+	 */
+	private final char[] inputBuffer;
+	
+	/**
+	 * The current position in the input buffer
 	 */
 	private int position;
 	
+	/**
+	 * The number of valid characters in the input buffer
+	 */
+	private int limit;
+	
+	/**
+	 * The buffer used for building the value of the tokens that can not be directly sliced from
+	 * the input buffer. It is reused for every token.
+	 */
+	private final StringBuilder buffer;
+	
+	/**
+	 * The type of the current token, or null if there is no current token
+	 */
+	private JsonTokenType tokenType;
+	
+	/**
+	 * The decoded value of the current token, or null if it has not been requested yet
+	 */
+	private Object tokenValue;
+	
+	/**
+	 * The position in the input string of the first character of the current number token (only
+	 * used when reading from a string). The characters of the number are in the buffer.
+	 */
+	private int numberStart;
+	
+	/**
+	 * Where the characters of the current string token are: STRING_IN_INPUT,
+	 * STRING_IN_INPUT_BUFFER or STRING_IN_BUFFER
+	 */
+	private int stringLocation;
+	
+	/**
+	 * The position of the first character of the current string token in the input string or in
+	 * the input buffer
+	 */
+	private int stringStart;
+	
+	/**
+	 * The position following the last character of the current string token in the input string
+	 * or in the input buffer
+	 */
+	private int stringEnd;
+	
+	/**
+	 * Whether or not the numbers are returned as JsonNumber objects that are only decoded when
+	 * their value is read
+	 */
+	private boolean rawNumbers;
+	
 	/**
 	 * Creates a new instance of a JsonLexer with the given input string.
 	 * @param input The input string for the lexer.
 	 */
 	public JsonLexer(String input) {
+		this(input, 0, input.length());
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading the given part of an input string. The
+	 * characters are not copied, and the positions of the tokens remain relative to the start of
+	 * the whole string.
+	 * @param input The string containing the input
+	 * @param offset The position of the first character of the input in the string
+	 * @param length The number of characters of the input
+	 */
+	public JsonLexer(String input, int offset, int length) {
+		if(offset < 0 || length < 0 || offset > input.length() - length) {
+			throw new IndexOutOfBoundsException("Invalid range " + offset + "+" + length + " of a string of length " + input.length());
+		}
+		
 		this.input = input;
+		this.inputOffset = offset;
+		this.inputEnd = offset + length;
+		this.reader = null;
+		this.inputBuffer = new char[Math.min(length, DEFAULT_BUFFER_SIZE)];
+		this.position = 0;
+		this.limit = 0;
+		this.buffer = new StringBuilder();
+		this.rawNumbers = false;
+		this.tokenType = null;
+		this.tokenValue = null;
+		this.bytes = null;
+		this.byteArray = null;
+		this.byteArrayOffset = 0;
+		this.byteCopySource = null;
+		this.byteCopyBuffer = null;
+		this.bytePosition = 0;
+		this.byteLimit = 0;
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading its input from the given reader. The reader is
+	 * not closed by the lexer.
+	 * @param reader The reader to read the input from
+	 */
+	public JsonLexer(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading its input from the given reader, using an input
+	 * buffer of the given size. The reader is not closed by the lexer.
+	 * @param reader The reader to read the input from
+	 * @param bufferSize The size of the input buffer, in characters
+	 */
+	public JsonLexer(Reader reader, int bufferSize) {
+		if(bufferSize <= 0) {
+			throw new IllegalArgumentException("The buffer size must be positive: " + bufferSize);
+		}
+		
+		this.input = null;
+		this.inputOffset = 0;
+		this.inputEnd = 0;
+		this.reader = reader;
+		this.inputBuffer = new char[bufferSize];
 		this.position = 0;
+		this.limit = 0;
+		this.buffer = new StringBuilder();
+		this.rawNumbers = false;
+		this.tokenType = null;
+		this.tokenValue = null;
+		this.bytes = null;
+		this.byteArray = null;
+		this.byteArrayOffset = 0;
+		this.byteCopySource = null;
+		this.byteCopyBuffer = null;
+		this.bytePosition = 0;
+		this.byteLimit = 0;
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading its input from the given UTF-8 encoded stream.
+	 * The stream is not closed by the lexer.
+	 * @param inputStream The stream to read the input from
+	 */
+	public JsonLexer(InputStream inputStream) {
+		this(new InputStreamReader(inputStream, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading the given UTF-8 encoded bytes. The bytes are
+	 * not copied, so they must not be modified while the lexer is used.
+	 * @param input The UTF-8 encoded input
+	 */
+	public JsonLexer(byte[] input) {
+		this(ByteBuffer.wrap(input));
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading the given part of a UTF-8 encoded byte array.
+	 * The bytes are not copied, so they must not be modified while the lexer is used.
+	 * @param input The array containing the UTF-8 encoded input
+	 * @param offset The position of the first byte of the input in the array
+	 * @param length The number of bytes of the input
+	 */
+	public JsonLexer(byte[] input, int offset, int length) {
+		this(ByteBuffer.wrap(input, offset, length));
+	}
+	
+	/**
+	 * Creates a new instance of a JsonLexer reading the UTF-8 encoded bytes between the position
+	 * and the limit of the given buffer. The position of the buffer is not modified by the lexer,
+	 * and its contents must not be modified while the lexer is used.
+	 * @param input The buffer containing the UTF-8 encoded input
+	 */
+	public JsonLexer(ByteBuffer input) {
+		this.input = null;
+		this.inputOffset = 0;
+		this.inputEnd = 0;
+		this.reader = null;
+		this.inputBuffer = new char[0];
+		this.position = 0;
+		this.limit = 0;
+		this.buffer = new StringBuilder();
+		this.rawNumbers = false;
+		this.tokenType = null;
+		this.tokenValue = null;
+		this.bytes = input;
+		this.byteArray = input.hasArray() ? input.array() : null;
+		this.byteArrayOffset = input.hasArray() ? input.arrayOffset() : 0;
+		this.byteCopySource = input.hasArray() ? null : input.duplicate();
+		this.byteCopyBuffer = null;
+		this.bytePosition = input.position();
+		this.byteLimit = input.limit();
+	}
+	
+	/**
+	 * Defines whether the NUMBER tokens contain decoded numbers (a Long, a Double or a BigDecimal,
+	 * see the JsonNumber class), or JsonNumber objects that are only decoded when their value is
+	 * read. Raw numbers are cheaper to read when most of the numbers of a document are never used.
+	 * They are disabled by default.
+	 * @param rawNumbers true for returning JsonNumber objects, false for decoding the numbers
+	 * immediately.
+	 */
+	public void setRawNumbers(boolean rawNumbers) {
+		this.rawNumbers = rawNumbers;
+	}
+	
+	/**
+	 * Returns whether the NUMBER tokens contain JsonNumber objects or decoded numbers.
+	 * @return true if the NUMBER tokens contain JsonNumber objects, false otherwise.
+	 */
+	public boolean isRawNumbers() {
+		return this.rawNumbers;
 	}
 	
 	/**
 	 * Reads a token from the input string and returns it. This method will return null after the
-	 * end of the input string has been reached.
+	 * end of the input string has been reached. The returned tokens are created from the cursor
+	 * API (see next()), and the tokens that do not carry a value are shared.
 	 * @return The next token from the input string
 	 * @throws JsonLexerException If the lexer encounters an unexpected token.
 	 */
 	public JsonToken readToken() throws JsonLexerException {
+		JsonTokenType tokenType = this.next();
+		
+		if(tokenType == null) {
+			return null;
+		}
+		
+		switch(tokenType) {
+		case STRING:
+			return JsonToken.decodedString(this.getString());
+		case NUMBER:
+			return JsonToken.decodedNumber(this.getNumber());
+		default:
+			return CONSTANT_TOKENS[tokenType.ordinal()];
+		}
+	}
+	
+	/**
+	 * Moves to the next token of the input and returns its type. The value of the token can then
+	 * be read with getString() or getNumber(), until next() is called again. No object is created
+	 * by this method, except when the value of a string token contains escape sequences or spans
+	 * several fills of the input buffer.
+	 * @return The type of the next token, or null if the end of the input has been reached.
+	 * @throws JsonLexerException If the lexer encounters an unexpected token.
+	 */
+	public JsonTokenType next() throws JsonLexerException {
 		JsonLexerState state = JsonLexerState.START;
-		StringBuilder buffer = new StringBuilder();
+		StringBuilder buffer = this.buffer;
+		this.tokenType = null;
+		this.tokenValue = null;
+		
+		if(this.bytes != null) {
+			return this.nextFromBytes();
+		}
 		
-		while(this.position < this.input.length()) {
-			char c = this.input.charAt(this.position++);
+		while(this.position < this.limit || this.fill()) {
+			char c = this.inputBuffer[this.position++];
 
 			switch(state) {
 			case START:
 				switch(c) {
 				case '{':
-					return new JsonToken(JsonTokenType.LEFT_BRACE, "{");
+					return this.setToken(JsonTokenType.LEFT_BRACE);
 				case '}':
-					return new JsonToken(JsonTokenType.RIGHT_BRACE, "}");
+					return this.setToken(JsonTokenType.RIGHT_BRACE);
 				case '[':
-					return new JsonToken(JsonTokenType.LEFT_BRACKET, "[");
+					return this.setToken(JsonTokenType.LEFT_BRACKET);
 				case ']':
-					return new JsonToken(JsonTokenType.RIGHT_BRACKET, "]");
+					return this.setToken(JsonTokenType.RIGHT_BRACKET);
 				case ',':
-					return new JsonToken(JsonTokenType.COMMA, ",");
+					return this.setToken(JsonTokenType.COMMA);
 				case ':':
-					return new JsonToken(JsonTokenType.COLON, ":");
+					return this.setToken(JsonTokenType.COLON);
 				case '"':
-					state = JsonLexerState.READING_STRING;
-					break;
+					this.readString();
+					return this.setToken(JsonTokenType.STRING);
 				case 'T':
 				case 't':
 					state = JsonLexerState.READING_TRUE_2;
-					buffer.append(c);
 					break;
 				case 'F':
 				case 'f':
 					state = JsonLexerState.READING_FALSE_2;
-					buffer.append(c);
 					break;
 				case 'N':
 				case 'n':
 					state = JsonLexerState.READING_NULL_2;
-					buffer.append(c);
 					break;
 				case '0':
 				case '1':
@@ -84,10 +432,14 @@ public class JsonLexer {
 				case '8':
 				case '9':
 					state = JsonLexerState.READING_NUMBER_INTPART;
+					this.numberStart = this.inputOffset - this.limit + this.position - 1;
+					buffer.setLength(0);
 					buffer.append(c);
 					break;
 				case '-':
 					state = JsonLexerState.READING_NUMBER_BEFOREINTPART;
+					this.numberStart = this.inputOffset - this.limit + this.position - 1;
+					buffer.setLength(0);
 					buffer.append(c);
 					break;
 				case ' ':
@@ -100,69 +452,6 @@ public class JsonLexer {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 				break;
-			case READING_STRING:
-				if(c == '"') {
-					return new JsonToken(JsonTokenType.STRING, buffer.toString());
-				} else if(c == '\\') {
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING_ESCAPE;
-				} else {
-					buffer.append(c);
-				}
-				break;
-			case READING_STRING_ESCAPE:
-				switch(c) {
-				case '"':
-				case '\\':
-				case '/':
-				case 'b':
-				case 'f':
-				case 'n':
-				case 'r':
-				case 't':
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING;
-					break;
-				case 'u':
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING_ESCAPE_UNICODE_1;
-					break;
-				default:
-					throw new JsonLexerException("Unexpected escape '\\" + c);
-				}
-				break;
-			case READING_STRING_ESCAPE_UNICODE_1:
-				if((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING_ESCAPE_UNICODE_2;
-				} else {
-					throw new JsonLexerException("Not an hexadecimal digit : '" + c + '\'');
-				}
-				break;
-			case READING_STRING_ESCAPE_UNICODE_2:
-				if((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING_ESCAPE_UNICODE_3;
-				} else {
-					throw new JsonLexerException("Not an hexadecimal digit : '" + c + '\'');
-				}
-				break;
-			case READING_STRING_ESCAPE_UNICODE_3:
-				if((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING_ESCAPE_UNICODE_4;
-				} else {
-					throw new JsonLexerException("Not an hexadecimal digit : '" + c + '\'');
-				}
-				break;
-			case READING_STRING_ESCAPE_UNICODE_4:
-				if((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
-					buffer.append(c);
-					state = JsonLexerState.READING_STRING;
-				} else {
-					throw new JsonLexerException("Not an hexadecimal digit : '" + c + '\'');
-				}
-				break;
 			case READING_NUMBER_BEFOREINTPART:
 				if(c >= '0' && c <= '9') {
 					buffer.append(c);
@@ -182,7 +471,7 @@ public class JsonLexer {
 					state = JsonLexerState.READING_NUMBER_EXPPART_BEFORESIGN;
 				} else {
 					this.position--;
-					return new JsonToken(JsonTokenType.NUMBER, buffer.toString());
+					return this.setToken(JsonTokenType.NUMBER);
 				}
 				break;
 			case READING_NUMBER_FRACPART:
@@ -193,7 +482,7 @@ public class JsonLexer {
 					state = JsonLexerState.READING_NUMBER_EXPPART_BEFORESIGN;
 				} else {
 					this.position--;
-					return new JsonToken(JsonTokenType.NUMBER, buffer.toString());
+					return this.setToken(JsonTokenType.NUMBER);
 				}
 				break;
 			case READING_NUMBER_EXPPART_BEFORESIGN:
@@ -221,13 +510,12 @@ public class JsonLexer {
 					state = JsonLexerState.READING_NUMBER_EXPPART_AFTERSIGN_2;
 				} else {
 					this.position--;
-					return new JsonToken(JsonTokenType.NUMBER, buffer.toString());
+					return this.setToken(JsonTokenType.NUMBER);
 				}
 				break;
 			case READING_FALSE_2:
 				if(c == 'A' || c == 'a') {
 					state = JsonLexerState.READING_FALSE_3;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
@@ -235,7 +523,6 @@ public class JsonLexer {
 			case READING_FALSE_3:
 				if(c == 'L' || c == 'l') {
 					state = JsonLexerState.READING_FALSE_4;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
@@ -243,22 +530,19 @@ public class JsonLexer {
 			case READING_FALSE_4:
 				if(c == 'S' || c == 's') {
 					state = JsonLexerState.READING_FALSE_5;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 				break;
 			case READING_FALSE_5:
 				if(c == 'E' || c == 'e') {
-					buffer.append(c);
-					return new JsonToken(JsonTokenType.FALSE, buffer.toString());
+					return this.setToken(JsonTokenType.FALSE);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 			case READING_NULL_2:
 				if(c == 'U' || c == 'u') {
 					state = JsonLexerState.READING_NULL_3;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
@@ -266,22 +550,19 @@ public class JsonLexer {
 			case READING_NULL_3:
 				if(c == 'L' || c == 'l') {
 					state = JsonLexerState.READING_NULL_4;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 				break;
 			case READING_NULL_4:
 				if(c == 'L' || c == 'l') {
-					buffer.append(c);
-					return new JsonToken(JsonTokenType.NULL, buffer.toString());
+					return this.setToken(JsonTokenType.NULL);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 			case READING_TRUE_2:
 				if(c == 'R' || c == 'r') {
 					state = JsonLexerState.READING_TRUE_3;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
@@ -289,25 +570,892 @@ public class JsonLexer {
 			case READING_TRUE_3:
 				if(c == 'U' || c == 'u') {
 					state = JsonLexerState.READING_TRUE_4;
-					buffer.append(c);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 				break;
 			case READING_TRUE_4:
 				if(c == 'E' || c == 'e') {
-					buffer.append(c);
-					return new JsonToken(JsonTokenType.TRUE, buffer.toString());
+					return this.setToken(JsonTokenType.TRUE);
 				} else {
 					throw new JsonLexerException("Unexpected character '" + c + "'");
 				}
 			}
 		}
 		
-		if(state != JsonLexerState.START) {
+		switch(state) {
+		case START:
+			return null;
+		case READING_NUMBER_INTPART:
+		case READING_NUMBER_FRACPART:
+		case READING_NUMBER_EXPPART_AFTERSIGN_2:
+			// A number can end with the input, as long as it is complete
+			return this.setToken(JsonTokenType.NUMBER);
+		default:
 			throw new JsonLexerException("Unexpected end of JSON data");
 		}
+	}
+	
+	/**
+	 * Discards the characters of the input buffer that have not been read yet, and the current
+	 * token, so that the next token is read from the characters that the reader returns next. This
+	 * is used for skipping the rest of an invalid record when the reader returns the records one
+	 * by one.
+	 */
+	void discardInput() {
+		this.position = this.limit;
+		this.tokenType = null;
+		this.tokenValue = null;
+	}
+	
+	/**
+	 * Returns the type of the current token.
+	 * @return The type of the current token, or null if next() has not been called yet or if the
+	 * end of the input has been reached.
+	 */
+	public JsonTokenType getTokenType() {
+		return this.tokenType;
+	}
+	
+	/**
+	 * Returns the decoded value of the current token, which must be a STRING token. The String is
+	 * created the first time this method is called for the current token.
+	 * @return The value of the string
+	 * @throws IllegalStateException If the current token is not a STRING token.
+	 */
+	public String getString() {
+		if(this.tokenType != JsonTokenType.STRING) {
+			throw new IllegalStateException("The current token is not STRING: " + this.tokenType);
+		}
+		
+		if(this.tokenValue == null) {
+			switch(this.stringLocation) {
+			case STRING_IN_INPUT:
+				this.tokenValue = this.input.substring(this.stringStart, this.stringEnd);
+				break;
+			case STRING_IN_INPUT_BUFFER:
+				this.tokenValue = new String(this.inputBuffer, this.stringStart, this.stringEnd - this.stringStart);
+				break;
+			case STRING_IN_BYTES:
+				this.tokenValue = this.decodeBytes(StandardCharsets.UTF_8);
+				break;
+			case STRING_IN_ASCII_BYTES:
+				// ASCII is a subset of ISO-8859-1, which is decoded by a plain copy
+				this.tokenValue = this.decodeBytes(StandardCharsets.ISO_8859_1);
+				break;
+			default:
+				this.tokenValue = this.buffer.toString();
+				break;
+			}
+		}
+		
+		return (String)this.tokenValue;
+	}
+	
+	/**
+	 * Returns the value of the current token, which must be a STRING token, as the key of an
+	 * object. If a key cache is given, the canonical instance of the key is returned, and it is
+	 * looked up directly in the input so that no String is created for keys that are already in
+	 * the cache.
+	 * @param cache The key cache, or null for returning the same value as getString()
+	 * @return The value of the string
+	 * @throws IllegalStateException If the current token is not a STRING token.
+	 */
+	String getKey(JsonKeyCache cache) {
+		if(cache == null || this.tokenType != JsonTokenType.STRING || this.tokenValue != null) {
+			return this.getString();
+		}
+		
+		String key;
+		
+		switch(this.stringLocation) {
+		case STRING_IN_INPUT:
+		{
+			// The characters of the key are usually still in the input buffer
+			int bufferStart = this.stringStart - (this.inputOffset - this.limit);
+			
+			if(bufferStart >= 0) {
+				key = cache.get(this.inputBuffer, bufferStart, bufferStart + this.stringEnd - this.stringStart);
+			} else {
+				key = cache.get(this.input, this.stringStart, this.stringEnd);
+			}
+			
+			break;
+		}
+		case STRING_IN_INPUT_BUFFER:
+			key = cache.get(this.inputBuffer, this.stringStart, this.stringEnd);
+			break;
+		case STRING_IN_ASCII_BYTES:
+			if(this.byteArray != null) {
+				int offset = this.byteArrayOffset;
+				key = cache.get(this.byteArray, offset + this.stringStart, offset + this.stringEnd);
+			} else {
+				key = cache.get(this.copyStringBytes(), 0, this.stringEnd - this.stringStart);
+			}
+			break;
+		default:
+			key = cache.get(this.getString());
+			break;
+		}
+		
+		this.tokenValue = key;
+		return key;
+	}
+	
+	/**
+	 * Returns the value of the current token, which must be a NUMBER token. The number is decoded
+	 * the first time this method is called for the current token. See setRawNumbers() for the
+	 * types of the returned numbers.
+	 * @return The value of the number
+	 * @throws IllegalStateException If the current token is not a NUMBER token.
+	 */
+	public Number getNumber() {
+		if(this.tokenType != JsonTokenType.NUMBER) {
+			throw new IllegalStateException("The current token is not NUMBER: " + this.tokenType);
+		}
+		
+		if(this.tokenValue == null) {
+			StringBuilder buffer = this.buffer;
+			
+			if(!this.rawNumbers) {
+				this.tokenValue = JsonNumber.decode(buffer, 0, buffer.length());
+			} else if(this.input != null) {
+				this.tokenValue = new JsonNumber(this.input, this.numberStart, this.numberStart + buffer.length());
+			} else {
+				this.tokenValue = new JsonNumber(buffer.toString(), 0, buffer.length());
+			}
+		}
+		
+		return (Number)this.tokenValue;
+	}
+	
+	/**
+	 * Returns the value of the current token, which must be a NUMBER token holding an integer
+	 * that fits in a long. The value is decoded without creating any object.
+	 * @return The value of the number
+	 * @throws IllegalStateException If the current token is not a NUMBER token.
+	 * @throws NumberFormatException If the number is not an integer, or if it does not fit in a
+	 * long.
+	 */
+	long getLong() {
+		if(this.tokenType != JsonTokenType.NUMBER) {
+			throw new IllegalStateException("The current token is not NUMBER: " + this.tokenType);
+		}
+		
+		return JsonNumber.decodeLong(this.buffer, 0, this.buffer.length());
+	}
+	
+	/**
+	 * Returns the value of the current token, which must be a NUMBER token, as a double.
+	 * @return The value of the number, rounded to the nearest double
+	 * @throws IllegalStateException If the current token is not a NUMBER token.
+	 */
+	double getDouble() {
+		if(this.tokenType != JsonTokenType.NUMBER) {
+			throw new IllegalStateException("The current token is not NUMBER: " + this.tokenType);
+		}
+		
+		return JsonNumber.decodeDouble(this.buffer, 0, this.buffer.length());
+	}
+	
+	/**
+	 * Returns the text of the current token, which must be a NUMBER token.
+	 * @return The characters of the number, as they appear in the input
+	 * @throws IllegalStateException If the current token is not a NUMBER token.
+	 */
+	String getNumberText() {
+		if(this.tokenType != JsonTokenType.NUMBER) {
+			throw new IllegalStateException("The current token is not NUMBER: " + this.tokenType);
+		}
+		
+		return this.buffer.toString();
+	}
+	
+	/**
+	 * Returns the position in the UTF-8 encoded input of the first byte of the current token,
+	 * which must be a STRING or a NUMBER token. For a string, this is the byte following the
+	 * opening quote. Positions are those of the ByteBuffer given to the constructor.
+	 * @return The position of the first byte of the token
+	 * @throws IllegalStateException If the input is not UTF-8 encoded bytes, or if the current
+	 * token is not a STRING or a NUMBER token.
+	 */
+	int getByteStart() {
+		if(this.tokenType == JsonTokenType.STRING && this.bytes != null) {
+			return this.stringStart;
+		}
+		
+		// The characters of a number are ASCII, so each of them is a single byte
+		return this.getByteEnd() - this.buffer.length();
+	}
+	
+	/**
+	 * Returns the position in the UTF-8 encoded input following the last byte of the current
+	 * token, which must be a STRING or a NUMBER token. For a string, this is the position of the
+	 * closing quote.
+	 * @return The position following the last byte of the token
+	 * @throws IllegalStateException If the input is not UTF-8 encoded bytes, or if the current
+	 * token is not a STRING or a NUMBER token.
+	 */
+	int getByteEnd() {
+		if(this.bytes == null || (this.tokenType != JsonTokenType.STRING && this.tokenType != JsonTokenType.NUMBER)) {
+			throw new IllegalStateException("The current token has no position in UTF-8 input: " + this.tokenType);
+		}
+		
+		return this.tokenType == JsonTokenType.STRING ? this.stringEnd : this.bytePosition;
+	}
+	
+	/**
+	 * Returns whether or not the current token, which must be a STRING token read from UTF-8
+	 * encoded input, only contains ASCII characters and no escape sequence.
+	 * @return true if the bytes of the string can be decoded as ISO-8859-1, false otherwise.
+	 */
+	boolean isAsciiString() {
+		return this.stringLocation == STRING_IN_ASCII_BYTES;
+	}
+	
+	/**
+	 * Returns whether or not the current token, which must be a STRING token read from UTF-8
+	 * encoded input, contains escape sequences.
+	 * @return true if the bytes of the string must be unescaped, false if they can be decoded as
+	 * UTF-8.
+	 */
+	boolean isEscapedString() {
+		return this.stringLocation == STRING_IN_BUFFER;
+	}
+	
+	/**
+	 * Sets the type of the current token.
+	 * @param tokenType The type of the current token
+	 * @return The type of the current token
+	 */
+	private JsonTokenType setToken(JsonTokenType tokenType) {
+		this.tokenType = tokenType;
+		return tokenType;
+	}
+	
+	/**
+	 * Creates the tokens returned by readToken() for the token types that do not carry a value.
+	 * @return The tokens, indexed by the ordinal of their type
+	 */
+	private static JsonToken[] createConstantTokens() {
+		JsonToken[] tokens = new JsonToken[JsonTokenType.values().length];
+		
+		tokens[JsonTokenType.LEFT_BRACE.ordinal()] = new JsonToken(JsonTokenType.LEFT_BRACE, "{");
+		tokens[JsonTokenType.RIGHT_BRACE.ordinal()] = new JsonToken(JsonTokenType.RIGHT_BRACE, "}");
+		tokens[JsonTokenType.LEFT_BRACKET.ordinal()] = new JsonToken(JsonTokenType.LEFT_BRACKET, "[");
+		tokens[JsonTokenType.RIGHT_BRACKET.ordinal()] = new JsonToken(JsonTokenType.RIGHT_BRACKET, "]");
+		tokens[JsonTokenType.COMMA.ordinal()] = new JsonToken(JsonTokenType.COMMA, ",");
+		tokens[JsonTokenType.COLON.ordinal()] = new JsonToken(JsonTokenType.COLON, ":");
+		tokens[JsonTokenType.TRUE.ordinal()] = new JsonToken(JsonTokenType.TRUE, "true");
+		tokens[JsonTokenType.FALSE.ordinal()] = new JsonToken(JsonTokenType.FALSE, "false");
+		tokens[JsonTokenType.NULL.ordinal()] = new JsonToken(JsonTokenType.NULL, "null");
+		
+		return tokens;
+	}
+	
+	
+	/**
+	 * Implements next() for UTF-8 encoded input. Outside of string tokens, a JSON document only
+	 * contains ASCII characters, so the bytes are directly compared to the expected characters.
+	 * @return The type of the next token, or null if the end of the input has been reached.
+	 * @throws JsonLexerException If the lexer encounters an unexpected token.
+	 */
+	private JsonTokenType nextFromBytes() throws JsonLexerException {
+		ByteBuffer bytes = this.bytes;
+		int limit = this.byteLimit;
+		
+		while(this.bytePosition < limit) {
+			int c = bytes.get(this.bytePosition++) & 0xff;
+			
+			switch(c) {
+			case '{':
+				return this.setToken(JsonTokenType.LEFT_BRACE);
+			case '}':
+				return this.setToken(JsonTokenType.RIGHT_BRACE);
+			case '[':
+				return this.setToken(JsonTokenType.LEFT_BRACKET);
+			case ']':
+				return this.setToken(JsonTokenType.RIGHT_BRACKET);
+			case ',':
+				return this.setToken(JsonTokenType.COMMA);
+			case ':':
+				return this.setToken(JsonTokenType.COLON);
+			case '"':
+				this.readByteString();
+				return this.setToken(JsonTokenType.STRING);
+			case 'T':
+			case 't':
+				this.readByteLiteral("rue");
+				return this.setToken(JsonTokenType.TRUE);
+			case 'F':
+			case 'f':
+				this.readByteLiteral("alse");
+				return this.setToken(JsonTokenType.FALSE);
+			case 'N':
+			case 'n':
+				this.readByteLiteral("ull");
+				return this.setToken(JsonTokenType.NULL);
+			case '-':
+			case '0':
+			case '1':
+			case '2':
+			case '3':
+			case '4':
+			case '5':
+			case '6':
+			case '7':
+			case '8':
+			case '9':
+				this.readByteNumber((char)c);
+				return this.setToken(JsonTokenType.NUMBER);
+			case ' ':
+			case '\t':
+			case '\r':
+			case '\n':
+			case '\f':
+				break;
+			default:
+				throw new JsonLexerException("Unexpected character '" + (char)c + "'");
+			}
+		}
 		
 		return null;
 	}
+	
+	/**
+	 * Reads the end of a literal (true, false or null) from the UTF-8 encoded input. Like in
+	 * character input, the literals are not case-sensitive.
+	 * @param expected The expected characters, in lower case
+	 * @throws JsonLexerException If the input does not contain the expected characters.
+	 */
+	private void readByteLiteral(String expected) throws JsonLexerException {
+		for(int i = 0; i < expected.length(); i++) {
+			if(this.bytePosition >= this.byteLimit) {
+				throw new JsonLexerException("Unexpected end of JSON data");
+			}
+			
+			int c = this.bytes.get(this.bytePosition++) & 0xff;
+			
+			if((c | 0x20) != expected.charAt(i)) {
+				throw new JsonLexerException("Unexpected character '" + (char)c + "'");
+			}
+		}
+	}
+	
+	/**
+	 * Reads a number from the UTF-8 encoded input, and accumulates its characters in the buffer.
+	 * It accepts the same syntax as the number states of next().
+	 * @param first The first character of the number, which has already been consumed
+	 * @throws JsonLexerException If the number is malformed or is not terminated.
+	 */
+	private void readByteNumber(char first) throws JsonLexerException {
+		ByteBuffer bytes = this.bytes;
+		StringBuilder buffer = this.buffer;
+		JsonLexerState state = first == '-' ? JsonLexerState.READING_NUMBER_BEFOREINTPART : JsonLexerState.READING_NUMBER_INTPART;
+		
+		buffer.setLength(0);
+		buffer.append(first);
+		
+		while(this.bytePosition < this.byteLimit) {
+			char c = (char)(bytes.get(this.bytePosition) & 0xff);
+			boolean digit = c >= '0' && c <= '9';
+			
+			switch(state) {
+			case READING_NUMBER_BEFOREINTPART:
+				if(!digit) {
+					throw new JsonLexerException("Unexpected character '" + c + "'");
+				}
+				
+				state = JsonLexerState.READING_NUMBER_INTPART;
+				break;
+			case READING_NUMBER_INTPART:
+				if(c == '.') {
+					state = JsonLexerState.READING_NUMBER_FRACPART;
+				} else if(c == 'E' || c == 'e') {
+					state = JsonLexerState.READING_NUMBER_EXPPART_BEFORESIGN;
+				} else if(!digit) {
+					return;
+				}
+				break;
+			case READING_NUMBER_FRACPART:
+				if(c == 'E' || c == 'e') {
+					state = JsonLexerState.READING_NUMBER_EXPPART_BEFORESIGN;
+				} else if(!digit) {
+					return;
+				}
+				break;
+			case READING_NUMBER_EXPPART_BEFORESIGN:
+				if(c == '+' || c == '-') {
+					state = JsonLexerState.READING_NUMBER_EXPPART_AFTERSIGN;
+				} else if(digit) {
+					state = JsonLexerState.READING_NUMBER_EXPPART_AFTERSIGN_2;
+				} else {
+					throw new JsonLexerException("Unexpected character '" + c + "'");
+				}
+				break;
+			case READING_NUMBER_EXPPART_AFTERSIGN:
+				if(!digit) {
+					throw new JsonLexerException("Unexpected character '" + c + "', expected decimal digit.");
+				}
+				
+				state = JsonLexerState.READING_NUMBER_EXPPART_AFTERSIGN_2;
+				break;
+			default:
+				if(!digit) {
+					return;
+				}
+				break;
+			}
+			
+			buffer.append(c);
+			this.bytePosition++;
+		}
+		
+		// A number can end with the input, as long as it is complete
+		switch(state) {
+		case READING_NUMBER_INTPART:
+		case READING_NUMBER_FRACPART:
+		case READING_NUMBER_EXPPART_AFTERSIGN_2:
+			return;
+		default:
+			throw new JsonLexerException("Unexpected end of JSON data");
+		}
+	}
+	
+	/**
+	 * Reads a string token from the UTF-8 encoded input. The opening quote must already have been
+	 * consumed. The multi-byte sequences are validated but not decoded: if the string does not
+	 * contain any escape sequence, only its position in the input is saved. Otherwise, its decoded
+	 * value is saved in the buffer.
+	 * @throws JsonLexerException If the string is malformed, contains invalid UTF-8 sequences or
+	 * is not terminated.
+	 */
+	private void readByteString() throws JsonLexerException {
+		ByteBuffer bytes = this.bytes;
+		int limit = this.byteLimit;
+		int stringStart = this.bytePosition;
+		int runStart = stringStart;
+		int i = stringStart;
+		boolean ascii = true;
+		StringBuilder buffer = null;
+		
+		while((i = this.skipStringBytes(i, limit)) < limit) {
+			int b = bytes.get(i);
+			
+			if(b == '"') {
+				this.bytePosition = i + 1;
+				
+				// The position of the string is also kept when it is decoded in the buffer, for
+				// getByteStart() and getByteEnd()
+				this.stringStart = stringStart;
+				this.stringEnd = i;
+				
+				if(buffer != null) {
+					this.appendUtf8(buffer, runStart, i);
+					this.stringLocation = STRING_IN_BUFFER;
+				} else {
+					this.stringLocation = ascii ? STRING_IN_ASCII_BYTES : STRING_IN_BYTES;
+				}
+				
+				return;
+			} else if(b == '\\') {
+				if(buffer == null) {
+					buffer = this.buffer;
+					buffer.setLength(0);
+				}
+				
+				this.appendUtf8(buffer, runStart, i);
+				this.bytePosition = i + 1;
+				this.readEscapeSequence(buffer);
+				i = this.bytePosition;
+				runStart = i;
+			} else if(b < 0) {
+				i += this.checkUtf8Sequence(i);
+				ascii = false;
+			} else {
+				throw new JsonLexerException(String.format("Unexpected control character \\u%04x in string", b));
+			}
+		}
+		
+		throw new JsonLexerException("Unexpected end of JSON data");
+	}
+	
+	/**
+	 * Returns the position of the first byte between the given positions of the UTF-8 encoded
+	 * input that is not a printable ASCII character, or that is a quote or a backslash. When the
+	 * input is backed by an array, the array is scanned eight bytes at a time by the
+	 * JsonByteScanner. Otherwise, the bytes are checked one by one.
+	 * @param i The position of the first byte to check
+	 * @param limit The position following the last byte to check
+	 * @return The position of the first special byte, or limit if there is none.
+	 */
+	private int skipStringBytes(int i, int limit) {
+		byte[] array = this.byteArray;
+		
+		if(array != null) {
+			int offset = this.byteArrayOffset;
+			return JsonByteScanner.findStringSpecial(array, i + offset, limit + offset) - offset;
+		}
+		
+		ByteBuffer bytes = this.bytes;
+		
+		while(i < limit) {
+			byte b = bytes.get(i);
+			
+			if(b < 0x20 || b == '"' || b == '\\' || b == 0x7f) {
+				break;
+			}
+			
+			i++;
+		}
+		
+		return i;
+	}
+	
+	/**
+	 * Checks the UTF-8 multi-byte sequence starting at the given position. Overlong encodings,
+	 * surrogates and code points above U+10FFFF are rejected, as well as the C1 control characters
+	 * (U+0080 to U+009F), which are not allowed unescaped in strings by this lexer.
+	 * @param i The position of the first byte of the sequence
+	 * @return The length of the sequence, in bytes
+	 * @throws JsonLexerException If the sequence is not valid.
+	 */
+	private int checkUtf8Sequence(int i) throws JsonLexerException {
+		ByteBuffer bytes = this.bytes;
+		int b0 = bytes.get(i) & 0xff;
+		int length;
+		int min = 0x80;
+		int max = 0xbf;
+		
+		if(b0 >= 0xc2 && b0 <= 0xdf) {
+			length = 2;
+		} else if(b0 >= 0xe0 && b0 <= 0xef) {
+			length = 3;
+			min = b0 == 0xe0 ? 0xa0 : 0x80;
+			max = b0 == 0xed ? 0x9f : 0xbf;
+		} else if(b0 >= 0xf0 && b0 <= 0xf4) {
+			length = 4;
+			min = b0 == 0xf0 ? 0x90 : 0x80;
+			max = b0 == 0xf4 ? 0x8f : 0xbf;
+		} else {
+			throw new JsonLexerException(String.format("Invalid UTF-8 byte 0x%02x in string", b0));
+		}
+		
+		if(i + length > this.byteLimit) {
+			throw new JsonLexerException("Unexpected end of JSON data");
+		}
+		
+		int b1 = bytes.get(i + 1) & 0xff;
+		
+		if(b1 < min || b1 > max) {
+			throw new JsonLexerException(String.format("Invalid UTF-8 byte 0x%02x in string", b1));
+		}
+		
+		for(int j = 2; j < length; j++) {
+			int b = bytes.get(i + j) & 0xff;
+			
+			if((b & 0xc0) != 0x80) {
+				throw new JsonLexerException(String.format("Invalid UTF-8 byte 0x%02x in string", b));
+			}
+		}
+		
+		if(b0 == 0xc2 && b1 <= 0x9f) {
+			throw new JsonLexerException(String.format("Unexpected control character \\u%04x in string", b1));
+		}
+		
+		return length;
+	}
+	
+	/**
+	 * Decodes the given range of the UTF-8 encoded input and appends it to the given buffer. The
+	 * range must only contain sequences that have been validated by checkUtf8Sequence().
+	 * @param buffer The buffer where the decoded characters are appended
+	 * @param from The position of the first byte to decode
+	 * @param to The position following the last byte to decode
+	 */
+	private void appendUtf8(StringBuilder buffer, int from, int to) {
+		ByteBuffer bytes = this.bytes;
+		int i = from;
+		
+		while(i < to) {
+			int b0 = bytes.get(i) & 0xff;
+			
+			if(b0 < 0x80) {
+				buffer.append((char)b0);
+				i++;
+			} else if(b0 < 0xe0) {
+				buffer.append((char)(((b0 & 0x1f) << 6) | (bytes.get(i + 1) & 0x3f)));
+				i += 2;
+			} else if(b0 < 0xf0) {
+				buffer.append((char)(((b0 & 0x0f) << 12) | ((bytes.get(i + 1) & 0x3f) << 6) | (bytes.get(i + 2) & 0x3f)));
+				i += 3;
+			} else {
+				buffer.appendCodePoint(((b0 & 0x07) << 18) | ((bytes.get(i + 1) & 0x3f) << 12) | ((bytes.get(i + 2) & 0x3f) << 6) | (bytes.get(i + 3) & 0x3f));
+				i += 4;
+			}
+		}
+	}
+	
+	/**
+	 * Decodes the current string token from the UTF-8 encoded input.
+	 * @param charset The charset used for decoding the bytes of the string
+	 * @return The value of the string
+	 */
+	private String decodeBytes(Charset charset) {
+		int length = this.stringEnd - this.stringStart;
+		
+		if(this.byteArray != null) {
+			return new String(this.byteArray, this.byteArrayOffset + this.stringStart, length, charset);
+		}
+		
+		return new String(this.copyStringBytes(), 0, length, charset);
+	}
+	
+	/**
+	 * Copies the bytes of the current string token to byteCopyBuffer, when the UTF-8 encoded
+	 * input is not backed by an accessible array.
+	 * @return The array containing the bytes of the string, starting at position 0
+	 */
+	private byte[] copyStringBytes() {
+		int length = this.stringEnd - this.stringStart;
+		byte[] array = this.byteCopyBuffer;
+		
+		if(array == null || array.length < length) {
+			array = new byte[Math.max(length, 64)];
+			this.byteCopyBuffer = array;
+		}
+		
+		ByteBuffer source = this.byteCopySource;
+		source.position(this.stringStart);
+		source.get(array, 0, length);
+		
+		return array;
+	}
+	
+	/**
+	 * Refills the input buffer with the next characters of the input. This method must only be
+	 * called once all the characters of the input buffer have been consumed.
+	 * @return true if characters were read, false if the end of the input has been reached.
+	 * @throws JsonLexerException If the input could not be read.
+	 */
+	private boolean fill() throws JsonLexerException {
+		int count;
+		
+		if(this.reader != null) {
+			try {
+				do {
+					count = this.reader.read(this.inputBuffer, 0, this.inputBuffer.length);
+				} while(count == 0);
+			} catch(IOException e) {
+				throw new JsonLexerException("Failed to read the JSON input", e);
+			}
+		} else if(this.inputOffset < this.inputEnd) {
+			count = Math.min(this.inputBuffer.length, this.inputEnd - this.inputOffset);
+			this.input.getChars(this.inputOffset, this.inputOffset + count, this.inputBuffer, 0);
+			this.inputOffset += count;
+		} else {
+			count = -1;
+		}
+		
+		if(count < 0) {
+			return false;
+		}
+		
+		this.position = 0;
+		this.limit = count;
+		
+		return true;
+	}
+	
+	/**
+	 * Reads a string token. The opening quote must already have been consumed. The escape
+	 * sequences are decoded while reading, so that the characters of the string are only read
+	 * once. If the string does not contain any escape sequence, then only its position in the
+	 * input string (or in the input buffer when reading from a Reader) is saved, otherwise its
+	 * decoded value is saved in the buffer. The String object is only created by getString().
+	 * @throws JsonLexerException If the string is malformed or is not terminated.
+	 */
+	private void readString() throws JsonLexerException {
+		String input = this.input;
+		int stringStart = this.inputOffset - this.limit + this.position;
+		StringBuilder buffer = null;
+		
+		while(true) {
+			char[] inputBuffer = this.inputBuffer;
+			int inputBufferOffset = this.inputOffset - this.limit;
+			int limit = this.limit;
+			int runStart = this.position;
+			int i = runStart;
+			
+			while((i = JsonLexer.skipStringCharacters(inputBuffer, i, limit)) < limit) {
+				char c = inputBuffer[i];
+				
+				if(c == '"') {
+					this.position = i + 1;
+					
+					if(buffer != null) {
+						buffer.append(inputBuffer, runStart, i - runStart);
+						this.stringLocation = STRING_IN_BUFFER;
+					} else if(input != null) {
+						this.stringLocation = STRING_IN_INPUT;
+						this.stringStart = stringStart;
+						this.stringEnd = inputBufferOffset + i;
+					} else {
+						this.stringLocation = STRING_IN_INPUT_BUFFER;
+						this.stringStart = runStart;
+						this.stringEnd = i;
+					}
+					
+					return;
+				} else if(c == '\\') {
+					if(buffer != null) {
+						buffer.append(inputBuffer, runStart, i - runStart);
+					} else {
+						buffer = this.buffer;
+						buffer.setLength(0);
+						
+						if(input != null) {
+							buffer.append(input, stringStart, inputBufferOffset + i);
+						} else {
+							buffer.append(inputBuffer, runStart, i - runStart);
+						}
+					}
+					
+					this.position = i + 1;
+					this.readEscapeSequence(buffer);
+					
+					// The input buffer may have been refilled while reading the escape sequence
+					inputBufferOffset = this.inputOffset - this.limit;
+					limit = this.limit;
+					i = this.position;
+					runStart = i;
+				} else {
+					throw new JsonLexerException(String.format("Unexpected control character \\u%04x in string", (int)c));
+				}
+			}
+			
+			// The string continues after the end of the input buffer. When reading from a string,
+			// the characters do not need to be saved as long as no escape sequence was found.
+			if(buffer != null) {
+				buffer.append(inputBuffer, runStart, limit - runStart);
+			} else if(input == null) {
+				buffer = this.buffer;
+				buffer.setLength(0);
+				buffer.append(inputBuffer, runStart, limit - runStart);
+			}
+			
+			this.position = limit;
+			
+			if(!this.fill()) {
+				throw new JsonLexerException("Unexpected end of JSON data");
+			}
+		}
+	}
+	
+	/**
+	 * Returns the position of the first character between the given positions that needs a
+	 * special treatment inside a string token: a quote, a backslash or a control character.
+	 * @param inputBuffer The buffer containing the characters of the string
+	 * @param i The position of the first character to check
+	 * @param limit The position following the last character to check
+	 * @return The position of the first special character, or limit if there is none.
+	 */
+	private static int skipStringCharacters(char[] inputBuffer, int i, int limit) {
+		while(i < limit) {
+			char c = inputBuffer[i];
+			
+			if(c == '"' || c == '\\' || c <= 0x001f || (c >= 0x007f && c <= 0x009f)) {
+				break;
+			}
+			
+			i++;
+		}
+		
+		return i;
+	}
+	
+	/**
+	 * Decodes the escape sequence starting at the current position (just after the backslash) and
+	 * appends the decoded character to the given buffer.
+	 * @param buffer The buffer where the decoded character is appended
+	 * @throws JsonLexerException If the escape sequence is malformed or is not terminated.
+	 */
+	private void readEscapeSequence(StringBuilder buffer) throws JsonLexerException {
+		char c = this.readStringCharacter();
+		
+		switch(c) {
+		case '"':
+		case '\\':
+		case '/':
+			buffer.append(c);
+			break;
+		case 'b':
+			buffer.append('\b');
+			break;
+		case 'f':
+			buffer.append('\f');
+			break;
+		case 'n':
+			buffer.append('\n');
+			break;
+		case 'r':
+			buffer.append('\r');
+			break;
+		case 't':
+			buffer.append('\t');
+			break;
+		case 'u':
+		{
+			int unicodeChar = 0;
+			
+			for(int digitIndex = 0; digitIndex < 4; digitIndex++) {
+				unicodeChar = (unicodeChar << 4) | JsonLexer.hexDigitValue(this.readStringCharacter());
+			}
+			
+			buffer.append((char)unicodeChar);
+			break;
+		}
+		default:
+			throw new JsonLexerException("Unexpected escape '\\" + c);
+		}
+	}
+	
+	/**
+	 * Reads the next character of a string token.
+	 * @return The next character of the input
+	 * @throws JsonLexerException If the end of the input has been reached.
+	 */
+	private char readStringCharacter() throws JsonLexerException {
+		if(this.bytes != null) {
+			if(this.bytePosition >= this.byteLimit) {
+				throw new JsonLexerException("Unexpected end of JSON data");
+			}
+			
+			return (char)(this.bytes.get(this.bytePosition++) & 0xff);
+		}
+		
+		if(this.position >= this.limit && !this.fill()) {
+			throw new JsonLexerException("Unexpected end of JSON data");
+		}
+		
+		return this.inputBuffer[this.position++];
+	}
+	
+	/**
+	 * Returns the value of the given hexadecimal digit.
+	 * @param c The hexadecimal digit
+	 * @return The value of the digit, between 0 and 15.
+	 * @throws JsonLexerException If the character is not an hexadecimal digit.
+	 */
+	private static int hexDigitValue(char c) throws JsonLexerException {
+		if(c >= '0' && c <= '9') {
+			return c - '0';
+		} else if(c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		} else if(c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		} else {
+			throw new JsonLexerException("Not an hexadecimal digit : '" + c + '\'');
+		}
+	}
 }
@@ -16,4 +16,13 @@ public class JsonLexerException extends Exception {
 	public JsonLexerException(String message) {
 		super(message);
 	}
+	
+	/**
+	 * Creates a new JsonLexerException with the given error message and cause
+	 * @param message Error message describing what happened
+	 * @param cause The exception that caused this exception
+	 */
+	public JsonLexerException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
@@ -7,12 +7,6 @@ package fr.ankeraout.libjson;
  */
 public enum JsonLexerState {
 	START,
-	READING_STRING,
-	READING_STRING_ESCAPE,
-	READING_STRING_ESCAPE_UNICODE_1,
-	READING_STRING_ESCAPE_UNICODE_2,
-	READING_STRING_ESCAPE_UNICODE_3,
-	READING_STRING_ESCAPE_UNICODE_4,
 	READING_NUMBER_BEFOREINTPART,
 	READING_NUMBER_INTPART,
 	READING_NUMBER_FRACPART,
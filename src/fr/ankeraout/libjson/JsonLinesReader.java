@@ -0,0 +1,675 @@
+package fr.ankeraout.libjson;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class reads the records of a newline-delimited JSON input (NDJSON, also known as JSON
+ * Lines), in which each line holds one JSON value. The records are returned one by one in a
+ * JsonArray or JsonObject form, so that inputs of any size can be read.
+ *
+ * Each line must hold exactly one value, as required by the format, and the blank lines are
+ * ignored. A record ends with its line: when a line is invalid, only its record is rejected, and
+ * the reading continues with the next line. By default, the lines are parsed one by one by a
+ * single JsonLexer and JsonParser, which read each line in place from the buffer of the input and
+ * keep their buffers from one record to the next. When a ForkJoinPool is
+ * given, the lines are read in batches of BATCH_SIZE lines whose records are parsed concurrently by
+ * the threads of the pool, while the next batch is read; the records are still returned in the
+ * order of the input.
+ *
+ * The reader can be used directly, as an Iterator, or as a Stream. The following example counts
+ * the records whose "level" key is "ERROR":
+ * <pre>
+ * try(JsonLinesReader reader = new JsonLinesReader(inputStream)) {
+ *     long errors = reader.stream()
+ *         .filter(record -&gt; "ERROR".equals(((JsonObject)record).get("level")))
+ *         .count();
+ * }
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public final class JsonLinesReader implements Iterator<Object>, Closeable {
+	/**
+	 * The number of lines read in each batch when the records are parsed in parallel.
+	 */
+	public static final int BATCH_SIZE = 4096;
+	
+	/**
+	 * The number of tasks parsing each batch per thread of the pool, so that the threads that
+	 * parse the shortest lines do not stay idle while the others finish.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+	
+	/**
+	 * The input of the reader, closed by close()
+	 */
+	private final Closeable source;
+	
+	/**
+	 * The reader of the lines, or null if the records are parsed sequentially
+	 */
+	private final BufferedReader lineReader;
+	
+	/**
+	 * The input of the lexer, which returns the characters of one line at a time, or null if the
+	 * records are parsed in parallel
+	 */
+	private final LineInput lineInput;
+	
+	/**
+	 * The lexer of the lines, or null if the records are parsed in parallel
+	 */
+	private final JsonLexer lexer;
+	
+	/**
+	 * The parser of the lines, or null if the records are parsed in parallel
+	 */
+	private final JsonParser parser;
+	
+	/**
+	 * true if the next line to parse has been found when the records are parsed sequentially
+	 */
+	private boolean lineReady;
+	
+	/**
+	 * The pool parsing the batches, or null if the records are parsed sequentially
+	 */
+	private final ForkJoinPool pool;
+	
+	/**
+	 * The parser used by each task of a batch. The batches are parsed one after the other, so
+	 * each parser is only used by one thread at a time.
+	 */
+	private final JsonParser[] taskParsers;
+	
+	/**
+	 * The batch whose records are returned, or null if there is none
+	 */
+	private Batch batch;
+	
+	/**
+	 * The position of the next record to return in the current batch
+	 */
+	private int batchPosition;
+	
+	/**
+	 * The batch that is being parsed, or null if there is none
+	 */
+	private Batch pendingBatch;
+	
+	/**
+	 * Creates a new JsonLinesReader parsing the records sequentially from the given reader.
+	 * @param reader The reader to read the input from
+	 */
+	public JsonLinesReader(Reader reader) {
+		this.source = reader;
+		this.lineReader = null;
+		this.lineInput = new LineInput(reader);
+		this.lexer = new JsonLexer(this.lineInput);
+		this.parser = new JsonParser();
+		this.lineReady = false;
+		this.pool = null;
+		this.taskParsers = null;
+		this.batch = null;
+		this.batchPosition = 0;
+		this.pendingBatch = null;
+	}
+	
+	/**
+	 * Creates a new JsonLinesReader parsing the records sequentially from the given UTF-8 encoded
+	 * stream.
+	 * @param inputStream The stream to read the input from
+	 */
+	public JsonLinesReader(InputStream inputStream) {
+		this(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Creates a new JsonLinesReader parsing the records sequentially from the given UTF-8 encoded
+	 * channel.
+	 * @param channel The channel to read the input from
+	 */
+	public JsonLinesReader(ReadableByteChannel channel) {
+		this(Channels.newInputStream(channel));
+	}
+	
+	/**
+	 * Creates a new JsonLinesReader reading the lines of the given reader, and parsing them in
+	 * parallel with the threads of the given pool.
+	 * @param reader The reader to read the input from
+	 * @param pool The pool parsing the lines
+	 */
+	public JsonLinesReader(Reader reader, ForkJoinPool pool) {
+		this.source = reader;
+		this.lineReader = new BufferedReader(reader);
+		this.lineInput = null;
+		this.lexer = null;
+		this.parser = null;
+		this.lineReady = false;
+		this.pool = pool;
+		this.taskParsers = new JsonParser[pool.getParallelism() * TASKS_PER_THREAD];
+		this.batch = null;
+		this.batchPosition = 0;
+		this.pendingBatch = null;
+	}
+	
+	/**
+	 * Returns whether or not there is another record to read.
+	 * @return true if there is another record, false if the end of the input has been reached.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters, or
+	 * if the input could not be read.
+	 */
+	public boolean hasNextRecord() throws JsonLexerException {
+		if(this.parser != null) {
+			if(!this.lineReady) {
+				try {
+					this.lineReady = this.lineInput.nextLine();
+				} catch(IOException e) {
+					throw new JsonLexerException("Failed to read the JSON input", e);
+				}
+			}
+			
+			return this.lineReady;
+		}
+		
+		if(this.batch == null || this.batchPosition == this.batch.lineCount) {
+			this.nextBatch();
+		}
+		
+		return this.batch != null;
+	}
+	
+	/**
+	 * Reads the next record.
+	 * @return The JsonArray/JsonObject, or the scalar value, of the next record.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters, or
+	 * if the input could not be read.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens.
+	 * @throws NoSuchElementException If there are no more records.
+	 */
+	public Object nextRecord() throws JsonLexerException, JsonParserException {
+		if(!this.hasNextRecord()) {
+			throw new NoSuchElementException();
+		}
+		
+		if(this.parser != null) {
+			// The line is consumed even if it is invalid: the lexer stops at the end of the line, and
+			// the characters of the line that it has not read are skipped by the next call to
+			// hasNextRecord()
+			this.lineReady = false;
+			
+			try {
+				return this.parser.parseDocument(this.lexer);
+			} finally {
+				this.lexer.discardInput();
+			}
+		}
+		
+		int position = this.batchPosition++;
+		Exception error = this.batch.errors[position];
+		
+		if(error instanceof JsonParserException) {
+			throw (JsonParserException)error;
+		} else if(error instanceof JsonLexerException) {
+			throw (JsonLexerException)error;
+		}
+		
+		Object record = this.batch.records[position];
+		this.batch.records[position] = null;
+		
+		return record;
+	}
+	
+	/**
+	 * Returns whether or not there is another record to read. See hasNextRecord().
+	 * @return true if there is another record, false if the end of the input has been reached.
+	 * @throws JsonUncheckedException If the input could not be read or is invalid.
+	 */
+	@Override
+	public boolean hasNext() {
+		try {
+			return this.hasNextRecord();
+		} catch(JsonLexerException e) {
+			throw new JsonUncheckedException(e);
+		}
+	}
+	
+	/**
+	 * Reads the next record. See nextRecord().
+	 * @return The JsonArray/JsonObject, or the scalar value, of the next record.
+	 * @throws JsonUncheckedException If the input could not be read or is invalid.
+	 * @throws NoSuchElementException If there are no more records.
+	 */
+	@Override
+	public Object next() {
+		try {
+			return this.nextRecord();
+		} catch(JsonLexerException | JsonParserException e) {
+			throw new JsonUncheckedException(e);
+		}
+	}
+	
+	/**
+	 * Returns a sequential and ordered Stream of the records that have not been read yet. Closing
+	 * the stream closes this reader.
+	 * @return The stream of the records
+	 */
+	public Stream<Object> stream() {
+		Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+		
+		return stream.onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					JsonLinesReader.this.close();
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Closes the input of the reader. The parsing of the batch that is being parsed, if any, is
+	 * cancelled if it has not started yet.
+	 * @throws IOException If the input could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.pendingBatch != null) {
+			this.pendingBatch.task.cancel(false);
+		}
+		
+		this.batch = null;
+		this.pendingBatch = null;
+		this.source.close();
+	}
+	
+	/**
+	 * Makes the next parsed batch the current batch. The batch following it is read while the
+	 * next batch is being parsed, and is parsed while the records of the next batch are returned.
+	 * @throws JsonLexerException If the input could not be read.
+	 */
+	private void nextBatch() throws JsonLexerException {
+		if(this.pendingBatch == null) {
+			this.pendingBatch = this.startBatch();
+		}
+		
+		Batch nextBatch = this.pendingBatch;
+		
+		if(nextBatch == null) {
+			this.batch = null;
+			return;
+		}
+		
+		String[] lines = this.readLines();
+		nextBatch.task.join();
+		
+		this.batch = nextBatch;
+		this.batchPosition = 0;
+		this.pendingBatch = lines == null ? null : this.submit(lines);
+	}
+	
+	/**
+	 * Reads the next batch of lines and starts parsing it.
+	 * @return The batch, or null if the end of the input has been reached.
+	 * @throws JsonLexerException If the input could not be read.
+	 */
+	private Batch startBatch() throws JsonLexerException {
+		String[] lines = this.readLines();
+		return lines == null ? null : this.submit(lines);
+	}
+	
+	/**
+	 * Starts parsing the given lines.
+	 * @param lines The lines to parse
+	 * @return The batch of the records of the lines
+	 */
+	private Batch submit(String[] lines) {
+		Batch batch = new Batch(lines);
+		batch.task = this.pool.submit(new LineTask(batch, this.taskParsers, 0, this.taskParsers.length));
+		
+		return batch;
+	}
+	
+	/**
+	 * Reads the next BATCH_SIZE lines that are not blank.
+	 * @return The lines, or null if the end of the input has been reached.
+	 * @throws JsonLexerException If the input could not be read.
+	 */
+	private String[] readLines() throws JsonLexerException {
+		String[] lines = new String[BATCH_SIZE];
+		int count = 0;
+		String line;
+		
+		while(count < BATCH_SIZE && (line = this.readLine()) != null) {
+			lines[count++] = line;
+		}
+		
+		if(count == 0) {
+			return null;
+		}
+		
+		return count == BATCH_SIZE ? lines : Arrays.copyOf(lines, count);
+	}
+	
+	/**
+	 * Reads the next line that is not blank.
+	 * @return The line, or null if the end of the input has been reached.
+	 * @throws JsonLexerException If the input could not be read.
+	 */
+	private String readLine() throws JsonLexerException {
+		try {
+			String line;
+			
+			while((line = this.lineReader.readLine()) != null) {
+				if(!JsonLinesReader.isBlank(line)) {
+					return line;
+				}
+			}
+			
+			return null;
+		} catch(IOException e) {
+			throw new JsonLexerException("Failed to read the JSON input", e);
+		}
+	}
+	
+	/**
+	 * Returns whether or not the given line only contains JSON whitespace characters.
+	 * @param line The line
+	 * @return true if the line is blank, false otherwise.
+	 */
+	private static boolean isBlank(String line) {
+		for(int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			
+			if(c != ' ' && c != '\t' && c != '\r') {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * This reader returns the characters of the input one line at a time, from a buffer that is
+	 * reused for all the lines: the end of each line is reported as the end of the input, until
+	 * nextLine() is called. The lines end with '\n', '\r' or "\r\n", as with BufferedReader.
+	 * @author Ankeraout
+	 *
+	 */
+	private static final class LineInput extends Reader {
+		/**
+		 * The size of the buffer, in characters
+		 */
+		private static final int BUFFER_SIZE = 8192;
+		
+		/**
+		 * The underlying reader
+		 */
+		private final Reader reader;
+		
+		/**
+		 * The characters read from the underlying reader
+		 */
+		private final char[] buffer;
+		
+		/**
+		 * The position of the next character to return in the buffer
+		 */
+		private int position;
+		
+		/**
+		 * The number of characters in the buffer
+		 */
+		private int limit;
+		
+		/**
+		 * true if the characters of the current line are being returned, false if the end of the
+		 * line has been reached
+		 */
+		private boolean inLine;
+		
+		/**
+		 * Creates a new LineInput.
+		 * @param reader The underlying reader
+		 */
+		private LineInput(Reader reader) {
+			this.reader = reader;
+			this.buffer = new char[BUFFER_SIZE];
+			this.position = 0;
+			this.limit = 0;
+			this.inLine = false;
+		}
+		
+		/**
+		 * Skips the rest of the current line, and moves to the next line that is not blank. The
+		 * spaces and tabs at the start of the line are skipped.
+		 * @return true if there is another line, false if the end of the input has been reached.
+		 * @throws IOException If the input could not be read.
+		 */
+		private boolean nextLine() throws IOException {
+			boolean skipping = this.inLine;
+			
+			while(this.position < this.limit || this.fill()) {
+				char c = this.buffer[this.position];
+				
+				if(c == '\n' || c == '\r') {
+					skipping = false;
+				} else if(!skipping && c != ' ' && c != '\t') {
+					this.inLine = true;
+					return true;
+				}
+				
+				this.position++;
+			}
+			
+			this.inLine = false;
+			return false;
+		}
+		
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if(!this.inLine || (this.position == this.limit && !this.fill())) {
+				this.inLine = false;
+				return -1;
+			}
+			
+			char[] buffer = this.buffer;
+			int start = this.position;
+			int end = Math.min(this.limit, start + len);
+			int i = start;
+			
+			while(i < end) {
+				char c = buffer[i];
+				
+				if(c == '\n' || c == '\r') {
+					// The line terminator is skipped by nextLine()
+					this.inLine = false;
+					break;
+				}
+				
+				i++;
+			}
+			
+			if(i == start) {
+				return -1;
+			}
+			
+			System.arraycopy(buffer, start, cbuf, off, i - start);
+			this.position = i;
+			
+			return i - start;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			this.reader.close();
+		}
+		
+		/**
+		 * Reads the next characters of the underlying reader into the buffer. This method must
+		 * only be called once all the characters of the buffer have been consumed.
+		 * @return true if characters were read, false if the end of the input has been reached.
+		 * @throws IOException If the input could not be read.
+		 */
+		private boolean fill() throws IOException {
+			int count;
+			
+			do {
+				count = this.reader.read(this.buffer, 0, this.buffer.length);
+			} while(count == 0);
+			
+			if(count < 0) {
+				return false;
+			}
+			
+			this.position = 0;
+			this.limit = count;
+			
+			return true;
+		}
+	}
+	
+	/**
+	 * This class holds a batch of lines, and the records parsed from them.
+	 * @author Ankeraout
+	 *
+	 */
+	private static final class Batch {
+		/**
+		 * The lines of the batch
+		 */
+		private final String[] lines;
+		
+		/**
+		 * The number of lines of the batch
+		 */
+		private final int lineCount;
+		
+		/**
+		 * The record parsed from each line
+		 */
+		private final Object[] records;
+		
+		/**
+		 * The exception thrown while parsing each line, or null if the line is valid
+		 */
+		private final Exception[] errors;
+		
+		/**
+		 * The task parsing the batch
+		 */
+		private ForkJoinTask<?> task;
+		
+		/**
+		 * Creates a new Batch.
+		 * @param lines The lines of the batch
+		 */
+		private Batch(String[] lines) {
+			this.lines = lines;
+			this.lineCount = lines.length;
+			this.records = new Object[lines.length];
+			this.errors = new Exception[lines.length];
+			this.task = null;
+		}
+	}
+	
+	/**
+	 * This task parses the lines of a batch that are assigned to a range of parsers, splitting
+	 * the range in two subtasks until it only contains one parser. The lines are assigned to the
+	 * parsers in contiguous ranges of equal size.
+	 * @author Ankeraout
+	 *
+	 */
+	private static final class LineTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The batch that is parsed
+		 */
+		private final Batch batch;
+		
+		/**
+		 * The parsers of the tasks
+		 */
+		private final JsonParser[] parsers;
+		
+		/**
+		 * The index of the first parser used by this task
+		 */
+		private final int from;
+		
+		/**
+		 * The index following the last parser used by this task
+		 */
+		private final int to;
+		
+		/**
+		 * Creates a new LineTask.
+		 * @param batch The batch that is parsed
+		 * @param parsers The parsers of the tasks
+		 * @param from The index of the first parser used by this task
+		 * @param to The index following the last parser used by this task
+		 */
+		private LineTask(Batch batch, JsonParser[] parsers, int from, int to) {
+			this.batch = batch;
+			this.parsers = parsers;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if(this.to - this.from > 1) {
+				int middle = (this.from + this.to) >>> 1;
+				
+				ForkJoinTask.invokeAll(
+					new LineTask(this.batch, this.parsers, this.from, middle),
+					new LineTask(this.batch, this.parsers, middle, this.to)
+				);
+				
+				return;
+			}
+			
+			Batch batch = this.batch;
+			int start = (int)((long)batch.lineCount * this.from / this.parsers.length);
+			int end = (int)((long)batch.lineCount * this.to / this.parsers.length);
+			JsonParser parser = this.parsers[this.from];
+			
+			if(parser == null && start < end) {
+				parser = new JsonParser();
+				this.parsers[this.from] = parser;
+			}
+			
+			for(int i = start; i < end; i++) {
+				try {
+					batch.records[i] = parser.parseDocument(batch.lines[i]);
+				} catch(JsonLexerException | JsonParserException e) {
+					batch.errors[i] = e;
+				}
+				
+				batch.lines[i] = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package fr.ankeraout.libjson;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class writes newline-delimited JSON (NDJSON, also known as JSON Lines): each record is
+ * written in compact form on its own line. The records are written into a buffer by a single
+ * JsonWriter, and the buffer is only written to the output once it holds at least batchSize
+ * characters, so that the output receives a few large writes instead of one write per record.
+ * Call flush() or close() once all the records have been written.
+ * @author Ankeraout
+ *
+ */
+public final class JsonLinesWriter implements Closeable, Flushable {
+	/**
+	 * The default number of characters written to the output at once.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 65536;
+	
+	/**
+	 * The output of the writer
+	 */
+	private final Appendable out;
+	
+	/**
+	 * The minimum number of characters written to the output at once
+	 */
+	private final int batchSize;
+	
+	/**
+	 * The records that have not been written to the output yet
+	 */
+	private final StringBuilder batch;
+	
+	/**
+	 * The writer of the records, writing into the batch
+	 */
+	private final JsonWriter writer;
+	
+	/**
+	 * Creates a new JsonLinesWriter writing to the given output.
+	 * @param out The output of the writer
+	 */
+	public JsonLinesWriter(Appendable out) {
+		this(out, DEFAULT_BATCH_SIZE);
+	}
+	
+	/**
+	 * Creates a new JsonLinesWriter writing to the given output.
+	 * @param out The output of the writer
+	 * @param batchSize The minimum number of characters written to the output at once
+	 * @throws IllegalArgumentException If batchSize is lower than 1.
+	 */
+	public JsonLinesWriter(Appendable out, int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+		}
+		
+		this.out = out;
+		this.batchSize = batchSize;
+		this.batch = new StringBuilder(batchSize + batchSize / 4);
+		this.writer = new JsonWriter(this.batch);
+	}
+	
+	/**
+	 * Creates a new JsonLinesWriter writing UTF-8 encoded records to the given stream.
+	 * @param out The stream to write to
+	 */
+	public JsonLinesWriter(OutputStream out) {
+		this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Writes the given record on a new line. The record can be any value accepted by
+	 * JsonWriter.writeObject(): a JsonObject, a JsonArray, a scalar value, a record, a POJO, a
+	 * collection... If the record can not be written, nothing is written.
+	 * @param record The record to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalArgumentException If the class of the record, or of one of its fields, can
+	 * not be written.
+	 */
+	public void write(Object record) throws IOException {
+		StringBuilder batch = this.batch;
+		int length = batch.length();
+		
+		try {
+			this.writer.writeObject(record);
+		} catch(RuntimeException e) {
+			// Remove the part of the record that was written
+			batch.setLength(length);
+			throw e;
+		} finally {
+			this.writer.reset();
+		}
+		
+		batch.append('\n');
+		
+		if(batch.length() >= this.batchSize) {
+			this.writeBatch();
+		}
+	}
+	
+	/**
+	 * Writes the records that are still in the buffer to the output, and flushes the output if it
+	 * is Flushable.
+	 * @throws IOException If the output could not be written.
+	 */
+	@Override
+	public void flush() throws IOException {
+		this.writeBatch();
+		
+		if(this.out instanceof Flushable) {
+			((Flushable)this.out).flush();
+		}
+	}
+	
+	/**
+	 * Writes the records that are still in the buffer to the output, and closes the output if it
+	 * is Closeable.
+	 * @throws IOException If the output could not be written or closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.writeBatch();
+		
+		if(this.out instanceof Closeable) {
+			((Closeable)this.out).close();
+		} else if(this.out instanceof Flushable) {
+			((Flushable)this.out).flush();
+		}
+	}
+	
+	/**
+	 * Writes the content of the buffer to the output.
+	 * @throws IOException If the output could not be written.
+	 */
+	private void writeBatch() throws IOException {
+		if(this.batch.length() != 0) {
+			this.out.append(this.batch);
+			this.batch.setLength(0);
+		}
+	}
+}
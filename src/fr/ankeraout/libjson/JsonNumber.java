@@ -0,0 +1,265 @@
+package fr.ankeraout.libjson;
+
+import java.math.BigDecimal;
+
+/**
+ * This class represents a JSON number that has not been decoded yet. It keeps the position of the
+ * number in the input it was read from, and only decodes it the first time its value is read.
+ * JsonNumber instances are created by the lexer when raw numbers are enabled (see
+ * JsonLexer.setRawNumbers()).
+ *
+ * Note that a JsonNumber read from an input string keeps a reference to the whole input string.
+ *
+ * This class also contains the rules used for decoding JSON numbers: integers are decoded to a
+ * Long, or to a BigDecimal if they do not fit in a long. Numbers with a fractional part or an
+ * exponent are decoded to a Double, or to a BigDecimal if they are too large for a double.
+ * @author Ankeraout
+ *
+ */
+public final class JsonNumber extends Number {
+	private static final long serialVersionUID = -2905718265434617052L;
+	
+	/**
+	 * The string containing the number
+	 */
+	private final String source;
+	
+	/**
+	 * The position of the first character of the number in the source string
+	 */
+	private final int start;
+	
+	/**
+	 * The position following the last character of the number in the source string
+	 */
+	private final int end;
+	
+	/**
+	 * The decoded value of the number, or null if it has not been decoded yet
+	 */
+	private Number value;
+	
+	/**
+	 * Creates a new JsonNumber from the given part of a string. The characters must form a valid
+	 * JSON number.
+	 * @param source The string containing the number
+	 * @param start The position of the first character of the number in the source string
+	 * @param end The position following the last character of the number in the source string
+	 */
+	JsonNumber(String source, int start, int end) {
+		this.source = source;
+		this.start = start;
+		this.end = end;
+		this.value = null;
+	}
+	
+	/**
+	 * Returns the decoded value of the number. The number is decoded the first time this method is
+	 * called.
+	 * @return A Long, a Double or a BigDecimal containing the value of the number
+	 */
+	public Number getValue() {
+		Number value = this.value;
+		
+		if(value == null) {
+			value = JsonNumber.decode(this.source, this.start, this.end);
+			this.value = value;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Returns the exact value of the number.
+	 * @return The value of the number as a BigDecimal
+	 */
+	public BigDecimal bigDecimalValue() {
+		return new BigDecimal(this.toString());
+	}
+	
+	@Override
+	public int intValue() {
+		return this.getValue().intValue();
+	}
+	
+	@Override
+	public long longValue() {
+		return this.getValue().longValue();
+	}
+	
+	@Override
+	public float floatValue() {
+		return this.getValue().floatValue();
+	}
+	
+	@Override
+	public double doubleValue() {
+		return this.getValue().doubleValue();
+	}
+	
+	/**
+	 * Returns the number exactly as it was written in the input.
+	 * @return The JSON representation of the number
+	 */
+	@Override
+	public String toString() {
+		return this.source.substring(this.start, this.end);
+	}
+	
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof JsonNumber)) {
+			return false;
+		}
+		
+		return this.getValue().equals(((JsonNumber)other).getValue());
+	}
+	
+	@Override
+	public int hashCode() {
+		return this.getValue().hashCode();
+	}
+	
+	/**
+	 * Decodes the JSON number contained in the given part of a character sequence. Integers are
+	 * accumulated directly in a long without creating any intermediate String.
+	 * @param text The character sequence containing the number
+	 * @param start The position of the first character of the number
+	 * @param end The position following the last character of the number
+	 * @return A Long if the number is an integer that fits in a long, a Double if it has a
+	 * fractional part or an exponent, or a BigDecimal if it does not fit in any of these types.
+	 * @throws NumberFormatException If the characters do not form a number.
+	 */
+	static Number decode(CharSequence text, int start, int end) {
+		boolean negative = start < end && text.charAt(start) == '-';
+		int i = negative ? start + 1 : start;
+		
+		if(i == end) {
+			throw new NumberFormatException("Empty number");
+		}
+		
+		// The value is accumulated as a negative number, so that Long.MIN_VALUE can be represented.
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplicationLimit = limit / 10;
+		long value = 0;
+		
+		while(i < end) {
+			char c = text.charAt(i++);
+			
+			if(c < '0' || c > '9') {
+				return JsonNumber.decodeDecimal(text.subSequence(start, end).toString());
+			}
+			
+			int digit = c - '0';
+			
+			if(value < multiplicationLimit) {
+				return JsonNumber.decodeDecimal(text.subSequence(start, end).toString());
+			}
+			
+			value *= 10;
+			
+			if(value < limit + digit) {
+				return JsonNumber.decodeDecimal(text.subSequence(start, end).toString());
+			}
+			
+			value -= digit;
+		}
+		
+		return Long.valueOf(negative ? value : -value);
+	}
+	
+	/**
+	 * Decodes the JSON integer contained in the given part of a character sequence, without
+	 * creating any object.
+	 * @param text The character sequence containing the number
+	 * @param start The position of the first character of the number
+	 * @param end The position following the last character of the number
+	 * @return The value of the number
+	 * @throws NumberFormatException If the characters do not form an integer, or if the integer
+	 * does not fit in a long.
+	 */
+	static long decodeLong(CharSequence text, int start, int end) {
+		boolean negative = start < end && text.charAt(start) == '-';
+		int i = negative ? start + 1 : start;
+		
+		if(i == end) {
+			throw new NumberFormatException("Empty number");
+		}
+		
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplicationLimit = limit / 10;
+		long value = 0;
+		
+		while(i < end) {
+			char c = text.charAt(i++);
+			
+			if(c < '0' || c > '9') {
+				throw new NumberFormatException("Not an integer: " + text.subSequence(start, end));
+			}
+			
+			int digit = c - '0';
+			
+			if(value < multiplicationLimit || value * 10 < limit + digit) {
+				throw new NumberFormatException("Integer out of range: " + text.subSequence(start, end));
+			}
+			
+			value = value * 10 - digit;
+		}
+		
+		return negative ? value : -value;
+	}
+	
+	/**
+	 * Decodes the JSON number contained in the given part of a character sequence as a double.
+	 * Integers of up to 15 digits are decoded without creating any object, since they are exactly
+	 * represented by a double.
+	 * @param text The character sequence containing the number
+	 * @param start The position of the first character of the number
+	 * @param end The position following the last character of the number
+	 * @return The value of the number, rounded to the nearest double
+	 * @throws NumberFormatException If the characters do not form a number.
+	 */
+	static double decodeDouble(CharSequence text, int start, int end) {
+		if(end - start <= 15) {
+			int i = start < end && text.charAt(start) == '-' ? start + 1 : start;
+			
+			while(i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+				i++;
+			}
+			
+			if(i == end) {
+				return JsonNumber.decodeLong(text, start, end);
+			}
+		}
+		
+		return Double.parseDouble(text.subSequence(start, end).toString());
+	}
+	
+	/**
+	 * Decodes a number that can not be represented by a long.
+	 * @param text The number to decode
+	 * @return A Double, or a BigDecimal if the number is an integer or if it is too large for a
+	 * double.
+	 * @throws NumberFormatException If the text is not a number.
+	 */
+	private static Number decodeDecimal(String text) {
+		boolean integer = true;
+		
+		for(int i = 0; i < text.length() && integer; i++) {
+			char c = text.charAt(i);
+			integer = c == '-' || (c >= '0' && c <= '9');
+		}
+		
+		if(integer) {
+			return new BigDecimal(text);
+		}
+		
+		double value = Double.parseDouble(text);
+		
+		if(Double.isInfinite(value)) {
+			return new BigDecimal(text);
+		}
+		
+		return Double.valueOf(value);
+	}
+}
@@ -1,24 +1,70 @@
 package fr.ankeraout.libjson;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * This class describes a JSON object. A JSON object is basically a dictionary, where values can be
- * accessed with keys.
+ * accessed with keys. The entries are kept in insertion order, which is also the order in which
+ * they are serialized. They are stored in two parallel arrays of keys and values: small objects
+ * are searched linearly, and a hash index of the arrays is only built once the object holds more
+ * than INDEX_THRESHOLD entries.
  * @author Ankeraout
  *
  */
 public class JsonObject {
 	/**
-	 * The wrapped HashMap object that will contain the dictionary entries.
+	 * The number of entries above which a hash index is built for looking up the keys.
 	 */
-	private HashMap<String, Object> propertyMap;
+	private static final int INDEX_THRESHOLD = 8;
+	
+	/**
+	 * The capacity of the objects created without an explicit capacity.
+	 */
+	private static final int DEFAULT_CAPACITY = 4;
+	
+	/**
+	 * The keys of the entries, in insertion order.
+	 */
+	private String[] keys;
+	
+	/**
+	 * The values of the entries, in the same order as the keys.
+	 */
+	private Object[] values;
+	
+	/**
+	 * The number of entries of the object.
+	 */
+	private int size;
+	
+	/**
+	 * The open-addressing hash table mapping the keys to their position in the keys array. Each
+	 * slot contains the position of an entry plus one, or 0 if the slot is free. It is null as long
+	 * as the object does not hold more than INDEX_THRESHOLD entries.
+	 */
+	private int[] index;
 	
 	/**
 	 * Creates a new empty JsonObject.
 	 */
 	public JsonObject() {
-		this.propertyMap = new HashMap<String, Object>();
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty JsonObject that can hold the given number of entries before growing.
+	 * @param initialCapacity The expected number of entries
+	 * @throws IllegalArgumentException If initialCapacity is negative.
+	 */
+	public JsonObject(int initialCapacity) {
+		if(initialCapacity < 0) {
+			throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+		}
+		
+		this.keys = new String[initialCapacity];
+		this.values = new Object[initialCapacity];
+		this.size = 0;
+		this.index = null;
 	}
 	
 	/**
@@ -29,25 +75,11 @@ public class JsonObject {
 	 * @return This method will return the old value of the entry with the given key, if any.
 	 */
 	public Object put(String key, Object value) {
-		// Check type of value
-		if(
-			value == null
-			|| value instanceof Character
-			|| value instanceof JsonObject
-			|| value instanceof JsonArray
-			|| value instanceof String
-			|| value instanceof Integer
-			|| value instanceof Double
-			|| value instanceof Float
-			|| value instanceof Boolean
-			|| value instanceof Byte
-			|| value instanceof Short
-			|| value instanceof Long
-		) {
-			return this.propertyMap.put(key, value);
-		} else {
+		if(!JsonValueTypes.isAllowed(value)) {
 			throw new IllegalArgumentException("Parameter type for \"value\" not allowed: " + value.getClass().getName());
 		}
+		
+		return this.putEntry(key, value);
 	}
 	
 	/**
@@ -56,7 +88,8 @@ public class JsonObject {
 	 * @return The value of the entry with the given key
 	 */
 	public Object get(String key) {
-		return this.propertyMap.get(key);
+		int position = this.indexOf(key);
+		return position < 0 ? null : this.values[position];
 	}
 	
 	/**
@@ -65,7 +98,34 @@ public class JsonObject {
 	 * @return A boolean value representing whether the key exists in the object
 	 */
 	public boolean containsKey(String key) {
-		return this.propertyMap.containsKey(key);
+		return this.indexOf(key) >= 0;
+	}
+	
+	/**
+	 * Returns the number of entries of the object.
+	 * @return The number of entries
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Returns the key of the entry at the given position, in insertion order. This method is used
+	 * by the JsonWriter class for serializing the object without copying its entries.
+	 * @param position The position of the entry, between 0 and size() - 1
+	 * @return The key of the entry
+	 */
+	String keyAt(int position) {
+		return this.keys[position];
+	}
+	
+	/**
+	 * Returns the value of the entry at the given position, in insertion order.
+	 * @param position The position of the entry, between 0 and size() - 1
+	 * @return The value of the entry
+	 */
+	Object valueAt(int position) {
+		return this.values[position];
 	}
 	
 	/**
@@ -87,56 +147,134 @@ public class JsonObject {
 	 * @return A JSON/String representation of the contents of the object.
 	 */
 	public String toString(int indentationLevel, String indentString, boolean newLines) {
-		if(newLines && indentString == null) {
-			indentString = new String();
+		return JsonWriter.toString(this, indentationLevel, indentString, newLines);
+	}
+	
+	@Override
+	public String toString() {
+		return this.toString(0, null, false);
+	}
+	
+	/**
+	 * Sets the value of the entry with the given key, adding the entry at the end of the object if
+	 * it does not exist yet. The type of the value is not checked: this is used for adding the
+	 * values produced by the JsonParser, whose types are always allowed.
+	 * @param key The key of the entry
+	 * @param value The new value of the entry
+	 * @return The old value of the entry, or null if the entry did not exist.
+	 */
+	final Object putEntry(String key, Object value) {
+		int position = this.indexOf(key);
+		
+		if(position >= 0) {
+			Object oldValue = this.values[position];
+			this.values[position] = value;
+			return oldValue;
 		}
 		
-		StringBuilder sb = new StringBuilder();
+		position = this.size;
 		
-		sb.append('{');
+		if(position == this.keys.length) {
+			int capacity = Math.max(DEFAULT_CAPACITY, position + (position >> 1));
+			this.keys = Arrays.copyOf(this.keys, capacity);
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
 		
-		boolean firstItem = true;
+		this.keys[position] = key;
+		this.values[position] = value;
+		this.size = position + 1;
 		
-		for(String key : this.propertyMap.keySet()) {
-			if(firstItem) {
-				firstItem = false;
+		if(this.index != null) {
+			if(this.size * 2 > this.index.length) {
+				this.buildIndex();
 			} else {
-				sb.append(',');
+				this.addToIndex(position);
 			}
-			
-			if(newLines) {
-				sb.append('\n');
+		} else if(this.size > INDEX_THRESHOLD) {
+			this.buildIndex();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Returns the position of the entry with the given key.
+	 * @param key The key of the entry
+	 * @return The position of the entry, or -1 if there is no entry with the given key.
+	 */
+	private int indexOf(String key) {
+		String[] keys = this.keys;
+		int[] index = this.index;
+		
+		if(index == null) {
+			for(int i = 0; i < this.size; i++) {
+				String k = keys[i];
 				
-				for(int i = 0; i < indentationLevel + 1; i++) {
-					sb.append(indentString);
+				// Keys read by the parser are often the same instance as the searched key
+				if(k == key || (k != null && k.equals(key))) {
+					return i;
 				}
 			}
 			
-			sb.append(JsonStringUtils.toString(key, indentationLevel + 1, indentString, newLines));
-			sb.append(':');
+			return -1;
+		}
+		
+		int mask = index.length - 1;
+		int slot = JsonObject.hash(key) & mask;
+		
+		while(index[slot] != 0) {
+			String k = keys[index[slot] - 1];
 			
-			if(newLines) {
-				sb.append(' ');
+			if(k == key || (k != null && k.equals(key))) {
+				return index[slot] - 1;
 			}
 			
-			sb.append(JsonStringUtils.toString(this.propertyMap.get(key), indentationLevel + 1, indentString, newLines));
+			slot = (slot + 1) & mask;
 		}
 		
-		if(newLines) {
-			sb.append('\n');
-			
-			for(int i = 0; i < indentationLevel; i++) {
-				sb.append(indentString);
-			}
+		return -1;
+	}
+	
+	/**
+	 * Builds the hash index of all the entries, with at least twice as many slots as entries.
+	 */
+	private void buildIndex() {
+		int length = Integer.highestOneBit(this.size * 4 - 1);
+		this.index = new int[length];
+		
+		for(int i = 0; i < this.size; i++) {
+			this.addToIndex(i);
 		}
+	}
+	
+	/**
+	 * Adds the entry at the given position to the hash index.
+	 * @param position The position of the entry
+	 */
+	private void addToIndex(int position) {
+		int[] index = this.index;
+		int mask = index.length - 1;
+		int slot = JsonObject.hash(this.keys[position]) & mask;
 		
-		sb.append('}');
+		while(index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
 		
-		return sb.toString();
+		index[slot] = position + 1;
 	}
 	
-	@Override
-	public String toString() {
-		return this.toString(0, null, false);
+	/**
+	 * Returns the hash code of the given key, with its high bits spread to the low bits so that
+	 * the keys are well distributed in the hash index.
+	 * @param key The key, possibly null
+	 * @return The hash code of the key
+	 */
+	private static int hash(String key) {
+		if(key == null) {
+			return 0;
+		}
+		
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
 	}
 }
@@ -1,5 +1,8 @@
 package fr.ankeraout.libjson;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 import fr.ankeraout.libjson.exception.KeyNotFoundException;
 import fr.ankeraout.libjson.exception.WrongTypeException;
 
@@ -32,7 +35,9 @@ public class JsonObjectReader {
 	}
 	
 	/**
-	 * Gets a value in the JsonObject and tests its type.
+	 * Gets a value in the JsonObject and tests its type. If the value is a JsonNumber that has not
+	 * been decoded yet, it is decoded and the type of the decoded number is tested instead (unless
+	 * the expected type is JsonNumber).
 	 * @param key The key that is used to get the value
 	 * @param expectedType The expected type of the value
 	 * @return The value associated with the given key
@@ -46,6 +51,10 @@ public class JsonObjectReader {
 		
 		Object value = this.jsonObject.get(key);
 		
+		if(value instanceof JsonNumber && expectedType != JsonNumber.class) {
+			value = ((JsonNumber)value).getValue();
+		}
+		
 		if(value == null) {
 			if(expectedType != null) {
 				throw new WrongTypeException(key, expectedType, null);
@@ -104,36 +113,39 @@ public class JsonObjectReader {
 	}
 
 	/**
-	 * Gets the integer value in the JsonObject associated with the given key.
+	 * Gets the integer value in the JsonObject associated with the given key. Any integer number
+	 * (Integer, Long, Short or Byte) is accepted, as long as its value fits in an int.
 	 * @param key The key associated with the value to return
 	 * @return The value associated with the given key
 	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
-	 * @throws WrongTypeException If the value is not an Integer.
+	 * @throws WrongTypeException If the value is not an integer number that fits in an int.
 	 */
 	public Integer getInt(String key) throws KeyNotFoundException, WrongTypeException {
-		return (Integer)this.get(key, Integer.class);
+		return (int)this.getIntegerNumber(key, Integer.class, Integer.MIN_VALUE, Integer.MAX_VALUE);
 	}
 
 	/**
-	 * Gets the Double value in the JsonObject associated with the given key.
+	 * Gets the Double value in the JsonObject associated with the given key. Any number is
+	 * accepted and converted to a double.
 	 * @param key The key associated with the value to return
 	 * @return The value associated with the given key
 	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
-	 * @throws WrongTypeException If the value is not a Double.
+	 * @throws WrongTypeException If the value is not a number.
 	 */
 	public Double getDouble(String key) throws KeyNotFoundException, WrongTypeException {
-		return (Double)this.get(key, Double.class);
+		return this.getNumber(key, Double.class).doubleValue();
 	}
 
 	/**
-	 * Gets the Float value in the JsonObject associated with the given key.
+	 * Gets the Float value in the JsonObject associated with the given key. Any number is accepted
+	 * and converted to a float.
 	 * @param key The key associated with the value to return
 	 * @return The value associated with the given key
 	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
-	 * @throws WrongTypeException If the value is not a Float.
+	 * @throws WrongTypeException If the value is not a number.
 	 */
 	public Float getFloat(String key) throws KeyNotFoundException, WrongTypeException {
-		return (Float)this.get(key, Float.class);
+		return this.getNumber(key, Float.class).floatValue();
 	}
 
 	/**
@@ -148,36 +160,128 @@ public class JsonObjectReader {
 	}
 
 	/**
-	 * Gets the Byte value in the JsonObject associated with the given key.
+	 * Gets the Byte value in the JsonObject associated with the given key. Any integer number
+	 * (Integer, Long, Short or Byte) is accepted, as long as its value fits in a byte.
 	 * @param key The key associated with the value to return
 	 * @return The value associated with the given key
 	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
-	 * @throws WrongTypeException If the value is not a Byte.
+	 * @throws WrongTypeException If the value is not an integer number that fits in a byte.
 	 */
 	public Byte getByte(String key) throws KeyNotFoundException, WrongTypeException {
-		return (Byte)this.get(key, Byte.class);
+		return (byte)this.getIntegerNumber(key, Byte.class, Byte.MIN_VALUE, Byte.MAX_VALUE);
 	}
 
 	/**
-	 * Gets the Short value in the JsonObject associated with the given key.
+	 * Gets the Short value in the JsonObject associated with the given key. Any integer number
+	 * (Integer, Long, Short or Byte) is accepted, as long as its value fits in a short.
 	 * @param key The key associated with the value to return
 	 * @return The value associated with the given key
 	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
-	 * @throws WrongTypeException If the value is not a Short.
+	 * @throws WrongTypeException If the value is not an integer number that fits in a short.
 	 */
 	public Short getShort(String key) throws KeyNotFoundException, WrongTypeException {
-		return (Short)this.get(key, Short.class);
+		return (short)this.getIntegerNumber(key, Short.class, Short.MIN_VALUE, Short.MAX_VALUE);
 	}
 
 	/**
-	 * Gets the Long value in the JsonObject associated with the given key.
+	 * Gets the Long value in the JsonObject associated with the given key. Any integer number
+	 * (Integer, Long, Short or Byte) is accepted.
 	 * @param key The key associated with the value to return
 	 * @return The value associated with the given key
 	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
-	 * @throws WrongTypeException If the value is not a Long.
+	 * @throws WrongTypeException If the value is not an integer number that fits in a long.
 	 */
 	public Long getLong(String key) throws KeyNotFoundException, WrongTypeException {
-		return (Long)this.get(key, Long.class);
+		return this.getIntegerNumber(key, Long.class, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Gets the number value in the JsonObject associated with the given key. If the value is a
+	 * JsonNumber, then it is decoded.
+	 * @param key The key associated with the value to return
+	 * @return The value associated with the given key
+	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
+	 * @throws WrongTypeException If the value is not a number.
+	 */
+	public Number getNumber(String key) throws KeyNotFoundException, WrongTypeException {
+		return this.getNumber(key, Number.class);
+	}
+	
+	/**
+	 * Gets the exact value of the number in the JsonObject associated with the given key.
+	 * @param key The key associated with the value to return
+	 * @return The value associated with the given key
+	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
+	 * @throws WrongTypeException If the value is not a number.
+	 */
+	public BigDecimal getBigDecimal(String key) throws KeyNotFoundException, WrongTypeException {
+		Object rawValue = this.jsonObject.get(key);
+		
+		if(rawValue instanceof JsonNumber) {
+			return ((JsonNumber)rawValue).bigDecimalValue();
+		}
+		
+		Number value = this.getNumber(key, BigDecimal.class);
+		
+		if(value instanceof BigDecimal) {
+			return (BigDecimal)value;
+		} else if(value instanceof BigInteger) {
+			return new BigDecimal((BigInteger)value);
+		} else if(value instanceof Double || value instanceof Float) {
+			return new BigDecimal(value.toString());
+		} else {
+			return BigDecimal.valueOf(value.longValue());
+		}
+	}
+	
+	/**
+	 * Gets the number value in the JsonObject associated with the given key, decoding it if it is
+	 * a JsonNumber.
+	 * @param key The key associated with the value to return
+	 * @param expectedType The type reported in the WrongTypeException if the value is not a number
+	 * @return The value associated with the given key
+	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
+	 * @throws WrongTypeException If the value is not a number.
+	 */
+	private Number getNumber(String key, Class<?> expectedType) throws KeyNotFoundException, WrongTypeException {
+		if(!this.containsKey(key)) {
+			throw new KeyNotFoundException(key);
+		}
+		
+		Object value = this.jsonObject.get(key);
+		
+		if(value instanceof JsonNumber) {
+			return ((JsonNumber)value).getValue();
+		} else if(value instanceof Number) {
+			return (Number)value;
+		} else {
+			throw new WrongTypeException(key, expectedType, value == null ? null : value.getClass());
+		}
+	}
+	
+	/**
+	 * Gets the integer number value in the JsonObject associated with the given key, and checks
+	 * that it is in the given range.
+	 * @param key The key associated with the value to return
+	 * @param expectedType The type reported in the WrongTypeException if the value is not valid
+	 * @param min The minimum allowed value
+	 * @param max The maximum allowed value
+	 * @return The value associated with the given key
+	 * @throws KeyNotFoundException If the key does not exist in the JsonObject
+	 * @throws WrongTypeException If the value is not an integer number in the given range.
+	 */
+	private long getIntegerNumber(String key, Class<?> expectedType, long min, long max) throws KeyNotFoundException, WrongTypeException {
+		Number value = this.getNumber(key, expectedType);
+		
+		if(
+			!(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+			|| value.longValue() < min
+			|| value.longValue() > max
+		) {
+			throw new WrongTypeException(key, expectedType, value.getClass());
+		}
+		
+		return value.longValue();
 	}
 	
 	/**
@@ -0,0 +1,411 @@
+package fr.ankeraout.libjson;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class parses the large documents whose root is an array with several threads. The input is
+ * first scanned once for finding the commas that separate the elements of the root array, which
+ * only requires tracking the nesting depth and whether the scan is inside a string. The elements
+ * are grouped in chunks of at least MIN_CHUNK_SIZE characters, whose elements are parsed in place
+ * into separate arrays by the tasks of a ForkJoinPool, each with its own JsonParser. The arrays of
+ * the chunks are then concatenated in order.
+ *
+ * The documents that are not arrays or that are too small to be split are parsed sequentially. As
+ * the scan does not validate the document, an invalid document is also parsed again sequentially
+ * as soon as one of its chunks is rejected, so that the errors are reported exactly as by
+ * JsonParser.parse().
+ * @author Ankeraout
+ *
+ */
+final class JsonParallelParser {
+	/**
+	 * The minimum length of a chunk, in bytes or characters.
+	 */
+	static final int MIN_CHUNK_SIZE = 64 * 1024;
+	
+	/**
+	 * The number of chunks created per thread of the pool, so that the threads that parse the
+	 * simplest chunks do not stay idle while the others finish.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+	
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonParallelParser() {
+	
+	}
+	
+	/**
+	 * Parses the given UTF-8 encoded document.
+	 * @param input The UTF-8 encoded input
+	 * @param pool The pool running the tasks parsing the chunks
+	 * @return A JsonArray/JsonObject, or the scalar value, represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	static Object parse(byte[] input, ForkJoinPool pool) throws JsonLexerException, JsonParserException {
+		int[] bounds = JsonParallelParser.split(input, JsonParallelParser.getChunkSize(input.length, pool));
+		
+		if(bounds == null) {
+			return JsonParser.parse(input);
+		}
+		
+		JsonArray[] chunks = new JsonArray[bounds.length - 1];
+		pool.invoke(new ChunkTask(input, bounds, chunks, 0, chunks.length));
+		
+		return JsonParallelParser.concatenate(chunks, input);
+	}
+	
+	/**
+	 * Parses the given document.
+	 * @param input The input string
+	 * @param pool The pool running the tasks parsing the chunks
+	 * @return A JsonArray/JsonObject, or the scalar value, represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input string.
+	 */
+	static Object parse(String input, ForkJoinPool pool) throws JsonLexerException, JsonParserException {
+		int[] bounds = JsonParallelParser.split(input, JsonParallelParser.getChunkSize(input.length(), pool));
+		
+		if(bounds == null) {
+			return JsonParser.parse(input);
+		}
+		
+		JsonArray[] chunks = new JsonArray[bounds.length - 1];
+		pool.invoke(new ChunkTask(input, bounds, chunks, 0, chunks.length));
+		
+		return JsonParallelParser.concatenate(chunks, input);
+	}
+	
+	/**
+	 * Returns the length of the chunks of an input of the given length.
+	 * @param length The length of the input
+	 * @param pool The pool running the tasks parsing the chunks
+	 * @return The minimum length of the chunks, or 0 if the input should not be split.
+	 */
+	private static int getChunkSize(int length, ForkJoinPool pool) {
+		if(pool.getParallelism() < 2) {
+			return 0;
+		}
+		
+		return Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * CHUNKS_PER_THREAD));
+	}
+	
+	/**
+	 * Finds the chunks of the root array of the given UTF-8 encoded document.
+	 * @param input The UTF-8 encoded input
+	 * @param chunkSize The minimum length of the chunks, or 0 if the input should not be split
+	 * @return The position of the opening bracket, of the commas ending the chunks and of the
+	 * closing bracket of the root array, or null if the document must be parsed sequentially.
+	 */
+	private static int[] split(byte[] input, int chunkSize) {
+		int length = input.length;
+		int position = JsonParallelParser.skipWhitespace(input, 0);
+		
+		if(chunkSize == 0 || length < 2 * chunkSize || position == length || input[position] != '[') {
+			return null;
+		}
+		
+		int[] bounds = new int[16];
+		bounds[0] = position;
+		int count = 1;
+		int nextBound = position + chunkSize;
+		int depth = 0;
+		int end = -1;
+		
+		for(position++; end < 0 && position < length; position++) {
+			byte b = input[position];
+			
+			switch(b) {
+			case '"':
+				// Skip the string, including its escaped quotes, eight bytes at a time
+				position = JsonByteScanner.findQuoteOrBackslash(input, position + 1, length);
+				
+				while(position < length && input[position] == '\\') {
+					position = JsonByteScanner.findQuoteOrBackslash(input, position + 2, length);
+				}
+				
+				break;
+			case '[':
+			case '{':
+				depth++;
+				break;
+			case ']':
+			case '}':
+				if(depth == 0) {
+					if(b != ']') {
+						return null;
+					}
+					
+					end = position;
+				}
+				
+				depth--;
+				break;
+			case ',':
+				if(depth == 0 && position >= nextBound) {
+					if(count == bounds.length) {
+						bounds = Arrays.copyOf(bounds, count * 2);
+					}
+					
+					bounds[count++] = position;
+					nextBound = position + chunkSize;
+				}
+				
+				break;
+			default:
+				break;
+			}
+		}
+		
+		if(end < 0 || count == 1 || JsonParallelParser.skipWhitespace(input, end + 1) != length) {
+			return null;
+		}
+		
+		bounds = Arrays.copyOf(bounds, count + 1);
+		bounds[count] = end;
+		
+		return bounds;
+	}
+	
+	/**
+	 * Finds the chunks of the root array of the given document.
+	 * @param input The input string
+	 * @param chunkSize The minimum length of the chunks, or 0 if the input should not be split
+	 * @return The position of the opening bracket, of the commas ending the chunks and of the
+	 * closing bracket of the root array, or null if the document must be parsed sequentially.
+	 */
+	private static int[] split(String input, int chunkSize) {
+		int length = input.length();
+		int position = JsonParallelParser.skipWhitespace(input, 0);
+		
+		if(chunkSize == 0 || length < 2 * chunkSize || position == length || input.charAt(position) != '[') {
+			return null;
+		}
+		
+		int[] bounds = new int[16];
+		bounds[0] = position;
+		int count = 1;
+		int nextBound = position + chunkSize;
+		int depth = 0;
+		int end = -1;
+		
+		for(position++; end < 0 && position < length; position++) {
+			char c = input.charAt(position);
+			
+			switch(c) {
+			case '"':
+				// Skip the string, including its escaped quotes
+				for(position++; position < length && input.charAt(position) != '"'; position++) {
+					if(input.charAt(position) == '\\') {
+						position++;
+					}
+				}
+				
+				break;
+			case '[':
+			case '{':
+				depth++;
+				break;
+			case ']':
+			case '}':
+				if(depth == 0) {
+					if(c != ']') {
+						return null;
+					}
+					
+					end = position;
+				}
+				
+				depth--;
+				break;
+			case ',':
+				if(depth == 0 && position >= nextBound) {
+					if(count == bounds.length) {
+						bounds = Arrays.copyOf(bounds, count * 2);
+					}
+					
+					bounds[count++] = position;
+					nextBound = position + chunkSize;
+				}
+				
+				break;
+			default:
+				break;
+			}
+		}
+		
+		if(end < 0 || count == 1 || JsonParallelParser.skipWhitespace(input, end + 1) != length) {
+			return null;
+		}
+		
+		bounds = Arrays.copyOf(bounds, count + 1);
+		bounds[count] = end;
+		
+		return bounds;
+	}
+	
+	/**
+	 * Returns the position of the first byte of the input that is not a whitespace character,
+	 * starting at the given position.
+	 * @param input The UTF-8 encoded input
+	 * @param position The position to start from
+	 * @return The position of the first byte that is not a whitespace character, or the length of
+	 * the input if there is none.
+	 */
+	private static int skipWhitespace(byte[] input, int position) {
+		while(position < input.length && JsonParallelParser.isWhitespace(input[position])) {
+			position++;
+		}
+		
+		return position;
+	}
+	
+	/**
+	 * Returns the position of the first character of the input that is not a whitespace character,
+	 * starting at the given position.
+	 * @param input The input string
+	 * @param position The position to start from
+	 * @return The position of the first character that is not a whitespace character, or the
+	 * length of the input if there is none.
+	 */
+	private static int skipWhitespace(String input, int position) {
+		while(position < input.length() && JsonParallelParser.isWhitespace(input.charAt(position))) {
+			position++;
+		}
+		
+		return position;
+	}
+	
+	/**
+	 * Returns whether or not the given character is a JSON whitespace character.
+	 * @param c The character
+	 * @return true if the character is a space, a tabulation, a line feed or a carriage return.
+	 */
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+	
+	/**
+	 * Concatenates the arrays of the chunks of a document. If one of the chunks was rejected, the
+	 * document is parsed again sequentially for reporting the error.
+	 * @param chunks The arrays of the chunks, in order, a chunk being null if it was rejected
+	 * @param input The byte array or the String that was parsed
+	 * @return The root array of the document
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	private static Object concatenate(JsonArray[] chunks, Object input) throws JsonLexerException, JsonParserException {
+		for(JsonArray chunk : chunks) {
+			if(chunk == null) {
+				if(input instanceof String) {
+					return JsonParser.parse((String)input);
+				}
+				
+				return JsonParser.parse((byte[])input);
+			}
+		}
+		
+		JsonArray result = chunks[0];
+		
+		for(int i = 1; i < chunks.length; i++) {
+			result.addArray(chunks[i]);
+			chunks[i] = null;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * This task parses a range of chunks of a document, splitting the range in two subtasks until
+	 * it only contains one chunk.
+	 * @author Ankeraout
+	 *
+	 */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The byte array or the String that is parsed
+		 */
+		private final Object input;
+		
+		/**
+		 * The bounds of the chunks of the document
+		 */
+		private final int[] bounds;
+		
+		/**
+		 * The arrays of the chunks of the document
+		 */
+		private final JsonArray[] chunks;
+		
+		/**
+		 * The index of the first chunk parsed by this task
+		 */
+		private final int from;
+		
+		/**
+		 * The index following the last chunk parsed by this task
+		 */
+		private final int to;
+		
+		/**
+		 * Creates a new ChunkTask.
+		 * @param input The byte array or the String that is parsed
+		 * @param bounds The bounds of the chunks of the document
+		 * @param chunks The arrays of the chunks of the document, filled by the task
+		 * @param from The index of the first chunk parsed by this task
+		 * @param to The index following the last chunk parsed by this task
+		 */
+		ChunkTask(Object input, int[] bounds, JsonArray[] chunks, int from, int to) {
+			this.input = input;
+			this.bounds = bounds;
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if(this.to - this.from > 1) {
+				int middle = (this.from + this.to) >>> 1;
+				
+				ForkJoinTask.invokeAll(
+					new ChunkTask(this.input, this.bounds, this.chunks, this.from, middle),
+					new ChunkTask(this.input, this.bounds, this.chunks, middle, this.to)
+				);
+				
+				return;
+			}
+			
+			// The chunk goes from the character following a bound to the next bound, excluded. Its
+			// elements are read in place, without copying them between brackets.
+			int start = this.bounds[this.from] + 1;
+			int end = this.bounds[this.from + 1];
+			JsonLexer lexer;
+			
+			if(this.input instanceof String) {
+				lexer = new JsonLexer((String)this.input, start, end - start);
+			} else {
+				lexer = new JsonLexer((byte[])this.input, start, end - start);
+			}
+			
+			try {
+				this.chunks[this.from] = new JsonParser().parseElements(lexer);
+			} catch(JsonLexerException | JsonParserException e) {
+				// The chunk stays null, and the document is parsed again sequentially
+			}
+		}
+	}
+}
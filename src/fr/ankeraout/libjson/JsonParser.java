@@ -1,18 +1,332 @@
 package fr.ankeraout.libjson;
 
-import java.util.Stack;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * This class contains the code for the JSON parser. This class can not be instantiated.
+ * This class contains the code for the JSON parser. The static parse() method can be called from
+ * any number of threads at the same time. A JsonParser instance keeps its internal buffers between
+ * calls so that it can be reused for parsing many documents, but it must not be shared between
+ * threads: use one instance per thread instead. As allowed by RFC 8259, the root of a document can
+ * be any JSON value: a document made of a single string, number, boolean or null is parsed into a
+ * String, a Number, a Boolean or null, without going through the automaton used for objects and
+ * arrays. The large documents whose root is an array can also be parsed with several threads
+ * with the parseParallel() methods, and the documents that must stay in memory can be parsed
+ * into a compact JsonTape with the parseTape() methods.
  * @author Ankeraout
  *
  */
 public final class JsonParser {
 	/**
-	 * Private constructor for preventing class instantiation.
+	 * The default maximum nesting depth of the objects and arrays of a document.
 	 */
-	private JsonParser() {
+	public static final int DEFAULT_MAX_DEPTH = 1000;
+	
+	/**
+	 * The maximum nesting depth of the objects and arrays of the documents.
+	 */
+	private final int maxDepth;
+	
+	/**
+	 * The stack containing the kind of each container that is currently being parsed, or null if
+	 * no object or array has been parsed yet. It is kept between calls to parseDocument() so that
+	 * it does not have to be reallocated.
+	 */
+	private JsonContainerStack parserStack;
+	
+	/**
+	 * The handler used for building the JsonObject/JsonArray trees, or null if no object or array
+	 * has been parsed yet. It is kept between calls to parseDocument() so that it does not have to
+	 * be reallocated.
+	 */
+	private JsonTreeBuilder treeBuilder;
+	
+	/**
+	 * Whether or not the keys of the objects are canonicalized through the key cache
+	 */
+	private final boolean internKeys;
+	
+	/**
+	 * The cache used for canonicalizing the keys of the objects, or null if the keys are not
+	 * canonicalized or if no key has been read yet. It is kept between calls to parseDocument(),
+	 * so that documents of the same kind share their keys.
+	 */
+	private JsonKeyCache keyCache;
+	
+	/**
+	 * Whether or not the numbers of the documents parsed from strings or files are kept as
+	 * JsonNumber objects that are only decoded when their value is read
+	 */
+	private final boolean rawNumbers;
+	
+	/**
+	 * Creates a new JsonParser instance.
+	 */
+	public JsonParser() {
+		this(false);
+	}
+	
+	/**
+	 * Creates a new JsonParser instance.
+	 * @param rawNumbers If true, the numbers of the documents parsed with parseDocument(String) or
+	 * parseDocument(Path) are stored as JsonNumber objects, which keep the text of the number and
+	 * only decode it when its value is read (for example through a JsonObjectReader). If
+	 * false, the numbers are decoded while parsing.
+	 */
+	public JsonParser(boolean rawNumbers) {
+		this(rawNumbers, DEFAULT_MAX_DEPTH);
+	}
+	
+	/**
+	 * Creates a new JsonParser instance.
+	 * @param rawNumbers If true, the numbers are stored as JsonNumber objects, see
+	 * JsonParser(boolean).
+	 * @param maxDepth The maximum nesting depth of the objects and arrays of the documents. The
+	 * documents nested deeper than this are rejected with a JsonParserException, which bounds the
+	 * memory used for parsing untrusted input.
+	 * @throws IllegalArgumentException If maxDepth is lower than 1.
+	 */
+	public JsonParser(boolean rawNumbers, int maxDepth) {
+		this(rawNumbers, maxDepth, true);
+	}
+	
+	/**
+	 * Creates a new JsonParser instance.
+	 * @param rawNumbers If true, the numbers are stored as JsonNumber objects, see
+	 * JsonParser(boolean).
+	 * @param maxDepth The maximum nesting depth of the objects and arrays of the documents, see
+	 * JsonParser(boolean, int).
+	 * @param internKeys If true, all the occurrences of a key in the documents parsed by this
+	 * parser are the same String instance, taken from a small bounded cache. This greatly reduces
+	 * the memory used by large arrays of objects sharing the same keys. The keys are interned by
+	 * default. The cache is created when the first key is read and takes about 1 KB, which is
+	 * only worth it for documents with more than a few objects or for a parser that is reused:
+	 * pass false for parsing many small one-shot documents.
+	 * @throws IllegalArgumentException If maxDepth is lower than 1.
+	 */
+	public JsonParser(boolean rawNumbers, int maxDepth, boolean internKeys) {
+		if(maxDepth < 1) {
+			throw new IllegalArgumentException("The maximum depth must be at least 1: " + maxDepth);
+		}
 		
+		this.maxDepth = maxDepth;
+		this.parserStack = null;
+		this.internKeys = internKeys;
+		this.keyCache = null;
+		this.treeBuilder = null;
+		this.rawNumbers = rawNumbers;
+	}
+	
+	/**
+	 * This method parses the given string and returns it in a JsonArray or JsonObject form. This
+	 * method does not share any state between calls, so it can safely be called by several
+	 * threads at the same time.
+	 * @param input The input string
+	 * @return A JsonArray/JsonObject, or the scalar value, represented by the String parameter.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input string.
+	 */
+	public static Object parse(String input) throws JsonLexerException, JsonParserException {
+		return new JsonParser().parseDocument(input);
+	}
+	
+	/**
+	 * This method parses the characters read from the given reader and returns them in a
+	 * JsonArray or JsonObject form. The input is read through a fixed-size buffer, so that it
+	 * never has to be entirely loaded in memory. The reader is not closed by this method.
+	 * @param reader The reader to read the input from
+	 * @return A JsonArray/JsonObject represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input, or if the input could not be read.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static Object parse(Reader reader) throws JsonLexerException, JsonParserException {
+		return new JsonParser().parseDocument(new JsonLexer(reader));
+	}
+	
+	/**
+	 * This method parses the UTF-8 encoded bytes read from the given stream and returns them in a
+	 * JsonArray or JsonObject form. The input is read through a fixed-size buffer, so that it
+	 * never has to be entirely loaded in memory. The stream is not closed by this method.
+	 * @param inputStream The stream to read the input from
+	 * @return A JsonArray/JsonObject represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input, or if the input could not be read.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static Object parse(InputStream inputStream) throws JsonLexerException, JsonParserException {
+		return new JsonParser().parseDocument(new JsonLexer(inputStream));
+	}
+	
+	/**
+	 * This method parses the given UTF-8 encoded bytes and returns them in a JsonArray or
+	 * JsonObject form. The bytes are read directly, without decoding the whole input to
+	 * characters first. This method does not share any state between calls, so it can safely be
+	 * called by several threads at the same time.
+	 * @param input The UTF-8 encoded input
+	 * @return A JsonArray/JsonObject represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static Object parse(byte[] input) throws JsonLexerException, JsonParserException {
+		return new JsonParser().parseDocument(new JsonLexer(input));
+	}
+	
+	/**
+	 * This method parses the UTF-8 encoded bytes between the position and the limit of the given
+	 * buffer and returns them in a JsonArray or JsonObject form. The position of the buffer is not
+	 * modified. This method does not share any state between calls, so it can safely be called by
+	 * several threads at the same time.
+	 * @param input The buffer containing the UTF-8 encoded input
+	 * @return A JsonArray/JsonObject represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static Object parse(ByteBuffer input) throws JsonLexerException, JsonParserException {
+		return new JsonParser().parseDocument(new JsonLexer(input));
+	}
+	
+	/**
+	 * This method parses the UTF-8 encoded file at the given path and returns it in a JsonArray or
+	 * JsonObject form. The file is memory-mapped and read directly by the lexer, so that it is
+	 * never copied to the heap: only the values of the resulting tree are allocated. Files larger
+	 * than 2 GB are mapped and read chunk by chunk. This method does not share any state between
+	 * calls, so it can safely be called by several threads at the same time.
+	 * @param path The path of the file to parse
+	 * @return A JsonArray/JsonObject represented by the contents of the file.
+	 * @throws IOException If the file could not be opened or mapped.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the file.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * file.
+	 */
+	public static Object parse(Path path) throws IOException, JsonLexerException, JsonParserException {
+		return new JsonParser().parseDocument(path);
+	}
+	
+	/**
+	 * This method parses the given string and returns it in a JsonArray or JsonObject form, using
+	 * the threads of the common ForkJoinPool. See parseParallel(String, ForkJoinPool).
+	 * @param input The input string
+	 * @return A JsonArray/JsonObject, or the scalar value, represented by the String parameter.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input string.
+	 */
+	public static Object parseParallel(String input) throws JsonLexerException, JsonParserException {
+		return JsonParser.parseParallel(input, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * This method parses the given string and returns it in a JsonArray or JsonObject form, using
+	 * the threads of the given pool. If the root of the document is a large array, its elements
+	 * are split in chunks that are parsed concurrently, and then gathered in order in a single
+	 * JsonArray. The result is the same as with parse(String), including the errors reported for
+	 * invalid documents. Other documents are parsed sequentially by the calling thread.
+	 * @param input The input string
+	 * @param pool The pool running the tasks parsing the chunks of the document
+	 * @return A JsonArray/JsonObject, or the scalar value, represented by the String parameter.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input string.
+	 */
+	public static Object parseParallel(String input, ForkJoinPool pool) throws JsonLexerException, JsonParserException {
+		return JsonParallelParser.parse(input, pool);
+	}
+	
+	/**
+	 * This method parses the given UTF-8 encoded bytes and returns them in a JsonArray or
+	 * JsonObject form, using the threads of the common ForkJoinPool. See
+	 * parseParallel(byte[], ForkJoinPool).
+	 * @param input The UTF-8 encoded input
+	 * @return A JsonArray/JsonObject represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static Object parseParallel(byte[] input) throws JsonLexerException, JsonParserException {
+		return JsonParser.parseParallel(input, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * This method parses the given UTF-8 encoded bytes and returns them in a JsonArray or
+	 * JsonObject form, using the threads of the given pool. If the root of the document is a large
+	 * array, its elements are split in chunks that are parsed concurrently, and then gathered in
+	 * order in a single JsonArray. The result is the same as with parse(byte[]), including the
+	 * errors reported for invalid documents. Other documents are parsed sequentially by the
+	 * calling thread.
+	 * @param input The UTF-8 encoded input
+	 * @param pool The pool running the tasks parsing the chunks of the document
+	 * @return A JsonArray/JsonObject represented by the input.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static Object parseParallel(byte[] input, ForkJoinPool pool) throws JsonLexerException, JsonParserException {
+		return JsonParallelParser.parse(input, pool);
+	}
+	
+	/**
+	 * This method parses the given UTF-8 encoded bytes into a read-only JsonTape, whose strings
+	 * and numbers are only decoded when they are read. The bytes are not copied, so they must not
+	 * be modified while the tape is used.
+	 * @param input The UTF-8 encoded input
+	 * @return The tape of the document
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public static JsonTape parseTape(byte[] input) throws JsonLexerException, JsonParserException {
+		return JsonTape.parse(input, 0, input.length, DEFAULT_MAX_DEPTH);
+	}
+	
+	/**
+	 * This method parses the given string into a read-only JsonTape. The string is encoded in
+	 * UTF-8 first, since a tape refers to the bytes of its input. See parseTape(byte[]).
+	 * @param input The input string
+	 * @return The tape of the document
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input string.
+	 */
+	public static JsonTape parseTape(String input) throws JsonLexerException, JsonParserException {
+		return JsonParser.parseTape(input.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * This method parses the given string and reports its contents to the given handler, without
+	 * building any JsonObject or JsonArray. This method does not share any state between calls, so
+	 * it can safely be called by several threads at the same time.
+	 * @param input The input string
+	 * @param handler The handler receiving the contents of the document
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input string.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input string, or if the handler aborts the parsing.
+	 */
+	public static void parse(String input, JsonHandler handler) throws JsonLexerException, JsonParserException {
+		new JsonParser().parseDocument(new JsonLexer(input), handler);
 	}
 	
 	/**
@@ -24,262 +338,475 @@ public final class JsonParser {
 	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
 	 * input string.
 	 */
-	public synchronized static Object parse(String input) throws JsonLexerException, JsonParserException {
-		Stack<Object> parserStack = new Stack<Object>();
+	public Object parseDocument(String input) throws JsonLexerException, JsonParserException {
 		JsonLexer lexer = new JsonLexer(input);
-		JsonParserState state = JsonParserState.START;
-		JsonToken token = lexer.readToken();
-		boolean errorIfNextToken = false;
-		String tmpPropertyName = null;
-		Object stackTop = null;
+		lexer.setRawNumbers(this.rawNumbers);
 		
-		while(token != null) {
-			if(errorIfNextToken) {
-				throw new JsonParserException("Unexpected token after end of JSON object or array : " + token.getType().name());
+		return this.parseDocument(lexer);
+	}
+	
+	/**
+	 * This method parses the UTF-8 encoded file at the given path and returns it in a JsonArray or
+	 * JsonObject form. The file is memory-mapped and read directly by the lexer. Files larger than
+	 * 2 GB, which cannot be mapped by a single buffer, are mapped and read chunk by chunk.
+	 * @param path The path of the file to parse
+	 * @return A JsonArray/JsonObject represented by the contents of the file.
+	 * @throws IOException If the file could not be opened or mapped.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the file.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * file.
+	 */
+	public Object parseDocument(Path path) throws IOException, JsonLexerException, JsonParserException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			JsonLexer lexer;
+			
+			if(size <= Integer.MAX_VALUE) {
+				lexer = new JsonLexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			} else {
+				lexer = new JsonLexer(new MappedFileInputStream(channel, MappedFileInputStream.DEFAULT_CHUNK_SIZE));
 			}
 			
+			lexer.setRawNumbers(this.rawNumbers);
+			
+			return this.parseDocument(lexer);
+		}
+	}
+	
+	/**
+	 * This method reads all the tokens from the given lexer and returns the JsonArray or
+	 * JsonObject they represent.
+	 * @param lexer The lexer to read the tokens from
+	 * @return A JsonArray/JsonObject represented by the tokens read from the lexer.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens.
+	 */
+	public Object parseDocument(JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = lexer.next();
+		
+		if(token == null) {
+			throw new JsonParserException("Unexpected end of JSON String");
+		}
+		
+		Object result = this.parseValue(token, lexer);
+		JsonParser.checkEnd(token, lexer);
+		
+		return result;
+	}
+	
+	/**
+	 * This method reads all the tokens from the given lexer and reports the contents of the
+	 * document they represent to the given handler, without building any JsonObject or JsonArray.
+	 * @param lexer The lexer to read the tokens from
+	 * @param handler The handler receiving the contents of the document
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens, or if
+	 * the handler aborts the parsing.
+	 */
+	public void parseDocument(JsonLexer lexer, JsonHandler handler) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = lexer.next();
+		
+		if(token == null) {
+			throw new JsonParserException("Unexpected end of JSON String");
+		}
+		
+		this.readRootValue(token, lexer, handler);
+		JsonParser.checkEnd(token, lexer);
+	}
+	
+	/**
+	 * Checks that the lexer has reached the end of its input after the root value of a document.
+	 * @param token The first token of the root value
+	 * @param lexer The lexer to read the tokens from
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If a token follows the root value.
+	 */
+	private static void checkEnd(JsonTokenType token, JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		JsonTokenType nextToken = lexer.next();
+		
+		if(nextToken != null) {
+			if(token != JsonTokenType.LEFT_BRACE && token != JsonTokenType.LEFT_BRACKET) {
+				throw new JsonParserException("Unexpected token after end of JSON value : " + nextToken.name());
+			}
+			
+			throw new JsonParserException("Unexpected token after end of JSON object or array : " + nextToken.name());
+		}
+	}
+	
+	/**
+	 * Reads the value starting with the given token from the given lexer and returns it in a
+	 * JsonArray or JsonObject form. The lexer is left right after the end of the value, so that
+	 * the values following it can be read by calling this method again.
+	 * @param token The first token of the value, already read from the lexer
+	 * @param lexer The lexer to read the tokens from
+	 * @return A JsonArray/JsonObject, or the scalar value, starting with the given token.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens.
+	 */
+	Object parseValue(JsonTokenType token, JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		if(token != JsonTokenType.LEFT_BRACE && token != JsonTokenType.LEFT_BRACKET) {
+			// A scalar value is returned directly, without creating the state used by containers
+			return JsonParser.getScalar(token, lexer);
+		}
+		
+		JsonTreeBuilder treeBuilder = this.getTreeBuilder();
+		treeBuilder.reset();
+		
+		this.readRootValue(token, lexer, treeBuilder);
+		
+		Object result = treeBuilder.getResult();
+		treeBuilder.reset();
+		
+		return result;
+	}
+	
+	/**
+	 * Reads the comma-separated elements of an array whose brackets are not part of the input of
+	 * the given lexer, such as a range of the elements of a larger array, and returns them in a
+	 * JsonArray. The elements are nested one level deep, as in the enclosing array.
+	 * @param lexer The lexer to read the tokens from
+	 * @return A JsonArray containing the elements read from the lexer.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens, or if
+	 * the input does not contain any element.
+	 */
+	JsonArray parseElements(JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		JsonTreeBuilder treeBuilder = this.getTreeBuilder();
+		treeBuilder.reset();
+		
+		this.readElements(lexer, treeBuilder);
+		
+		JsonArray result = (JsonArray)treeBuilder.getResult();
+		treeBuilder.reset();
+		
+		return result;
+	}
+	
+	/**
+	 * Reports the value starting with the given token to the handler, and returns as soon as the
+	 * value ends, without reading the following tokens.
+	 * @param token The first token of the value, already read from the lexer
+	 * @param lexer The lexer to read the tokens from
+	 * @param handler The handler receiving the contents of the value
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens, or if
+	 * the handler aborts the parsing.
+	 */
+	void readRootValue(JsonTokenType token, JsonLexer lexer, JsonHandler handler) throws JsonLexerException, JsonParserException {
+		if(token != JsonTokenType.LEFT_BRACE && token != JsonTokenType.LEFT_BRACKET) {
+			// A scalar value is a single token, so the parser stack is not needed
+			JsonParser.readScalar(token, lexer, handler);
+			return;
+		}
+		
+		this.getParserStack().clear();
+		this.readContainers(JsonParserState.START, token, lexer, handler, false);
+	}
+	
+	/**
+	 * Reports the comma-separated elements read from the given lexer to the handler, as the
+	 * elements of an array that ends with the input.
+	 * @param lexer The lexer to read the tokens from
+	 * @param handler The handler receiving the contents of the array
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens, or if
+	 * the handler aborts the parsing.
+	 */
+	private void readElements(JsonLexer lexer, JsonHandler handler) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = lexer.next();
+		
+		if(token == null) {
+			throw new JsonParserException("Unexpected end of JSON String");
+		}
+		
+		JsonContainerStack parserStack = this.getParserStack();
+		parserStack.clear();
+		parserStack.push(false);
+		handler.onStartArray();
+		
+		this.readContainers(JsonParserState.ARRAY_AFTER_COMMA, token, lexer, handler, true);
+		
+		// The array can only end with the input, not with a closing bracket
+		JsonTokenType lastToken = lexer.getTokenType();
+		
+		if(lastToken != null) {
+			throw new JsonParserException("Unexpected token type " + lastToken.name());
+		}
+	}
+	
+	/**
+	 * Runs the state machine of the parser from the given state until the root container is
+	 * closed.
+	 * @param state The initial state of the parser
+	 * @param token The current token, already read from the lexer
+	 * @param lexer The lexer to read the tokens from
+	 * @param handler The handler receiving the contents of the document
+	 * @param implicitEnd Whether the root container is an array that is closed by the end of the
+	 * input instead of a closing bracket
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * its input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens, or if
+	 * the handler aborts the parsing.
+	 */
+	private void readContainers(JsonParserState state, JsonTokenType token, JsonLexer lexer, JsonHandler handler, boolean implicitEnd) throws JsonLexerException, JsonParserException {
+		JsonContainerStack parserStack = this.parserStack;
+		
+		while(true) {
 			switch(state) {
 			case START:
-				switch(token.getType()) {
-				case LEFT_BRACE:
-					parserStack.push(new JsonObject());
-					stackTop = parserStack.peek();
-					state = JsonParserState.OBJECT_BEFORE_PROPERTY_NAME;
-					break;
-				case LEFT_BRACKET:
-					parserStack.push(new JsonArray());
-					stackTop = parserStack.peek();
-					state = JsonParserState.ARRAY_BEFORE_VALUE;
-					break;
-				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name() + ". Expected opening brace or bracket.");
-				}
+				state = JsonParser.readValue(token, lexer, handler, parserStack);
 				break;
 			case ARRAY_BEFORE_VALUE:
-				switch(token.getType()) {
-				case FALSE:
-				case TRUE:
-				case NUMBER:
-				case STRING:
-					((JsonArray)parserStack.peek()).add(token.getValue());
-					state = JsonParserState.ARRAY_AFTER_VALUE;
-					break;
-				case NULL:
-					((JsonArray)parserStack.peek()).add(null);
-					state = JsonParserState.ARRAY_AFTER_VALUE;
-					break;
-				case LEFT_BRACE:
-				{
-					JsonObject object = new JsonObject();
-					((JsonArray)parserStack.peek()).add(object);
-					parserStack.push(object);
-					state = JsonParserState.OBJECT_BEFORE_PROPERTY_NAME;
-					break;
-				}
-				case LEFT_BRACKET:
-				{
-					JsonArray array = new JsonArray();
-					((JsonArray)parserStack.peek()).add(array);
-					parserStack.push(array);
-					state = JsonParserState.ARRAY_BEFORE_VALUE;
-					break;
-				}
-				case RIGHT_BRACKET:
-				{
-					parserStack.pop();
+				if(token == JsonTokenType.RIGHT_BRACKET) {
+					handler.onEndArray();
+					state = JsonParser.closeContainer(parserStack);
 					
-					if(parserStack.empty()) {
-						errorIfNextToken = true;
-					} else {
-						Object object = parserStack.peek();
-						
-						if(object instanceof JsonObject) {
-							state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
-						} else {
-							state = JsonParserState.ARRAY_AFTER_VALUE;
-						}
+					if(state == null) {
+						return;
 					}
-					
-					break;
-				}
-				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
+				} else {
+					state = JsonParser.readValue(token, lexer, handler, parserStack);
 				}
 				break;
 			case ARRAY_AFTER_VALUE:
-				switch(token.getType()) {
+				switch(token) {
 				case COMMA:
 					state = JsonParserState.ARRAY_AFTER_COMMA;
 					break;
 				case RIGHT_BRACKET:
-					parserStack.pop();
+					handler.onEndArray();
+					state = JsonParser.closeContainer(parserStack);
 					
-					if(parserStack.empty()) {
-						errorIfNextToken = true;
-					} else {
-						Object object = parserStack.peek();
-						
-						if(object instanceof JsonObject) {
-							state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
-						} else {
-							state = JsonParserState.ARRAY_AFTER_VALUE;
-						}
+					if(state == null) {
+						return;
 					}
 					
 					break;
 				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
+					throw new JsonParserException("Unexpected token type " + token.name());
 				}
 				break;
 			case ARRAY_AFTER_COMMA:
-				switch(token.getType()) {
-				case FALSE:
-				case TRUE:
-				case NUMBER:
-				case STRING:
-					((JsonArray)parserStack.peek()).add(token.getValue());
-					state = JsonParserState.ARRAY_AFTER_VALUE;
-					break;
-				case NULL:
-					((JsonArray)parserStack.peek()).add(null);
-					state = JsonParserState.ARRAY_AFTER_VALUE;
-					break;
-				case LEFT_BRACE:
-				{
-					JsonObject object = new JsonObject();
-					((JsonArray)parserStack.peek()).add(object);
-					parserStack.push(object);
-					state = JsonParserState.OBJECT_BEFORE_PROPERTY_NAME;
-					break;
-				}
-				case LEFT_BRACKET:
-				{
-					JsonArray array = new JsonArray();
-					((JsonArray)parserStack.peek()).add(array);
-					parserStack.push(array);
-					state = JsonParserState.ARRAY_BEFORE_VALUE;
-					break;
-				}
-				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
-				}
+			case OBJECT_BEFORE_PROPERTY_VALUE:
+				state = JsonParser.readValue(token, lexer, handler, parserStack);
 				break;
 			case OBJECT_BEFORE_PROPERTY_NAME:
-				switch(token.getType()) {
+				switch(token) {
 				case STRING:
-					tmpPropertyName = (String)token.getValue();
+					handler.onKey(lexer.getKey(this.getKeyCache()));
 					state = JsonParserState.OBJECT_AFTER_PROPERTY_NAME;
 					break;
 				case RIGHT_BRACE:
-				{
-					parserStack.pop();
+					handler.onEndObject();
+					state = JsonParser.closeContainer(parserStack);
 					
-					if(parserStack.empty()) {
-						errorIfNextToken = true;
-					} else {
-						Object object = parserStack.peek();
-						
-						if(object instanceof JsonObject) {
-							state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
-						} else {
-							state = JsonParserState.ARRAY_AFTER_VALUE;
-						}
+					if(state == null) {
+						return;
 					}
 					
 					break;
-				}
 				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
+					throw new JsonParserException("Unexpected token type " + token.name());
 				}
 				break;
 			case OBJECT_AFTER_PROPERTY_NAME:
-				switch(token.getType()) {
+				switch(token) {
 				case COLON:
 					state = JsonParserState.OBJECT_BEFORE_PROPERTY_VALUE;
 					break;
 				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
-				}
-				break;
-			case OBJECT_BEFORE_PROPERTY_VALUE:
-				switch(token.getType()) {
-				case FALSE:
-				case TRUE:
-				case NUMBER:
-				case STRING:
-					((JsonObject)parserStack.peek()).put(tmpPropertyName, token.getValue());
-					state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
-					break;
-				case NULL:
-					((JsonObject)parserStack.peek()).put(tmpPropertyName, null);
-					state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
-					break;
-				case LEFT_BRACE:
-				{
-					JsonObject object = new JsonObject();
-					((JsonObject)parserStack.peek()).put(tmpPropertyName, object);
-					parserStack.push(object);
-					state = JsonParserState.OBJECT_BEFORE_PROPERTY_NAME;
-					break;
-				}
-				case LEFT_BRACKET:
-				{
-					JsonArray object = new JsonArray();
-					((JsonObject)parserStack.peek()).put(tmpPropertyName, object);
-					parserStack.push(object);
-					state = JsonParserState.ARRAY_BEFORE_VALUE;
-					break;
-				}
-				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
+					throw new JsonParserException("Unexpected token type " + token.name());
 				}
 				break;
 			case OBJECT_AFTER_PROPERTY_VALUE:
-				switch(token.getType()) {
+				switch(token) {
 				case COMMA:
 					state = JsonParserState.OBJECT_AFTER_COMMA;
 					break;
 				case RIGHT_BRACE:
-				{
-					parserStack.pop();
+					handler.onEndObject();
+					state = JsonParser.closeContainer(parserStack);
 					
-					if(parserStack.empty()) {
-						errorIfNextToken = true;
-					} else {
-						Object object = parserStack.peek();
-						
-						if(object instanceof JsonObject) {
-							state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
-						} else {
-							state = JsonParserState.ARRAY_AFTER_VALUE;
-						}
+					if(state == null) {
+						return;
 					}
 					
 					break;
-				}
 				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
+					throw new JsonParserException("Unexpected token type " + token.name());
 				}
 				break;
 			case OBJECT_AFTER_COMMA:
-				switch(token.getType()) {
+				switch(token) {
 				case STRING:
-					tmpPropertyName = (String)token.getValue();
+					handler.onKey(lexer.getKey(this.getKeyCache()));
 					state = JsonParserState.OBJECT_AFTER_PROPERTY_NAME;
 					break;
 				default:
-					throw new JsonParserException("Unexpected token type " + token.getType().name());
+					throw new JsonParserException("Unexpected token type " + token.name());
 				}
 			}
 			
 			// Read next token
-			token = lexer.readToken();
+			token = lexer.next();
+			
+			if(token == null) {
+				if(implicitEnd && state == JsonParserState.ARRAY_AFTER_VALUE && parserStack.getDepth() == 1) {
+					handler.onEndArray();
+					return;
+				}
+				
+				throw new JsonParserException("Unexpected end of JSON String");
+			}
 		}
-
-		if(!errorIfNextToken) {
-			throw new JsonParserException("Unexpected end of JSON String");
+	}
+	
+	/**
+	 * Reports the value starting with the current token of the lexer to the handler. If the value
+	 * is an object or an array, its kind is pushed on the parser stack.
+	 * @param token The type of the first token of the value
+	 * @param lexer The lexer the token was read from
+	 * @param handler The handler receiving the contents of the document
+	 * @param parserStack The stack of the containers that are currently being parsed
+	 * @return The next state of the parser
+	 * @throws JsonParserException If the token can not start a value, if the maximum nesting depth
+	 * is exceeded, or if the handler aborts the parsing.
+	 */
+	private static JsonParserState readValue(JsonTokenType token, JsonLexer lexer, JsonHandler handler, JsonContainerStack parserStack) throws JsonParserException {
+		switch(token) {
+		case LEFT_BRACE:
+			parserStack.push(true);
+			handler.onStartObject();
+			return JsonParserState.OBJECT_BEFORE_PROPERTY_NAME;
+		case LEFT_BRACKET:
+			parserStack.push(false);
+			handler.onStartArray();
+			return JsonParserState.ARRAY_BEFORE_VALUE;
+		default:
+			JsonParser.readScalar(token, lexer, handler);
+			return parserStack.isObject() ? JsonParserState.OBJECT_AFTER_PROPERTY_VALUE : JsonParserState.ARRAY_AFTER_VALUE;
+		}
+	}
+	
+	/**
+	 * Returns the scalar value represented by the current token of the lexer.
+	 * @param token The type of the token
+	 * @param lexer The lexer the token was read from
+	 * @return The String, Number or Boolean value of the token, or null.
+	 * @throws JsonParserException If the token is not a scalar value.
+	 */
+	private static Object getScalar(JsonTokenType token, JsonLexer lexer) throws JsonParserException {
+		switch(token) {
+		case STRING:
+			return lexer.getString();
+		case NUMBER:
+			return lexer.getNumber();
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		case NULL:
+			return null;
+		default:
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+	}
+	
+	/**
+	 * Reports the scalar value represented by the current token of the lexer to the handler.
+	 * @param token The type of the token
+	 * @param lexer The lexer the token was read from
+	 * @param handler The handler receiving the contents of the document
+	 * @throws JsonParserException If the token is not a scalar value, or if the handler aborts the
+	 * parsing.
+	 */
+	private static void readScalar(JsonTokenType token, JsonLexer lexer, JsonHandler handler) throws JsonParserException {
+		switch(token) {
+		case STRING:
+			handler.onString(lexer.getString());
+			break;
+		case NUMBER:
+			handler.onNumber(lexer.getNumber());
+			break;
+		case TRUE:
+			handler.onBoolean(true);
+			break;
+		case FALSE:
+			handler.onBoolean(false);
+			break;
+		case NULL:
+			handler.onNull();
+			break;
+		default:
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+	}
+	
+	/**
+	 * Returns the parser stack, creating it when the first object or array is parsed.
+	 * @return The parser stack
+	 */
+	private JsonContainerStack getParserStack() {
+		JsonContainerStack parserStack = this.parserStack;
+		
+		if(parserStack == null) {
+			parserStack = new JsonContainerStack(this.maxDepth);
+			this.parserStack = parserStack;
+		}
+		
+		return parserStack;
+	}
+	
+	/**
+	 * Returns the tree builder, creating it when the first object or array is parsed.
+	 * @return The tree builder
+	 */
+	private JsonTreeBuilder getTreeBuilder() {
+		JsonTreeBuilder treeBuilder = this.treeBuilder;
+		
+		if(treeBuilder == null) {
+			treeBuilder = new JsonTreeBuilder();
+			this.treeBuilder = treeBuilder;
+		}
+		
+		return treeBuilder;
+	}
+	
+	/**
+	 * Returns the key cache, creating it when the first key is read.
+	 * @return The key cache, or null if the keys are not canonicalized.
+	 */
+	private JsonKeyCache getKeyCache() {
+		JsonKeyCache keyCache = this.keyCache;
+		
+		if(keyCache == null && this.internKeys) {
+			keyCache = new JsonKeyCache(JsonKeyCache.DEFAULT_CAPACITY);
+			this.keyCache = keyCache;
+		}
+		
+		return keyCache;
+	}
+	
+	/**
+	 * Pops the current container from the parser stack.
+	 * @param parserStack The stack of the containers that are currently being parsed
+	 * @return The next state of the parser, or null if the root container has been closed.
+	 */
+	private static JsonParserState closeContainer(JsonContainerStack parserStack) {
+		parserStack.pop();
+		
+		if(parserStack.isEmpty()) {
+			return null;
 		}
 		
-		return stackTop;
+		return parserStack.isObject() ? JsonParserState.OBJECT_AFTER_PROPERTY_VALUE : JsonParserState.ARRAY_AFTER_VALUE;
 	}
 }
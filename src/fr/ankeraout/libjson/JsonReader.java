@@ -0,0 +1,424 @@
+package fr.ankeraout.libjson;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * This class represents a pull reader for JSON documents. Instead of building a tree of JsonObject
+ * and JsonArray instances like the JsonParser class, it returns the structure of the document as a
+ * sequence of events (see JsonEvent) that are read one by one from the lexer. As nothing is kept
+ * in memory except the nesting of the containers, which is limited to a maximum depth, it can be
+ * used for reading documents of any size.
+ * 
+ * The following example prints the scalar value of every "id" key in a document, at any depth:
+ * <pre>
+ * JsonReader reader = new JsonReader(input);
+ * JsonEvent event;
+ * 
+ * while((event = reader.nextEvent()) != null) {
+ *     if(event == JsonEvent.KEY &amp;&amp; reader.getString().equals("id")) {
+ *         event = reader.nextEvent();
+ * 
+ *         if(event != JsonEvent.START_OBJECT &amp;&amp; event != JsonEvent.START_ARRAY) {
+ *             System.out.println(reader.getValue());
+ *         }
+ *     }
+ * }
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public class JsonReader {
+	/**
+	 * The lexer used for reading the tokens of the document
+	 */
+	private final JsonLexer lexer;
+	
+	/**
+	 * The kind of each container that is currently open: true for an object, false for an array.
+	 */
+	private boolean[] containers;
+	
+	/**
+	 * The number of containers that are currently open
+	 */
+	private int depth;
+	
+	/**
+	 * The maximum number of containers that can be open at the same time
+	 */
+	private final int maxDepth;
+	
+	/**
+	 * The current state of the parsing automata
+	 */
+	private JsonParserState state;
+	
+	/**
+	 * Whether or not the root value of the document has been entirely read
+	 */
+	private boolean ended;
+	
+	/**
+	 * The last event returned by nextEvent()
+	 */
+	private JsonEvent event;
+	
+	/**
+	 * Creates a new JsonReader reading the tokens from the given lexer, accepting the documents
+	 * nested up to JsonParser.DEFAULT_MAX_DEPTH.
+	 * @param lexer The lexer to read the tokens from
+	 */
+	public JsonReader(JsonLexer lexer) {
+		this(lexer, JsonParser.DEFAULT_MAX_DEPTH);
+	}
+	
+	/**
+	 * Creates a new JsonReader reading the tokens from the given lexer.
+	 * @param lexer The lexer to read the tokens from
+	 * @param maxDepth The maximum nesting depth of the objects and arrays of the document. The
+	 * documents nested deeper than this are rejected with a JsonParserException, which bounds the
+	 * memory used for reading untrusted input.
+	 * @throws IllegalArgumentException If maxDepth is lower than 1.
+	 */
+	public JsonReader(JsonLexer lexer, int maxDepth) {
+		if(maxDepth < 1) {
+			throw new IllegalArgumentException("The maximum depth must be at least 1: " + maxDepth);
+		}
+		
+		this.lexer = lexer;
+		this.containers = new boolean[Math.min(16, maxDepth)];
+		this.depth = 0;
+		this.maxDepth = maxDepth;
+		this.state = JsonParserState.START;
+		this.ended = false;
+		this.event = null;
+	}
+	
+	/**
+	 * Creates a new JsonReader reading the given string.
+	 * @param input The input string
+	 */
+	public JsonReader(String input) {
+		this(new JsonLexer(input));
+	}
+	
+	/**
+	 * Creates a new JsonReader reading the characters from the given reader. The reader is not
+	 * closed by the JsonReader.
+	 * @param reader The reader to read the input from
+	 */
+	public JsonReader(Reader reader) {
+		this(new JsonLexer(reader));
+	}
+	
+	/**
+	 * Creates a new JsonReader reading the UTF-8 encoded bytes from the given stream. The stream
+	 * is not closed by the JsonReader.
+	 * @param inputStream The stream to read the input from
+	 */
+	public JsonReader(InputStream inputStream) {
+		this(new JsonLexer(inputStream));
+	}
+	
+	/**
+	 * Creates a new JsonReader reading the given UTF-8 encoded bytes. The bytes are read directly,
+	 * without decoding the whole input to characters first.
+	 * @param input The UTF-8 encoded input
+	 */
+	public JsonReader(byte[] input) {
+		this(new JsonLexer(input));
+	}
+	
+	/**
+	 * Reads the next event from the document. This method returns null once the end of the
+	 * document has been reached.
+	 * @return The next event of the document, or null if there are no more events.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input.
+	 * @throws JsonParserException If the reader encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	public JsonEvent nextEvent() throws JsonLexerException, JsonParserException {
+		while(true) {
+			JsonTokenType token = this.lexer.next();
+			
+			if(token == null) {
+				if(!this.ended) {
+					throw new JsonParserException("Unexpected end of JSON String");
+				}
+				
+				return this.setEvent(null);
+			}
+			
+			if(this.ended) {
+				throw new JsonParserException("Unexpected token after end of JSON value : " + token.name());
+			}
+			
+			switch(this.state) {
+			case START:
+				return this.readValue(token);
+			case ARRAY_BEFORE_VALUE:
+				if(token == JsonTokenType.RIGHT_BRACKET) {
+					return this.closeContainer(JsonEvent.END_ARRAY);
+				}
+				
+				return this.readValue(token);
+			case ARRAY_AFTER_VALUE:
+				switch(token) {
+				case COMMA:
+					this.state = JsonParserState.ARRAY_AFTER_COMMA;
+					break;
+				case RIGHT_BRACKET:
+					return this.closeContainer(JsonEvent.END_ARRAY);
+				default:
+					throw new JsonParserException("Unexpected token type " + token.name());
+				}
+				break;
+			case ARRAY_AFTER_COMMA:
+			case OBJECT_BEFORE_PROPERTY_VALUE:
+				return this.readValue(token);
+			case OBJECT_BEFORE_PROPERTY_NAME:
+				if(token == JsonTokenType.RIGHT_BRACE) {
+					return this.closeContainer(JsonEvent.END_OBJECT);
+				}
+				
+				return this.readKey(token);
+			case OBJECT_AFTER_PROPERTY_NAME:
+				if(token != JsonTokenType.COLON) {
+					throw new JsonParserException("Unexpected token type " + token.name());
+				}
+				
+				this.state = JsonParserState.OBJECT_BEFORE_PROPERTY_VALUE;
+				break;
+			case OBJECT_AFTER_PROPERTY_VALUE:
+				switch(token) {
+				case COMMA:
+					this.state = JsonParserState.OBJECT_AFTER_COMMA;
+					break;
+				case RIGHT_BRACE:
+					return this.closeContainer(JsonEvent.END_OBJECT);
+				default:
+					throw new JsonParserException("Unexpected token type " + token.name());
+				}
+				break;
+			case OBJECT_AFTER_COMMA:
+				return this.readKey(token);
+			}
+		}
+	}
+	
+	/**
+	 * Skips the next value of the document. If the next value is an object or an array, all its
+	 * contents are skipped. If the next event is a key, then the key and its value are skipped.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters in
+	 * the input.
+	 * @throws JsonParserException If the reader encounters an unexpected sequence of tokens in the
+	 * input, or if there is no value to skip.
+	 */
+	public void skipValue() throws JsonLexerException, JsonParserException {
+		JsonEvent event = this.nextEvent();
+		
+		if(event == null) {
+			throw new JsonParserException("No value to skip at the end of the document");
+		}
+		
+		switch(event) {
+		case START_OBJECT:
+		case START_ARRAY:
+		{
+			int depth = this.depth - 1;
+			
+			while(this.depth > depth) {
+				this.nextEvent();
+			}
+			
+			break;
+		}
+		case KEY:
+			this.skipValue();
+			break;
+		case END_OBJECT:
+		case END_ARRAY:
+			throw new JsonParserException("No value to skip before " + event.name());
+		default:
+			break;
+		}
+	}
+	
+	/**
+	 * Returns the last event returned by nextEvent().
+	 * @return The current event, or null if nextEvent() has not been called yet or if the end of
+	 * the document has been reached.
+	 */
+	public JsonEvent getEvent() {
+		return this.event;
+	}
+	
+	/**
+	 * Returns the value associated with the current event: a String for KEY and VALUE_STRING
+	 * events, a Number for VALUE_NUMBER events (a Long, a Double, a BigDecimal or a JsonNumber),
+	 * a Boolean for VALUE_TRUE and VALUE_FALSE events and null for all the other events. Strings
+	 * and numbers are only created when their value is requested, so skipped values do not create
+	 * any object.
+	 * @return The value associated with the current event
+	 */
+	public Object getValue() {
+		if(this.event == null) {
+			return null;
+		}
+		
+		switch(this.event) {
+		case KEY:
+		case VALUE_STRING:
+			return this.lexer.getString();
+		case VALUE_NUMBER:
+			return this.lexer.getNumber();
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		default:
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the string associated with the current event, which must be KEY or VALUE_STRING.
+	 * @return The name of the key or the value of the string
+	 * @throws IllegalStateException If the current event is not KEY or VALUE_STRING.
+	 */
+	public String getString() {
+		if(this.event != JsonEvent.KEY && this.event != JsonEvent.VALUE_STRING) {
+			throw new IllegalStateException("The current event is not KEY or VALUE_STRING: " + this.event);
+		}
+		
+		return this.lexer.getString();
+	}
+	
+	/**
+	 * Returns the number associated with the current event, which must be VALUE_NUMBER.
+	 * @return The value of the number
+	 * @throws IllegalStateException If the current event is not VALUE_NUMBER.
+	 */
+	public Number getNumber() {
+		if(this.event != JsonEvent.VALUE_NUMBER) {
+			throw new IllegalStateException("The current event is not VALUE_NUMBER: " + this.event);
+		}
+		
+		return this.lexer.getNumber();
+	}
+	
+	/**
+	 * Returns the number of objects and arrays that contain the current position of the reader.
+	 * @return The current nesting depth
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * Handles a token found where a value is expected.
+	 * @param token The type of the token
+	 * @return The event corresponding to the value
+	 * @throws JsonParserException If the token can not start a value, or if the maximum nesting
+	 * depth is exceeded.
+	 */
+	private JsonEvent readValue(JsonTokenType token) throws JsonParserException {
+		switch(token) {
+		case LEFT_BRACE:
+			this.openContainer(true);
+			this.state = JsonParserState.OBJECT_BEFORE_PROPERTY_NAME;
+			return this.setEvent(JsonEvent.START_OBJECT);
+		case LEFT_BRACKET:
+			this.openContainer(false);
+			this.state = JsonParserState.ARRAY_BEFORE_VALUE;
+			return this.setEvent(JsonEvent.START_ARRAY);
+		case STRING:
+			this.endValue();
+			return this.setEvent(JsonEvent.VALUE_STRING);
+		case NUMBER:
+			this.endValue();
+			return this.setEvent(JsonEvent.VALUE_NUMBER);
+		case TRUE:
+			this.endValue();
+			return this.setEvent(JsonEvent.VALUE_TRUE);
+		case FALSE:
+			this.endValue();
+			return this.setEvent(JsonEvent.VALUE_FALSE);
+		case NULL:
+			this.endValue();
+			return this.setEvent(JsonEvent.VALUE_NULL);
+		default:
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+	}
+	
+	/**
+	 * Handles a token found where a key is expected.
+	 * @param token The type of the token
+	 * @return The KEY event
+	 * @throws JsonParserException If the token is not a string.
+	 */
+	private JsonEvent readKey(JsonTokenType token) throws JsonParserException {
+		if(token != JsonTokenType.STRING) {
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+		
+		this.state = JsonParserState.OBJECT_AFTER_PROPERTY_NAME;
+		return this.setEvent(JsonEvent.KEY);
+	}
+	
+	/**
+	 * Pushes a new container on the container stack.
+	 * @param object true if the container is an object, false if it is an array
+	 * @throws JsonParserException If the maximum nesting depth would be exceeded.
+	 */
+	private void openContainer(boolean object) throws JsonParserException {
+		if(this.depth == this.containers.length) {
+			if(this.depth == this.maxDepth) {
+				throw new JsonParserException("Maximum nesting depth of " + this.maxDepth + " exceeded");
+			}
+			
+			boolean[] containers = new boolean[(int)Math.min(this.depth * 2L, this.maxDepth)];
+			System.arraycopy(this.containers, 0, containers, 0, this.depth);
+			this.containers = containers;
+		}
+		
+		this.containers[this.depth++] = object;
+	}
+	
+	/**
+	 * Pops the current container from the container stack.
+	 * @param event The event corresponding to the end of the container
+	 * @return The given event
+	 */
+	private JsonEvent closeContainer(JsonEvent event) {
+		this.depth--;
+		this.endValue();
+		return this.setEvent(event);
+	}
+	
+	/**
+	 * Updates the state of the automata after a value has been entirely read.
+	 */
+	private void endValue() {
+		if(this.depth == 0) {
+			this.ended = true;
+		} else if(this.containers[this.depth - 1]) {
+			this.state = JsonParserState.OBJECT_AFTER_PROPERTY_VALUE;
+		} else {
+			this.state = JsonParserState.ARRAY_AFTER_VALUE;
+		}
+	}
+	
+	/**
+	 * Sets the current event. Its value stays in the lexer until it is requested.
+	 * @param event The event
+	 * @return The given event
+	 */
+	private JsonEvent setEvent(JsonEvent event) {
+		this.event = event;
+		return event;
+	}
+}
@@ -0,0 +1,275 @@
+package fr.ankeraout.libjson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class reads a sequence of concatenated JSON values, such as the documents received one
+ * after the other on a socket: {"a":1}{"a":2}[3] "four" 5. The values may be separated by
+ * whitespace, which is only required between two numbers or literals. The values are read by a
+ * single JsonLexer and parsed by a single JsonParser, which keep their position and their buffers
+ * from one value to the next, so that the input is read only once and does not need to be split
+ * beforehand.
+ *
+ * Each value is returned as soon as its last token has been read, so that a value received from
+ * a socket can be processed before the next one is sent. Only a number at the end of a value
+ * needs the character following it to be read.
+ *
+ * Since the values are not delimited, the end of an invalid value can not be found. Once a
+ * JsonLexerException or a JsonParserException has been thrown, the reader is failed, and any
+ * further attempt to read a value throws an IllegalStateException.
+ * <pre>
+ * try(JsonSequenceReader reader = new JsonSequenceReader(socket.getInputStream())) {
+ *     while(reader.hasNextValue()) {
+ *         JsonObject message = (JsonObject)reader.nextValue();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public final class JsonSequenceReader implements Iterator<Object>, Closeable {
+	/**
+	 * The input of the reader, closed by close(), or null if there is nothing to close
+	 */
+	private final Closeable source;
+	
+	/**
+	 * The lexer reading the values
+	 */
+	private final JsonLexer lexer;
+	
+	/**
+	 * The parser of the values
+	 */
+	private final JsonParser parser;
+	
+	/**
+	 * The first token of the next value, if it was already read by hasNextValue()
+	 */
+	private JsonTokenType nextToken;
+	
+	/**
+	 * Whether or not an invalid value has been read, after which the position of the lexer is
+	 * unknown
+	 */
+	private boolean failed;
+	
+	/**
+	 * Creates a new JsonSequenceReader reading the values of the given string.
+	 * @param input The input string
+	 */
+	public JsonSequenceReader(String input) {
+		this(new JsonLexer(input), new JsonParser(), null);
+	}
+	
+	/**
+	 * Creates a new JsonSequenceReader reading the values of the given UTF-8 encoded bytes. The
+	 * bytes are not copied, so they must not be modified while the reader is used.
+	 * @param input The UTF-8 encoded input
+	 */
+	public JsonSequenceReader(byte[] input) {
+		this(new JsonLexer(input), new JsonParser(), null);
+	}
+	
+	/**
+	 * Creates a new JsonSequenceReader reading the values from the given reader.
+	 * @param reader The reader to read the input from
+	 */
+	public JsonSequenceReader(Reader reader) {
+		this(new JsonLexer(reader), new JsonParser(), reader);
+	}
+	
+	/**
+	 * Creates a new JsonSequenceReader reading the values from the given UTF-8 encoded stream.
+	 * @param inputStream The stream to read the input from
+	 */
+	public JsonSequenceReader(InputStream inputStream) {
+		this(new JsonLexer(inputStream), new JsonParser(), inputStream);
+	}
+	
+	/**
+	 * Creates a new JsonSequenceReader reading the values from the given lexer with the given
+	 * parser, so that the options of the lexer and of the parser can be chosen. The parser must
+	 * not be used by anything else while the reader is used. The input of the lexer is not closed
+	 * by close().
+	 * @param lexer The lexer to read the tokens from
+	 * @param parser The parser of the values
+	 */
+	public JsonSequenceReader(JsonLexer lexer, JsonParser parser) {
+		this(lexer, parser, null);
+	}
+	
+	/**
+	 * Creates a new JsonSequenceReader.
+	 * @param lexer The lexer to read the tokens from
+	 * @param parser The parser of the values
+	 * @param source The input closed by close(), or null if there is nothing to close
+	 */
+	private JsonSequenceReader(JsonLexer lexer, JsonParser parser, Closeable source) {
+		this.source = source;
+		this.lexer = lexer;
+		this.parser = parser;
+		this.nextToken = null;
+		this.failed = false;
+	}
+	
+	/**
+	 * Returns whether or not there is another value to read. This reads the first token of the
+	 * next value, and therefore waits for it if the input is a stream.
+	 * @return true if there is another value, false if the end of the input has been reached.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters, or
+	 * if the input could not be read.
+	 * @throws IllegalStateException If an invalid value has already been read.
+	 */
+	public boolean hasNextValue() throws JsonLexerException {
+		if(this.failed) {
+			throw new IllegalStateException("The reader can not be used after an invalid value");
+		}
+		
+		if(this.nextToken == null) {
+			try {
+				this.nextToken = this.lexer.next();
+			} catch(JsonLexerException e) {
+				this.failed = true;
+				throw e;
+			}
+		}
+		
+		return this.nextToken != null;
+	}
+	
+	/**
+	 * Reads the next value.
+	 * @return The JsonArray/JsonObject, or the scalar value, of the next value.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters, or
+	 * if the input could not be read.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens.
+	 * @throws NoSuchElementException If there are no more values.
+	 * @throws IllegalStateException If an invalid value has already been read.
+	 */
+	public Object nextValue() throws JsonLexerException, JsonParserException {
+		JsonTokenType token = this.takeNextToken();
+		
+		try {
+			return this.parser.parseValue(token, this.lexer);
+		} catch(JsonLexerException | JsonParserException e) {
+			this.failed = true;
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reports the contents of the next value to the given handler, without building any
+	 * JsonObject or JsonArray.
+	 * @param handler The handler receiving the contents of the value
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters, or
+	 * if the input could not be read.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens, or if
+	 * the handler aborts the parsing.
+	 * @throws NoSuchElementException If there are no more values.
+	 * @throws IllegalStateException If an invalid value has already been read.
+	 */
+	public void nextValue(JsonHandler handler) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = this.takeNextToken();
+		
+		try {
+			this.parser.readRootValue(token, this.lexer, handler);
+		} catch(JsonLexerException | JsonParserException e) {
+			this.failed = true;
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns whether or not there is another value to read. See hasNextValue().
+	 * @return true if there is another value, false if the end of the input has been reached.
+	 * @throws JsonUncheckedException If the input could not be read or is invalid.
+	 * @throws IllegalStateException If an invalid value has already been read.
+	 */
+	@Override
+	public boolean hasNext() {
+		try {
+			return this.hasNextValue();
+		} catch(JsonLexerException e) {
+			throw new JsonUncheckedException(e);
+		}
+	}
+	
+	/**
+	 * Reads the next value. See nextValue().
+	 * @return The JsonArray/JsonObject, or the scalar value, of the next value.
+	 * @throws JsonUncheckedException If the input could not be read or is invalid.
+	 * @throws NoSuchElementException If there are no more values.
+	 * @throws IllegalStateException If an invalid value has already been read.
+	 */
+	@Override
+	public Object next() {
+		try {
+			return this.nextValue();
+		} catch(JsonLexerException | JsonParserException e) {
+			throw new JsonUncheckedException(e);
+		}
+	}
+	
+	/**
+	 * Returns a sequential and ordered Stream of the values that have not been read yet. Closing
+	 * the stream closes this reader.
+	 * @return The stream of the values
+	 */
+	public Stream<Object> stream() {
+		Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+		
+		return stream.onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					JsonSequenceReader.this.close();
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Closes the input of the reader, if it was given to the constructor as a Reader or an
+	 * InputStream.
+	 * @throws IOException If the input could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.source != null) {
+			this.source.close();
+		}
+	}
+	
+	/**
+	 * Returns the first token of the next value, and forgets it so that it is only used once.
+	 * @return The first token of the next value
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters, or
+	 * if the input could not be read.
+	 * @throws NoSuchElementException If there are no more values.
+	 * @throws IllegalStateException If an invalid value has already been read.
+	 */
+	private JsonTokenType takeNextToken() throws JsonLexerException {
+		if(!this.hasNextValue()) {
+			throw new NoSuchElementException();
+		}
+		
+		JsonTokenType token = this.nextToken;
+		this.nextToken = null;
+		
+		return token;
+	}
+}
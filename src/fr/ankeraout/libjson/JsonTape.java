@@ -0,0 +1,788 @@
+package fr.ankeraout.libjson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class is a read-only JSON document stored in a compact form: a tape of longs that
+ * describes the structure of the document, and the UTF-8 encoded input it was parsed from. The
+ * strings and the numbers are not decoded when the document is parsed, but each time their value
+ * is read, which makes a tape much smaller than the equivalent tree of JsonObject and JsonArray
+ * instances: it only holds two arrays, whatever the number of values of the document.
+ *
+ * The values of the document are called nodes, and are identified by their index in the tape:
+ * the root value is the node 0, and the values of a container follow it in the order of the
+ * document. The entries of an object are stored as a key node, which is a string, followed by
+ * its value node. Each container knows the index of the node following its last value (see
+ * getEnd()), so that the values of a container can be iterated without looking at their
+ * contents:
+ * <pre>
+ * JsonTape tape = JsonParser.parseTape(bytes);
+ * int users = tape.get(tape.getRoot(), "users");
+ *
+ * for(int user = users + 1; user &lt; tape.getEnd(users); user = tape.getEnd(user)) {
+ *     System.out.println(tape.getString(tape.get(user, "name")));
+ * }
+ * </pre>
+ * Note that a tape keeps a reference to the whole input, which must not be modified while the
+ * tape is used.
+ * @author Ankeraout
+ *
+ */
+public final class JsonTape {
+	/**
+	 * The tag of an object node. The node holds the number of entries of the object, and the index
+	 * of the node following its last value.
+	 */
+	private static final int OBJECT = 1;
+	
+	/**
+	 * The tag of an array node. The node holds the number of values of the array, and the index of
+	 * the node following its last value.
+	 */
+	private static final int ARRAY = 2;
+	
+	/**
+	 * The tag of a string node that only contains ASCII characters and no escape sequence. The
+	 * string nodes hold the length of the string in bytes, and the position of its first byte,
+	 * after the opening quote.
+	 */
+	private static final int ASCII_STRING = 3;
+	
+	/**
+	 * The tag of a string node that contains multi-byte sequences but no escape sequence
+	 */
+	private static final int UTF8_STRING = 4;
+	
+	/**
+	 * The tag of a string node that contains escape sequences
+	 */
+	private static final int ESCAPED_STRING = 5;
+	
+	/**
+	 * The tag of a number node. The node holds the length of the number in bytes, and the position
+	 * of its first byte.
+	 */
+	private static final int NUMBER = 6;
+	
+	/**
+	 * The tag of a true node
+	 */
+	private static final int TRUE = 7;
+	
+	/**
+	 * The tag of a false node
+	 */
+	private static final int FALSE = 8;
+	
+	/**
+	 * The tag of a null node
+	 */
+	private static final int NULL = 9;
+	
+	/**
+	 * The position of the tag in a node. The 4 high bits of a node hold its tag.
+	 */
+	private static final int TAG_SHIFT = 60;
+	
+	/**
+	 * The position of the length of a string or a number, or of the size of a container, in a
+	 * node. They are stored in the 29 bits following the tag.
+	 */
+	private static final int LENGTH_SHIFT = 31;
+	
+	/**
+	 * The largest length or size that can be stored in a node. The size of the containers that
+	 * have more values is computed when it is requested.
+	 */
+	private static final int MAX_LENGTH = (1 << 29) - 1;
+	
+	/**
+	 * The bits of a node holding the position of a string or a number in the input, or the index
+	 * of the node following a container. They are the 31 low bits of the node.
+	 */
+	private static final long POSITION_MASK = (1L << LENGTH_SHIFT) - 1;
+	
+	/**
+	 * The UTF-8 encoded input the tape was parsed from
+	 */
+	private final byte[] source;
+	
+	/**
+	 * The tape: one long per node, starting with the tag of the node
+	 */
+	private final long[] tape;
+	
+	/**
+	 * Creates a new JsonTape.
+	 * @param source The UTF-8 encoded input the tape was parsed from
+	 * @param tape The tape
+	 */
+	private JsonTape(byte[] source, long[] tape) {
+		this.source = source;
+		this.tape = tape;
+	}
+	
+	/**
+	 * Parses the given part of a UTF-8 encoded byte array into a tape. The document is fully
+	 * validated, but its strings and numbers are not decoded.
+	 * @param input The array containing the UTF-8 encoded input
+	 * @param offset The position of the first byte of the input in the array
+	 * @param length The number of bytes of the input
+	 * @param maxDepth The maximum nesting depth of the objects and arrays of the document
+	 * @return The tape of the document
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters or
+	 * an invalid UTF-8 sequence in the input.
+	 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens in the
+	 * input.
+	 */
+	static JsonTape parse(byte[] input, int offset, int length, int maxDepth) throws JsonLexerException, JsonParserException {
+		JsonLexer lexer = new JsonLexer(input, offset, length);
+		JsonTokenType token = lexer.next();
+		
+		if(token == null) {
+			throw new JsonParserException("Unexpected end of JSON String");
+		}
+		
+		Builder builder = new Builder(16 + length / 16, maxDepth);
+		builder.readValue(token, lexer);
+		JsonTokenType nextToken = lexer.next();
+		
+		if(nextToken != null) {
+			if(token != JsonTokenType.LEFT_BRACE && token != JsonTokenType.LEFT_BRACKET) {
+				throw new JsonParserException("Unexpected token after end of JSON value : " + nextToken.name());
+			}
+			
+			throw new JsonParserException("Unexpected token after end of JSON object or array : " + nextToken.name());
+		}
+		
+		return new JsonTape(input, Arrays.copyOf(builder.tape, builder.size));
+	}
+	
+	/**
+	 * Returns the index of the root node of the document.
+	 * @return The index of the root node
+	 */
+	public int getRoot() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the number of nodes of the document.
+	 * @return The number of nodes, including the keys of the objects
+	 */
+	public int getNodeCount() {
+		return this.tape.length;
+	}
+	
+	/**
+	 * Returns the type of the given node: START_OBJECT for an object, START_ARRAY for an array,
+	 * or the VALUE_ event matching the scalar value. The keys of the objects are VALUE_STRING
+	 * nodes.
+	 * @param node The index of the node
+	 * @return The type of the node
+	 */
+	public JsonEvent getType(int node) {
+		switch(this.getTag(node)) {
+		case OBJECT:
+			return JsonEvent.START_OBJECT;
+		case ARRAY:
+			return JsonEvent.START_ARRAY;
+		case NUMBER:
+			return JsonEvent.VALUE_NUMBER;
+		case TRUE:
+			return JsonEvent.VALUE_TRUE;
+		case FALSE:
+			return JsonEvent.VALUE_FALSE;
+		case NULL:
+			return JsonEvent.VALUE_NULL;
+		default:
+			return JsonEvent.VALUE_STRING;
+		}
+	}
+	
+	/**
+	 * Returns the index of the node following the given node and all the values it contains.
+	 * This is the next value of the container of the node, or the end of the container.
+	 * @param node The index of the node
+	 * @return The index of the node following the given node
+	 */
+	public int getEnd(int node) {
+		long word = this.tape[node];
+		int tag = (int)(word >>> TAG_SHIFT);
+		
+		if(tag == OBJECT || tag == ARRAY) {
+			return (int)(word & POSITION_MASK);
+		}
+		
+		return node + 1;
+	}
+	
+	/**
+	 * Returns the number of entries of the given object node, or the number of values of the
+	 * given array node.
+	 * @param node The index of the object or array node
+	 * @return The size of the object or the array
+	 * @throws IllegalArgumentException If the node is not an object or an array.
+	 */
+	public int size(int node) {
+		int tag = this.getTag(node);
+		
+		if(tag != OBJECT && tag != ARRAY) {
+			throw new IllegalArgumentException("The node is not an object or an array: " + this.getType(node));
+		}
+		
+		int size = this.getLength(node);
+		
+		if(size == MAX_LENGTH) {
+			// The size did not fit in the node, so the values are counted
+			int end = this.getEnd(node);
+			size = 0;
+			
+			for(int value = node + 1; value < end; value = this.getEnd(tag == OBJECT ? value + 1 : value)) {
+				size++;
+			}
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * Returns the value of the given key in the given object node. The keys are compared
+	 * directly with the bytes of the input when they only contain ASCII characters.
+	 * @param node The index of the object node
+	 * @param key The key
+	 * @return The index of the value node, or -1 if the object does not contain the key.
+	 * @throws IllegalArgumentException If the node is not an object.
+	 */
+	public int get(int node, String key) {
+		this.checkTag(node, OBJECT, "an object");
+		int end = this.getEnd(node);
+		
+		for(int keyNode = node + 1; keyNode < end; keyNode = this.getEnd(keyNode + 1)) {
+			if(this.stringEquals(keyNode, key)) {
+				return keyNode + 1;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Returns the value at the given position of the given array node. The values preceding it
+	 * are skipped without looking at their contents.
+	 * @param node The index of the array node
+	 * @param index The position of the value in the array
+	 * @return The index of the value node
+	 * @throws IllegalArgumentException If the node is not an array.
+	 * @throws IndexOutOfBoundsException If the position is out of the array.
+	 */
+	public int get(int node, int index) {
+		this.checkTag(node, ARRAY, "an array");
+		int end = this.getEnd(node);
+		int value = node + 1;
+		
+		for(int i = 0; i < index && value < end; i++) {
+			value = this.getEnd(value);
+		}
+		
+		if(index < 0 || value >= end) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size(node));
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Decodes the value of the given string node, which can be the key of an object.
+	 * @param node The index of the string node
+	 * @return The value of the string
+	 * @throws IllegalArgumentException If the node is not a string.
+	 */
+	public String getString(int node) {
+		int start = this.getPosition(node);
+		int length = this.getLength(node);
+		
+		switch(this.getTag(node)) {
+		case ASCII_STRING:
+			// ASCII is a subset of ISO-8859-1, which is decoded by a plain copy
+			return new String(this.source, start, length, StandardCharsets.ISO_8859_1);
+		case UTF8_STRING:
+			return new String(this.source, start, length, StandardCharsets.UTF_8);
+		case ESCAPED_STRING:
+			// Let a lexer decode the escape sequences of the string, quotes included
+			try {
+				JsonLexer lexer = new JsonLexer(this.source, start - 1, length + 2);
+				lexer.next();
+				
+				return lexer.getString();
+			} catch(JsonLexerException e) {
+				// The string was validated when the tape was built
+				throw new IllegalStateException(e);
+			}
+		default:
+			throw new IllegalArgumentException("The node is not a string: " + this.getType(node));
+		}
+	}
+	
+	/**
+	 * Returns whether or not the given string node, which can be the key of an object, is equal
+	 * to the given string. The strings that only contain ASCII characters are compared directly
+	 * with the bytes of the input, without being decoded.
+	 * @param node The index of the string node
+	 * @param value The string to compare with the node
+	 * @return true if the node holds the given string, false otherwise.
+	 * @throws IllegalArgumentException If the node is not a string.
+	 */
+	public boolean stringEquals(int node, String value) {
+		if(this.getTag(node) != ASCII_STRING) {
+			return this.getString(node).equals(value);
+		}
+		
+		int length = this.getLength(node);
+		
+		if(length != value.length()) {
+			return false;
+		}
+		
+		byte[] source = this.source;
+		int start = this.getPosition(node);
+		
+		for(int i = 0; i < length; i++) {
+			if(source[start + i] != value.charAt(i)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Decodes the value of the given number node. See the JsonNumber class for the types of the
+	 * returned numbers.
+	 * @param node The index of the number node
+	 * @return The value of the number
+	 * @throws IllegalArgumentException If the node is not a number.
+	 */
+	public Number getNumber(int node) {
+		this.checkTag(node, NUMBER, "a number");
+		int length = this.getLength(node);
+		
+		return JsonNumber.decode(new String(this.source, this.getPosition(node), length, StandardCharsets.ISO_8859_1), 0, length);
+	}
+	
+	/**
+	 * Returns the value of the given boolean node.
+	 * @param node The index of the true or false node
+	 * @return The value of the boolean
+	 * @throws IllegalArgumentException If the node is not a boolean.
+	 */
+	public boolean getBoolean(int node) {
+		int tag = this.getTag(node);
+		
+		if(tag != TRUE && tag != FALSE) {
+			throw new IllegalArgumentException("The node is not a boolean: " + this.getType(node));
+		}
+		
+		return tag == TRUE;
+	}
+	
+	/**
+	 * Decodes the given node: objects and arrays are copied to a new JsonObject or JsonArray, and
+	 * scalar values are decoded as by the JsonParser.
+	 * @param node The index of the node
+	 * @return The JsonArray/JsonObject, or the scalar value, represented by the node.
+	 */
+	public Object getValue(int node) {
+		switch(this.getTag(node)) {
+		case OBJECT:
+		case ARRAY:
+		{
+			JsonTreeBuilder treeBuilder = new JsonTreeBuilder();
+			treeBuilder.reset();
+			
+			try {
+				this.read(node, treeBuilder);
+			} catch(JsonParserException e) {
+				// The tree builder never aborts
+				throw new IllegalStateException(e);
+			}
+			
+			return treeBuilder.getResult();
+		}
+		case NUMBER:
+			return this.getNumber(node);
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		case NULL:
+			return null;
+		default:
+			return this.getString(node);
+		}
+	}
+	
+	/**
+	 * Reports the contents of the given node to the given handler, in the same way as the
+	 * JsonParser reports the contents of a document.
+	 * @param node The index of the node
+	 * @param handler The handler receiving the contents of the node
+	 * @throws JsonParserException If the handler aborts the reading.
+	 */
+	public void read(int node, JsonHandler handler) throws JsonParserException {
+		int end = this.getEnd(node);
+		int[] containers = new int[16];
+		int depth = 0;
+		boolean afterKey = false;
+		int i = node;
+		
+		while(i < end || depth != 0) {
+			if(depth != 0 && i == this.getEnd(containers[depth - 1])) {
+				if(this.getTag(containers[--depth]) == OBJECT) {
+					handler.onEndObject();
+				} else {
+					handler.onEndArray();
+				}
+				
+				continue;
+			}
+			
+			int tag = this.getTag(i);
+			
+			if(!afterKey && depth != 0 && this.getTag(containers[depth - 1]) == OBJECT) {
+				handler.onKey(this.getString(i++));
+				afterKey = true;
+				continue;
+			}
+			
+			afterKey = false;
+			
+			switch(tag) {
+			case OBJECT:
+			case ARRAY:
+				if(depth == containers.length) {
+					containers = Arrays.copyOf(containers, depth * 2);
+				}
+				
+				containers[depth++] = i;
+				
+				if(tag == OBJECT) {
+					handler.onStartObject();
+				} else {
+					handler.onStartArray();
+				}
+				
+				break;
+			case NUMBER:
+				handler.onNumber(this.getNumber(i));
+				break;
+			case TRUE:
+				handler.onBoolean(true);
+				break;
+			case FALSE:
+				handler.onBoolean(false);
+				break;
+			case NULL:
+				handler.onNull();
+				break;
+			default:
+				handler.onString(this.getString(i));
+				break;
+			}
+			
+			i++;
+		}
+	}
+	
+	/**
+	 * Returns the tag of the given node.
+	 * @param node The index of the node
+	 * @return The tag of the node
+	 */
+	private int getTag(int node) {
+		return (int)(this.tape[node] >>> TAG_SHIFT);
+	}
+	
+	/**
+	 * Returns the length of the given string or number node, or the size of the given container
+	 * node if it is lower than MAX_LENGTH.
+	 * @param node The index of the node
+	 * @return The length or the size stored in the node
+	 */
+	private int getLength(int node) {
+		return (int)(this.tape[node] >>> LENGTH_SHIFT) & MAX_LENGTH;
+	}
+	
+	/**
+	 * Returns the position in the input of the given string or number node.
+	 * @param node The index of the node
+	 * @return The position of the first byte of the string or the number
+	 */
+	private int getPosition(int node) {
+		return (int)(this.tape[node] & POSITION_MASK);
+	}
+	
+	/**
+	 * Checks the tag of the given node.
+	 * @param node The index of the node
+	 * @param tag The expected tag
+	 * @param description The description of the expected type of node, for the error message
+	 * @throws IllegalArgumentException If the node does not have the expected tag.
+	 */
+	private void checkTag(int node, int tag, String description) {
+		if(this.getTag(node) != tag) {
+			throw new IllegalArgumentException("The node is not " + description + ": " + this.getType(node));
+		}
+	}
+	
+	/**
+	 * This class builds the tape of a document from the tokens of a lexer.
+	 * @author Ankeraout
+	 *
+	 */
+	private static final class Builder {
+		/**
+		 * The tape being built
+		 */
+		private long[] tape;
+		
+		/**
+		 * The number of nodes of the tape
+		 */
+		private int size;
+		
+		/**
+		 * The indexes of the container nodes that are currently being built, from the root to
+		 * the current container
+		 */
+		private int[] containers;
+		
+		/**
+		 * The number of containers that are currently being built
+		 */
+		private int depth;
+		
+		/**
+		 * The maximum nesting depth of the containers
+		 */
+		private final int maxDepth;
+		
+		/**
+		 * Creates a new Builder.
+		 * @param capacity The initial capacity of the tape, in nodes
+		 * @param maxDepth The maximum nesting depth of the containers
+		 */
+		private Builder(int capacity, int maxDepth) {
+			this.tape = new long[capacity];
+			this.size = 0;
+			this.containers = new int[16];
+			this.depth = 0;
+			this.maxDepth = maxDepth;
+		}
+		
+		/**
+		 * Adds the nodes of the value starting with the given token to the tape. The lexer is
+		 * left right after the end of the value.
+		 * @param token The first token of the value, already read from the lexer
+		 * @param lexer The lexer to read the tokens from
+		 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters
+		 * in its input.
+		 * @throws JsonParserException If the parser encounters an unexpected sequence of tokens,
+		 * or if the maximum nesting depth is exceeded.
+		 */
+		private void readValue(JsonTokenType token, JsonLexer lexer) throws JsonLexerException, JsonParserException {
+			while(true) {
+				// The token is the first token of a value
+				if(this.depth != 0) {
+					// Count the value in the size of its container, unless the size is too large
+					int container = this.containers[this.depth - 1];
+					
+					if(((int)(this.tape[container] >>> LENGTH_SHIFT) & MAX_LENGTH) != MAX_LENGTH) {
+						this.tape[container] += 1L << LENGTH_SHIFT;
+					}
+				}
+				
+				switch(token) {
+				case LEFT_BRACE:
+				case LEFT_BRACKET:
+				{
+					boolean object = token == JsonTokenType.LEFT_BRACE;
+					this.open(object ? OBJECT : ARRAY);
+					token = Builder.next(lexer);
+					
+					if(token == (object ? JsonTokenType.RIGHT_BRACE : JsonTokenType.RIGHT_BRACKET)) {
+						this.close();
+						break;
+					}
+					
+					if(object) {
+						token = this.readKey(token, lexer);
+					}
+					
+					continue;
+				}
+				case STRING:
+					this.addString(lexer);
+					break;
+				case NUMBER:
+					this.addSlice(NUMBER, lexer.getByteStart(), lexer.getByteEnd());
+					break;
+				case TRUE:
+					this.add(TRUE, 0);
+					break;
+				case FALSE:
+					this.add(FALSE, 0);
+					break;
+				case NULL:
+					this.add(NULL, 0);
+					break;
+				default:
+					throw new JsonParserException("Unexpected token type " + token.name());
+				}
+				
+				// Close the containers ending after the value, until the next value
+				while(true) {
+					if(this.depth == 0) {
+						return;
+					}
+					
+					boolean object = (int)(this.tape[this.containers[this.depth - 1]] >>> TAG_SHIFT) == OBJECT;
+					token = Builder.next(lexer);
+					
+					if(token == JsonTokenType.COMMA) {
+						token = Builder.next(lexer);
+						
+						if(object) {
+							token = this.readKey(token, lexer);
+						}
+						
+						break;
+					}
+					
+					if(token != (object ? JsonTokenType.RIGHT_BRACE : JsonTokenType.RIGHT_BRACKET)) {
+						throw new JsonParserException("Unexpected token type " + token.name());
+					}
+					
+					this.close();
+				}
+			}
+		}
+		
+		/**
+		 * Adds the key starting with the given token to the tape, and reads the colon following
+		 * it.
+		 * @param token The token of the key, already read from the lexer
+		 * @param lexer The lexer to read the tokens from
+		 * @return The first token of the value of the key
+		 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters
+		 * in its input.
+		 * @throws JsonParserException If the token is not a string, or if it is not followed by a
+		 * colon and a value.
+		 */
+		private JsonTokenType readKey(JsonTokenType token, JsonLexer lexer) throws JsonLexerException, JsonParserException {
+			if(token != JsonTokenType.STRING) {
+				throw new JsonParserException("Unexpected token type " + token.name());
+			}
+			
+			this.addString(lexer);
+			token = Builder.next(lexer);
+			
+			if(token != JsonTokenType.COLON) {
+				throw new JsonParserException("Unexpected token type " + token.name());
+			}
+			
+			return Builder.next(lexer);
+		}
+		
+		/**
+		 * Reads the next token from the lexer.
+		 * @param lexer The lexer to read the token from
+		 * @return The type of the next token
+		 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters
+		 * in its input.
+		 * @throws JsonParserException If the end of the input has been reached.
+		 */
+		private static JsonTokenType next(JsonLexer lexer) throws JsonLexerException, JsonParserException {
+			JsonTokenType token = lexer.next();
+			
+			if(token == null) {
+				throw new JsonParserException("Unexpected end of JSON String");
+			}
+			
+			return token;
+		}
+		
+		/**
+		 * Adds a node for the current STRING token of the lexer to the tape.
+		 * @param lexer The lexer the token was read from
+		 * @throws JsonParserException If the string is longer than MAX_LENGTH bytes.
+		 */
+		private void addString(JsonLexer lexer) throws JsonParserException {
+			int tag = lexer.isEscapedString() ? ESCAPED_STRING : lexer.isAsciiString() ? ASCII_STRING : UTF8_STRING;
+			this.addSlice(tag, lexer.getByteStart(), lexer.getByteEnd());
+		}
+		
+		/**
+		 * Adds a string or a number node to the tape.
+		 * @param tag The tag of the node
+		 * @param start The position of the first byte of the string or the number in the input
+		 * @param end The position following the last byte of the string or the number
+		 * @throws JsonParserException If the string or the number is longer than MAX_LENGTH bytes.
+		 */
+		private void addSlice(int tag, int start, int end) throws JsonParserException {
+			int length = end - start;
+			
+			if(length > MAX_LENGTH) {
+				throw new JsonParserException("Value of " + length + " bytes too long for a JsonTape");
+			}
+			
+			this.add(tag, ((long)length << LENGTH_SHIFT) | start);
+		}
+		
+		/**
+		 * Adds a container node to the tape, and makes it the current container.
+		 * @param tag The tag of the container
+		 * @throws JsonParserException If the maximum nesting depth is exceeded.
+		 */
+		private void open(int tag) throws JsonParserException {
+			int depth = this.depth;
+			
+			if(depth == this.maxDepth) {
+				throw new JsonParserException("Maximum nesting depth of " + this.maxDepth + " exceeded");
+			}
+			
+			if(depth == this.containers.length) {
+				this.containers = Arrays.copyOf(this.containers, depth * 2);
+			}
+			
+			this.containers[depth] = this.size;
+			this.depth = depth + 1;
+			this.add(tag, 0);
+		}
+		
+		/**
+		 * Ends the current container, whose end is the next node of the tape.
+		 */
+		private void close() {
+			int container = this.containers[--this.depth];
+			this.tape[container] |= this.size;
+		}
+		
+		/**
+		 * Adds a node to the tape.
+		 * @param tag The tag of the node
+		 * @param value The value stored with the tag in the node
+		 */
+		private void add(int tag, long value) {
+			int size = this.size;
+			
+			if(size == this.tape.length) {
+				this.tape = Arrays.copyOf(this.tape, size * 2);
+			}
+			
+			this.tape[size] = ((long)tag << TAG_SHIFT) | value;
+			this.size = size + 1;
+		}
+	}
+}
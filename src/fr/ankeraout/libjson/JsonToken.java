@@ -35,8 +35,8 @@ public class JsonToken {
 			this.value = value;
 			break;
 		case STRING:
-			this.value = new String();
 			{
+				StringBuilder sb = new StringBuilder(value.length());
 				boolean escapeNext = false;
 				int unicodeDigitIndex = -1;
 				char unicodeChar = 0;
@@ -50,27 +50,27 @@ public class JsonToken {
 							case '"':
 							case '\\':
 							case '/':
-								this.value = ((String)this.value) + c;
+								sb.append(c);
 								escapeNext = false;
 								break;
 							case 'b':
-								this.value = ((String)this.value) + '\b';
+								sb.append('\b');
 								escapeNext = false;
 								break;
 							case 'f':
-								this.value = ((String)this.value) + '\f';
+								sb.append('\f');
 								escapeNext = false;
 								break;
 							case 'n':
-								this.value = ((String)this.value) + '\n';
+								sb.append('\n');
 								escapeNext = false;
 								break;
 							case 'r':
-								this.value = ((String)this.value) + '\r';
+								sb.append('\r');
 								escapeNext = false;
 								break;
 							case 't':
-								this.value = ((String)this.value) + '\t';
+								sb.append('\t');
 								escapeNext = false;
 								break;
 							case 'u':
@@ -143,7 +143,7 @@ public class JsonToken {
 							
 							if(unicodeDigitIndex == 4) {
 								unicodeDigitIndex = -1;
-								this.value = ((String)this.value) + unicodeChar;
+								sb.append(unicodeChar);
 								escapeNext = false;
 								unicodeChar = 0;
 							}
@@ -154,14 +154,16 @@ public class JsonToken {
 						} else if((c >= 0x0000 && c <= 0x001f) || c == 0x007f || (c >= 0x0080 && c <= 0x009f)) {
 							throw new IllegalArgumentException("Failed to parse JSON string : unexpected unicode control character");
 						} else {
-							this.value = ((String)this.value) + c;
+							sb.append(c);
 						}
 					}
 				}
+				
+				this.value = sb.toString();
 			}
 			break;
 		case NUMBER:
-			this.value = new Double(value);
+			this.value = JsonNumber.decode(value, 0, value.length());
 			break;
 		case TRUE:
 			this.value = new Boolean(true);
@@ -172,6 +174,36 @@ public class JsonToken {
 		}
 	}
 	
+	/**
+	 * Creates a new JSON lexer token from its type and its already decoded value.
+	 * @param tokenType The type of the token
+	 * @param value The value of the token
+	 */
+	private JsonToken(JsonTokenType tokenType, Object value) {
+		this.tokenType = tokenType;
+		this.value = value;
+	}
+	
+	/**
+	 * Creates a new STRING token from its decoded value. Unlike the public constructor, this
+	 * method does not interpret the escape sequences in the given value. It is used by the lexer,
+	 * which decodes the strings while reading them.
+	 * @param value The decoded value of the string
+	 * @return The string token
+	 */
+	static JsonToken decodedString(String value) {
+		return new JsonToken(JsonTokenType.STRING, (Object)value);
+	}
+	
+	/**
+	 * Creates a new NUMBER token from its decoded value.
+	 * @param value The value of the number: a Long, a Double, a BigDecimal or a JsonNumber
+	 * @return The number token
+	 */
+	static JsonToken decodedNumber(Number value) {
+		return new JsonToken(JsonTokenType.NUMBER, (Object)value);
+	}
+	
 	/**
 	 * Returns the type of the token.
 	 * @return The type of the token
@@ -0,0 +1,167 @@
+package fr.ankeraout.libjson;
+
+import java.util.Arrays;
+
+/**
+ * This class is the JsonHandler used by the JsonParser for building a tree of JsonObject and
+ * JsonArray instances.
+ * @author Ankeraout
+ *
+ */
+final class JsonTreeBuilder implements JsonHandler {
+	/**
+	 * The JSON objects and arrays that are currently being built, from the root to the current
+	 * container.
+	 */
+	private Object[] containers;
+	
+	/**
+	 * The kind of each container of the containers array: true for a JsonObject, false for a
+	 * JsonArray.
+	 */
+	private boolean[] objects;
+	
+	/**
+	 * The number of entries of the last object that was completed at each depth. It is used as
+	 * the initial capacity of the next object at the same depth, because the objects of a
+	 * document, such as the elements of an array of records, often have the same number of
+	 * entries. It is kept between documents.
+	 */
+	private int[] objectSizes;
+	
+	/**
+	 * The number of containers that are currently being built.
+	 */
+	private int depth;
+	
+	/**
+	 * The name of the property whose value is expected next, if the current container is an
+	 * object.
+	 */
+	private String propertyName;
+	
+	/**
+	 * The root value of the document.
+	 */
+	private Object result;
+	
+	/**
+	 * Creates a new JsonTreeBuilder.
+	 */
+	JsonTreeBuilder() {
+		this.containers = new Object[16];
+		this.objects = new boolean[16];
+		this.objectSizes = new int[16];
+		this.depth = 0;
+	}
+	
+	/**
+	 * Prepares the builder for building a new tree.
+	 */
+	void reset() {
+		// Release the references to the containers of the previous tree
+		Arrays.fill(this.containers, 0, this.depth, null);
+		this.depth = 0;
+		this.propertyName = null;
+		this.result = null;
+	}
+	
+	/**
+	 * Returns the root value of the tree that was built.
+	 * @return The root value of the document
+	 */
+	Object getResult() {
+		return this.result;
+	}
+	
+	@Override
+	public void onStartObject() {
+		int size = this.objectSizes[this.depth];
+		JsonObject object = size > 0 ? new JsonObject(size) : new JsonObject();
+		this.addValue(object);
+		this.pushContainer(object, true);
+	}
+	
+	@Override
+	public void onEndObject() {
+		int depth = --this.depth;
+		this.objectSizes[depth] = ((JsonObject)this.containers[depth]).size();
+		this.containers[depth] = null;
+	}
+	
+	@Override
+	public void onStartArray() {
+		JsonArray array = new JsonArray();
+		this.addValue(array);
+		this.pushContainer(array, false);
+	}
+	
+	@Override
+	public void onEndArray() {
+		this.containers[--this.depth] = null;
+	}
+	
+	@Override
+	public void onKey(String key) {
+		this.propertyName = key;
+	}
+	
+	@Override
+	public void onString(String value) {
+		this.addValue(value);
+	}
+	
+	@Override
+	public void onNumber(Number value) {
+		this.addValue(value);
+	}
+	
+	@Override
+	public void onBoolean(boolean value) {
+		this.addValue(value);
+	}
+	
+	@Override
+	public void onNull() {
+		this.addValue(null);
+	}
+	
+	/**
+	 * Adds the given value to the current container, or makes it the root value if there is no
+	 * current container. The values come from the JsonParser, so their types are not checked again.
+	 * @param value The value to add
+	 */
+	private void addValue(Object value) {
+		int depth = this.depth;
+		
+		if(depth == 0) {
+			this.result = value;
+		} else if(this.objects[depth - 1]) {
+			((JsonObject)this.containers[depth - 1]).putEntry(this.propertyName, value);
+		} else {
+			((JsonArray)this.containers[depth - 1]).addElement(value);
+		}
+	}
+
+	/**
+	 * Makes the given container the current container.
+	 * @param container The JsonObject or JsonArray
+	 * @param object true if the container is a JsonObject, false if it is a JsonArray
+	 */
+	private void pushContainer(Object container, boolean object) {
+		int depth = this.depth;
+		
+		if(depth == this.containers.length) {
+			this.containers = Arrays.copyOf(this.containers, depth * 2);
+			this.objects = Arrays.copyOf(this.objects, depth * 2);
+		}
+		
+		this.containers[depth] = container;
+		this.objects[depth] = object;
+		this.depth = depth + 1;
+		
+		if(depth + 1 == this.objectSizes.length) {
+			this.objectSizes = Arrays.copyOf(this.objectSizes, (depth + 1) * 2);
+		}
+	}
+}
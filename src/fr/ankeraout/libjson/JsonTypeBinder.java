@@ -0,0 +1,958 @@
+package fr.ankeraout.libjson;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * This class is the base class of the objects that bind the JSON values to a given Java type for
+ * the JsonBinder. The binders of the classes are created once and cached, and the binders of the
+ * parameterized types are created once per field that uses them, so they must not hold any state
+ * related to a particular document.
+ * @author Ankeraout
+ *
+ */
+abstract class JsonTypeBinder {
+	/**
+	 * The binders of the classes, created the first time each class is bound.
+	 */
+	private static final ClassValue<JsonTypeBinder> BINDERS = new ClassValue<JsonTypeBinder>() {
+		@Override
+		protected JsonTypeBinder computeValue(Class<?> type) {
+			return JsonTypeBinder.create(type);
+		}
+	};
+	
+	/**
+	 * Reads the value starting with the given token and converts it to the type of this binder.
+	 * @param binder The JsonBinder that is reading the document
+	 * @param lexer The lexer the token was read from
+	 * @param token The first token of the value
+	 * @return The value
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the tokens do not form a valid JSON value, or if the value
+	 * does not match the type of this binder.
+	 */
+	abstract Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException;
+	
+	/**
+	 * Returns the binder of the given type.
+	 * @param type The type
+	 * @return The binder of the type
+	 * @throws IllegalArgumentException If the type can not be bound.
+	 */
+	static JsonTypeBinder of(Type type) {
+		if(type instanceof Class) {
+			return BINDERS.get((Class<?>)type);
+		} else if(type instanceof ParameterizedType) {
+			ParameterizedType parameterizedType = (ParameterizedType)type;
+			Class<?> rawType = (Class<?>)parameterizedType.getRawType();
+			Type[] arguments = parameterizedType.getActualTypeArguments();
+			
+			if(Map.class.isAssignableFrom(rawType)) {
+				return JsonTypeBinder.createMap(rawType, arguments[0], arguments[1]);
+			} else if(Collection.class.isAssignableFrom(rawType)) {
+				return JsonTypeBinder.createCollection(rawType, arguments[0]);
+			}
+			
+			return BINDERS.get(rawType);
+		} else if(type instanceof GenericArrayType) {
+			return new ArrayBinder(JsonTypeBinder.of(((GenericArrayType)type).getGenericComponentType()), JsonTypeBinder.erase(type).getComponentType());
+		}
+		
+		return BINDERS.get(JsonTypeBinder.erase(type));
+	}
+	
+	/**
+	 * Creates the binder of the given class.
+	 * @param type The class
+	 * @return The binder of the class
+	 * @throws IllegalArgumentException If the class can not be bound.
+	 */
+	private static JsonTypeBinder create(Class<?> type) {
+		if(type == String.class) {
+			return new StringBinder();
+		} else if(type == Object.class) {
+			return new TreeBinder(null);
+		} else if(type == JsonObject.class) {
+			return new TreeBinder(JsonTokenType.LEFT_BRACE);
+		} else if(type == JsonArray.class) {
+			return new TreeBinder(JsonTokenType.LEFT_BRACKET);
+		} else if(type == boolean.class || type == Boolean.class) {
+			return new BooleanBinder(type.isPrimitive());
+		} else if(type == char.class || type == Character.class) {
+			return new CharacterBinder(type.isPrimitive());
+		} else if(type == byte.class || type == Byte.class) {
+			return new IntegerBinder(type, Byte.MIN_VALUE, Byte.MAX_VALUE);
+		} else if(type == short.class || type == Short.class) {
+			return new IntegerBinder(type, Short.MIN_VALUE, Short.MAX_VALUE);
+		} else if(type == int.class || type == Integer.class) {
+			return new IntegerBinder(type, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		} else if(type == long.class || type == Long.class) {
+			return new IntegerBinder(type, Long.MIN_VALUE, Long.MAX_VALUE);
+		} else if(type == float.class || type == Float.class || type == double.class || type == Double.class) {
+			return new FloatingPointBinder(type);
+		} else if(type == BigDecimal.class || type == BigInteger.class || type == Number.class) {
+			return new NumberBinder(type);
+		} else if(type.isEnum()) {
+			return new EnumBinder(type);
+		} else if(type.isArray()) {
+			Class<?> componentType = type.getComponentType();
+			
+			if(componentType == int.class) {
+				return new IntArrayBinder();
+			} else if(componentType == long.class) {
+				return new LongArrayBinder();
+			} else if(componentType == double.class) {
+				return new DoubleArrayBinder();
+			}
+			
+			return new ArrayBinder(JsonTypeBinder.of(componentType), componentType);
+		} else if(Map.class.isAssignableFrom(type)) {
+			return JsonTypeBinder.createMap(type, String.class, Object.class);
+		} else if(Collection.class.isAssignableFrom(type)) {
+			return JsonTypeBinder.createCollection(type, Object.class);
+		} else if(type.isPrimitive() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+			throw new IllegalArgumentException("Can not bind type " + type.getName());
+		} else if(type.getSuperclass() != null && type.getSuperclass().getName().equals("java.lang.Record")) {
+			return JsonClassBinder.forRecord(type);
+		}
+		
+		return JsonClassBinder.forClass(type);
+	}
+	
+	/**
+	 * Creates the binder of a map type.
+	 * @param type The class of the map
+	 * @param keyType The type of the keys of the map
+	 * @param valueType The type of the values of the map
+	 * @return The binder of the map type
+	 * @throws IllegalArgumentException If the map type can not be bound.
+	 */
+	private static JsonTypeBinder createMap(Class<?> type, Type keyType, Type valueType) {
+		Class<?> keyClass = JsonTypeBinder.erase(keyType);
+		
+		if(keyClass != String.class && keyClass != Object.class) {
+			throw new IllegalArgumentException("Can not bind map with keys of type " + keyType.getTypeName());
+		} else if(!type.isAssignableFrom(LinkedHashMap.class)) {
+			throw new IllegalArgumentException("Can not bind type " + type.getName());
+		}
+		
+		return new MapBinder(JsonTypeBinder.of(valueType));
+	}
+	
+	/**
+	 * Creates the binder of a collection type.
+	 * @param type The class of the collection
+	 * @param elementType The type of the elements of the collection
+	 * @return The binder of the collection type
+	 * @throws IllegalArgumentException If the collection type can not be bound.
+	 */
+	private static JsonTypeBinder createCollection(Class<?> type, Type elementType) {
+		boolean set;
+		
+		if(type.isAssignableFrom(ArrayList.class)) {
+			set = false;
+		} else if(type.isAssignableFrom(LinkedHashSet.class)) {
+			set = true;
+		} else {
+			throw new IllegalArgumentException("Can not bind type " + type.getName());
+		}
+		
+		return new CollectionBinder(JsonTypeBinder.of(elementType), set);
+	}
+	
+	/**
+	 * Returns the class that represents the given type at runtime.
+	 * @param type The type
+	 * @return The erasure of the type
+	 */
+	static Class<?> erase(Type type) {
+		if(type instanceof Class) {
+			return (Class<?>)type;
+		} else if(type instanceof ParameterizedType) {
+			return (Class<?>)((ParameterizedType)type).getRawType();
+		} else if(type instanceof GenericArrayType) {
+			Class<?> componentType = JsonTypeBinder.erase(((GenericArrayType)type).getGenericComponentType());
+			return Array.newInstance(componentType, 0).getClass();
+		} else if(type instanceof WildcardType) {
+			return JsonTypeBinder.erase(((WildcardType)type).getUpperBounds()[0]);
+		} else if(type instanceof TypeVariable) {
+			return JsonTypeBinder.erase(((TypeVariable<?>)type).getBounds()[0]);
+		}
+		
+		throw new IllegalArgumentException("Can not bind type " + type.getTypeName());
+	}
+	
+	/**
+	 * Creates the exception thrown when a value does not match the type it is bound to.
+	 * @param token The first token of the value
+	 * @param type The type the value is bound to
+	 * @return The exception
+	 */
+	static JsonParserException mismatch(JsonTokenType token, Class<?> type) {
+		return new JsonParserException("Can not bind " + token.name() + " to " + type.getName());
+	}
+	
+	/**
+	 * Reads the next token of an array, after one of its elements.
+	 * @param binder The JsonBinder that is reading the document
+	 * @param lexer The lexer to read the token from
+	 * @return true if another element follows, false if the end of the array has been reached.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the token is neither a comma nor the end of the array.
+	 */
+	static boolean nextElement(JsonBinder binder, JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = binder.nextToken(lexer);
+		
+		if(token == JsonTokenType.COMMA) {
+			return true;
+		} else if(token == JsonTokenType.RIGHT_BRACKET) {
+			return false;
+		}
+		
+		throw new JsonParserException("Unexpected token type " + token.name());
+	}
+	
+	/**
+	 * Reads the next token of an object, after one of its values.
+	 * @param binder The JsonBinder that is reading the document
+	 * @param lexer The lexer to read the token from
+	 * @return true if another entry follows, false if the end of the object has been reached.
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the token is neither a comma nor the end of the object.
+	 */
+	static boolean nextEntry(JsonBinder binder, JsonLexer lexer) throws JsonLexerException, JsonParserException {
+		JsonTokenType token = binder.nextToken(lexer);
+		
+		if(token == JsonTokenType.COMMA) {
+			return true;
+		} else if(token == JsonTokenType.RIGHT_BRACE) {
+			return false;
+		}
+		
+		throw new JsonParserException("Unexpected token type " + token.name());
+	}
+	
+	/**
+	 * Reads the key of an entry of an object and the colon that follows it.
+	 * @param binder The JsonBinder that is reading the document
+	 * @param lexer The lexer to read the key from
+	 * @param token The token of the key
+	 * @return The key
+	 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+	 * @throws JsonParserException If the token is not a STRING token, or if it is not followed by
+	 * a colon.
+	 */
+	static String readKey(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+		if(token != JsonTokenType.STRING) {
+			throw new JsonParserException("Unexpected token type " + token.name());
+		}
+		
+		String key = binder.getKey(lexer);
+		binder.expect(lexer, JsonTokenType.COLON);
+		
+		return key;
+	}
+	
+	/**
+	 * Reads the current NUMBER token as an integer.
+	 * @param lexer The lexer the token was read from
+	 * @param min The minimum value of the integer
+	 * @param max The maximum value of the integer
+	 * @param type The type the integer is bound to
+	 * @return The value of the integer
+	 * @throws JsonParserException If the number is not an integer, or if it is out of range.
+	 */
+	static long readInteger(JsonLexer lexer, long min, long max, Class<?> type) throws JsonParserException {
+		long value;
+		
+		try {
+			value = lexer.getLong();
+		} catch(NumberFormatException e) {
+			throw new JsonParserException("Can not bind " + lexer.getNumberText() + " to " + type.getName());
+		}
+		
+		if(value < min || value > max) {
+			throw new JsonParserException("Can not bind " + value + " to " + type.getName());
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * The binder of the String type.
+	 */
+	private static final class StringBinder extends JsonTypeBinder {
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.STRING) {
+				return lexer.getString();
+			} else if(token == JsonTokenType.NULL) {
+				return null;
+			}
+			
+			throw JsonTypeBinder.mismatch(token, String.class);
+		}
+	}
+	
+	/**
+	 * The binder of the boolean and Boolean types.
+	 */
+	private static final class BooleanBinder extends JsonTypeBinder {
+		/**
+		 * Whether the type is the primitive type, which does not accept null.
+		 */
+		private final boolean primitive;
+		
+		/**
+		 * Creates a new BooleanBinder.
+		 * @param primitive Whether the type is the primitive type
+		 */
+		BooleanBinder(boolean primitive) {
+			this.primitive = primitive;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.TRUE) {
+				return Boolean.TRUE;
+			} else if(token == JsonTokenType.FALSE) {
+				return Boolean.FALSE;
+			} else if(token == JsonTokenType.NULL && !this.primitive) {
+				return null;
+			}
+			
+			throw JsonTypeBinder.mismatch(token, this.primitive ? boolean.class : Boolean.class);
+		}
+	}
+	
+	/**
+	 * The binder of the char and Character types, which are bound to strings of one character.
+	 */
+	private static final class CharacterBinder extends JsonTypeBinder {
+		/**
+		 * Whether the type is the primitive type, which does not accept null.
+		 */
+		private final boolean primitive;
+		
+		/**
+		 * Creates a new CharacterBinder.
+		 * @param primitive Whether the type is the primitive type
+		 */
+		CharacterBinder(boolean primitive) {
+			this.primitive = primitive;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.STRING) {
+				String value = lexer.getString();
+				
+				if(value.length() == 1) {
+					return Character.valueOf(value.charAt(0));
+				}
+			} else if(token == JsonTokenType.NULL && !this.primitive) {
+				return null;
+			}
+			
+			throw JsonTypeBinder.mismatch(token, this.primitive ? char.class : Character.class);
+		}
+	}
+	
+	/**
+	 * The binder of the integer types and of their wrappers.
+	 */
+	static final class IntegerBinder extends JsonTypeBinder {
+		/**
+		 * The bound type.
+		 */
+		private final Class<?> type;
+		
+		/**
+		 * The minimum value of the type.
+		 */
+		private final long min;
+		
+		/**
+		 * The maximum value of the type.
+		 */
+		private final long max;
+		
+		/**
+		 * Creates a new IntegerBinder.
+		 * @param type The bound type
+		 * @param min The minimum value of the type
+		 * @param max The maximum value of the type
+		 */
+		IntegerBinder(Class<?> type, long min, long max) {
+			this.type = type;
+			this.min = min;
+			this.max = max;
+		}
+		
+		/**
+		 * Reads the value starting with the given token, which must be an integer.
+		 * @param lexer The lexer the token was read from
+		 * @param token The first token of the value
+		 * @return The value
+		 * @throws JsonParserException If the value is not an integer in the range of the type.
+		 */
+		long readLong(JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token != JsonTokenType.NUMBER) {
+				throw JsonTypeBinder.mismatch(token, this.type);
+			}
+			
+			return JsonTypeBinder.readInteger(lexer, this.min, this.max, this.type);
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.NULL && !this.type.isPrimitive()) {
+				return null;
+			}
+			
+			long value = this.readLong(lexer, token);
+			
+			if(this.max == Byte.MAX_VALUE) {
+				return Byte.valueOf((byte)value);
+			} else if(this.max == Short.MAX_VALUE) {
+				return Short.valueOf((short)value);
+			} else if(this.max == Integer.MAX_VALUE) {
+				return Integer.valueOf((int)value);
+			}
+			
+			return Long.valueOf(value);
+		}
+	}
+	
+	/**
+	 * The binder of the float and double types and of their wrappers.
+	 */
+	static final class FloatingPointBinder extends JsonTypeBinder {
+		/**
+		 * The bound type.
+		 */
+		private final Class<?> type;
+		
+		/**
+		 * Creates a new FloatingPointBinder.
+		 * @param type The bound type
+		 */
+		FloatingPointBinder(Class<?> type) {
+			this.type = type;
+		}
+		
+		/**
+		 * Reads the value starting with the given token, which must be a number.
+		 * @param lexer The lexer the token was read from
+		 * @param token The first token of the value
+		 * @return The value
+		 * @throws JsonParserException If the value is not a number.
+		 */
+		double readDouble(JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token != JsonTokenType.NUMBER) {
+				throw JsonTypeBinder.mismatch(token, this.type);
+			}
+			
+			return lexer.getDouble();
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.NULL && !this.type.isPrimitive()) {
+				return null;
+			}
+			
+			double value = this.readDouble(lexer, token);
+			
+			if(this.type == float.class || this.type == Float.class) {
+				return Float.valueOf((float)value);
+			}
+			
+			return Double.valueOf(value);
+		}
+	}
+	
+	/**
+	 * The binder of the BigDecimal, BigInteger and Number types.
+	 */
+	private static final class NumberBinder extends JsonTypeBinder {
+		/**
+		 * The bound type.
+		 */
+		private final Class<?> type;
+		
+		/**
+		 * Creates a new NumberBinder.
+		 * @param type The bound type
+		 */
+		NumberBinder(Class<?> type) {
+			this.type = type;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.NUMBER) {
+				throw JsonTypeBinder.mismatch(token, this.type);
+			} else if(this.type == BigDecimal.class) {
+				return new BigDecimal(lexer.getNumberText());
+			} else if(this.type == BigInteger.class) {
+				String text = lexer.getNumberText();
+				
+				try {
+					return new BigInteger(text);
+				} catch(NumberFormatException e) {
+					throw new JsonParserException("Can not bind " + text + " to " + BigInteger.class.getName());
+				}
+			}
+			
+			return lexer.getNumber();
+		}
+	}
+	
+	/**
+	 * The binder of the enum types, which are bound to the names of their constants.
+	 */
+	private static final class EnumBinder extends JsonTypeBinder {
+		/**
+		 * The bound type.
+		 */
+		private final Class<?> type;
+		
+		/**
+		 * The constants of the enum, by name.
+		 */
+		private final HashMap<String, Object> constants;
+		
+		/**
+		 * Creates a new EnumBinder.
+		 * @param type The bound enum type
+		 */
+		EnumBinder(Class<?> type) {
+			this.type = type;
+			this.constants = new HashMap<>();
+			
+			for(Object constant : type.getEnumConstants()) {
+				this.constants.put(((Enum<?>)constant).name(), constant);
+			}
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.STRING) {
+				throw JsonTypeBinder.mismatch(token, this.type);
+			}
+			
+			String name = lexer.getString();
+			Object constant = this.constants.get(name);
+			
+			if(constant == null) {
+				throw new JsonParserException("Unknown constant " + name + " of " + this.type.getName());
+			}
+			
+			return constant;
+		}
+	}
+	
+	/**
+	 * The binder of the JsonObject, JsonArray and Object types, which builds the values as the
+	 * JsonParser does.
+	 */
+	private static final class TreeBinder extends JsonTypeBinder {
+		/**
+		 * The token that the values must start with, or null if any value is accepted.
+		 */
+		private final JsonTokenType expected;
+		
+		/**
+		 * Creates a new TreeBinder.
+		 * @param expected The token that the values must start with, or null if any value is
+		 * accepted
+		 */
+		TreeBinder(JsonTokenType expected) {
+			this.expected = expected;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(this.expected != null && token != this.expected && token != JsonTokenType.NULL) {
+				throw JsonTypeBinder.mismatch(token, this.expected == JsonTokenType.LEFT_BRACE ? JsonObject.class : JsonArray.class);
+			}
+			
+			return TreeBinder.readValue(binder, lexer, token);
+		}
+		
+		/**
+		 * Reads the value starting with the given token.
+		 * @param binder The JsonBinder that is reading the document
+		 * @param lexer The lexer the token was read from
+		 * @param token The first token of the value
+		 * @return The value
+		 * @throws JsonLexerException If the lexer encounters an unexpected sequence of characters.
+		 * @throws JsonParserException If the tokens do not form a valid JSON value.
+		 */
+		private static Object readValue(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			switch(token) {
+			case STRING:
+				return lexer.getString();
+			case NUMBER:
+				return lexer.getNumber();
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case NULL:
+				return null;
+			case LEFT_BRACE: {
+				JsonObject object = new JsonObject();
+				binder.enter();
+				token = binder.nextToken(lexer);
+				
+				if(token != JsonTokenType.RIGHT_BRACE) {
+					while(true) {
+						String key = JsonTypeBinder.readKey(binder, lexer, token);
+						object.putEntry(key, TreeBinder.readValue(binder, lexer, binder.nextToken(lexer)));
+						
+						if(!JsonTypeBinder.nextEntry(binder, lexer)) {
+							break;
+						}
+						
+						token = binder.nextToken(lexer);
+					}
+				}
+				
+				binder.exit();
+				return object;
+			}
+			case LEFT_BRACKET: {
+				JsonArray array = new JsonArray();
+				binder.enter();
+				token = binder.nextToken(lexer);
+				
+				if(token != JsonTokenType.RIGHT_BRACKET) {
+					while(true) {
+						array.addElement(TreeBinder.readValue(binder, lexer, token));
+						
+						if(!JsonTypeBinder.nextElement(binder, lexer)) {
+							break;
+						}
+						
+						token = binder.nextToken(lexer);
+					}
+				}
+				
+				binder.exit();
+				return array;
+			}
+			default:
+				throw new JsonParserException("Unexpected token type " + token.name());
+			}
+		}
+	}
+	
+	/**
+	 * The binder of the List, Set and Collection types.
+	 */
+	private static final class CollectionBinder extends JsonTypeBinder {
+		/**
+		 * The binder of the elements.
+		 */
+		private final JsonTypeBinder elementBinder;
+		
+		/**
+		 * Whether the collections are sets.
+		 */
+		private final boolean set;
+		
+		/**
+		 * Creates a new CollectionBinder.
+		 * @param elementBinder The binder of the elements
+		 * @param set true if the collections are sets, false if they are lists
+		 */
+		CollectionBinder(JsonTypeBinder elementBinder, boolean set) {
+			this.elementBinder = elementBinder;
+			this.set = set;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACKET) {
+				throw JsonTypeBinder.mismatch(token, this.set ? LinkedHashSet.class : ArrayList.class);
+			}
+			
+			Collection<Object> collection = this.set ? new LinkedHashSet<>() : new ArrayList<>();
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACKET) {
+				while(true) {
+					collection.add(this.elementBinder.read(binder, lexer, token));
+					
+					if(!JsonTypeBinder.nextElement(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			return collection;
+		}
+	}
+	
+	/**
+	 * The binder of the Map types.
+	 */
+	private static final class MapBinder extends JsonTypeBinder {
+		/**
+		 * The binder of the values.
+		 */
+		private final JsonTypeBinder valueBinder;
+		
+		/**
+		 * Creates a new MapBinder.
+		 * @param valueBinder The binder of the values
+		 */
+		MapBinder(JsonTypeBinder valueBinder) {
+			this.valueBinder = valueBinder;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACE) {
+				throw JsonTypeBinder.mismatch(token, LinkedHashMap.class);
+			}
+			
+			Map<String, Object> map = new LinkedHashMap<>();
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACE) {
+				while(true) {
+					String key = JsonTypeBinder.readKey(binder, lexer, token);
+					map.put(key, this.valueBinder.read(binder, lexer, binder.nextToken(lexer)));
+					
+					if(!JsonTypeBinder.nextEntry(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			return map;
+		}
+	}
+	
+	/**
+	 * The binder of the array types whose elements are objects or primitives other than int, long
+	 * and double.
+	 */
+	private static final class ArrayBinder extends JsonTypeBinder {
+		/**
+		 * The binder of the elements.
+		 */
+		private final JsonTypeBinder elementBinder;
+		
+		/**
+		 * The class of the elements.
+		 */
+		private final Class<?> componentType;
+		
+		/**
+		 * Creates a new ArrayBinder.
+		 * @param elementBinder The binder of the elements
+		 * @param componentType The class of the elements
+		 */
+		ArrayBinder(JsonTypeBinder elementBinder, Class<?> componentType) {
+			this.elementBinder = elementBinder;
+			this.componentType = componentType;
+		}
+		
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACKET) {
+				throw JsonTypeBinder.mismatch(token, Array.newInstance(this.componentType, 0).getClass());
+			}
+			
+			ArrayList<Object> elements = new ArrayList<>();
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACKET) {
+				while(true) {
+					elements.add(this.elementBinder.read(binder, lexer, token));
+					
+					if(!JsonTypeBinder.nextElement(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			
+			int size = elements.size();
+			Object array = Array.newInstance(this.componentType, size);
+			
+			for(int i = 0; i < size; i++) {
+				Array.set(array, i, elements.get(i));
+			}
+			
+			return array;
+		}
+	}
+	
+	/**
+	 * The binder of the int[] type, which reads the elements without boxing them.
+	 */
+	private static final class IntArrayBinder extends JsonTypeBinder {
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACKET) {
+				throw JsonTypeBinder.mismatch(token, int[].class);
+			}
+			
+			int[] elements = new int[8];
+			int size = 0;
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACKET) {
+				while(true) {
+					if(token != JsonTokenType.NUMBER) {
+						throw JsonTypeBinder.mismatch(token, int.class);
+					}
+					
+					if(size == elements.length) {
+						elements = Arrays.copyOf(elements, size * 2);
+					}
+					
+					elements[size++] = (int)JsonTypeBinder.readInteger(lexer, Integer.MIN_VALUE, Integer.MAX_VALUE, int.class);
+					
+					if(!JsonTypeBinder.nextElement(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			return size == elements.length ? elements : Arrays.copyOf(elements, size);
+		}
+	}
+	
+	/**
+	 * The binder of the long[] type, which reads the elements without boxing them.
+	 */
+	private static final class LongArrayBinder extends JsonTypeBinder {
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACKET) {
+				throw JsonTypeBinder.mismatch(token, long[].class);
+			}
+			
+			long[] elements = new long[8];
+			int size = 0;
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACKET) {
+				while(true) {
+					if(token != JsonTokenType.NUMBER) {
+						throw JsonTypeBinder.mismatch(token, long.class);
+					}
+					
+					if(size == elements.length) {
+						elements = Arrays.copyOf(elements, size * 2);
+					}
+					
+					elements[size++] = JsonTypeBinder.readInteger(lexer, Long.MIN_VALUE, Long.MAX_VALUE, long.class);
+					
+					if(!JsonTypeBinder.nextElement(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			return size == elements.length ? elements : Arrays.copyOf(elements, size);
+		}
+	}
+	
+	/**
+	 * The binder of the double[] type, which reads the elements without boxing them.
+	 */
+	private static final class DoubleArrayBinder extends JsonTypeBinder {
+		@Override
+		Object read(JsonBinder binder, JsonLexer lexer, JsonTokenType token) throws JsonLexerException, JsonParserException {
+			if(token == JsonTokenType.NULL) {
+				return null;
+			} else if(token != JsonTokenType.LEFT_BRACKET) {
+				throw JsonTypeBinder.mismatch(token, double[].class);
+			}
+			
+			double[] elements = new double[8];
+			int size = 0;
+			binder.enter();
+			token = binder.nextToken(lexer);
+			
+			if(token != JsonTokenType.RIGHT_BRACKET) {
+				while(true) {
+					if(token != JsonTokenType.NUMBER) {
+						throw JsonTypeBinder.mismatch(token, double.class);
+					}
+					
+					if(size == elements.length) {
+						elements = Arrays.copyOf(elements, size * 2);
+					}
+					
+					elements[size++] = lexer.getDouble();
+					
+					if(!JsonTypeBinder.nextElement(binder, lexer)) {
+						break;
+					}
+					
+					token = binder.nextToken(lexer);
+				}
+			}
+			
+			binder.exit();
+			return size == elements.length ? elements : Arrays.copyOf(elements, size);
+		}
+	}
+}
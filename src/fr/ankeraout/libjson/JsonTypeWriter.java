@@ -0,0 +1,532 @@
+package fr.ankeraout.libjson;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * This class is the base class of the objects that write the instances of a given Java class for
+ * the JsonWriter.writeObject() method. The writers are created the first time each class is
+ * written, and are then shared by all the JsonWriter instances, so they must not hold any state
+ * related to a particular document. The writers of records and ordinary classes read the values
+ * of the fields through method handles, and write the keys of the fields from strings that are
+ * quoted once when the writer is created.
+ * @author Ankeraout
+ *
+ */
+abstract class JsonTypeWriter {
+	/**
+	 * The writers of the classes, created the first time each class is written.
+	 */
+	private static final ClassValue<JsonTypeWriter> WRITERS = new ClassValue<JsonTypeWriter>() {
+		@Override
+		protected JsonTypeWriter computeValue(Class<?> type) {
+			return JsonTypeWriter.create(type);
+		}
+	};
+	
+	/**
+	 * Writes the given value.
+	 * @param writer The JsonWriter to write the value to
+	 * @param value The value to write, which is not null
+	 * @throws IOException If the output could not be written.
+	 */
+	abstract void write(JsonWriter writer, Object value) throws IOException;
+	
+	/**
+	 * Returns the writer of the given class.
+	 * @param type The class
+	 * @return The writer of the class
+	 * @throws IllegalArgumentException If the class can not be written.
+	 */
+	static JsonTypeWriter of(Class<?> type) {
+		return WRITERS.get(type);
+	}
+	
+	/**
+	 * Creates the writer of the given class.
+	 * @param type The class
+	 * @return The writer of the class
+	 * @throws IllegalArgumentException If the class can not be written.
+	 */
+	private static JsonTypeWriter create(Class<?> type) {
+		if(type == String.class || type == Character.class || type == Boolean.class
+				|| type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+				|| type == Double.class || type == Float.class || type == BigDecimal.class || type == BigInteger.class
+				|| type == JsonNumber.class || JsonObject.class.isAssignableFrom(type) || JsonArray.class.isAssignableFrom(type)) {
+			return new ValueWriter();
+		} else if(type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+			// Constants with a body are instances of an anonymous subclass of the enum
+			return new EnumWriter();
+		} else if(type.isArray()) {
+			Class<?> componentType = type.getComponentType();
+			
+			if(componentType == int.class) {
+				return new IntArrayWriter();
+			} else if(componentType == long.class) {
+				return new LongArrayWriter();
+			} else if(componentType == double.class) {
+				return new DoubleArrayWriter();
+			} else if(componentType.isPrimitive()) {
+				return new PrimitiveArrayWriter();
+			}
+			
+			return new ObjectArrayWriter();
+		} else if(Map.class.isAssignableFrom(type)) {
+			return new MapWriter();
+		} else if(Iterable.class.isAssignableFrom(type)) {
+			return new IterableWriter();
+		} else if(Number.class.isAssignableFrom(type)) {
+			throw new IllegalArgumentException("Type not allowed in a JSON document: " + type.getName());
+		} else if(type.getSuperclass() != null && type.getSuperclass().getName().equals("java.lang.Record")) {
+			return JsonTypeWriter.createRecordWriter(type);
+		}
+		
+		return JsonTypeWriter.createClassWriter(type);
+	}
+	
+	/**
+	 * Creates the writer of an ordinary class, which writes its non-static and non-transient
+	 * fields, starting with the fields declared by its superclasses.
+	 * @param type The class
+	 * @return The writer of the class
+	 * @throws IllegalArgumentException If one of the fields of the class can not be accessed.
+	 */
+	private static JsonTypeWriter createClassWriter(Class<?> type) {
+		ArrayList<Class<?>> hierarchy = new ArrayList<>();
+		
+		for(Class<?> current = type; current != Object.class && current != null; current = current.getSuperclass()) {
+			hierarchy.add(0, current);
+		}
+		
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		ArrayList<Property> properties = new ArrayList<>();
+		
+		for(Class<?> current : hierarchy) {
+			for(Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				
+				if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+					continue;
+				}
+				
+				MethodHandle getter;
+				
+				try {
+					field.setAccessible(true);
+					getter = lookup.unreflectGetter(field);
+				} catch(ReflectiveOperationException | RuntimeException e) {
+					throw new IllegalArgumentException("Type not allowed in a JSON document: " + type.getName(), e);
+				}
+				
+				properties.add(Property.create(field.getName(), field.getType(), getter));
+			}
+		}
+		
+		return new PropertiesWriter(properties.toArray(new Property[0]));
+	}
+	
+	/**
+	 * Creates the writer of a record class, which writes its components in the order of their
+	 * declaration. The components of the record are discovered through reflection, so that this
+	 * class does not require a Java version that supports records.
+	 * @param type The record class
+	 * @return The writer of the record class
+	 * @throws IllegalArgumentException If the accessors of the record can not be accessed.
+	 */
+	private static JsonTypeWriter createRecordWriter(Class<?> type) {
+		try {
+			Object[] components = (Object[])Class.class.getMethod("getRecordComponents").invoke(type);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Property[] properties = new Property[components.length];
+			
+			for(int i = 0; i < components.length; i++) {
+				Object component = components[i];
+				Class<?> componentClass = component.getClass();
+				String name = (String)componentClass.getMethod("getName").invoke(component);
+				Method accessor = (Method)componentClass.getMethod("getAccessor").invoke(component);
+				accessor.setAccessible(true);
+				properties[i] = Property.create(name, accessor.getReturnType(), lookup.unreflect(accessor));
+			}
+			
+			return new PropertiesWriter(properties);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalArgumentException("Type not allowed in a JSON document: " + type.getName(), e);
+		}
+	}
+	
+	/**
+	 * Rethrows an exception thrown by a getter.
+	 * @param throwable The exception
+	 * @return Never returns
+	 */
+	static RuntimeException rethrow(Throwable throwable) {
+		if(throwable instanceof RuntimeException) {
+			throw (RuntimeException)throwable;
+		} else if(throwable instanceof Error) {
+			throw (Error)throwable;
+		}
+		
+		throw new IllegalStateException(throwable);
+	}
+	
+	/**
+	 * The writer of the values that are accepted by JsonWriter.writeValue().
+	 */
+	private static final class ValueWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.writeValue(value);
+		}
+	}
+	
+	/**
+	 * The writer of the enum constants, which are written as their name.
+	 */
+	private static final class EnumWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.writeValue(((Enum<?>)value).name());
+		}
+	}
+	
+	/**
+	 * The writer of the maps, which are written as objects.
+	 */
+	private static final class MapWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.enterObject();
+			writer.startObject();
+			
+			for(Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+				writer.writeKey(String.valueOf(entry.getKey()));
+				writer.writeObject(entry.getValue());
+			}
+			
+			writer.endObject();
+			writer.exitObject();
+		}
+	}
+	
+	/**
+	 * The writer of the collections and other Iterable objects, which are written as arrays.
+	 */
+	private static final class IterableWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.enterObject();
+			writer.startArray();
+			
+			for(Object element : (Iterable<?>)value) {
+				writer.writeObject(element);
+			}
+			
+			writer.endArray();
+			writer.exitObject();
+		}
+	}
+	
+	/**
+	 * The writer of the arrays of objects.
+	 */
+	private static final class ObjectArrayWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.enterObject();
+			writer.startArray();
+			
+			for(Object element : (Object[])value) {
+				writer.writeObject(element);
+			}
+			
+			writer.endArray();
+			writer.exitObject();
+		}
+	}
+	
+	/**
+	 * The writer of the int[] arrays, which writes the elements without boxing them.
+	 */
+	private static final class IntArrayWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.startArray();
+			
+			for(int element : (int[])value) {
+				writer.writeLongValue(element);
+			}
+			
+			writer.endArray();
+		}
+	}
+	
+	/**
+	 * The writer of the long[] arrays, which writes the elements without boxing them.
+	 */
+	private static final class LongArrayWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.startArray();
+			
+			for(long element : (long[])value) {
+				writer.writeLongValue(element);
+			}
+			
+			writer.endArray();
+		}
+	}
+	
+	/**
+	 * The writer of the double[] arrays, which writes the elements without boxing them.
+	 */
+	private static final class DoubleArrayWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.startArray();
+			
+			for(double element : (double[])value) {
+				writer.writeDoubleValue(element);
+			}
+			
+			writer.endArray();
+		}
+	}
+	
+	/**
+	 * The writer of the arrays of the other primitive types.
+	 */
+	private static final class PrimitiveArrayWriter extends JsonTypeWriter {
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.startArray();
+			
+			for(int i = 0; i < Array.getLength(value); i++) {
+				writer.writeValue(Array.get(value, i));
+			}
+			
+			writer.endArray();
+		}
+	}
+	
+	/**
+	 * The writer of the records and of the ordinary classes, which writes their properties as
+	 * the entries of an object.
+	 */
+	private static final class PropertiesWriter extends JsonTypeWriter {
+		/**
+		 * The properties of the class, in the order they are written.
+		 */
+		private final Property[] properties;
+		
+		/**
+		 * Creates a new PropertiesWriter.
+		 * @param properties The properties of the class, in the order they are written
+		 */
+		PropertiesWriter(Property[] properties) {
+			this.properties = properties;
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object value) throws IOException {
+			writer.enterObject();
+			writer.startObject();
+			
+			for(Property property : this.properties) {
+				writer.writeQuotedKey(property.quotedName);
+				
+				try {
+					property.write(writer, value);
+				} catch(IOException | RuntimeException | Error e) {
+					throw e;
+				} catch(Throwable t) {
+					throw JsonTypeWriter.rethrow(t);
+				}
+			}
+			
+			writer.endObject();
+			writer.exitObject();
+		}
+	}
+	
+	/**
+	 * A property of a record or of an ordinary class. The properties of type int, long, double,
+	 * float and boolean are written without boxing their values.
+	 */
+	private abstract static class Property {
+		/**
+		 * The name of the property, quoted and escaped.
+		 */
+		final String quotedName;
+		
+		/**
+		 * The getter of the property.
+		 */
+		final MethodHandle getter;
+		
+		/**
+		 * Creates a new Property.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 * @param type The type of the values returned by the getter
+		 */
+		Property(String name, MethodHandle getter, Class<?> type) {
+			this.quotedName = JsonWriter.quote(name);
+			this.getter = getter.asType(MethodType.methodType(type, Object.class));
+		}
+		
+		/**
+		 * Creates the property with the given name and getter.
+		 * @param name The name of the property
+		 * @param type The type of the property
+		 * @param getter The getter of the property
+		 * @return The property
+		 */
+		static Property create(String name, Class<?> type, MethodHandle getter) {
+			if(type == int.class) {
+				return new IntProperty(name, getter);
+			} else if(type == long.class) {
+				return new LongProperty(name, getter);
+			} else if(type == double.class) {
+				return new DoubleProperty(name, getter);
+			} else if(type == float.class) {
+				return new FloatProperty(name, getter);
+			} else if(type == boolean.class) {
+				return new BooleanProperty(name, getter);
+			}
+			
+			return new ObjectProperty(name, getter);
+		}
+		
+		/**
+		 * Writes the value of the property of the given instance.
+		 * @param writer The JsonWriter to write the value to
+		 * @param instance The instance whose property is written
+		 * @throws Throwable If the value could not be read or written.
+		 */
+		abstract void write(JsonWriter writer, Object instance) throws Throwable;
+	}
+	
+	/**
+	 * A property whose type is not int, long, double, float or boolean.
+	 */
+	private static final class ObjectProperty extends Property {
+		/**
+		 * Creates a new ObjectProperty.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 */
+		ObjectProperty(String name, MethodHandle getter) {
+			super(name, getter, Object.class);
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object instance) throws Throwable {
+			writer.writeObject((Object)this.getter.invokeExact(instance));
+		}
+	}
+	
+	/**
+	 * A property of type int.
+	 */
+	private static final class IntProperty extends Property {
+		/**
+		 * Creates a new IntProperty.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 */
+		IntProperty(String name, MethodHandle getter) {
+			super(name, getter, int.class);
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object instance) throws Throwable {
+			writer.writeLongValue((int)this.getter.invokeExact(instance));
+		}
+	}
+	
+	/**
+	 * A property of type long.
+	 */
+	private static final class LongProperty extends Property {
+		/**
+		 * Creates a new LongProperty.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 */
+		LongProperty(String name, MethodHandle getter) {
+			super(name, getter, long.class);
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object instance) throws Throwable {
+			writer.writeLongValue((long)this.getter.invokeExact(instance));
+		}
+	}
+	
+	/**
+	 * A property of type double.
+	 */
+	private static final class DoubleProperty extends Property {
+		/**
+		 * Creates a new DoubleProperty.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 */
+		DoubleProperty(String name, MethodHandle getter) {
+			super(name, getter, double.class);
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object instance) throws Throwable {
+			writer.writeDoubleValue((double)this.getter.invokeExact(instance));
+		}
+	}
+	
+	/**
+	 * A property of type float.
+	 */
+	private static final class FloatProperty extends Property {
+		/**
+		 * Creates a new FloatProperty.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 */
+		FloatProperty(String name, MethodHandle getter) {
+			super(name, getter, float.class);
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object instance) throws Throwable {
+			writer.writeFloatValue((float)this.getter.invokeExact(instance));
+		}
+	}
+	
+	/**
+	 * A property of type boolean.
+	 */
+	private static final class BooleanProperty extends Property {
+		/**
+		 * Creates a new BooleanProperty.
+		 * @param name The name of the property
+		 * @param getter The getter of the property
+		 */
+		BooleanProperty(String name, MethodHandle getter) {
+			super(name, getter, boolean.class);
+		}
+		
+		@Override
+		void write(JsonWriter writer, Object instance) throws Throwable {
+			writer.writeBooleanValue((boolean)this.getter.invokeExact(instance));
+		}
+	}
+}
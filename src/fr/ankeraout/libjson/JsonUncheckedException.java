@@ -0,0 +1,20 @@
+package fr.ankeraout.libjson;
+
+/**
+ * This class wraps a JsonLexerException or a JsonParserException into an unchecked exception. It
+ * is thrown by the methods that can not throw checked exceptions, such as the methods of the
+ * Iterator and Stream views of a JsonLinesReader.
+ * @author Ankeraout
+ *
+ */
+public class JsonUncheckedException extends RuntimeException {
+	private static final long serialVersionUID = -4212925101418453560L;
+	
+	/**
+	 * Creates a new JsonUncheckedException wrapping the given exception.
+	 * @param cause The JsonLexerException or JsonParserException that was thrown
+	 */
+	public JsonUncheckedException(Exception cause) {
+		super(cause.getMessage(), cause);
+	}
+}
@@ -0,0 +1,59 @@
+package fr.ankeraout.libjson;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * This class tells whether a value can be stored in a JsonObject or in a JsonArray. The values are
+ * recognized by comparing their exact class with the allowed classes, starting with the classes
+ * produced by the JsonParser, which does not depend on the type hierarchy of the value. Only the
+ * subclasses of the allowed classes that are not final (JsonObject, JsonArray, BigDecimal and
+ * BigInteger) need a type check.
+ * @author Ankeraout
+ *
+ */
+final class JsonValueTypes {
+	/**
+	 * Private constructor to prevent class instantiation.
+	 */
+	private JsonValueTypes() {
+	
+	}
+	
+	/**
+	 * Returns whether or not the given value can be stored in a JsonObject or in a JsonArray.
+	 * @param value The value
+	 * @return true if the value is null or of an allowed type, false otherwise.
+	 */
+	static boolean isAllowed(Object value) {
+		if(value == null) {
+			return true;
+		}
+		
+		Class<?> type = value.getClass();
+		
+		if(
+			type == String.class
+			|| type == Long.class
+			|| type == Double.class
+			|| type == Boolean.class
+			|| type == JsonObject.class
+			|| type == JsonArray.class
+			|| type == Integer.class
+			|| type == Character.class
+			|| type == Float.class
+			|| type == Byte.class
+			|| type == Short.class
+			|| type == BigDecimal.class
+			|| type == BigInteger.class
+			|| type == JsonNumber.class
+		) {
+			return true;
+		}
+		
+		return value instanceof JsonObject
+			|| value instanceof JsonArray
+			|| value instanceof BigDecimal
+			|| value instanceof BigInteger;
+	}
+}
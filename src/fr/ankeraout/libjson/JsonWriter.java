@@ -0,0 +1,717 @@
+package fr.ankeraout.libjson;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class writes JSON documents directly to an Appendable (a Writer, a StringBuilder...) or to
+ * an OutputStream, in a single pass. A document can either be written from a JsonObject/JsonArray
+ * tree with writeValue(), or be streamed value by value with the startObject(), writeKey(),
+ * writeValue(), endObject(), startArray() and endArray() methods, so that it never has to be
+ * entirely built in memory. Java objects (records, POJOs, collections, maps...) can be written
+ * directly with writeObject(), without copying them to a JsonObject first.
+ *
+ * The output can be compact, or formatted with new lines and indentation in the same way as the
+ * toString(int, String, boolean) methods of JsonObject and JsonArray.
+ *
+ * The following example streams an array of objects:
+ * <pre>
+ * JsonWriter writer = new JsonWriter(outputStream);
+ * writer.startArray();
+ *
+ * for(User user : users) {
+ *     writer.startObject();
+ *     writer.writeKey("name");
+ *     writer.writeValue(user.getName());
+ *     writer.endObject();
+ * }
+ *
+ * writer.endArray();
+ * writer.flush();
+ * </pre>
+ * @author Ankeraout
+ *
+ */
+public class JsonWriter implements Closeable, Flushable {
+	/**
+	 * The hexadecimal digits used for writing unicode escape sequences
+	 */
+	private static final String HEX_DIGITS = "0123456789abcdef";
+	
+	/**
+	 * The maximum nesting depth of the objects, maps, iterables and arrays of objects written by
+	 * writeObject(), so that the documents it writes can be read back by a JsonParser with its
+	 * default settings
+	 */
+	private static final int MAX_OBJECT_DEPTH = JsonParser.DEFAULT_MAX_DEPTH;
+	
+	/**
+	 * The output of the writer
+	 */
+	private final Appendable out;
+	
+	/**
+	 * The indentation level of the root value
+	 */
+	private final int indentationLevel;
+	
+	/**
+	 * The string representing one level of indentation
+	 */
+	private final String indentString;
+	
+	/**
+	 * Whether or not the output is formatted with new lines and indentation
+	 */
+	private final boolean newLines;
+	
+	/**
+	 * The kind of each container that is currently open: true for an object, false for an array.
+	 */
+	private boolean[] containers;
+	
+	/**
+	 * The number of values written in each container that is currently open
+	 */
+	private int[] counts;
+	
+	/**
+	 * The number of containers that are currently open
+	 */
+	private int depth;
+	
+	/**
+	 * The number of objects, maps, iterables and arrays of objects that writeObject() is currently
+	 * writing
+	 */
+	private int objectDepth;
+	
+	/**
+	 * Whether or not a key was written and is waiting for its value
+	 */
+	private boolean keyWritten;
+	
+	/**
+	 * Whether or not the root value has been entirely written
+	 */
+	private boolean ended;
+	
+	/**
+	 * Creates a new JsonWriter writing compact JSON to the given output.
+	 * @param out The output of the writer
+	 */
+	public JsonWriter(Appendable out) {
+		this(out, 0, null, false);
+	}
+	
+	/**
+	 * Creates a new JsonWriter writing to the given output.
+	 * @param out The output of the writer
+	 * @param indentString The string used to indent a new line for 1 level. This is generally four
+	 * spaces, or one tab character ('\t').
+	 * @param newLines Defines whether or not the output is formatted with new lines and
+	 * indentation. If this is set to false, the output is of minimum length and indentString is
+	 * ignored.
+	 */
+	public JsonWriter(Appendable out, String indentString, boolean newLines) {
+		this(out, 0, indentString, newLines);
+	}
+	
+	/**
+	 * Creates a new JsonWriter writing to the given output.
+	 * @param out The output of the writer
+	 * @param indentationLevel The indentation level of the root value. This is only useful when
+	 * the written document is embedded in another indented document, otherwise use 0.
+	 * @param indentString The string used to indent a new line for 1 level. This is generally four
+	 * spaces, or one tab character ('\t').
+	 * @param newLines Defines whether or not the output is formatted with new lines and
+	 * indentation. If this is set to false, the output is of minimum length and indentationLevel
+	 * and indentString are ignored.
+	 */
+	public JsonWriter(Appendable out, int indentationLevel, String indentString, boolean newLines) {
+		this.out = out;
+		this.indentationLevel = indentationLevel;
+		this.indentString = indentString == null ? "" : indentString;
+		this.newLines = newLines;
+		this.containers = new boolean[16];
+		this.counts = new int[16];
+		this.depth = 0;
+		this.objectDepth = 0;
+		this.keyWritten = false;
+		this.ended = false;
+	}
+	
+	/**
+	 * Creates a new JsonWriter writing compact UTF-8 encoded JSON to the given stream. The output
+	 * is buffered: call flush() or close() once the document has been written.
+	 * @param out The stream to write to
+	 */
+	public JsonWriter(OutputStream out) {
+		this(out, null, false);
+	}
+	
+	/**
+	 * Creates a new JsonWriter writing UTF-8 encoded JSON to the given stream. The output is
+	 * buffered: call flush() or close() once the document has been written.
+	 * @param out The stream to write to
+	 * @param indentString The string used to indent a new line for 1 level. This is generally four
+	 * spaces, or one tab character ('\t').
+	 * @param newLines Defines whether or not the output is formatted with new lines and
+	 * indentation.
+	 */
+	public JsonWriter(OutputStream out, String indentString, boolean newLines) {
+		this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), 0, indentString, newLines);
+	}
+	
+	/**
+	 * Returns the string representation of the given value. The whole value is written into a
+	 * single StringBuilder, so that the time needed is proportional to the length of the output.
+	 * This method is used by the toString() methods of JsonObject, JsonArray and JsonStringUtils.
+	 * @param value The value to convert to its String representation
+	 * @param indentationLevel The indentation level of the string representation
+	 * @param indentString The string representing one level of indentation
+	 * @param newLines Whether or not the string representation should contain new lines and
+	 * indentation
+	 * @return The string representation of the given value.
+	 * @throws IllegalArgumentException If the type of the value is not allowed in a JSON document.
+	 */
+	static String toString(Object value, int indentationLevel, String indentString, boolean newLines) {
+		StringBuilder sb = new StringBuilder();
+		
+		try {
+			new JsonWriter(sb, indentationLevel, indentString, newLines).writeValue(value);
+		} catch(IOException e) {
+			// A StringBuilder never throws IOException
+			throw new UncheckedIOException(e);
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Starts writing an object. Its entries are written with writeKey() followed by the value,
+	 * and the object is closed with endObject().
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	public void startObject() throws IOException {
+		this.beforeValue();
+		this.out.append('{');
+		this.push(true);
+	}
+	
+	/**
+	 * Ends the current object.
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If the current container is not an object, or if a key is
+	 * waiting for its value.
+	 */
+	public void endObject() throws IOException {
+		if(this.depth == 0 || !this.containers[this.depth - 1] || this.keyWritten) {
+			throw new IllegalStateException("There is no object to end");
+		}
+		
+		this.depth--;
+		
+		if(this.newLines) {
+			this.out.append('\n');
+			this.indent(this.depth);
+		}
+		
+		this.out.append('}');
+		this.afterValue();
+	}
+	
+	/**
+	 * Starts writing an array. Its elements are written with the writeValue(), startObject() and
+	 * startArray() methods, and the array is closed with endArray().
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	public void startArray() throws IOException {
+		this.beforeValue();
+		this.out.append('[');
+		
+		if(this.newLines) {
+			this.out.append('\n');
+		}
+		
+		this.push(false);
+	}
+	
+	/**
+	 * Ends the current array.
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If the current container is not an array.
+	 */
+	public void endArray() throws IOException {
+		if(this.depth == 0 || this.containers[this.depth - 1]) {
+			throw new IllegalStateException("There is no array to end");
+		}
+		
+		this.depth--;
+		
+		if(this.newLines) {
+			if(this.counts[this.depth] != 0) {
+				this.out.append('\n');
+			}
+			
+			this.indent(this.depth);
+		}
+		
+		this.out.append(']');
+		this.afterValue();
+	}
+	
+	/**
+	 * Writes the key of the next entry of the current object. It must be followed by its value.
+	 * @param key The key of the entry
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If the current container is not an object, or if a key is
+	 * already waiting for its value.
+	 */
+	public void writeKey(String key) throws IOException {
+		this.beforeKey();
+		this.writeString(key);
+		this.afterKey();
+	}
+	
+	/**
+	 * Writes the key of the next entry of the current object, given as the quoted and escaped
+	 * string returned by quote(). This is used for writing keys that are known in advance without
+	 * escaping them again.
+	 * @param quotedKey The quoted and escaped key of the entry
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If the current container is not an object, or if a key is
+	 * already waiting for its value.
+	 */
+	void writeQuotedKey(String quotedKey) throws IOException {
+		this.beforeKey();
+		this.out.append(quotedKey);
+		this.afterKey();
+	}
+	
+	/**
+	 * Writes the given value. The value can be null, a JsonObject, a JsonArray, a String, a
+	 * Character, a Boolean or a number (Integer, Long, Short, Byte, Double, Float, BigDecimal,
+	 * BigInteger or JsonNumber). Objects and arrays are written with all their contents.
+	 * @param value The value to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalArgumentException If the type of the value is not allowed in a JSON document.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	public void writeValue(Object value) throws IOException {
+		if(value instanceof JsonObject) {
+			JsonObject object = (JsonObject)value;
+			
+			this.startObject();
+			
+			for(int i = 0; i < object.size(); i++) {
+				this.writeKey(object.keyAt(i));
+				this.writeValue(object.valueAt(i));
+			}
+			
+			this.endObject();
+		} else if(value instanceof JsonArray) {
+			JsonArray array = (JsonArray)value;
+			
+			this.startArray();
+			
+			if(array.isNumeric()) {
+				// The numbers are written without boxing them
+				for(int i = 0; i < array.size(); i++) {
+					if(array.isDoubleAt(i)) {
+						this.writeDoubleValue(array.getDouble(i));
+					} else {
+						this.writeLongValue(array.getLong(i));
+					}
+				}
+			} else {
+				for(int i = 0; i < array.size(); i++) {
+					this.writeValue(array.get(i));
+				}
+			}
+			
+			this.endArray();
+		} else {
+			this.beforeValue();
+			
+			if(value == null) {
+				this.out.append("null");
+			} else if(value instanceof String) {
+				this.writeString((String)value);
+			} else if(value instanceof Character) {
+				this.writeString(value.toString());
+			} else if(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+				this.writeLong(((Number)value).longValue());
+			} else if(value instanceof Double || value instanceof Float || value instanceof Boolean) {
+				this.out.append(value.toString());
+			} else if(value instanceof BigDecimal || value instanceof BigInteger || value instanceof JsonNumber) {
+				// A JsonNumber is written exactly as it was read
+				this.out.append(value.toString());
+			} else {
+				throw new IllegalArgumentException("Type not allowed in a JSON document: " + value.getClass().getName());
+			}
+			
+			this.afterValue();
+		}
+	}
+	
+	/**
+	 * Writes the given Java object. In addition to the values accepted by writeValue(), the object
+	 * can be an enum constant (written as its name), a Map (whose keys are written with
+	 * String.valueOf()), an Iterable, an array, a record, or any other object, which is written as
+	 * an object holding its non-static and non-transient fields. The way each class is written is
+	 * computed once, the first time the class is written, so that its fields are then read through
+	 * method handles and written without building any JsonObject. Objects referencing themselves
+	 * can not be written: the objects can not be nested more than JsonParser.DEFAULT_MAX_DEPTH
+	 * levels deep, so that a cycle is reported instead of overflowing the stack.
+	 * @param value The object to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalArgumentException If the class of the object, or of one of its fields, can not
+	 * be written, or if the maximum nesting depth is exceeded.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	public void writeObject(Object value) throws IOException {
+		if(value == null) {
+			this.writeValue(null);
+		} else {
+			JsonTypeWriter.of(value.getClass()).write(this, value);
+		}
+	}
+	
+	/**
+	 * Records that writeObject() is entering an object, a map, an iterable or an array of objects.
+	 * @throws IllegalArgumentException If the maximum nesting depth is exceeded.
+	 */
+	void enterObject() {
+		if(++this.objectDepth > MAX_OBJECT_DEPTH) {
+			throw new IllegalArgumentException("Maximum nesting depth of " + MAX_OBJECT_DEPTH + " exceeded, the object may reference itself");
+		}
+	}
+	
+	/**
+	 * Records that the current object, map, iterable or array of objects has been entirely
+	 * written by writeObject().
+	 */
+	void exitObject() {
+		this.objectDepth--;
+	}
+	
+	/**
+	 * Returns the compact JSON representation of the given Java object, as written by
+	 * writeObject().
+	 * @param value The object to convert to JSON
+	 * @return The JSON representation of the object
+	 * @throws IllegalArgumentException If the class of the object, or of one of its fields, can not
+	 * be written, or if the maximum nesting depth is exceeded.
+	 */
+	public static String toJson(Object value) {
+		StringBuilder sb = new StringBuilder();
+		
+		try {
+			new JsonWriter(sb).writeObject(value);
+		} catch(IOException e) {
+			// A StringBuilder never throws IOException
+			throw new UncheckedIOException(e);
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Writes the given integer value.
+	 * @param value The value to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	void writeLongValue(long value) throws IOException {
+		this.beforeValue();
+		this.writeLong(value);
+		this.afterValue();
+	}
+	
+	/**
+	 * Writes the given double value, in the same way as writeValue() writes a Double.
+	 * @param value The value to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	void writeDoubleValue(double value) throws IOException {
+		this.beforeValue();
+		
+		if(this.out instanceof StringBuilder) {
+			((StringBuilder)this.out).append(value);
+		} else {
+			this.out.append(Double.toString(value));
+		}
+		
+		this.afterValue();
+	}
+	
+	/**
+	 * Writes the given float value, in the same way as writeValue() writes a Float.
+	 * @param value The value to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	void writeFloatValue(float value) throws IOException {
+		this.beforeValue();
+		
+		if(this.out instanceof StringBuilder) {
+			((StringBuilder)this.out).append(value);
+		} else {
+			this.out.append(Float.toString(value));
+		}
+		
+		this.afterValue();
+	}
+	
+	/**
+	 * Writes the given boolean value.
+	 * @param value The value to write
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	void writeBooleanValue(boolean value) throws IOException {
+		this.beforeValue();
+		this.out.append(value ? "true" : "false");
+		this.afterValue();
+	}
+	
+	/**
+	 * Returns the given string between quotes, with the characters that need to be escaped
+	 * escaped, as it is written by writeKey() and writeValue().
+	 * @param s The string to quote
+	 * @return The quoted string
+	 */
+	static String quote(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2);
+		
+		try {
+			new JsonWriter(sb).writeString(s);
+		} catch(IOException e) {
+			// A StringBuilder never throws IOException
+			throw new UncheckedIOException(e);
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Flushes the output, if it is Flushable.
+	 * @throws IOException If the output could not be flushed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if(this.out instanceof Flushable) {
+			((Flushable)this.out).flush();
+		}
+	}
+	
+	/**
+	 * Closes the output, if it is Closeable.
+	 * @throws IOException If the output could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.out instanceof Closeable) {
+			((Closeable)this.out).close();
+		}
+	}
+	
+	/**
+	 * Writes the separator and the indentation that come before a value, and checks that a value
+	 * can be written at the current position.
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If a value can not be written at the current position.
+	 */
+	private void beforeValue() throws IOException {
+		if(this.depth == 0) {
+			if(this.ended) {
+				throw new IllegalStateException("The root value has already been written");
+			}
+		} else if(this.containers[this.depth - 1]) {
+			if(!this.keyWritten) {
+				throw new IllegalStateException("A key must be written before the value of an object entry");
+			}
+			
+			this.keyWritten = false;
+		} else {
+			if(this.counts[this.depth - 1]++ != 0) {
+				this.out.append(',');
+				
+				if(this.newLines) {
+					this.out.append('\n');
+				}
+			}
+			
+			if(this.newLines) {
+				this.indent(this.depth);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the separator and the indentation that come before a key, and checks that a key can
+	 * be written at the current position.
+	 * @throws IOException If the output could not be written.
+	 * @throws IllegalStateException If the current container is not an object, or if a key is
+	 * already waiting for its value.
+	 */
+	private void beforeKey() throws IOException {
+		if(this.depth == 0 || !this.containers[this.depth - 1] || this.keyWritten) {
+			throw new IllegalStateException("A key can not be written here");
+		}
+		
+		if(this.counts[this.depth - 1]++ != 0) {
+			this.out.append(',');
+		}
+		
+		if(this.newLines) {
+			this.out.append('\n');
+			this.indent(this.depth);
+		}
+	}
+	
+	/**
+	 * Writes the separator that follows a key.
+	 * @throws IOException If the output could not be written.
+	 */
+	private void afterKey() throws IOException {
+		this.out.append(':');
+		
+		if(this.newLines) {
+			this.out.append(' ');
+		}
+		
+		this.keyWritten = true;
+	}
+	
+	/**
+	 * Resets the state of the writer, so that a new root value can be written after the previous
+	 * one, or after a value that could not be written entirely.
+	 */
+	void reset() {
+		this.depth = 0;
+		this.objectDepth = 0;
+		this.keyWritten = false;
+		this.ended = false;
+	}
+	
+	/**
+	 * Updates the state of the writer after a value has been entirely written.
+	 */
+	private void afterValue() {
+		if(this.depth == 0) {
+			this.ended = true;
+		}
+	}
+	
+	/**
+	 * Pushes a new container on the container stack.
+	 * @param object true if the container is an object, false if it is an array
+	 */
+	private void push(boolean object) {
+		if(this.depth == this.containers.length) {
+			boolean[] containers = new boolean[this.depth * 2];
+			int[] counts = new int[this.depth * 2];
+			System.arraycopy(this.containers, 0, containers, 0, this.depth);
+			System.arraycopy(this.counts, 0, counts, 0, this.depth);
+			this.containers = containers;
+			this.counts = counts;
+		}
+		
+		this.containers[this.depth] = object;
+		this.counts[this.depth] = 0;
+		this.depth++;
+	}
+	
+	/**
+	 * Writes the indentation of a line.
+	 * @param level The indentation level of the line, relative to the root value
+	 * @throws IOException If the output could not be written.
+	 */
+	private void indent(int level) throws IOException {
+		for(int i = 0; i < this.indentationLevel + level; i++) {
+			this.out.append(this.indentString);
+		}
+	}
+	
+	/**
+	 * Writes the given integer number.
+	 * @param value The number to write
+	 * @throws IOException If the output could not be written.
+	 */
+	private void writeLong(long value) throws IOException {
+		if(this.out instanceof StringBuilder) {
+			((StringBuilder)this.out).append(value);
+		} else {
+			this.out.append(Long.toString(value));
+		}
+	}
+	
+	/**
+	 * Writes the given string between quotes, escaping the characters that need to be escaped.
+	 * The characters that do not need to be escaped are written in runs.
+	 * @param s The string to write
+	 * @throws IOException If the output could not be written.
+	 */
+	private void writeString(String s) throws IOException {
+		Appendable out = this.out;
+		int runStart = 0;
+		
+		out.append('"');
+		
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			String escape;
+			
+			if(c == '"') {
+				escape = "\\\"";
+			} else if(c == '\\') {
+				escape = "\\\\";
+			} else if(c == '/') {
+				escape = "\\/";
+			} else if(c == '\b') {
+				escape = "\\b";
+			} else if(c == '\f') {
+				escape = "\\f";
+			} else if(c == '\n') {
+				escape = "\\n";
+			} else if(c == '\r') {
+				escape = "\\r";
+			} else if(c == '\t') {
+				escape = "\\t";
+			} else if(c <= 0x001f || (c >= 0x007f && c <= 0x009f)) {
+				escape = null;
+			} else {
+				continue;
+			}
+			
+			out.append(s, runStart, i);
+			runStart = i + 1;
+			
+			if(escape != null) {
+				out.append(escape);
+			} else {
+				out.append("\\u");
+				
+				for(int j = 0; j < 4; j++) {
+					out.append(HEX_DIGITS.charAt((c >> (4 * (3 - j))) & 0x0f));
+				}
+			}
+		}
+		
+		out.append(s, runStart, s.length());
+		out.append('"');
+	}
+}
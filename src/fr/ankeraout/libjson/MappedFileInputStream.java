@@ -0,0 +1,116 @@
+package fr.ankeraout.libjson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class is an InputStream reading a file through a sequence of memory-mapped chunks. It is
+ * used by the JsonParser for the files that are too large to be mapped by a single ByteBuffer.
+ * Only one chunk is referenced at a time, so the pages of the previous chunks can be released as
+ * soon as the buffers are collected. The channel is not closed by this stream.
+ * @author Ankeraout
+ *
+ */
+final class MappedFileInputStream extends InputStream {
+	/**
+	 * The default size of the chunks, in bytes.
+	 */
+	static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+	
+	/**
+	 * The channel of the mapped file.
+	 */
+	private final FileChannel channel;
+	
+	/**
+	 * The size of the file, in bytes.
+	 */
+	private final long size;
+	
+	/**
+	 * The maximum size of each chunk, in bytes.
+	 */
+	private final long chunkSize;
+	
+	/**
+	 * The position in the file of the first byte after the current chunk.
+	 */
+	private long chunkEnd;
+	
+	/**
+	 * The chunk that is currently being read, or null if no chunk has been mapped yet.
+	 */
+	private MappedByteBuffer chunk;
+	
+	/**
+	 * Creates a new MappedFileInputStream reading the whole given file.
+	 * @param channel The channel of the file, opened for reading
+	 * @param chunkSize The maximum size of each mapped chunk, in bytes
+	 * @throws IOException If the size of the file could not be read.
+	 */
+	MappedFileInputStream(FileChannel channel, long chunkSize) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.chunkSize = chunkSize;
+		this.chunkEnd = 0;
+		this.chunk = null;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		if(!this.ensureChunk()) {
+			return -1;
+		}
+		
+		return this.chunk.get() & 0xff;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return 0;
+		}
+		
+		if(!this.ensureChunk()) {
+			return -1;
+		}
+		
+		int count = Math.min(len, this.chunk.remaining());
+		this.chunk.get(b, off, count);
+		
+		return count;
+	}
+	
+	@Override
+	public int available() {
+		return this.chunk == null ? 0 : this.chunk.remaining();
+	}
+	
+	/**
+	 * Maps the next chunk of the file if the current one has been entirely read.
+	 * @return true if there are bytes left to read, false if the end of the file has been
+	 * reached.
+	 * @throws IOException If the next chunk could not be mapped.
+	 */
+	private boolean ensureChunk() throws IOException {
+		if(this.chunk != null && this.chunk.hasRemaining()) {
+			return true;
+		}
+		
+		if(this.chunkEnd >= this.size) {
+			return false;
+		}
+		
+		long start = this.chunkEnd;
+		long length = Math.min(this.chunkSize, this.size - start);
+		
+		// Drop the reference to the previous chunk before mapping the next one
+		this.chunk = null;
+		this.chunk = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		this.chunkEnd = start + length;
+		
+		return true;
+	}
+}
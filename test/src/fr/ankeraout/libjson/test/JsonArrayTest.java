@@ -1,14 +1,25 @@
 package fr.ankeraout.libjson.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
 
 import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonLexerException;
 import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonParserException;
 
 public class JsonArrayTest {
 	@Test
@@ -67,6 +78,45 @@ public class JsonArrayTest {
 		assertEquals("[\n96,\nnull,\ntrue\n]", jarr.toString(1, null, true));
 	}
 	
+	@Test
+	public void test_toString_3() {
+		JsonArray jarr = new JsonArray();
+		JsonArray inner = new JsonArray();
+		JsonObject jobj = new JsonObject();
+		
+		inner.add(1);
+		jobj.put("k", inner);
+		jobj.put("e", new JsonArray());
+		jarr.add(jobj);
+		jarr.add(new JsonObject());
+		
+		String expected = "[\n\t{\n\t\t\"k\": [\n\t\t\t1\n\t\t],\n\t\t\"e\": [\n\t\t]\n\t},\n\t{\n\t}\n]";
+		String expectedSwapped = "[\n\t{\n\t\t\"e\": [\n\t\t],\n\t\t\"k\": [\n\t\t\t1\n\t\t]\n\t},\n\t{\n\t}\n]";
+		String actual = jarr.toString(0, "\t", true);
+		
+		assertTrue(expected.equals(actual) || expectedSwapped.equals(actual));
+	}
+	
+	@Test
+	public void test_toString_large() {
+		JsonArray jarr = new JsonArray();
+		StringBuilder expected = new StringBuilder("[");
+		
+		for(int i = 0; i < 200000; i++) {
+			jarr.add(i);
+			
+			if(i != 0) {
+				expected.append(',');
+			}
+			
+			expected.append(i);
+		}
+		
+		expected.append(']');
+		
+		assertEquals(expected.toString(), jarr.toString());
+	}
+	
 	@Test
 	public void test_add_goodTypeOfValue() {
 		JsonArray jarr = new JsonArray();
@@ -85,6 +135,148 @@ public class JsonArrayTest {
 		jarr.add((long)1);
 	}
 	
+	@Test
+	public void test_add_subclassOfAllowedType() {
+		JsonArray jarr = new JsonArray();
+		
+		jarr.add(new JsonArray() {
+			private static final long serialVersionUID = 1L;
+		});
+		jarr.add(new BigDecimal("1.5") {
+			private static final long serialVersionUID = 1L;
+		});
+		
+		assertEquals("[[],1.5]", jarr.toString());
+	}
+	
+	@Test
+	public void test_addAll() {
+		JsonArray numbers = new JsonArray();
+		numbers.addAll(Arrays.asList(1L, 2.5));
+		
+		JsonArray jarr = new JsonArray();
+		jarr.addAll(numbers);
+		jarr.addAll(numbers);
+		
+		assertEquals(Arrays.asList(1L, 2.5, 1L, 2.5), jarr);
+		assertEquals(5.0, jarr.toDoubleArray()[3] * 2, 0);
+		
+		jarr.addAll(Arrays.asList("a", null));
+		jarr.addAll(2, Arrays.asList(true));
+		jarr.addAll(numbers);
+		
+		assertEquals(Arrays.asList(1L, 2.5, true, 1L, 2.5, "a", null, 1L, 2.5), jarr);
+	}
+	
+	@Test
+	public void test_addAll_badTypeOfValue() {
+		JsonArray jarr = new JsonArray();
+		jarr.add(1L);
+		
+		try {
+			jarr.addAll(Arrays.asList(2L, new Object()));
+			fail();
+		} catch(IllegalArgumentException e) {
+			// The array is not modified if one of the elements is not allowed
+			assertEquals(Arrays.asList(1L), jarr);
+		}
+	}
+	
+	@Test
+	public void test_numbers() {
+		JsonArray jarr = new JsonArray();
+		
+		for(int i = 0; i < 100; i++) {
+			jarr.add(i % 2 == 0 ? (Object)(long)i : (Object)(i + 0.5));
+		}
+		
+		assertEquals(100, jarr.size());
+		assertEquals(10L, jarr.get(10));
+		assertEquals(11.5, jarr.get(11));
+		assertEquals(11L, jarr.getLong(11));
+		assertEquals(10.0, jarr.getDouble(10), 0);
+		assertEquals(99.5, jarr.toDoubleArray()[99], 0);
+		assertEquals(98L, jarr.toLongArray()[98]);
+		
+		jarr.set(0, -0.0);
+		jarr.add(1, Long.MIN_VALUE);
+		jarr.remove(2);
+		
+		assertEquals(100, jarr.size());
+		assertEquals(-0.0, jarr.get(0));
+		assertEquals(Long.MIN_VALUE, jarr.get(1));
+		assertEquals(2L, jarr.get(2));
+		assertEquals(99.5, jarr.get(99));
+		assertEquals(100, jarr.toString().split(",").length);
+	}
+	
+	@Test
+	public void test_numbers_otherTypes() {
+		JsonArray jarr = new JsonArray();
+		jarr.add(1L);
+		jarr.add(2.5);
+		jarr.add(3);
+		jarr.add(null);
+		
+		assertEquals(Arrays.asList(1L, 2.5, 3, null), jarr);
+		assertEquals(3L, jarr.getLong(2));
+		assertEquals("[1,2.5,3,null]", jarr.toString());
+		
+		jarr.clear();
+		jarr.add("a");
+		jarr.add(0, 1L);
+		
+		assertEquals(Arrays.asList(1L, "a"), jarr);
+	}
+	
+	@Test
+	public void test_numbers_parsed() throws JsonLexerException, JsonParserException {
+		JsonArray jarr = (JsonArray)JsonParser.parse("[1,-2,3.25,1e2,9223372036854775807]");
+		
+		assertEquals(Arrays.asList(1L, -2L, 3.25, 100.0, Long.MAX_VALUE), jarr);
+		assertArrayEquals(new double[] { 1, -2, 3.25, 100, 9.223372036854775807e18 }, jarr.toDoubleArray(), 0);
+		assertEquals("[1,-2,3.25,100.0,9223372036854775807]", jarr.toString());
+		assertEquals(new ArrayList<Object>(jarr).hashCode(), jarr.hashCode());
+	}
+	
+	@Test
+	public void test_clone() {
+		JsonArray jarr = new JsonArray();
+		jarr.add(1L);
+		JsonArray copy = jarr.clone();
+		copy.add(2L);
+		copy.set(0, "a");
+		
+		assertEquals(Arrays.asList(1L), jarr);
+		assertNotEquals(jarr, copy);
+	}
+	
+	@Test(expected = ConcurrentModificationException.class)
+	public void test_iterator_concurrentModification() {
+		JsonArray jarr = new JsonArray();
+		jarr.add(1L);
+		jarr.add(2L);
+		
+		Iterator<Object> iterator = jarr.iterator();
+		iterator.next();
+		jarr.add(3L);
+		iterator.next();
+	}
+	
+	@Test(expected = ClassCastException.class)
+	public void test_getDouble_notANumber() {
+		JsonArray jarr = new JsonArray();
+		jarr.add("a");
+		jarr.getDouble(0);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void test_get_outOfBounds() {
+		JsonArray jarr = new JsonArray();
+		jarr.add(1L);
+		jarr.get(1);
+	}
+	
 	@Test(expected = IllegalArgumentException.class)
 	public void test_add_badTypeOfValue() {
 		JsonArray jarr = new JsonArray();
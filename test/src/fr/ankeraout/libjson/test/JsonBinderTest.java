@@ -0,0 +1,217 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonBinder;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParserException;
+
+public class JsonBinderTest {
+	public enum Color {
+		RED,
+		GREEN
+	}
+	
+	public static class Point {
+		public int x;
+		public int y;
+	}
+	
+	public static class Sample {
+		public String name;
+		public long id;
+		public double ratio;
+		public boolean enabled;
+		public byte small;
+		public Integer boxed;
+		public char letter;
+		public BigDecimal price;
+		public BigInteger big;
+		public Color color;
+		public Point point;
+		public List<Point> points;
+		public Set<String> tags;
+		public Map<String, Integer> counts;
+		public int[] ints;
+		public String[] names;
+		public Object any;
+		public JsonObject tree;
+		private String hidden;
+		public transient String ignored;
+		public final String constant = "constant";
+		
+		public String getHidden() {
+			return this.hidden;
+		}
+	}
+	
+	public static class Node {
+		public int value;
+		public Node next;
+	}
+	
+	public static class Base {
+		public String inherited;
+	}
+	
+	public static class Derived extends Base {
+		public String own;
+	}
+	
+	public static class NoDefaultConstructor {
+		public NoDefaultConstructor(int value) {
+		
+		}
+	}
+	
+	@Test
+	public void test_pojo() throws JsonLexerException, JsonParserException {
+		String input = "{\"name\":\"test\",\"id\":9007199254740993,\"ratio\":0.5,\"enabled\":true,\"small\":-128,"
+				+ "\"boxed\":null,\"letter\":\"\\u00e9\",\"price\":0.10,\"big\":123456789012345678901234567890,"
+				+ "\"color\":\"GREEN\",\"point\":{\"x\":1,\"y\":2},\"points\":[{\"x\":3},{\"y\":4}],"
+				+ "\"tags\":[\"a\",\"b\",\"a\"],\"counts\":{\"a\":1,\"b\":2},\"ints\":[1,2,3],\"names\":[\"c\",null],"
+				+ "\"any\":[1,{\"k\":true}],\"tree\":{\"k\":\"v\"},\"hidden\":\"h\"}";
+		
+		Sample sample = JsonBinder.parse(input, Sample.class);
+		
+		assertEquals("test", sample.name);
+		assertEquals(9007199254740993L, sample.id);
+		assertEquals(0.5, sample.ratio, 0);
+		assertTrue(sample.enabled);
+		assertEquals(-128, sample.small);
+		assertNull(sample.boxed);
+		assertEquals('\u00e9', sample.letter);
+		assertEquals(new BigDecimal("0.10"), sample.price);
+		assertEquals(new BigInteger("123456789012345678901234567890"), sample.big);
+		assertEquals(Color.GREEN, sample.color);
+		assertEquals(1, sample.point.x);
+		assertEquals(2, sample.point.y);
+		assertEquals(2, sample.points.size());
+		assertEquals(3, sample.points.get(0).x);
+		assertEquals(4, sample.points.get(1).y);
+		assertEquals(Arrays.asList("a", "b"), Arrays.asList(sample.tags.toArray()));
+		assertEquals(Arrays.asList("a", "b"), Arrays.asList(sample.counts.keySet().toArray()));
+		assertEquals((Integer)2, sample.counts.get("b"));
+		assertArrayEquals(new int[] { 1, 2, 3 }, sample.ints);
+		assertArrayEquals(new String[] { "c", null }, sample.names);
+		assertTrue(sample.any instanceof JsonArray);
+		assertEquals(Boolean.TRUE, ((JsonObject)((JsonArray)sample.any).get(1)).get("k"));
+		assertEquals("v", sample.tree.get("k"));
+		assertEquals("h", sample.getHidden());
+	}
+	
+	@Test
+	public void test_inputs() throws JsonLexerException, JsonParserException {
+		String input = "{\"x\":1,\"y\":-2}";
+		
+		Point fromString = JsonBinder.parse(input, Point.class);
+		Point fromBytes = JsonBinder.parse(input.getBytes(StandardCharsets.UTF_8), Point.class);
+		
+		assertEquals(1, fromString.x);
+		assertEquals(-2, fromString.y);
+		assertEquals(1, fromBytes.x);
+		assertEquals(-2, fromBytes.y);
+	}
+	
+	@Test
+	public void test_reuse() throws JsonLexerException, JsonParserException {
+		JsonBinder binder = new JsonBinder();
+		
+		for(int i = 0; i < 3; i++) {
+			Point point = binder.parseDocument("{\"x\":" + i + "}", Point.class);
+			assertEquals(i, point.x);
+		}
+	}
+	
+	@Test
+	public void test_unknownKeysSkipped() throws JsonLexerException, JsonParserException {
+		Sample sample = JsonBinder.parse("{\"unknown\":{\"a\":[1,{\"b\":null}]},\"ignored\":\"i\",\"constant\":\"c\",\"name\":\"n\"}", Sample.class);
+		
+		assertEquals("n", sample.name);
+		assertNull(sample.ignored);
+		assertEquals("constant", sample.constant);
+	}
+	
+	@Test
+	public void test_recursiveType() throws JsonLexerException, JsonParserException {
+		Node node = JsonBinder.parse("{\"value\":1,\"next\":{\"value\":2,\"next\":null}}", Node.class);
+		
+		assertEquals(1, node.value);
+		assertEquals(2, node.next.value);
+		assertNull(node.next.next);
+	}
+	
+	@Test
+	public void test_inheritedFields() throws JsonLexerException, JsonParserException {
+		Derived derived = JsonBinder.parse("{\"inherited\":\"a\",\"own\":\"b\"}", Derived.class);
+		
+		assertEquals("a", derived.inherited);
+		assertEquals("b", derived.own);
+	}
+	
+	@Test
+	public void test_scalarRoot() throws JsonLexerException, JsonParserException {
+		assertEquals("a", JsonBinder.parse("\"a\"", String.class));
+		assertEquals((Integer)42, JsonBinder.parse("42", Integer.class));
+		assertEquals(Color.RED, JsonBinder.parse("\"RED\"", Color.class));
+		assertArrayEquals(new double[] { 1, 0.5 }, JsonBinder.parse("[1,0.5]", double[].class), 0);
+		assertNull(JsonBinder.parse("null", Point.class));
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_typeMismatch() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("{\"name\":42}", Sample.class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_nullPrimitive() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("{\"x\":null}", Point.class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_outOfRange() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("{\"small\":128}", Sample.class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_notAnInteger() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("{\"x\":1.5}", Point.class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_unknownConstant() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("\"BLUE\"", Color.class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_dataAfterValue() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("{\"x\":1} {", Point.class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_trailingComma() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("[1,]", int[].class);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_maxDepth() throws JsonLexerException, JsonParserException {
+		new JsonBinder(2).parseDocument("{\"unknown\":{\"a\":[]}}", Point.class);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_exception_noDefaultConstructor() throws JsonLexerException, JsonParserException {
+		JsonBinder.parse("{}", NoDefaultConstructor.class);
+	}
+}
@@ -1,23 +1,37 @@
 package fr.ankeraout.libjson.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 
 import fr.ankeraout.libjson.JsonLexer;
 import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonNumber;
 import fr.ankeraout.libjson.JsonToken;
 import fr.ankeraout.libjson.JsonTokenType;
 
 public class JsonLexerTest {
 
 	private static JsonToken[] lex(String input) throws JsonLexerException {
+		return lex(new JsonLexer(input));
+	}
+	
+	private static JsonToken[] lex(JsonLexer lexer) throws JsonLexerException {
 		List<JsonToken> tokens = new ArrayList<JsonToken>(256);
 		
-		JsonLexer lexer = new JsonLexer(input);
 		JsonToken token = lexer.readToken();
 		
 		while(token != null) {
@@ -55,6 +69,38 @@ public class JsonLexerTest {
 		assertEquals(9, tokens.length);
 	}
 	
+	@Test
+	public void test_string_escapes() throws JsonLexerException {
+		String input = "[\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\\u20AC\", \"plain\", \"\"]";
+		
+		JsonToken[] tokens = lex(input);
+		
+		assertEquals("a\"b\\c/d\b\f\n\r\t\u00e9\u20ac", tokens[1].getValue());
+		assertEquals("plain", tokens[3].getValue());
+		assertEquals("", tokens[5].getValue());
+		assertEquals(7, tokens.length);
+	}
+	
+	@Test
+	public void test_string_long() throws JsonLexerException {
+		StringBuilder sb = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		
+		sb.append('"');
+		
+		for(int i = 0; i < 100000; i++) {
+			sb.append("abcdefgh\\n");
+			expected.append("abcdefgh\n");
+		}
+		
+		sb.append('"');
+		
+		JsonToken[] tokens = lex(sb.toString());
+		
+		assertEquals(1, tokens.length);
+		assertEquals(expected.toString(), tokens[0].getValue());
+	}
+	
 	@Test
 	public void test_boolean() throws JsonLexerException {
 		String input = "{\"test1\":true, \"test2\":false}";
@@ -87,6 +133,205 @@ public class JsonLexerTest {
 		assertEquals(7, tokens.length);
 	}
 	
+	@Test
+	public void test_next() throws JsonLexerException {
+		String input = "{\"a\":[\"b\\n\",-12,true,false,null]}";
+		JsonTokenType[] expected = {
+			JsonTokenType.LEFT_BRACE, JsonTokenType.STRING, JsonTokenType.COLON, JsonTokenType.LEFT_BRACKET,
+			JsonTokenType.STRING, JsonTokenType.COMMA, JsonTokenType.NUMBER, JsonTokenType.COMMA,
+			JsonTokenType.TRUE, JsonTokenType.COMMA, JsonTokenType.FALSE, JsonTokenType.COMMA,
+			JsonTokenType.NULL, JsonTokenType.RIGHT_BRACKET, JsonTokenType.RIGHT_BRACE
+		};
+		
+		for(JsonLexer lexer : new JsonLexer[] { new JsonLexer(input), new JsonLexer(new StringReader(input), 3) }) {
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], lexer.next());
+				assertEquals(expected[i], lexer.getTokenType());
+				
+				if(i == 1) {
+					assertEquals("a", lexer.getString());
+				} else if(i == 4) {
+					assertEquals("b\n", lexer.getString());
+					assertSame(lexer.getString(), lexer.getString());
+				} else if(i == 6) {
+					assertEquals(-12L, lexer.getNumber());
+				}
+			}
+			
+			assertNull(lexer.next());
+			assertNull(lexer.getTokenType());
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void test_next_exception_getString() throws JsonLexerException {
+		JsonLexer lexer = new JsonLexer("[1]");
+		lexer.next();
+		lexer.next();
+		lexer.getString();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void test_next_exception_getNumber() throws JsonLexerException {
+		JsonLexer lexer = new JsonLexer("[\"1\"]");
+		lexer.next();
+		lexer.next();
+		lexer.getNumber();
+	}
+	
+	@Test
+	public void test_bytes() throws JsonLexerException {
+		String input = "{\"ascii\":\"plain\",\"utf8\":\"h\u00e9llo \u20ac \ud83d\ude00\",\"escaped\":\"a\\n\u00e9\\u00e8\\ud83d\\ude00\",\"n\":[-1.5e3,42,TRUE,false,Null]}";
+		JsonToken[] expected = lex(input);
+		byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+		byte[] padded = new byte[bytes.length + 4];
+		System.arraycopy(bytes, 0, padded, 2, bytes.length);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes);
+		direct.flip();
+		
+		assertArrayEquals(expected, lex(new JsonLexer(bytes)));
+		assertArrayEquals(expected, lex(new JsonLexer(padded, 2, bytes.length)));
+		assertArrayEquals(expected, lex(new JsonLexer(direct)));
+		assertEquals(0, direct.position());
+	}
+	
+	@Test
+	public void test_stringRange() throws JsonLexerException {
+		String input = "{\"key\":[\"va\\u00e9lue\",-12.5E+3,true,7]}";
+		String padded = "[1,\"x\"," + input + ",2]";
+		JsonLexer rawLexer = new JsonLexer(padded, 7, input.length());
+		rawLexer.setRawNumbers(true);
+		
+		assertArrayEquals(lex(input), lex(new JsonLexer(padded, 7, input.length())));
+		assertEquals("-12.5E+3", lex(rawLexer)[6].getValue().toString());
+		assertEquals(JsonTokenType.NUMBER, new JsonLexer("1234", 1, 2).next());
+		assertEquals(23L, new JsonLexer("1234", 1, 2).readToken().getValue());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void test_stringRange_exception_bounds() {
+		new JsonLexer("[1,2]", 3, 3);
+	}
+	
+	@Test
+	public void test_bytes_stringAlignment() throws JsonLexerException {
+		String[] specials = { "\\n", "\\\"", "\u00e9", "\u20ac", "\ud83d\ude00", "" };
+		
+		for(String special : specials) {
+			for(int before = 0; before < 20; before++) {
+				for(int offset = 0; offset < 8; offset++) {
+					String input = "[\"" + "abcdefghijklmnopqrst".substring(0, before) + special + "xyz\",\"0123456789\"]";
+					byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+					byte[] padded = new byte[bytes.length + offset];
+					System.arraycopy(bytes, 0, padded, offset, bytes.length);
+					
+					assertArrayEquals(lex(input), lex(new JsonLexer(padded, offset, bytes.length)));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void test_bytes_exception_controlCharacterAlignment() {
+		byte[] controls = { 0x00, 0x1f, 0x7f };
+		
+		for(byte control : controls) {
+			for(int before = 0; before < 20; before++) {
+				byte[] input = new byte[before + 12];
+				Arrays.fill(input, (byte)'a');
+				input[0] = '"';
+				input[before + 1] = control;
+				input[input.length - 1] = '"';
+				
+				try {
+					lex(new JsonLexer(input));
+					fail("The lexer should have thrown an exception.");
+				} catch(JsonLexerException e) {
+					// Expected
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void test_bytes_exception_utf8() {
+		byte[][] inputs = {
+			{ '"', (byte)0xc0, (byte)0x80, '"' },
+			{ '"', (byte)0xed, (byte)0xa0, (byte)0x80, '"' },
+			{ '"', (byte)0xf4, (byte)0x90, (byte)0x80, (byte)0x80, '"' },
+			{ '"', (byte)0xe2, (byte)0x82, '"' },
+			{ '"', (byte)0xe2, (byte)0x82 },
+			{ '"', (byte)0xc2, (byte)0x85, '"' },
+			{ '"', 0x01, '"' },
+			{ (byte)0xc3, (byte)0xa9 }
+		};
+		
+		for(byte[] input : inputs) {
+			try {
+				lex(new JsonLexer(input));
+				fail("The lexer should have thrown an exception.");
+			} catch(JsonLexerException e) {
+				// Expected
+			}
+		}
+	}
+	
+	@Test
+	public void test_number_types() throws JsonLexerException {
+		JsonToken[] tokens = lex("[9007199254740993,-9223372036854775808,9223372036854775808,1.5,1e400]");
+		
+		assertEquals(9007199254740993L, tokens[1].getValue());
+		assertEquals(Long.MIN_VALUE, tokens[3].getValue());
+		assertEquals(new BigDecimal("9223372036854775808"), tokens[5].getValue());
+		assertEquals(1.5, tokens[7].getValue());
+		assertEquals(new BigDecimal("1e400"), tokens[9].getValue());
+	}
+	
+	@Test
+	public void test_rawNumbers() throws JsonLexerException {
+		String input = "[12345678901234567890,-0.25e-3,7]";
+		
+		for(int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+			for(JsonLexer lexer : new JsonLexer[] { new JsonLexer(input), new JsonLexer(new StringReader(input), bufferSize) }) {
+				lexer.setRawNumbers(true);
+				
+				JsonToken[] tokens = lex(lexer);
+				
+				assertTrue(tokens[1].getValue() instanceof JsonNumber);
+				assertEquals("12345678901234567890", tokens[1].getValue().toString());
+				assertEquals(new BigDecimal("12345678901234567890"), ((JsonNumber)tokens[1].getValue()).getValue());
+				assertEquals("-0.25e-3", tokens[3].getValue().toString());
+				assertEquals(-0.25e-3, ((JsonNumber)tokens[3].getValue()).doubleValue(), 0);
+				assertEquals(7L, ((JsonNumber)tokens[5].getValue()).getValue());
+			}
+		}
+	}
+	
+	@Test
+	public void test_reader() throws JsonLexerException {
+		String input = "{\"key\":[\"va\\u00e9lue\\n\",-12.5E+3,true,false,null,{}],\"\\\"\":0}";
+		JsonToken[] expected = lex(input);
+		
+		for(int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+			JsonToken[] tokens = lex(new JsonLexer(new StringReader(input), bufferSize));
+			
+			assertArrayEquals("Buffer size: " + bufferSize, expected, tokens);
+		}
+		
+		assertArrayEquals(expected, lex(new JsonLexer(new StringReader(input))));
+	}
+	
+	@Test(expected = JsonLexerException.class)
+	public void test_reader_exception_end() throws JsonLexerException {
+		lex(new JsonLexer(new StringReader("[\"abc"), 2));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_reader_exception_bufferSize() {
+		new JsonLexer(new StringReader("[]"), 0);
+	}
+	
 	@Test(expected = JsonLexerException.class)
 	public void test_lexer_exception_unexpectedCharacter() throws JsonLexerException {
 		lex("l");
@@ -97,6 +342,21 @@ public class JsonLexerTest {
 		lex("\"\\l\"");
 	}
 	
+	@Test(expected = JsonLexerException.class)
+	public void test_lexer_exception_controlCharacter() throws JsonLexerException {
+		lex("\"\n\"");
+	}
+	
+	@Test(expected = JsonLexerException.class)
+	public void test_lexer_exception_unterminatedString() throws JsonLexerException {
+		lex("\"abc");
+	}
+	
+	@Test(expected = JsonLexerException.class)
+	public void test_lexer_exception_unterminatedEscape() throws JsonLexerException {
+		lex("\"\\u00");
+	}
+	
 	@Test(expected = JsonLexerException.class)
 	public void test_lexer_exception_unicodeHex0() throws JsonLexerException {
 		lex("\"\\ux000\"");
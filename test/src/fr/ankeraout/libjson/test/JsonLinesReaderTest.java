@@ -0,0 +1,207 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonLinesReader;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParserException;
+import fr.ankeraout.libjson.JsonUncheckedException;
+
+public class JsonLinesReaderTest {
+	@Test
+	public void test_records() throws IOException, JsonLexerException, JsonParserException {
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader("{\"a\":1}\n[1,2]\n\n\"s\"\r\nnull\n42\n"))) {
+			assertEquals(1L, ((JsonObject)reader.nextRecord()).get("a"));
+			assertEquals(2, ((JsonArray)reader.nextRecord()).size());
+			assertEquals("s", reader.nextRecord());
+			assertTrue(reader.hasNextRecord());
+			assertNull(reader.nextRecord());
+			assertEquals(42L, reader.nextRecord());
+			assertFalse(reader.hasNextRecord());
+		}
+	}
+	
+	@Test
+	public void test_iterator() throws IOException {
+		byte[] input = "1\n2\n3".getBytes(StandardCharsets.UTF_8);
+		List<Object> records = new ArrayList<Object>();
+		
+		try(JsonLinesReader reader = new JsonLinesReader(Channels.newChannel(new ByteArrayInputStream(input)))) {
+			while(reader.hasNext()) {
+				records.add(reader.next());
+			}
+		}
+		
+		assertEquals(3, records.size());
+		assertEquals(3L, records.get(2));
+	}
+	
+	@Test
+	public void test_stream() {
+		String input = "{\"level\":\"ERROR\"}\n{\"level\":\"INFO\"}\n{\"level\":\"ERROR\"}\n";
+		
+		long errors = new JsonLinesReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))).stream()
+				.filter(record -> "ERROR".equals(((JsonObject)record).get("level")))
+				.count();
+		
+		assertEquals(2, errors);
+	}
+	
+	@Test
+	public void test_parallel() throws IOException, JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder();
+		
+		for(int i = 0; i < 10000; i++) {
+			sb.append("{\"id\":").append(i).append(",\"tags\":[\"a\",").append(i % 3 == 0 ? "null" : "1.5").append("]}\n");
+			
+			if(i % 1000 == 0) {
+				sb.append('\n');
+			}
+		}
+		
+		String input = sb.toString();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		
+		try(
+			JsonLinesReader sequential = new JsonLinesReader(new StringReader(input));
+			JsonLinesReader parallel = new JsonLinesReader(new StringReader(input), pool)
+		) {
+			int count = 0;
+			
+			while(sequential.hasNextRecord()) {
+				assertTrue(parallel.hasNextRecord());
+				assertEquals(sequential.nextRecord().toString(), parallel.nextRecord().toString());
+				count++;
+			}
+			
+			assertEquals(10000, count);
+			assertFalse(parallel.hasNextRecord());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_parallel_invalidRecord() throws IOException, JsonLexerException {
+		StringBuilder sb = new StringBuilder();
+		
+		for(int i = 0; i < 6000; i++) {
+			sb.append(i == 5000 ? "{\"id\":}" : "{\"id\":" + i + "}").append('\n');
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(2);
+		
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader(sb.toString()), pool)) {
+			for(int i = 0; i < 5000; i++) {
+				assertEquals((long)i, ((JsonObject)reader.nextRecord()).get("id"));
+			}
+			
+			try {
+				reader.nextRecord();
+				fail();
+			} catch(JsonParserException e) {
+				// The invalid record is reported in order, and the next records can still be read
+			}
+			
+			assertEquals(5001L, ((JsonObject)reader.nextRecord()).get("id"));
+		} catch(JsonParserException e) {
+			fail();
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_invalidLines() throws IOException, JsonLexerException {
+		String input = "{\"a\":1\n{\"c\":3}\n{\"d\":4}\n{\"a\":1} {\"b\":2}\n1 2\n[1,\n2]\ntrue\n";
+		String[] expected = { null, "{\"c\":3}", "{\"d\":4}", null, null, null, null, "true" };
+		ForkJoinPool pool = new ForkJoinPool(2);
+		
+		try(
+			JsonLinesReader sequential = new JsonLinesReader(new StringReader(input));
+			JsonLinesReader parallel = new JsonLinesReader(new StringReader(input), pool)
+		) {
+			for(JsonLinesReader reader : new JsonLinesReader[] { sequential, parallel }) {
+				for(String record : expected) {
+					try {
+						assertEquals(record, reader.nextRecord().toString());
+					} catch(JsonParserException e) {
+						// Each invalid line is rejected alone, and the next record starts on the next line
+						assertNull(record);
+					}
+				}
+				
+				assertFalse(reader.hasNextRecord());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_longLines() throws IOException, JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder("[");
+		
+		for(int i = 0; i < 5000; i++) {
+			sb.append(i).append(',');
+		}
+		
+		String longLine = sb.append("\"end\"]").toString();
+		String input = longLine + "\r@" + longLine + "\r\n\t" + longLine + "\n";
+		
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader(input))) {
+			assertEquals(5001, ((JsonArray)reader.nextRecord()).size());
+			
+			try {
+				reader.nextRecord();
+				fail();
+			} catch(JsonLexerException e) {
+				// The rest of the invalid line, which does not fit in the buffers, is skipped
+			}
+			
+			assertEquals("end", ((JsonArray)reader.nextRecord()).get(5000));
+			assertFalse(reader.hasNextRecord());
+		}
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_invalidRecord() throws IOException, JsonLexerException, JsonParserException {
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader("{\"a\":1}\n{\"a\" 2}\n"))) {
+			reader.nextRecord();
+			reader.nextRecord();
+		}
+	}
+	
+	@Test(expected = JsonUncheckedException.class)
+	public void test_exception_iterator() throws IOException {
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader("[1,]"))) {
+			reader.next();
+		}
+	}
+	
+	@Test(expected = NoSuchElementException.class)
+	public void test_exception_noMoreRecords() throws IOException, JsonLexerException, JsonParserException {
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader("1\n"))) {
+			reader.nextRecord();
+			reader.nextRecord();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonLinesReader;
+import fr.ankeraout.libjson.JsonLinesWriter;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParserException;
+
+public class JsonLinesWriterTest {
+	public static class Point {
+		public int x;
+		public int y;
+	}
+	
+	@Test
+	public void test_write() throws IOException {
+		JsonObject object = new JsonObject();
+		object.put("a", "line\nbreak");
+		Point point = new Point();
+		point.x = 1;
+		
+		StringBuilder sb = new StringBuilder();
+		
+		try(JsonLinesWriter writer = new JsonLinesWriter(sb)) {
+			writer.write(object);
+			writer.write(new JsonArray(Arrays.asList((Object)1L, "b")));
+			writer.write(null);
+			writer.write(point);
+		}
+		
+		assertEquals("{\"a\":\"line\\nbreak\"}\n[1,\"b\"]\nnull\n{\"x\":1,\"y\":0}\n", sb.toString());
+	}
+	
+	@Test
+	public void test_batch() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		JsonLinesWriter writer = new JsonLinesWriter(sb, 8);
+		
+		writer.write("abc");
+		assertEquals("", sb.toString());
+		
+		writer.write("def");
+		assertEquals("\"abc\"\n\"def\"\n", sb.toString());
+		
+		writer.write(1);
+		writer.flush();
+		assertEquals("\"abc\"\n\"def\"\n1\n", sb.toString());
+	}
+	
+	@Test
+	public void test_roundTrip() throws IOException, JsonLexerException, JsonParserException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		
+		try(JsonLinesWriter writer = new JsonLinesWriter(out)) {
+			for(int i = 0; i < 1000; i++) {
+				JsonObject record = new JsonObject();
+				record.put("id", (long)i);
+				record.put("name", "\u00e9t\u00e9 " + i);
+				writer.write(record);
+			}
+		}
+		
+		try(JsonLinesReader reader = new JsonLinesReader(new StringReader(new String(out.toByteArray(), StandardCharsets.UTF_8)))) {
+			for(int i = 0; i < 1000; i++) {
+				JsonObject record = (JsonObject)reader.nextRecord();
+				assertEquals((long)i, record.get("id"));
+				assertEquals("\u00e9t\u00e9 " + i, record.get("name"));
+			}
+		}
+	}
+	
+	@Test
+	public void test_exception_write() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		JsonLinesWriter writer = new JsonLinesWriter(sb);
+		writer.write(1);
+		
+		try {
+			writer.write(Arrays.asList(2, new Object[] { Thread.currentThread() }));
+			fail();
+		} catch(IllegalArgumentException e) {
+			// The record is not written
+		}
+		
+		writer.write(3);
+		writer.flush();
+		
+		assertEquals("1\n3\n", sb.toString());
+	}
+}
@@ -2,10 +2,15 @@ package fr.ankeraout.libjson.test;
 
 import static org.junit.Assert.*;
 
+import java.math.BigDecimal;
+
 import org.junit.Test;
 
+import fr.ankeraout.libjson.JsonLexerException;
 import fr.ankeraout.libjson.JsonObject;
 import fr.ankeraout.libjson.JsonObjectReader;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonParserException;
 import fr.ankeraout.libjson.exception.KeyNotFoundException;
 import fr.ankeraout.libjson.exception.WrongTypeException;
 
@@ -36,6 +41,44 @@ public class JsonObjectReaderTest {
 		assertNull(jor.get("a", null));
 	}
 	
+	@Test
+	public void test_getNumbers() throws JsonLexerException, JsonParserException, KeyNotFoundException, WrongTypeException {
+		for(boolean rawNumbers : new boolean[] { false, true }) {
+			JsonObject jobj = (JsonObject)new JsonParser(rawNumbers).parseDocument("{\"i\":42,\"l\":9007199254740993,\"d\":0.1,\"b\":1e400}");
+			JsonObjectReader jor = new JsonObjectReader(jobj);
+			
+			assertEquals((Integer)42, jor.getInt("i"));
+			assertEquals((Short)(short)42, jor.getShort("i"));
+			assertEquals((Byte)(byte)42, jor.getByte("i"));
+			assertEquals((Long)42L, jor.getLong("i"));
+			assertEquals((Double)42.0, jor.getDouble("i"));
+			assertEquals((Long)9007199254740993L, jor.getLong("l"));
+			assertEquals((Long)9007199254740993L, jor.get("l", Long.class));
+			assertEquals((Double)0.1, jor.getDouble("d"));
+			assertEquals((Float)0.1f, jor.getFloat("d"));
+			assertEquals(new BigDecimal("0.1"), jor.getBigDecimal("d"));
+			assertEquals(new BigDecimal("1e400"), jor.getNumber("b"));
+		}
+	}
+	
+	@Test(expected = WrongTypeException.class)
+	public void test_getIntOutOfRange() throws KeyNotFoundException, WrongTypeException {
+		JsonObject jobj = new JsonObject();
+		jobj.put("a", 9007199254740993L);
+		JsonObjectReader jor = new JsonObjectReader(jobj);
+		
+		jor.getInt("a");
+	}
+	
+	@Test(expected = WrongTypeException.class)
+	public void test_getLongFromDecimal() throws KeyNotFoundException, WrongTypeException {
+		JsonObject jobj = new JsonObject();
+		jobj.put("a", 1.5);
+		JsonObjectReader jor = new JsonObjectReader(jobj);
+		
+		jor.getLong("a");
+	}
+	
 	@Test(expected = WrongTypeException.class)
 	public void test_getWrongType() throws KeyNotFoundException, WrongTypeException {
 		JsonObject jobj = new JsonObject();
@@ -1,6 +1,8 @@
 package fr.ankeraout.libjson.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 
@@ -30,6 +32,58 @@ public class JsonObjectTest {
 		assertEquals("{\"hello\":\"hello\"}", jobj.toString());
 	}
 	
+	@Test
+	public void test_insertionOrder() {
+		JsonObject jobj = new JsonObject(2);
+		
+		jobj.put("z", 1);
+		jobj.put("a", 2);
+		jobj.put("m", 3);
+		jobj.put("a", 4);
+		
+		assertEquals(3, jobj.size());
+		assertEquals("{\"z\":1,\"a\":4,\"m\":3}", jobj.toString());
+	}
+	
+	@Test
+	public void test_manyKeys() {
+		JsonObject jobj = new JsonObject();
+		StringBuilder expected = new StringBuilder("{");
+		
+		// Enough keys for the lookups to go through the hash index
+		for(int i = 0; i < 100; i++) {
+			assertEquals(null, jobj.put("key" + i, i));
+			expected.append(i == 0 ? "" : ",").append("\"key").append(i).append("\":").append(i);
+		}
+		
+		assertEquals(Integer.valueOf(42), jobj.put("key42", -42));
+		
+		for(int i = 0; i < 100; i++) {
+			assertTrue(jobj.containsKey("key" + i));
+			assertEquals(i == 42 ? -42 : i, jobj.get(new String("key" + i)));
+		}
+		
+		assertFalse(jobj.containsKey("key100"));
+		assertEquals(null, jobj.get("missing"));
+		assertEquals(100, jobj.size());
+		assertEquals(expected.append('}').toString().replace(":42,", ":-42,"), jobj.toString());
+	}
+	
+	@Test
+	public void test_nullKey() {
+		JsonObject jobj = new JsonObject();
+		
+		assertFalse(jobj.containsKey(null));
+		jobj.put(null, 1);
+		assertTrue(jobj.containsKey(null));
+		assertEquals(1, jobj.get(null));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_constructor_negativeCapacity() {
+		new JsonObject(-1);
+	}
+	
 	@Test
 	public void test_toString_1() {
 		JsonObject jobj = new JsonObject();
@@ -1,13 +1,34 @@
 package fr.ankeraout.libjson.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
 import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonHandler;
+import fr.ankeraout.libjson.JsonLexer;
 import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonNumber;
 import fr.ankeraout.libjson.JsonObject;
 import fr.ankeraout.libjson.JsonParser;
 import fr.ankeraout.libjson.JsonParserException;
@@ -24,8 +45,8 @@ public class JsonParserTest {
 		
 		JsonObject jo = (JsonObject)obj;
 		
-		assertEquals(0.0, jo.get("test1"));
-		assertEquals(-1.0, jo.get("test2"));
+		assertEquals(0L, jo.get("test1"));
+		assertEquals(-1L, jo.get("test2"));
 		assertEquals(2.0, jo.get("test3"));
 		assertEquals(-3.0, jo.get("test4"));
 		assertEquals(40.0, jo.get("test5"));
@@ -33,6 +54,23 @@ public class JsonParserTest {
 		assertEquals(60.0, jo.get("test7"));
 	}
 	
+	@Test
+	public void test_rawNumbers() throws JsonLexerException, JsonParserException {
+		String input = "{\"id\":123456789012345678,\"price\":1.10,\"values\":[1,2.50]}";
+		JsonObject jo = (JsonObject)new JsonParser(true).parseDocument(input);
+		
+		assertTrue(jo.get("id") instanceof JsonNumber);
+		assertEquals(123456789012345678L, ((JsonNumber)jo.get("id")).getValue());
+		assertEquals(1.1, ((JsonNumber)jo.get("price")).doubleValue(), 0);
+		
+		// The numbers are written exactly as they were read
+		assertEquals("[1,2.50]", jo.get("values").toString());
+		
+		jo = (JsonObject)new JsonParser().parseDocument(input);
+		
+		assertEquals(123456789012345678L, jo.get("id"));
+	}
+	
 	@Test
 	public void test_string() throws JsonLexerException, JsonParserException {
 		String input = "{\"test1\":\"\\u0065\", \"test2\":\"\\n\"}";
@@ -174,7 +212,7 @@ public class JsonParserTest {
 		assertEquals(1, jo[0].size());
 		assertEquals(2, jo[1].size());
 		assertEquals("a", jo[0].get(0));
-		assertEquals(3.0, jo[1].get(0));
+		assertEquals(3L, jo[1].get(0));
 		assertEquals(3.14, jo[1].get(1));
 	}
 	
@@ -473,6 +511,399 @@ public class JsonParserTest {
 		JsonParser.parse(input);
 	}
 	
+	@Test
+	public void test_reader() throws JsonLexerException, JsonParserException {
+		Object obj = JsonParser.parse(new StringReader("{\"a\":[\"b\",1,{\"c\":null}]}"));
+		
+		assertTrue("The returned object is not a JsonObject.", obj instanceof JsonObject);
+		
+		JsonArray ja = (JsonArray)((JsonObject)obj).get("a");
+		
+		assertEquals(3, ja.size());
+		assertEquals("b", ja.get(0));
+		assertTrue(((JsonObject)ja.get(2)).containsKey("c"));
+	}
+	
+	@Test
+	public void test_bytes() throws JsonLexerException, JsonParserException {
+		String input = "{\"a\":[1,\"b\\u00e9\u00e8\",{\"c\":null}],\"d\":true}";
+		Object expected = JsonParser.parse(input);
+		
+		assertEquals(expected.toString(), JsonParser.parse(input.getBytes(StandardCharsets.UTF_8)).toString());
+		assertEquals(expected.toString(), JsonParser.parse(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8))).toString());
+	}
+	
+	@Test
+	public void test_objectOrder() throws JsonLexerException, JsonParserException {
+		String input = "{\"b\":1,\"a\":{\"y\":2,\"x\":3},\"c\":[{\"k\":1,\"j\":2},{\"k\":3,\"j\":4,\"i\":5},{}]}";
+		JsonParser parser = new JsonParser();
+		
+		// The second parse reuses the object sizes recorded by the first one
+		assertEquals(input, parser.parseDocument(input).toString());
+		assertEquals(input, parser.parseDocument(input).toString());
+	}
+	
+	@Test
+	public void test_scalar() throws JsonLexerException, JsonParserException {
+		assertEquals(Boolean.TRUE, JsonParser.parse("true"));
+		assertEquals(Boolean.FALSE, JsonParser.parse(" false "));
+		assertNull(JsonParser.parse("null"));
+		assertEquals("a\u00e9", JsonParser.parse("\"a\\u00e9\""));
+		assertEquals(42L, JsonParser.parse("42"));
+		assertEquals(-1500.0, JsonParser.parse("-1.5e3"));
+		assertEquals(7L, JsonParser.parse("7\n".getBytes(StandardCharsets.UTF_8)));
+		assertEquals(0.5, JsonParser.parse("0.5".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("1e2", new JsonParser(true).parseDocument("1e2").toString());
+	}
+	
+	@Test
+	public void test_maxDepth() throws JsonLexerException, JsonParserException {
+		JsonParser parser = new JsonParser(false, 3);
+		
+		assertEquals("[[{\"a\":1}]]", ((JsonArray)parser.parseDocument("[[{\"a\":1}]]")).toString(0, "", false));
+		
+		try {
+			parser.parseDocument("[[{\"a\":[]}]]");
+			fail("The maximum depth was not enforced.");
+		} catch(JsonParserException e) {
+			assertEquals("Maximum nesting depth of 3 exceeded", e.getMessage());
+		}
+		
+		// The parser can be reused after a failure
+		assertEquals(1L, ((JsonArray)parser.parseDocument("[1]")).get(0));
+	}
+	
+	@Test
+	public void test_maxDepth_default() throws JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder();
+		
+		for(int i = 0; i < JsonParser.DEFAULT_MAX_DEPTH; i++) {
+			sb.append('[');
+		}
+		
+		for(int i = 0; i < JsonParser.DEFAULT_MAX_DEPTH; i++) {
+			sb.append(']');
+		}
+		
+		assertTrue(JsonParser.parse(sb.toString()) instanceof JsonArray);
+		
+		try {
+			JsonParser.parse("[" + sb + "]");
+			fail("The default maximum depth was not enforced.");
+		} catch(JsonParserException e) {
+			// Expected
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_maxDepth_invalid() {
+		new JsonParser(false, 0);
+	}
+	
+	@Test
+	public void test_path() throws IOException, JsonLexerException, JsonParserException {
+		String input = "{\"a\":[1,\"b\\u00e9\u00e8\",{\"c\":null}],\"d\":true}";
+		Path path = Files.createTempFile("libjson", ".json");
+		
+		try {
+			Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+			
+			assertEquals(JsonParser.parse(input).toString(), JsonParser.parse(path).toString());
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
+	@Test(expected=JsonParserException.class)
+	public void test_path_empty() throws IOException, JsonLexerException, JsonParserException {
+		Path path = Files.createTempFile("libjson", ".json");
+		
+		try {
+			JsonParser.parse(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+	
+	@Test
+	public void test_inputStream() throws JsonLexerException, JsonParserException {
+		byte[] input = "[\"\u00e9t\u00e9\", \"\u20ac\"]".getBytes(StandardCharsets.UTF_8);
+		
+		Object obj = JsonParser.parse(new ByteArrayInputStream(input));
+		
+		assertTrue("The returned object is not a JsonArray.", obj instanceof JsonArray);
+		
+		JsonArray ja = (JsonArray)obj;
+		
+		assertEquals("\u00e9t\u00e9", ja.get(0));
+		assertEquals("\u20ac", ja.get(1));
+	}
+	
+	@Test
+	public void test_handler() throws JsonLexerException, JsonParserException {
+		RecordingHandler handler = new RecordingHandler();
+		
+		JsonParser.parse("{\"a\":[1.5,\"b\",true,false,null,{}],\"c\":[]}", handler);
+		
+		assertEquals("{ key(a) [ number(1.5) string(b) boolean(true) boolean(false) null { } ] key(c) [ ] } ", handler.events.toString());
+	}
+	
+	@Test
+	public void test_internKeys() throws JsonLexerException, JsonParserException {
+		String input = "[{\"id\":1,\"na\\u006de\":\"x\"},{\"id\":2,\"name\":\"y\"},{\"id\":3}]";
+		byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		
+		JsonLexer[] lexers = {
+			new JsonLexer(input),
+			new JsonLexer(new StringReader(input)),
+			new JsonLexer(bytes),
+			new JsonLexer(direct)
+		};
+		
+		for(JsonLexer lexer : lexers) {
+			final List<String> keys = new ArrayList<String>();
+			
+			new JsonParser().parseDocument(lexer, new RecordingHandler() {
+				@Override
+				public void onKey(String key) throws JsonParserException {
+					keys.add(key);
+				}
+			});
+			
+			assertEquals("[id, name, id, name, id]", keys.toString());
+			assertSame(keys.get(0), keys.get(2));
+			assertSame(keys.get(0), keys.get(4));
+			assertSame(keys.get(1), keys.get(3));
+		}
+		
+		final List<String> keys = new ArrayList<String>();
+		
+		new JsonParser(false, JsonParser.DEFAULT_MAX_DEPTH, false).parseDocument(new JsonLexer(input), new RecordingHandler() {
+			@Override
+			public void onKey(String key) throws JsonParserException {
+				keys.add(key);
+			}
+		});
+		
+		assertNotSame(keys.get(0), keys.get(2));
+	}
+	
+	@Test
+	public void test_internKeys_large() throws JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder("[");
+		
+		// Some of the keys span two fills of the input buffer of the lexer
+		for(int i = 0; i < 3000; i++) {
+			sb.append(i == 0 ? "" : ",").append("{\"key").append(i % 7).append("\":").append(i).append(",\"k\\u00e9y\":true}");
+		}
+		
+		String input = sb.append(']').toString();
+		String expected = new JsonParser(false, JsonParser.DEFAULT_MAX_DEPTH, false).parseDocument(input).toString();
+		
+		assertEquals(input.replace("\\u00e9", "\u00e9"), expected);
+		assertEquals(expected, new JsonParser().parseDocument(input).toString());
+		assertEquals(expected, JsonParser.parse(input.getBytes(StandardCharsets.UTF_8)).toString());
+		assertEquals(expected, JsonParser.parse(new StringReader(input)).toString());
+	}
+	
+	@Test
+	public void test_handler_abort() throws JsonLexerException {
+		RecordingHandler handler = new RecordingHandler() {
+			@Override
+			public void onNull() throws JsonParserException {
+				throw new JsonParserException("null is not allowed");
+			}
+		};
+		
+		try {
+			new JsonParser().parseDocument(new JsonLexer("[1,null,2]"), handler);
+			fail("The parser should have thrown an exception.");
+		} catch(JsonParserException e) {
+			assertEquals("null is not allowed", e.getMessage());
+		}
+		
+		assertEquals("[ number(1) ", handler.events.toString());
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_handler_exception() throws JsonLexerException, JsonParserException {
+		JsonParser.parse("[1,]", new RecordingHandler());
+	}
+	
+	@Test
+	public void test_instance_reuse() throws JsonLexerException, JsonParserException {
+		JsonParser parser = new JsonParser();
+		
+		try {
+			parser.parseDocument("[{\"a\":");
+			fail("The parser should have thrown an exception.");
+		} catch(JsonParserException e) {
+			// Expected: the next call must not be affected by this failure.
+		}
+		
+		Object obj = parser.parseDocument("{\"a\":[true]}");
+		
+		assertTrue("The returned object is not a JsonObject.", obj instanceof JsonObject);
+		assertEquals(true, ((JsonArray)((JsonObject)obj).get("a")).get(0));
+		
+		obj = parser.parseDocument("[null]");
+		
+		assertTrue("The returned object is not a JsonArray.", obj instanceof JsonArray);
+		assertEquals(1, ((JsonArray)obj).size());
+	}
+	
+	@Test
+	public void test_concurrent() throws Exception {
+		final String input = "{\"a\":[1,2,{\"b\":\"c\"}],\"d\":true}";
+		final int threadCount = 8;
+		final int iterations = 2000;
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>(threadCount);
+		
+		try {
+			for(int i = 0; i < threadCount; i++) {
+				futures.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						JsonParser parser = new JsonParser();
+						int count = 0;
+						
+						for(int j = 0; j < iterations; j++) {
+							Object obj = (j % 2 == 0) ? JsonParser.parse(input) : parser.parseDocument(input);
+							JsonObject jo = (JsonObject)obj;
+							JsonArray ja = (JsonArray)jo.get("a");
+							
+							if(ja.size() == 3 && "c".equals(((JsonObject)ja.get(2)).get("b")) && Boolean.TRUE.equals(jo.get("d"))) {
+								count++;
+							}
+						}
+						
+						return count;
+					}
+				}));
+			}
+			
+			for(Future<Integer> future : futures) {
+				assertEquals(iterations, future.get().intValue());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_parseParallel() throws JsonLexerException, JsonParserException {
+		String input = JsonParserTest.largeArray(20000, "");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		
+		try {
+			String expected = JsonParser.parse(input).toString();
+			
+			assertEquals(expected, JsonParser.parseParallel(input, pool).toString());
+			assertEquals(expected, JsonParser.parseParallel(input.getBytes(StandardCharsets.UTF_8), pool).toString());
+			assertEquals(expected, JsonParser.parseParallel(input).toString());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_parseParallel_numbers() throws JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder("[");
+		
+		for(int i = 0; i < 100000; i++) {
+			sb.append(i == 0 ? "" : ",").append(i % 3 == 0 ? i + 0.5 : i);
+		}
+		
+		String input = sb.append(']').toString();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		
+		try {
+			JsonArray expected = (JsonArray)JsonParser.parse(input);
+			JsonArray array = (JsonArray)JsonParser.parseParallel(input, pool);
+			
+			assertEquals(expected, array);
+			assertEquals(100000.0 * 99999 / 2 + 33334 * 0.5, JsonParserTest.sum(array.toDoubleArray()), 0);
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_parseParallel_notSplit() throws JsonLexerException, JsonParserException {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		
+		try {
+			assertEquals("[1,2]", JsonParser.parseParallel(" [1,2] ", pool).toString());
+			assertEquals("{\"a\":[1]}", JsonParser.parseParallel("{\"a\":[1]}", pool).toString());
+			assertEquals("a", JsonParser.parseParallel("\"a\"", pool));
+			assertEquals(20000, ((JsonArray)JsonParser.parseParallel(JsonParserTest.largeArray(20000, ""), new ForkJoinPool(1))).size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_exception_parseParallel() throws JsonLexerException {
+		String[] inputs = {
+			JsonParserTest.largeArray(20000, "").replace("},{\"id\":15000,", "},,{\"id\":15000,"),
+			JsonParserTest.largeArray(20000, "").replace("]", ",]"),
+			JsonParserTest.largeArray(20000, "").replace("\"id\":15000", "\"id\":15000]"),
+			JsonParserTest.largeArray(20000, "true"),
+			JsonParserTest.largeArray(20000, "").replace(",{\"id\":15000,", "],{\"id\":15000,"),
+			JsonParserTest.largeArray(20000, "").replace(",{\"id\":15000,", ",[{\"id\":15000,")
+		};
+		ForkJoinPool pool = new ForkJoinPool(4);
+		
+		try {
+			for(String input : inputs) {
+				String expected = null;
+				
+				try {
+					JsonParser.parse(input);
+				} catch(JsonParserException e) {
+					expected = e.getMessage();
+				}
+				
+				try {
+					JsonParser.parseParallel(input.getBytes(StandardCharsets.UTF_8), pool);
+					fail();
+				} catch(JsonParserException e) {
+					assertEquals(expected, e.getMessage());
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Returns an array of objects whose strings contain structural characters.
+	 */
+	private static String largeArray(int count, String suffix) {
+		StringBuilder sb = new StringBuilder("[");
+		
+		for(int i = 0; i < count; i++) {
+			sb.append(i == 0 ? "" : ",");
+			sb.append("{\"id\":").append(i).append(",\"text\":\"a,b]}[{\\\"\\\\\",\"tags\":[\"x\",{\"y\":null}]}");
+		}
+		
+		return sb.append(']').append(suffix).toString();
+	}
+	
+	private static double sum(double[] values) {
+		double sum = 0;
+		
+		for(double value : values) {
+			sum += value;
+		}
+		
+		return sum;
+	}
+	
 	@Test(expected = JsonParserException.class)
 	public void test_exception_dataAfterEnd() throws JsonLexerException, JsonParserException {
 		JsonParser.parse("{}true");
@@ -480,7 +911,17 @@ public class JsonParserTest {
 	
 	@Test(expected = JsonParserException.class)
 	public void test_exception_start() throws JsonLexerException, JsonParserException {
-		JsonParser.parse("true");
+		JsonParser.parse("}");
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_dataAfterScalar() throws JsonLexerException, JsonParserException {
+		JsonParser.parse("1 2");
+	}
+	
+	@Test(expected = JsonLexerException.class)
+	public void test_exception_incompleteScalar() throws JsonLexerException, JsonParserException {
+		JsonParser.parse("-");
 	}
 	
 	@Test(expected = JsonParserException.class)
@@ -528,4 +969,52 @@ public class JsonParserTest {
 		JsonParser.parse("{\"key\"");
 	}
 	
+	private static class RecordingHandler implements JsonHandler {
+		private final StringBuilder events = new StringBuilder();
+		
+		@Override
+		public void onStartObject() throws JsonParserException {
+			this.events.append("{ ");
+		}
+		
+		@Override
+		public void onEndObject() throws JsonParserException {
+			this.events.append("} ");
+		}
+		
+		@Override
+		public void onStartArray() throws JsonParserException {
+			this.events.append("[ ");
+		}
+		
+		@Override
+		public void onEndArray() throws JsonParserException {
+			this.events.append("] ");
+		}
+		
+		@Override
+		public void onKey(String key) throws JsonParserException {
+			this.events.append("key(").append(key).append(") ");
+		}
+		
+		@Override
+		public void onString(String value) throws JsonParserException {
+			this.events.append("string(").append(value).append(") ");
+		}
+		
+		@Override
+		public void onNumber(Number value) throws JsonParserException {
+			this.events.append("number(").append(value).append(") ");
+		}
+		
+		@Override
+		public void onBoolean(boolean value) throws JsonParserException {
+			this.events.append("boolean(").append(value).append(") ");
+		}
+		
+		@Override
+		public void onNull() throws JsonParserException {
+			this.events.append("null ");
+		}
+	}
 }
@@ -0,0 +1,196 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonEvent;
+import fr.ankeraout.libjson.JsonLexer;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonParserException;
+import fr.ankeraout.libjson.JsonReader;
+
+public class JsonReaderTest {
+	@Test
+	public void test_events() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("{\"a\":[1,\"b\",true,false,null],\"c\":{}}");
+		
+		assertEquals(JsonEvent.START_OBJECT, reader.nextEvent());
+		assertEquals(1, reader.getDepth());
+		assertEquals(JsonEvent.KEY, reader.nextEvent());
+		assertEquals("a", reader.getString());
+		assertEquals(JsonEvent.START_ARRAY, reader.nextEvent());
+		assertEquals(2, reader.getDepth());
+		assertEquals(JsonEvent.VALUE_NUMBER, reader.nextEvent());
+		assertEquals(1L, reader.getNumber());
+		assertEquals(JsonEvent.VALUE_STRING, reader.nextEvent());
+		assertEquals("b", reader.getString());
+		assertEquals(JsonEvent.VALUE_TRUE, reader.nextEvent());
+		assertEquals(true, reader.getValue());
+		assertEquals(JsonEvent.VALUE_FALSE, reader.nextEvent());
+		assertEquals(false, reader.getValue());
+		assertEquals(JsonEvent.VALUE_NULL, reader.nextEvent());
+		assertNull(reader.getValue());
+		assertEquals(JsonEvent.END_ARRAY, reader.nextEvent());
+		assertEquals(JsonEvent.KEY, reader.nextEvent());
+		assertEquals("c", reader.getString());
+		assertEquals(JsonEvent.START_OBJECT, reader.nextEvent());
+		assertEquals(JsonEvent.END_OBJECT, reader.nextEvent());
+		assertEquals(JsonEvent.END_OBJECT, reader.nextEvent());
+		assertEquals(0, reader.getDepth());
+		assertNull(reader.nextEvent());
+		assertNull(reader.nextEvent());
+	}
+	
+	@Test
+	public void test_scalar() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader(" 12.5 ");
+		
+		assertEquals(JsonEvent.VALUE_NUMBER, reader.nextEvent());
+		assertEquals(12.5, reader.getNumber());
+		assertEquals(0, reader.getDepth());
+		assertNull(reader.nextEvent());
+		
+		reader = new JsonReader("\"s\"".getBytes());
+		
+		assertEquals(JsonEvent.VALUE_STRING, reader.nextEvent());
+		assertEquals("s", reader.getString());
+		assertNull(reader.nextEvent());
+	}
+	
+	@Test
+	public void test_skipValue() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader(new StringReader("[{\"skip\":{\"a\":[1,[2],{}]},\"id\":42},\"s\",[[]],7]"));
+		
+		assertEquals(JsonEvent.START_ARRAY, reader.nextEvent());
+		assertEquals(JsonEvent.START_OBJECT, reader.nextEvent());
+		assertEquals(JsonEvent.KEY, reader.nextEvent());
+		
+		reader.skipValue();
+		
+		assertEquals(JsonEvent.KEY, reader.nextEvent());
+		assertEquals("id", reader.getString());
+		assertEquals(JsonEvent.VALUE_NUMBER, reader.nextEvent());
+		assertEquals(42L, reader.getNumber());
+		assertEquals(JsonEvent.END_OBJECT, reader.nextEvent());
+		
+		reader.skipValue();
+		reader.skipValue();
+		
+		assertEquals(JsonEvent.VALUE_NUMBER, reader.nextEvent());
+		assertEquals(7L, reader.getNumber());
+		assertEquals(JsonEvent.END_ARRAY, reader.nextEvent());
+		assertNull(reader.nextEvent());
+	}
+	
+	@Test
+	public void test_skipValue_key() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("{\"a\":[1,2],\"b\":3}");
+		
+		assertEquals(JsonEvent.START_OBJECT, reader.nextEvent());
+		
+		reader.skipValue();
+		
+		assertEquals(JsonEvent.KEY, reader.nextEvent());
+		assertEquals("b", reader.getString());
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_skipValue_exception_end() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("[]");
+		
+		reader.nextEvent();
+		reader.skipValue();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void test_getString_exception() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("[]");
+		
+		reader.nextEvent();
+		reader.getString();
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_dataAfterEnd() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("{}[]");
+		
+		while(reader.nextEvent() != null);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_start() throws JsonLexerException, JsonParserException {
+		new JsonReader(":").nextEvent();
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_dataAfterScalar() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("true false");
+		
+		while(reader.nextEvent() != null);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_unexpectedEnd() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("{\"a\":[");
+		
+		while(reader.nextEvent() != null);
+	}
+	
+	@Test
+	public void test_maxDepth() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader(new JsonLexer("[[{\"a\":1}]]"), 3);
+		
+		while(reader.nextEvent() != null);
+		
+		reader = new JsonReader(new JsonLexer("[[{\"a\":[]}]]"), 3);
+		
+		try {
+			while(reader.nextEvent() != null);
+			fail("The maximum depth was not enforced.");
+		} catch(JsonParserException e) {
+			assertEquals("Maximum nesting depth of 3 exceeded", e.getMessage());
+		}
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_maxDepth_default() throws JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder();
+		
+		for(int i = 0; i <= JsonParser.DEFAULT_MAX_DEPTH; i++) {
+			sb.append('[');
+		}
+		
+		for(int i = 0; i <= JsonParser.DEFAULT_MAX_DEPTH; i++) {
+			sb.append(']');
+		}
+		
+		JsonReader reader = new JsonReader(sb.toString());
+		
+		while(reader.nextEvent() != null);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_maxDepth_invalid() {
+		new JsonReader(new JsonLexer("[]"), 0);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_trailingComma() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("[1,]");
+		
+		while(reader.nextEvent() != null);
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_missingColon() throws JsonLexerException, JsonParserException {
+		JsonReader reader = new JsonReader("{\"a\" 1}");
+		
+		while(reader.nextEvent() != null);
+	}
+}
@@ -0,0 +1,213 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonHandler;
+import fr.ankeraout.libjson.JsonLexer;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonNumber;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonParserException;
+import fr.ankeraout.libjson.JsonSequenceReader;
+import fr.ankeraout.libjson.JsonUncheckedException;
+
+public class JsonSequenceReaderTest {
+	@Test
+	public void test_concatenatedValues() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("{\"a\":1}{\"a\":2}[3,[]]\"four\"5 true\nnull{}");
+		
+		assertEquals(1L, ((JsonObject)reader.nextValue()).get("a"));
+		assertEquals(2L, ((JsonObject)reader.nextValue()).get("a"));
+		assertEquals(2, ((JsonArray)reader.nextValue()).size());
+		assertEquals("four", reader.nextValue());
+		assertEquals(5L, reader.nextValue());
+		assertEquals(true, reader.nextValue());
+		assertTrue(reader.hasNextValue());
+		assertNull(reader.nextValue());
+		assertEquals(0, ((JsonObject)reader.nextValue()).size());
+		assertFalse(reader.hasNextValue());
+	}
+	
+	@Test
+	public void test_bytes() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("[\"\u00e9\"] [\"\u20ac\"]".getBytes(StandardCharsets.UTF_8));
+		
+		assertEquals("\u00e9", ((JsonArray)reader.nextValue()).get(0));
+		assertEquals("\u20ac", ((JsonArray)reader.nextValue()).get(0));
+		assertFalse(reader.hasNextValue());
+	}
+	
+	@Test
+	public void test_emptyInput() throws JsonLexerException {
+		assertFalse(new JsonSequenceReader(" \n\t ").hasNextValue());
+	}
+	
+	@Test
+	public void test_stream() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		
+		for(int i = 0; i < 10000; i++) {
+			sb.append("{\"id\":").append(i).append('}');
+		}
+		
+		try(JsonSequenceReader reader = new JsonSequenceReader(new StringReader(sb.toString()))) {
+			long sum = reader.stream().mapToLong(value -> (Long)((JsonObject)value).get("id")).sum();
+			
+			assertEquals(49995000L, sum);
+		}
+	}
+	
+	@Test
+	public void test_lexerAndParser() throws JsonLexerException, JsonParserException {
+		JsonLexer lexer = new JsonLexer("{\"a\":0.1}[0.2]");
+		lexer.setRawNumbers(true);
+		JsonSequenceReader reader = new JsonSequenceReader(lexer, new JsonParser(true));
+		
+		assertEquals(new BigDecimal("0.1"), ((JsonNumber)((JsonObject)reader.nextValue()).get("a")).bigDecimalValue());
+		assertEquals(new BigDecimal("0.2"), ((JsonNumber)((JsonArray)reader.nextValue()).get(0)).bigDecimalValue());
+	}
+	
+	@Test
+	public void test_handler() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("{\"a\":[1]}\"b\"");
+		CountingHandler handler = new CountingHandler();
+		
+		reader.nextValue(handler);
+		assertEquals(6, handler.count);
+		
+		reader.nextValue(handler);
+		assertEquals(7, handler.count);
+		assertFalse(reader.hasNextValue());
+	}
+	
+	@Test(timeout = 10000)
+	public void test_valueReturnedBeforeNextOneIsSent() throws IOException, JsonLexerException, JsonParserException {
+		PipedOutputStream out = new PipedOutputStream();
+		JsonSequenceReader reader = new JsonSequenceReader(new PipedInputStream(out));
+		
+		out.write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+		assertEquals(1L, ((JsonObject)reader.nextValue()).get("id"));
+		
+		out.write("[2]".getBytes(StandardCharsets.UTF_8));
+		out.close();
+		assertEquals(2L, ((JsonArray)reader.nextValue()).get(0));
+		assertFalse(reader.hasNextValue());
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_invalidValue() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("[1]{\"a\" 1}");
+		
+		reader.nextValue();
+		reader.nextValue();
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_truncatedValue() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("{\"a\":1}{\"a\":");
+		
+		while(reader.hasNextValue()) {
+			reader.nextValue();
+		}
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_unexpectedToken() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("[1]]");
+		
+		reader.nextValue();
+		reader.nextValue();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void test_exception_afterInvalidValue() throws JsonLexerException {
+		JsonSequenceReader reader = new JsonSequenceReader("{\"a\":[1 2]}{\"b\":3}");
+		
+		try {
+			reader.nextValue();
+			fail();
+		} catch(JsonParserException e) {
+			// The reader stops here instead of returning the fragments of the invalid value
+		}
+		
+		reader.hasNextValue();
+	}
+	
+	@Test(expected = JsonUncheckedException.class)
+	public void test_exception_iterator() {
+		new JsonSequenceReader("{\"a\":1}{\"a\":").stream().count();
+	}
+	
+	@Test(expected = NoSuchElementException.class)
+	public void test_exception_noMoreValues() throws JsonLexerException, JsonParserException {
+		JsonSequenceReader reader = new JsonSequenceReader("1");
+		
+		reader.nextValue();
+		reader.nextValue();
+	}
+	
+	private static class CountingHandler implements JsonHandler {
+		private int count = 0;
+		
+		@Override
+		public void onStartObject() throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onEndObject() throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onStartArray() throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onEndArray() throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onKey(String key) throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onString(String value) throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onNumber(Number value) throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onBoolean(boolean value) throws JsonParserException {
+			this.count++;
+		}
+		
+		@Override
+		public void onNull() throws JsonParserException {
+			this.count++;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonEvent;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonParserException;
+import fr.ankeraout.libjson.JsonTape;
+
+public class JsonTapeTest {
+	private static final String DOCUMENT = "{\"a\":{\"b\":[0,1,2,{\"c\":\"x\"}]},\"n\":-1.5e3,\"t\":true,\"f\":false,\"z\":null,"
+			+ "\"u\":\"h\u00e9llo \ud83d\ude00\",\"e\":\"a\\nb\\u00e9\",\"k\\u0065y\":1,\"big\":9223372036854775808,\"empty\":[{},[]]}";
+	
+	@Test
+	public void test_navigation() throws JsonLexerException, JsonParserException {
+		JsonTape tape = JsonParser.parseTape(DOCUMENT);
+		int root = tape.getRoot();
+		int b = tape.get(tape.get(root, "a"), "b");
+		
+		assertEquals(JsonEvent.START_OBJECT, tape.getType(root));
+		assertEquals(10, tape.size(root));
+		assertEquals(JsonEvent.START_ARRAY, tape.getType(b));
+		assertEquals(4, tape.size(b));
+		assertEquals("x", tape.getString(tape.get(tape.get(b, 3), "c")));
+		assertEquals(2L, tape.getNumber(tape.get(b, 2)));
+		assertEquals(-1500.0, tape.getNumber(tape.get(root, "n")));
+		assertEquals(new BigDecimal("9223372036854775808"), tape.getNumber(tape.get(root, "big")));
+		assertTrue(tape.getBoolean(tape.get(root, "t")));
+		assertFalse(tape.getBoolean(tape.get(root, "f")));
+		assertEquals(JsonEvent.VALUE_NULL, tape.getType(tape.get(root, "z")));
+		assertEquals("h\u00e9llo \ud83d\ude00", tape.getString(tape.get(root, "u")));
+		assertEquals("a\nb\u00e9", tape.getString(tape.get(root, "e")));
+		assertEquals(1L, tape.getNumber(tape.get(root, "key")));
+		assertEquals(-1, tape.get(root, "missing"));
+		assertEquals(-1, tape.get(root, "x"));
+		assertTrue(tape.stringEquals(tape.get(tape.get(b, 3), "c"), "x"));
+		assertFalse(tape.stringEquals(tape.get(tape.get(b, 3), "c"), "y"));
+		assertTrue(tape.stringEquals(tape.get(root, "e"), "a\nb\u00e9"));
+	}
+	
+	@Test
+	public void test_iteration() throws JsonLexerException, JsonParserException {
+		JsonTape tape = JsonParser.parseTape("[{\"id\":1,\"tags\":[\"a\",\"b\"]},{\"id\":2,\"tags\":[]},{\"id\":3}]");
+		int root = tape.getRoot();
+		List<Object> ids = new ArrayList<Object>();
+		
+		for(int element = root + 1; element < tape.getEnd(root); element = tape.getEnd(element)) {
+			ids.add(tape.getNumber(tape.get(element, "id")));
+		}
+		
+		assertEquals(3, ids.size());
+		assertEquals(3L, ids.get(2));
+		assertEquals(tape.getNodeCount(), tape.getEnd(root));
+	}
+	
+	@Test
+	public void test_getValue() throws JsonLexerException, JsonParserException {
+		String[] inputs = {
+			DOCUMENT,
+			"[]",
+			"{}",
+			" [[[]], {\"a\": [{}, {\"b\": null}]}, 1, \"s\"] ",
+			"\"root\"",
+			"-0.5",
+			"true",
+			"null"
+		};
+		
+		for(String input : inputs) {
+			JsonTape tape = JsonParser.parseTape(input);
+			Object expected = JsonParser.parse(input);
+			Object value = tape.getValue(tape.getRoot());
+			
+			assertEquals(String.valueOf(expected), String.valueOf(value));
+		}
+		
+		assertNull(JsonParser.parseTape("null").getValue(0));
+	}
+	
+	@Test
+	public void test_largeDocument() throws JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder("[");
+		
+		for(int i = 0; i < 5000; i++) {
+			sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"n").append(i).append("\",\"values\":[1.5,").append(i).append("]}");
+		}
+		
+		String input = sb.append(']').toString();
+		JsonTape tape = JsonParser.parseTape(input);
+		
+		assertEquals(5000, tape.size(0));
+		assertEquals("n4321", tape.getString(tape.get(tape.get(0, 4321), "name")));
+		assertEquals(JsonParser.parse(input).toString(), tape.getValue(0).toString());
+	}
+	
+	@Test
+	public void test_exception_invalidDocuments() {
+		String[] inputs = { "", "{\"a\" 1}", "[1,]", "[1] 2", "{\"a\":1", "{1:2}", "[1:2]", "]" };
+		
+		for(String input : inputs) {
+			try {
+				JsonParser.parseTape(input);
+				fail("The parser should have thrown an exception: " + input);
+			} catch(JsonParserException e) {
+				// Expected
+			} catch(JsonLexerException e) {
+				fail("Unexpected lexer exception: " + input);
+			}
+		}
+	}
+	
+	@Test(expected = JsonLexerException.class)
+	public void test_exception_invalidUtf8() throws JsonLexerException, JsonParserException {
+		JsonParser.parseTape(new byte[] { '[', '"', (byte)0xc0, (byte)0x80, '"', ']' });
+	}
+	
+	@Test(expected = JsonParserException.class)
+	public void test_exception_maxDepth() throws JsonLexerException, JsonParserException {
+		StringBuilder sb = new StringBuilder();
+		
+		for(int i = 0; i <= JsonParser.DEFAULT_MAX_DEPTH; i++) {
+			sb.append('[');
+		}
+		
+		JsonParser.parseTape(sb.toString());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void test_exception_indexOutOfBounds() throws JsonLexerException, JsonParserException {
+		JsonParser.parseTape("[1,2]").get(0, 2);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_exception_wrongNodeType() throws JsonLexerException, JsonParserException {
+		JsonTape tape = JsonParser.parseTape("[1,2]");
+		tape.getString(tape.get(0, 0));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test_exception_keyInArray() throws JsonLexerException, JsonParserException {
+		JsonParser.parseTape("[1,2]").get(0, "a");
+	}
+}
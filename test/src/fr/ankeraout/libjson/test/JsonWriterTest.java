@@ -0,0 +1,231 @@
+package fr.ankeraout.libjson.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import fr.ankeraout.libjson.JsonArray;
+import fr.ankeraout.libjson.JsonBinder;
+import fr.ankeraout.libjson.JsonLexerException;
+import fr.ankeraout.libjson.JsonObject;
+import fr.ankeraout.libjson.JsonParser;
+import fr.ankeraout.libjson.JsonParserException;
+import fr.ankeraout.libjson.JsonWriter;
+
+public class JsonWriterTest {
+	public enum Status {
+		ACTIVE,
+		DISABLED
+	}
+	
+	public static class Base {
+		public long id;
+	}
+	
+	public static class User extends Base {
+		public String name;
+		public int age;
+		public double score;
+		public float ratio;
+		public boolean admin;
+		public Status status;
+		public List<String> tags;
+		public Map<String, Integer> counts;
+		public int[] codes;
+		public User friend;
+		public transient String password;
+		public static String ignored = "ignored";
+	}
+	
+	@Test
+	public void test_tree_compact() throws IOException, JsonLexerException, JsonParserException {
+		Object document = JsonParser.parse("[{\"a\":[1,\"b\",true,false,null],\"c\":{}},[],\"\\/\\\"\\u0001\\u0080\"]");
+		StringWriter out = new StringWriter();
+		
+		new JsonWriter(out).writeValue(document);
+		
+		assertEquals(document.toString(), out.toString());
+	}
+	
+	@Test
+	public void test_tree_pretty() throws IOException, JsonLexerException, JsonParserException {
+		Object document = JsonParser.parse("[{\"a\":[1,\"b\",[]],\"c\":{}},[],{\"d\":{\"e\":null}}]");
+		StringBuilder out = new StringBuilder();
+		
+		new JsonWriter(out, "\t", true).writeValue(document);
+		
+		assertEquals(((JsonArray)document).toString(0, "\t", true), out.toString());
+		
+		out = new StringBuilder();
+		new JsonWriter(out, 2, "  ", true).writeValue(document);
+		
+		assertEquals(((JsonArray)document).toString(2, "  ", true), out.toString());
+	}
+	
+	@Test
+	public void test_streaming() throws IOException {
+		StringBuilder out = new StringBuilder();
+		JsonWriter writer = new JsonWriter(out);
+		JsonObject inner = new JsonObject();
+		inner.put("x", 'y');
+		
+		writer.startArray();
+		
+		for(int i = 0; i < 3; i++) {
+			writer.startObject();
+			writer.writeKey("id");
+			writer.writeValue(i);
+			writer.writeKey("inner");
+			writer.writeValue(inner);
+			writer.endObject();
+		}
+		
+		writer.writeValue(1.5);
+		writer.writeValue(Long.MAX_VALUE);
+		writer.endArray();
+		
+		assertEquals("[{\"id\":0,\"inner\":{\"x\":\"y\"}},{\"id\":1,\"inner\":{\"x\":\"y\"}},{\"id\":2,\"inner\":{\"x\":\"y\"}},1.5,9223372036854775807]", out.toString());
+	}
+	
+	@Test
+	public void test_outputStream() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonWriter writer = new JsonWriter(out);
+		JsonArray array = new JsonArray();
+		array.add("h\u00e9llo \u20ac");
+		
+		writer.writeValue(array);
+		writer.flush();
+		
+		assertEquals("[\"h\u00e9llo \u20ac\"]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void test_writeObject() throws IOException {
+		User user = new User();
+		user.id = 7;
+		user.name = "a\"b";
+		user.age = 30;
+		user.score = 1.5;
+		user.ratio = 0.1f;
+		user.admin = true;
+		user.status = Status.ACTIVE;
+		user.tags = Arrays.asList("x", null);
+		user.counts = new LinkedHashMap<>();
+		user.counts.put("k", 1);
+		user.codes = new int[] { 1, 2 };
+		user.password = "secret";
+		
+		assertEquals("{\"id\":7,\"name\":\"a\\\"b\",\"age\":30,\"score\":1.5,\"ratio\":0.1,\"admin\":true,"
+				+ "\"status\":\"ACTIVE\",\"tags\":[\"x\",null],\"counts\":{\"k\":1},\"codes\":[1,2],\"friend\":null}", JsonWriter.toJson(user));
+	}
+	
+	@Test
+	public void test_writeObject_pretty() throws IOException, JsonLexerException, JsonParserException {
+		User user = new User();
+		user.name = "n";
+		user.friend = new User();
+		StringBuilder out = new StringBuilder();
+		
+		new JsonWriter(out, "\t", true).writeObject(Arrays.asList(user, new JsonArray()));
+		Object document = JsonParser.parse(out.toString());
+		
+		assertEquals(((JsonArray)document).toString(0, "\t", true), out.toString());
+	}
+	
+	@Test
+	public void test_writeObject_roundTrip() throws JsonLexerException, JsonParserException {
+		User user = new User();
+		user.id = Long.MIN_VALUE;
+		user.name = "\u00e9\n";
+		user.score = -0.25;
+		user.status = Status.DISABLED;
+		user.codes = new int[0];
+		user.friend = new User();
+		user.friend.age = 3;
+		
+		User copy = JsonBinder.parse(JsonWriter.toJson(user), User.class);
+		
+		assertEquals(JsonWriter.toJson(user), JsonWriter.toJson(copy));
+		assertEquals(3, copy.friend.age);
+	}
+	
+	@Test
+	public void test_writeObject_values() {
+		JsonObject object = new JsonObject();
+		object.put("a", 1);
+		
+		assertEquals("null", JsonWriter.toJson(null));
+		assertEquals("{\"a\":1}", JsonWriter.toJson(object));
+		assertEquals("[\"a\",[1.5],[true]]", JsonWriter.toJson(new Object[] { "a", new double[] { 1.5 }, new boolean[] { true } }));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void test_exception_writeObjectType() {
+		JsonWriter.toJson(Arrays.asList(new AtomicInteger()));
+	}
+	
+	@Test
+	public void test_exception_writeObjectCycle() {
+		User user = new User();
+		user.friend = new User();
+		user.friend.friend = user;
+		List<Object> list = new ArrayList<Object>();
+		list.add(list);
+		
+		for(Object value : new Object[] { user, list }) {
+			try {
+				JsonWriter.toJson(value);
+				fail();
+			} catch(IllegalArgumentException e) {
+				assertTrue(e.getMessage().startsWith("Maximum nesting depth of 1000 exceeded"));
+			}
+		}
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void test_exception_valueWithoutKey() throws IOException {
+		JsonWriter writer = new JsonWriter(new StringBuilder());
+		writer.startObject();
+		writer.writeValue("value");
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void test_exception_keyInArray() throws IOException {
+		JsonWriter writer = new JsonWriter(new StringBuilder());
+		writer.startArray();
+		writer.writeKey("key");
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void test_exception_mismatchedEnd() throws IOException {
+		JsonWriter writer = new JsonWriter(new StringBuilder());
+		writer.startArray();
+		writer.endObject();
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void test_exception_twoRoots() throws IOException {
+		JsonWriter writer = new JsonWriter(new StringBuilder());
+		writer.writeValue(new JsonArray());
+		writer.writeValue(new JsonArray());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void test_exception_type() throws IOException {
+		new JsonWriter(new StringBuilder()).writeValue(new Object());
+	}
+}